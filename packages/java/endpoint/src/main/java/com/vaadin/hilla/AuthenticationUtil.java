@@ -15,11 +15,14 @@
  */
 package com.vaadin.hilla;
 
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.vaadin.flow.di.Lookup;
@@ -66,6 +69,10 @@ public class AuthenticationUtil {
     /**
      * Gets a function for checking if the authenticated user from the Spring
      * SecurityContextHolder is in a given role.
+     * <p>
+     * The authorities of the user are collected into a set when the function
+     * is created, so that each role check is a hash lookup. The function
+     * should therefore not be kept longer than the request it is created for.
      *
      * @param rolePrefix
      *            Prefix for the given role.
@@ -78,12 +85,29 @@ public class AuthenticationUtil {
             return role -> false;
         }
 
+        Set<String> authorities = new HashSet<>();
+        // For checking the roles that are given without the prefix
+        Set<String> rolesWithoutPrefix = new HashSet<>();
+        for (GrantedAuthority grantedAuthority : authentication
+                .getAuthorities()) {
+            String authority = grantedAuthority.getAuthority();
+            if (authority == null) {
+                continue;
+            }
+            authorities.add(authority);
+            if (rolePrefix != null && authority.startsWith(rolePrefix)) {
+                rolesWithoutPrefix
+                        .add(authority.substring(rolePrefix.length()));
+            }
+        }
         return role -> {
-            var roleWithPrefix = (rolePrefix != null && role != null
-                    && !role.startsWith(rolePrefix)) ? rolePrefix + role : role;
-            return authentication.getAuthorities().stream()
-                    .anyMatch(grantedAuthority -> grantedAuthority
-                            .getAuthority().equals(roleWithPrefix));
+            if (role == null) {
+                return false;
+            }
+            if (rolePrefix == null || role.startsWith(rolePrefix)) {
+                return authorities.contains(role);
+            }
+            return rolesWithoutPrefix.contains(role);
         };
     }
 
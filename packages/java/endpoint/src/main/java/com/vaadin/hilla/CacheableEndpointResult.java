@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the serialized result of the annotated endpoint method.
+ * <p>
+ * Calls with the same parameters are answered from the
+ * {@link EndpointResultCache} until the cached result expires. The access to
+ * the method is still checked for every call, but a cached call does not
+ * deserialize or validate the parameters, invoke the method or serialize the
+ * result. Only use this for methods that have no side effects and whose result
+ * only depends on the parameters, and, if enabled, the calling user.
+ * <p>
+ * The annotation is ignored for methods that return a {@code Flux}, an
+ * {@link EndpointSubscription}, a {@code CompletionStage} or a {@code Mono}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheableEndpointResult {
+
+    /**
+     * The time a cached result is used for.
+     *
+     * @return the time to live, in {@link #timeUnit()}
+     */
+    long ttl();
+
+    /**
+     * The unit of {@link #ttl()}.
+     *
+     * @return the time unit, seconds by default
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * Whether results are cached separately for each user, identified by the
+     * principal name.
+     *
+     * @return {@code true} if results are not shared between users
+     */
+    boolean perPrincipal() default false;
+
+    /**
+     * Whether results are cached separately for each set of roles, so that
+     * users with the same roles share the results. The roles are the granted
+     * authorities of a Spring Security authentication.
+     *
+     * @return {@code true} if results are only shared between users with the
+     *         same roles
+     */
+    boolean perRoles() default false;
+}
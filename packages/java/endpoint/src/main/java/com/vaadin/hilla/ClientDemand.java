@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets the client decide how many items the {@code Flux} of the annotated
+ * endpoint method emits for a push subscription.
+ * <p>
+ * By default, all the items are requested from the {@code Flux} when it is
+ * subscribed, and the credits the client sends are ignored. With this, the
+ * items are requested from the {@code Flux} only as the client grants
+ * credits for them. Only use this for a {@code Flux} that honors the demand,
+ * such as one that is generated on request: a {@code Flux} that emits on its
+ * own schedule, such as {@code Flux.interval}, fails or drops items when it
+ * gets ahead of the client, and one created with {@code Flux.create} buffers
+ * them without bound. Use {@link SubscriptionOverflow} for those instead.
+ * <p>
+ * Subscriptions that are buffered because of {@link SubscriptionOverflow} or
+ * the settings of an {@link EndpointSubscription} always honor the credits of
+ * the client, as their buffer is bounded.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ClientDemand {
+}
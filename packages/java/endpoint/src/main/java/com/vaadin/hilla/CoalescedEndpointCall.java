@@ -0,0 +1,69 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent identical calls of the annotated endpoint method share one
+ * execution.
+ * <p>
+ * While a call is being executed, calls with the same parameters wait for it
+ * to finish instead of invoking the method again, and all of them get the same
+ * serialized result, or the same error. Unlike with
+ * {@link CacheableEndpointResult}, the result is not kept once the execution
+ * has finished. The access to the method is still checked for every call.
+ * Only use this for methods that have no side effects and whose result only
+ * depends on the parameters and the calling user.
+ * <p>
+ * By default, only the calls of the same user share an execution, so that a
+ * method that reads the current user never returns the result computed for
+ * another user. Use {@link #shared()} for methods whose result does not depend
+ * on the user.
+ * <p>
+ * The annotation is ignored for methods that return a {@code Flux}, an
+ * {@link EndpointSubscription}, a {@code CompletionStage}, a {@code Mono}, a
+ * stream or a download.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CoalescedEndpointCall {
+
+    /**
+     * Whether the calls of different users share an execution. If not, only
+     * the calls with the same principal name and the same roles share an
+     * execution. All anonymous calls share an execution either way.
+     *
+     * @return {@code true} if executions are shared between users
+     */
+    boolean shared() default false;
+
+    /**
+     * Whether executions that are {@link #shared()} between users are only
+     * shared between users with the same roles. The roles are the granted
+     * authorities of a Spring Security authentication. Ignored if the
+     * executions are not shared, as they are then always scoped by the roles.
+     *
+     * @return {@code true} if shared executions are only shared between users
+     *         with the same roles
+     */
+    boolean perRoles() default false;
+}
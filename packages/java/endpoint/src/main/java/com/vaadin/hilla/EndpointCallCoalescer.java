@@ -0,0 +1,181 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
+import com.vaadin.hilla.EndpointInvocationException.EndpointInternalException;
+import com.vaadin.hilla.EndpointResultCache.Key;
+
+/**
+ * Shares the executions of endpoint methods annotated with
+ * {@link CoalescedEndpointCall} between concurrent identical calls.
+ * <p>
+ * The first call with a given key executes the method and serializes the
+ * result. Calls with the same key that arrive before it has finished wait for
+ * it and get the same serialized result, or the same error. The key is
+ * removed as soon as the execution has finished, so later calls execute the
+ * method again. Waiting calls give up after the timeout of endpoint calls, if
+ * there is one, while the execution continues for the calls that still wait.
+ * <p>
+ * Inject this bean to monitor how many calls are coalesced.
+ */
+public class EndpointCallCoalescer {
+
+    private final Map<Key, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private final Duration waitTimeout;
+
+    /**
+     * Creates a coalescer whose waiting calls wait until the execution has
+     * finished.
+     */
+    public EndpointCallCoalescer() {
+        this(null);
+    }
+
+    /**
+     * Creates a coalescer whose waiting calls wait for at most the given time.
+     *
+     * @param waitTimeout
+     *            the maximum time to wait for an identical call, or
+     *            {@code null} or {@link Duration#ZERO} to wait until it has
+     *            finished
+     */
+    public EndpointCallCoalescer(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout == null || waitTimeout.isZero() ? null
+                : waitTimeout;
+    }
+
+    /**
+     * Gets the number of calls of coalesced methods that executed the method.
+     *
+     * @return the execution count
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * Gets the number of calls of coalesced methods that got the result of an
+     * execution of another call.
+     *
+     * @return the coalesced call count
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the ratio of the calls that got the result of another call to all
+     * calls of coalesced methods.
+     *
+     * @return the coalescing ratio between {@code 0} and {@code 1}, {@code 0}
+     *         if no coalesced methods have been called
+     */
+    public double getCoalescingRatio() {
+        long coalescedCount = getCoalescedCount();
+        long total = coalescedCount + getExecutionCount();
+        return total == 0 ? 0 : (double) coalescedCount / total;
+    }
+
+    /**
+     * Gets the number of executions that are in progress.
+     *
+     * @return the number of executions in progress
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Executes the call, or waits for the execution of an identical call that
+     * is in progress.
+     *
+     * @param key
+     *            the key of the call, whose parameters must not be modified
+     *            until this returns
+     * @param execution
+     *            executes the method and serializes the result
+     * @return the serialized result, which must not be modified
+     * @throws EndpointHttpException
+     *             if thrown by the execution, or if the wait for an identical
+     *             call timed out
+     */
+    byte[] execute(Key key, Execution execution) throws EndpointHttpException {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        executions.increment();
+        try {
+            byte[] json = execution.execute();
+            future.complete(json);
+            return json;
+        } catch (EndpointHttpException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future)
+            throws EndpointHttpException {
+        try {
+            return waitTimeout == null ? future.get()
+                    : future.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new EndpointInternalException(
+                    "Timed out while waiting for an identical call");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EndpointInternalException(
+                    "Interrupted while waiting for an identical call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EndpointHttpException httpException) {
+                throw httpException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new EndpointInternalException(cause.getMessage());
+        }
+    }
+
+    /**
+     * Executes an endpoint method and serializes the result.
+     */
+    @FunctionalInterface
+    interface Execution {
+        byte[] execute() throws EndpointHttpException;
+    }
+}
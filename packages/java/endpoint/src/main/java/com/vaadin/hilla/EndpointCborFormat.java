@@ -0,0 +1,121 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.ClassUtils;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * The CBOR wire format of endpoint calls, which clients can use instead of
+ * JSON by sending the request body as {@code application/cbor}.
+ * <p>
+ * The CBOR mapper is derived from the endpoint object mapper: it has the same
+ * modules, including the transfer types of
+ * {@link com.vaadin.hilla.endpointransfermapper.EndpointTransferMapper} and
+ * the nullability checks, and the same features. Other customizations of the
+ * endpoint mapper, such as visibility settings, are not copied.
+ * <p>
+ * The format is only available if
+ * {@code tools.jackson.dataformat:jackson-dataformat-cbor} is on the
+ * classpath.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class EndpointCborFormat {
+
+    private static final boolean AVAILABLE = ClassUtils.isPresent(
+            "tools.jackson.dataformat.cbor.CBORMapper",
+            EndpointCborFormat.class.getClassLoader());
+
+    private final ObjectMapper mapper;
+
+    private EndpointCborFormat(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Creates the CBOR format for the given endpoint object mapper.
+     *
+     * @param endpointMapper
+     *            the mapper for JSON requests and responses
+     * @return the format, or {@code null} if CBOR is not available
+     */
+    static EndpointCborFormat create(ObjectMapper endpointMapper) {
+        return AVAILABLE
+                ? new EndpointCborFormat(
+                        CborMapperFactory.createMapper(endpointMapper))
+                : null;
+    }
+
+    /**
+     * Checks if the body of the given request is in CBOR.
+     *
+     * @param request
+     *            the request to check
+     * @return {@code true} if the request body is in CBOR
+     */
+    static boolean isCborRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null
+                && contentType.startsWith(MediaType.APPLICATION_CBOR_VALUE);
+    }
+
+    /**
+     * Gets the mapper for reading and writing CBOR.
+     *
+     * @return the CBOR mapper
+     */
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Refers to the CBOR classes, which are only loaded when the format is
+     * available.
+     */
+    private static final class CborMapperFactory {
+        private static ObjectMapper createMapper(ObjectMapper endpointMapper) {
+            CBORMapper.Builder builder = CBORMapper.builder();
+            for (JacksonModule module : endpointMapper.registeredModules()) {
+                builder.addModule(module);
+            }
+            for (MapperFeature feature : MapperFeature.values()) {
+                builder.configure(feature, endpointMapper.isEnabled(feature));
+            }
+            for (SerializationFeature feature : SerializationFeature
+                    .values()) {
+                builder.configure(feature, endpointMapper.isEnabled(feature));
+            }
+            for (DeserializationFeature feature : DeserializationFeature
+                    .values()) {
+                builder.configure(feature, endpointMapper.isEnabled(feature));
+            }
+            for (DateTimeFeature feature : DateTimeFeature.values()) {
+                builder.configure(feature, endpointMapper.isEnabled(feature));
+            }
+            return builder.build();
+        }
+    }
+}
@@ -15,39 +15,71 @@
  */
 package com.vaadin.hilla;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import tools.jackson.core.JacksonException;
 import tools.jackson.core.JsonPointer;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
 import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.databind.util.RawValue;
 
 import com.vaadin.flow.internal.CurrentInstance;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinService;
 import com.vaadin.flow.server.dau.DAUUtils;
 import com.vaadin.flow.server.dau.EnforcementNotificationMessages;
+import com.vaadin.hilla.EndpointInvocationException.EndpointBadRequestException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointInternalException;
+import com.vaadin.hilla.EndpointInvocationException.EndpointNotFoundException;
+import com.vaadin.hilla.EndpointInvocationMetrics.Phase;
+import com.vaadin.hilla.EndpointResultCache.CachedResult;
 import com.vaadin.hilla.auth.CsrfChecker;
 import com.vaadin.hilla.auth.EndpointAccessChecker;
 import com.vaadin.hilla.exception.EndpointException;
@@ -69,6 +101,10 @@ import com.vaadin.hilla.signals.handler.SignalsHandler;
  * the method has parameters, the request body should contain a valid JSON with
  * all parameters in the same order as they are declared in the method. The
  * parameter types should also correspond for the request to be successful.
+ * <p>
+ * Methods that return an {@link InputStream} or a {@link Resource} send the
+ * content as a download instead of JSON. The content is streamed to the
+ * client, with the content type guessed from the file name of the resource.
  */
 @RestController
 @Import({ EndpointControllerConfiguration.class, EndpointProperties.class })
@@ -80,6 +116,15 @@ public class EndpointController {
 
     static final String ENDPOINT_METHODS = "/{endpoint}/{method}";
 
+    static final String ENDPOINT_BATCH = "/_batch";
+
+    /**
+     * The request attribute that holds the action that ends the request for
+     * the DAU tracking, until an asynchronous call takes it over.
+     */
+    private static final String END_REQUEST_ACTION_ATTRIBUTE = EndpointController.class
+            .getName() + ".endRequestAction";
+
     /**
      * A qualifier to override the request and response default json mapper.
      */
@@ -98,6 +143,14 @@ public class EndpointController {
 
     private final ObjectMapper objectMapper;
 
+    private final EndpointProperties endpointProperties;
+
+    private final EndpointExecutor endpointExecutor;
+
+    private EndpointInvocationMetrics metrics = EndpointInvocationMetrics.NONE;
+
+    private volatile EndpointCborFormat cborFormat;
+
     VaadinService vaadinService;
 
     /**
@@ -117,11 +170,55 @@ public class EndpointController {
             EndpointRegistry endpointRegistry, EndpointInvoker endpointInvoker,
             CsrfChecker csrfChecker,
             @Qualifier("hillaEndpointObjectMapper") ObjectMapper objectMapper) {
+        this(context, endpointRegistry, endpointInvoker, csrfChecker,
+                objectMapper, new EndpointProperties(),
+                new EndpointExecutor(new EndpointProperties.Execution()));
+    }
+
+    /**
+     * A constructor used to initialize the controller.
+     *
+     * @param context
+     *            The Spring application context
+     * @param endpointRegistry
+     *            the registry used to store endpoint information
+     * @param endpointInvoker
+     *            then end point invoker
+     * @param csrfChecker
+     *            the csrf checker to use
+     * @param objectMapper
+     *            the mapper used for reading request bodies
+     * @param endpointProperties
+     *            the endpoint configuration properties
+     * @param endpointExecutor
+     *            the executor for endpoint calls that are not executed on the
+     *            servlet container threads
+     */
+    @Autowired
+    public EndpointController(ApplicationContext context,
+            EndpointRegistry endpointRegistry, EndpointInvoker endpointInvoker,
+            CsrfChecker csrfChecker,
+            @Qualifier("hillaEndpointObjectMapper") ObjectMapper objectMapper,
+            EndpointProperties endpointProperties,
+            EndpointExecutor endpointExecutor) {
         this.context = context;
         this.endpointInvoker = endpointInvoker;
         this.csrfChecker = csrfChecker;
         this.endpointRegistry = endpointRegistry;
         this.objectMapper = objectMapper;
+        this.endpointProperties = endpointProperties;
+        this.endpointExecutor = endpointExecutor;
+    }
+
+    /**
+     * Sets the metrics that the durations and the payload sizes of the calls
+     * are reported to.
+     *
+     * @param metrics
+     *            the metrics, not {@code null}
+     */
+    void setMetrics(EndpointInvocationMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
     }
 
     /**
@@ -143,12 +240,9 @@ public class EndpointController {
 
         INTERNAL_BROWSER_CALLABLES.stream().map(context::getBeansOfType)
                 .forEach(endpointBeans::putAll);
-        var currentEndpointNames = endpointBeans.values().stream()
-                .map(endpointRegistry::registerEndpoint)
-                .collect(Collectors.toSet());
-        // remove obsolete endpoints
-        endpointRegistry.getEndpoints().keySet()
-                .retainAll(currentEndpointNames);
+        // Swaps all endpoints at once, which also removes the obsolete ones,
+        // while the calls in progress keep using the previous ones
+        endpointRegistry.replaceEndpoints(endpointBeans.values());
 
         // Temporary Hack
         VaadinService vaadinService = VaadinService.getCurrent();
@@ -168,17 +262,20 @@ public class EndpointController {
      * <p>
      * If an issue occurs during the request processing, an error response is
      * returned instead of the serialized Java method return value.
+     * <p>
+     * When {@link EndpointProperties#isStreamingRequestBinding()} is enabled,
+     * the parameters are deserialized directly from the request stream instead
+     * of parsing the whole body into a JSON tree first.
      *
      * @param endpointName
      *            the name of an endpoint to address the calls to, not case
      *            sensitive
      * @param methodName
      *            the method name to execute on an endpoint, not case sensitive
-     * @param body
-     *            optional request body, that should be specified if the method
-     *            called has parameters
      * @param request
-     *            the current request which triggers the endpoint call
+     *            the current request which triggers the endpoint call, the
+     *            body of which should contain the method parameters as a JSON
+     *            object if the method called has parameters
      * @param response
      *            the current response
      * @return execution result as a JSON string or an error message string
@@ -187,9 +284,88 @@ public class EndpointController {
     public ResponseEntity<String> serveEndpoint(
             @PathVariable("endpoint") String endpointName,
             @PathVariable("method") String methodName,
-            @RequestBody(required = false) ObjectNode body,
             HttpServletRequest request, HttpServletResponse response) {
-        return doServeEndpoint(endpointName, methodName, body, request,
+        return doServeEndpoint(endpointName, methodName, null, true, request,
+                response);
+    }
+
+    /**
+     * Captures and processes the Vaadin endpoint requests that use CBOR
+     * instead of JSON.
+     * <p>
+     * This method works as
+     * {@link #serveEndpoint(String, String, HttpServletRequest, HttpServletResponse)},
+     * but the parameters are read from a CBOR request body and the return
+     * value is sent back in CBOR. Error responses are sent as JSON. The
+     * format is only supported if
+     * {@code tools.jackson.dataformat:jackson-dataformat-cbor} is on the
+     * classpath.
+     *
+     * @param endpointName
+     *            the name of an endpoint to address the calls to, not case
+     *            sensitive
+     * @param methodName
+     *            the method name to execute on an endpoint, not case sensitive
+     * @param request
+     *            the current request which triggers the endpoint call, the
+     *            body of which should contain the method parameters as a CBOR
+     *            map if the method called has parameters
+     * @param response
+     *            the current response
+     * @return {@code null}, as the response is written directly
+     */
+    @PostMapping(path = ENDPOINT_METHODS, consumes = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<String> serveCborEndpoint(
+            @PathVariable("endpoint") String endpointName,
+            @PathVariable("method") String methodName,
+            HttpServletRequest request, HttpServletResponse response) {
+        ResponseEntity<String> result;
+        if (getCborFormat() == null) {
+            result = ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "CBOR requests are not supported"));
+        } else {
+            result = doServeEndpoint(endpointName, methodName, null, true,
+                    request, response);
+        }
+        // Written here, so that Spring does not negotiate the content type of
+        // the JSON error responses
+        if (result != null) {
+            try {
+                writeResponseEntity(result, response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Processes a Vaadin endpoint request with an already parsed body.
+     * <p>
+     * This method works as
+     * {@link #serveEndpoint(String, String, HttpServletRequest, HttpServletResponse)},
+     * but takes the parameters from the given body instead of reading them
+     * from the request.
+     *
+     * @param endpointName
+     *            the name of an endpoint to address the calls to, not case
+     *            sensitive
+     * @param methodName
+     *            the method name to execute on an endpoint, not case sensitive
+     * @param body
+     *            optional request body, that should be specified if the method
+     *            called has parameters
+     * @param request
+     *            the current request which triggers the endpoint call
+     * @param response
+     *            the current response
+     * @return execution result as a JSON string or an error message string
+     */
+    public ResponseEntity<String> serveEndpoint(String endpointName,
+            String methodName, ObjectNode body, HttpServletRequest request,
+            HttpServletResponse response) {
+        return doServeEndpoint(endpointName, methodName, body, false, request,
                 response);
     }
 
@@ -198,8 +374,13 @@ public class EndpointController {
      * used when there are uploaded files.
      * <p>
      * This method works as
-     * {@link #serveEndpoint(String, String, ObjectNode, HttpServletRequest, HttpServletResponse)},
+     * {@link #serveEndpoint(String, String, HttpServletRequest, HttpServletResponse)},
      * but it also captures the files uploaded in the request.
+     * <p>
+     * Files uploaded to {@link InputStream} parameters are not stored before
+     * the call, instead the endpoint method reads them from the request as
+     * they arrive. The streams must be read in the order of the parameters,
+     * as reading a stream skips the unread content of the earlier ones.
      *
      * @param endpointName
      *            the name of an endpoint to address the calls to, not case
@@ -218,10 +399,101 @@ public class EndpointController {
             @PathVariable("method") String methodName,
             HttpServletRequest request, HttpServletResponse response)
             throws IOException {
-        return doServeEndpoint(endpointName, methodName, null, request,
+        return doServeEndpoint(endpointName, methodName, null, false, request,
                 response);
     }
 
+    /**
+     * Captures and processes a batch of Vaadin endpoint calls sent in one
+     * request.
+     * <p>
+     * The request body is a JSON array of objects with the {@code endpoint},
+     * {@code method} and optional {@code params} properties, the last one
+     * having the same format as the body of a single endpoint request. The CSRF
+     * token is validated and the active user is tracked only once for the
+     * whole batch, while access is checked for each call separately with the
+     * access annotations of the method. Security rules that match endpoint
+     * URLs do not apply to the batched calls. The calls are executed one after
+     * another, or concurrently if {@link EndpointProperties#isBatchParallel()}
+     * is enabled. Unless the execution mode is
+     * {@link EndpointProperties.ExecutionMode#CONTAINER}, each call is
+     * executed within the limits of its endpoint, and a call that is rejected
+     * or times out gets the {@code 503} status.
+     * <p>
+     * Batch requests are only accepted if
+     * {@link EndpointProperties#isBatchEnabled()} is enabled.
+     * <p>
+     * The response is a JSON array with an object for each call, in the order
+     * of the request, containing the HTTP {@code status} that the call would
+     * have had as a single request and, if any, the response {@code body}.
+     *
+     * @param request
+     *            the current request which triggers the endpoint calls
+     * @param response
+     *            the current response
+     * @return the results of the calls as a JSON string or an error message
+     *         string if the whole batch is rejected
+     */
+    @PostMapping(path = ENDPOINT_BATCH, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> serveBatch(HttpServletRequest request,
+            HttpServletResponse response) {
+        if (!endpointProperties.isBatchEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!csrfChecker.validateCsrfTokenInRequest(request)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(endpointInvoker.createResponseErrorObject(
+                            EndpointAccessChecker.ACCESS_DENIED_MSG));
+        }
+
+        DAUUtils.EnforcementResult enforcementResult = null;
+        try {
+            enforcementResult = DAUUtils.trackDAU(this.vaadinService, request,
+                    response);
+            if (enforcementResult.isEnforcementNeeded()) {
+                return buildEnforcementResponseEntity(enforcementResult);
+            }
+
+            JsonNode calls;
+            try {
+                calls = objectMapper.readTree(request.getInputStream());
+            } catch (JacksonException e) {
+                LOGGER.debug("Request body does not contain valid JSON", e);
+                return ResponseEntity.badRequest()
+                        .body(endpointInvoker.createResponseErrorObject(
+                                "Request body does not contain valid JSON"));
+            }
+            if (calls == null || !calls.isArray()) {
+                return ResponseEntity.badRequest()
+                        .body(endpointInvoker.createResponseErrorObject(
+                                "Request body must be a JSON array of endpoint calls"));
+            }
+            if (calls.size() > endpointProperties.getBatchMaxSize()) {
+                return ResponseEntity.badRequest()
+                        .body(endpointInvoker.createResponseErrorObject(String
+                                .format("Too many calls in a batch request, the maximum is %d",
+                                        endpointProperties.getBatchMaxSize())));
+            }
+            LOGGER.debug("Batch of {} endpoint calls", calls.size());
+
+            List<ResponseEntity<String>> results = invokeBatch(calls,
+                    request);
+            return ResponseEntity.ok(writeBatchResults(results));
+        } catch (IOException e) {
+            LOGGER.error("Unable to read the request body", e);
+            return ResponseEntity.badRequest()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "Unable to read the request body"));
+        } finally {
+            if (enforcementResult != null
+                    && enforcementResult.endRequestAction() != null) {
+                enforcementResult.endRequestAction().run();
+            } else {
+                CurrentInstance.set(VaadinRequest.class, null);
+            }
+        }
+    }
+
     /**
      * Captures and processes the Vaadin endpoint requests.
      * <p>
@@ -248,14 +520,74 @@ public class EndpointController {
      */
     public ResponseEntity<String> serveEndpoint(String endpointName,
             String methodName, ObjectNode body, HttpServletRequest request) {
-        return doServeEndpoint(endpointName, methodName, body, request, null);
+        return doServeEndpoint(endpointName, methodName, body, false, request,
+                null);
     }
 
     private ResponseEntity<String> doServeEndpoint(String endpointName,
-            String methodName, ObjectNode body, HttpServletRequest request,
-            HttpServletResponse response) {
+            String methodName, ObjectNode body, boolean readBody,
+            HttpServletRequest request, HttpServletResponse response) {
+        if (!isMeasured(endpointName, methodName, request)) {
+            return serveEndpointCall(endpointName, methodName, body, readBody,
+                    request, response);
+        }
+        long startNanos = System.nanoTime();
+        long requestSize = request.getContentLengthLong();
+        if (requestSize >= 0) {
+            metrics.recordRequestSize(endpointName, methodName, requestSize);
+        }
+        ResponseEntity<String> result = serveEndpointCall(endpointName,
+                methodName, body, readBody, request, response);
+        if (result != null) {
+            metrics.recordCall(endpointName, methodName,
+                    result.getStatusCode().value(),
+                    System.nanoTime() - startNanos);
+        } else if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new CallMetricsListener(
+                    endpointName, methodName, startNanos));
+        } else {
+            metrics.recordCall(endpointName, methodName, response.getStatus(),
+                    System.nanoTime() - startNanos);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the call is reported to the metrics. Calls of unknown
+     * endpoints and methods are not, so that the names in the metrics are
+     * bounded.
+     */
+    private boolean isMeasured(String endpointName, String methodName,
+            HttpServletRequest request) {
+        return metrics.isEnabled()
+                && findRoute(endpointName, methodName, request) != null;
+    }
+
+    /**
+     * Finds the route of the call, preferably the one that has been resolved
+     * for the request already.
+     */
+    private EndpointRoute findRoute(String endpointName, String methodName,
+            HttpServletRequest request) {
+        EndpointRoute route = EndpointRoute.get(request, endpointName,
+                methodName);
+        return route != null ? route
+                : endpointRegistry.getRoute(endpointName, methodName);
+    }
+
+    private EndpointRoute getRoute(String endpointName, String methodName,
+            HttpServletRequest request) throws EndpointNotFoundException {
+        EndpointRoute route = EndpointRoute.get(request, endpointName,
+                methodName);
+        return route != null ? route
+                : endpointInvoker.getRoute(endpointName, methodName);
+    }
+
+    private ResponseEntity<String> serveEndpointCall(String endpointName,
+            String methodName, ObjectNode body, boolean readBody,
+            HttpServletRequest request, HttpServletResponse response) {
         LOGGER.debug("Endpoint: {}, method: {}, request body: {}", endpointName,
-                methodName, body);
+                methodName, readBody ? "<stream>" : body);
 
         if (!csrfChecker.validateCsrfTokenInRequest(request)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -267,11 +599,63 @@ public class EndpointController {
         try {
             enforcementResult = DAUUtils.trackDAU(this.vaadinService, request,
                     response);
+            if (enforcementResult.endRequestAction() != null) {
+                // Run when the response is complete for calls that are
+                // completed asynchronously
+                request.setAttribute(END_REQUEST_ACTION_ATTRIBUTE,
+                        enforcementResult.endRequestAction());
+            }
             if (enforcementResult.isEnforcementNeeded()) {
                 return buildEnforcementResponseEntity(enforcementResult);
             }
 
-            if (isMultipartRequest(request)) {
+            if (response != null && endpointExecutor.isEnabled()
+                    && canExecuteAsync(endpointName, methodName, request)) {
+                return invokeEndpointAsync(endpointName, methodName, body,
+                        readBody, request, response);
+            }
+            return invokeEndpoint(endpointName, methodName, body, readBody,
+                    request, response, null);
+        } finally {
+            Object endRequestAction = request
+                    .getAttribute(END_REQUEST_ACTION_ATTRIBUTE);
+            if (endRequestAction != null) {
+                request.removeAttribute(END_REQUEST_ACTION_ATTRIBUTE);
+                ((Runnable) endRequestAction).run();
+            } else {
+                CurrentInstance.set(VaadinRequest.class, null);
+            }
+        }
+    }
+
+    /**
+     * Invokes the endpoint method and converts the result or the error into a
+     * response. The CSRF and DAU checks must have been done by the caller.
+     * <p>
+     * If the method returns an asynchronous value, the response is completed
+     * with Spring MVC async processing when the value is resolved, and
+     * {@code null} is returned. The given deferred result is used for that if
+     * the call is already processed asynchronously. Without a response to
+     * write to or async support, the value is waited for on the current
+     * thread.
+     * <p>
+     * Calls that are processed asynchronously never write to the response
+     * directly, as a timeout may complete it at any time. Their results are
+     * serialized as a whole and set to the deferred result, which Spring MVC
+     * writes to the response unless the call has timed out.
+     */
+    private ResponseEntity<String> invokeEndpoint(String endpointName,
+            String methodName, ObjectNode body, boolean readBody,
+            HttpServletRequest request, HttpServletResponse response,
+            AsyncEndpointResult deferredResult) {
+        EndpointMultipartStream uploadParts = null;
+        try {
+            if (request.getAttribute(
+                    EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE) != null) {
+                uploadParts = createMultipartStream(request);
+                body = readStreamingUploadBody(endpointName, methodName,
+                        uploadParts, request);
+            } else if (isMultipartRequest(request)) {
                 var multipartRequest = (MultipartHttpServletRequest) request;
 
                 // retrieve the body from a part having the correct name
@@ -293,6 +677,8 @@ public class EndpointController {
                 }
 
                 // parse uploaded files and add them to the body
+                var uploadStreams = getUploadStreamParameters(endpointName,
+                        methodName, request);
                 var fileMap = multipartRequest.getFileMap();
                 for (var entry : fileMap.entrySet()) {
                     var partName = entry.getKey();
@@ -305,26 +691,254 @@ public class EndpointController {
                     var parent = pointer.head();
                     var property = pointer.last().getMatchingProperty();
                     var parentObject = body.withObject(parent);
-                    parentObject.putPOJO(property, file);
+                    if (parent.matches() && uploadStreams.contains(property)) {
+                        // Already stored by Spring, e.g. if the upload
+                        // filter is not registered
+                        parentObject.putPOJO(property, file.getInputStream());
+                    } else {
+                        parentObject.putPOJO(property, file);
+                    }
                 }
             }
 
-            Object returnValue = endpointInvoker.invoke(endpointName,
-                    methodName, body, request.getUserPrincipal(),
-                    request::isUserInRole);
-            try {
-                return ResponseEntity
-                        .ok(endpointInvoker.writeValueAsString(returnValue));
-            } catch (JacksonException e) {
-                String errorMessage = String.format(
-                        "Failed to serialize endpoint '%s' method '%s' response. "
-                                + "Double check method's return type or specify a custom mapper bean with qualifier '%s'",
-                        endpointName, methodName,
-                        EndpointController.ENDPOINT_MAPPER_FACTORY_BEAN_QUALIFIER);
-                LOGGER.error(errorMessage, e);
-                throw new EndpointInternalException(errorMessage);
+            boolean cbor = response != null
+                    && EndpointCborFormat.isCborRequest(request)
+                    && getCborFormat() != null;
+            Object returnValue;
+            if (readBody && endpointProperties.isStreamingRequestBinding()
+                    && !cbor) {
+                returnValue = endpointInvoker.invokeForResponse(
+                        getRoute(endpointName, methodName, request),
+                        endpointName, methodName, request.getInputStream(),
+                        request.getUserPrincipal(), request::isUserInRole,
+                        true);
+            } else {
+                if (readBody) {
+                    body = cbor ? readCborRequestBody(request)
+                            : readRequestBody(request);
+                }
+                returnValue = endpointInvoker.invokeForResponse(
+                        getRoute(endpointName, methodName, request),
+                        endpointName, methodName, body,
+                        request.getUserPrincipal(), request::isUserInRole,
+                        true);
+            }
+            if (returnValue instanceof CompletableFuture<?> asyncResult) {
+                // Uploaded files are cleaned up when the container thread
+                // leaves the dispatcher, so multipart calls wait for the value
+                if (response != null && !isMultipartRequest(request)
+                        && (deferredResult != null
+                                || request.isAsyncSupported())) {
+                    if (deferredResult == null) {
+                        deferredResult = new AsyncEndpointResult(endpointName,
+                                methodName, request, response, cbor);
+                    }
+                    deferredResult.completeWhenResolved(asyncResult);
+                    return null;
+                }
+                returnValue = awaitResult(asyncResult);
+            }
+            if (EndpointDownload.isDownload(returnValue)) {
+                return sendDownload(endpointName, methodName, returnValue,
+                        response, deferredResult);
+            }
+            if (response != null && !cbor) {
+                boolean ndjson = EndpointStreamedResult
+                        .isNdjsonRequest(request)
+                        && EndpointStreamedResult.hasElements(returnValue);
+                if (ndjson && deferredResult != null) {
+                    deferredResult.complete(serializeElements(endpointName,
+                            methodName, returnValue));
+                    return null;
+                }
+                if (deferredResult == null && (ndjson
+                        || EndpointStreamedResult.isStreamed(returnValue))) {
+                    writeElements(endpointName, methodName, returnValue,
+                            ndjson, response);
+                    return null;
+                }
+            }
+            // Otherwise, streams are read and closed before serializing
+            returnValue = EndpointStreamedResult.collect(returnValue);
+            if (cbor) {
+                // Always sent as a whole, the CBOR responses are compact
+                ResponseEntity<byte[]> cborResponse = serializeCborResponse(
+                        endpointName, methodName, returnValue);
+                if (deferredResult != null) {
+                    deferredResult.complete(cborResponse);
+                } else {
+                    writeCborResponse(cborResponse, response);
+                }
+                return null;
             }
-        } catch (EndpointException e) {
+            boolean streamingResponse = response != null
+                    && deferredResult == null
+                    && endpointProperties.isStreamingResponse();
+            if (returnValue instanceof CachedResult cachedResult) {
+                if (streamingResponse) {
+                    writeCachedResult(cachedResult, response);
+                    metrics.recordResponseSize(endpointName, methodName,
+                            cachedResult.getJson().length);
+                    return null;
+                }
+                metrics.recordResponseSize(endpointName, methodName,
+                        cachedResult.getJson().length);
+                return ResponseEntity.ok(cachedResult.toString());
+            }
+            if (streamingResponse) {
+                writeReturnValue(endpointName, methodName, returnValue,
+                        response);
+                // The response has been written, nothing left for Spring
+                return null;
+            }
+            return ResponseEntity.ok(serializeReturnValue(endpointName,
+                    methodName, returnValue));
+        } catch (EndpointException | IOException | EndpointHttpException e) {
+            if (uploadParts != null && uploadParts.isSizeLimitExceeded()) {
+                // Also when the method fails after reading too much, as the
+                // error then comes from the stream
+                LOGGER.debug("Upload to {}.{} exceeds the size limits",
+                        endpointName, methodName, e);
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(endpointInvoker.createResponseErrorObject(
+                                "The upload exceeds the maximum size"));
+            }
+            return createErrorResponse(endpointName, methodName, e);
+        }
+    }
+
+    /**
+     * Streams a download to the response. Errors that occur before the
+     * response is committed are reported as usual; errors after that, such as
+     * the client closing the connection, can only abort the response.
+     */
+    private ResponseEntity<String> sendDownload(String endpointName,
+            String methodName, Object returnValue,
+            HttpServletResponse response, AsyncEndpointResult deferredResult) {
+        ResponseEntity<Resource> download = EndpointDownload
+                .createResponse(returnValue);
+        if (response == null) {
+            EndpointDownload.discard(download.getBody());
+            return ResponseEntity.badRequest()
+                    .body(endpointInvoker.createResponseErrorObject(String
+                            .format("Endpoint '%s' method '%s' returns a download, which can only be sent in a request of its own",
+                                    endpointName, methodName)));
+        }
+        if (deferredResult != null) {
+            deferredResult.complete(download);
+            return null;
+        }
+        try {
+            long length = writeResponseEntity(download, response);
+            metrics.recordResponseSize(endpointName, methodName, length);
+            return null;
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                LOGGER.debug("Download of endpoint '{}' method '{}' aborted",
+                        endpointName, methodName, e);
+                return null;
+            }
+            response.reset();
+            LOGGER.error(
+                    "Endpoint '{}' method '{}' failed to read the download",
+                    endpointName, methodName, e);
+            return ResponseEntity.internalServerError()
+                    .body(endpointInvoker
+                            .createResponseErrorObject("Endpoint call failed"));
+        }
+    }
+
+    /**
+     * Serializes the return value into a string, and reports the duration and
+     * the size to the metrics.
+     */
+    private String serializeReturnValue(String endpointName,
+            String methodName, Object returnValue)
+            throws EndpointInternalException {
+        long startNanos = metrics.isEnabled() ? System.nanoTime() : 0;
+        String json;
+        try {
+            json = endpointInvoker.writeValueAsString(endpointName,
+                    methodName, returnValue);
+        } catch (JacksonException e) {
+            throw endpointInvoker.createSerializationException(endpointName,
+                    methodName, e);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(endpointName, methodName, Phase.SERIALIZATION,
+                    System.nanoTime() - startNanos);
+            metrics.recordResponseSize(endpointName, methodName,
+                    utf8Length(json));
+        }
+        return json;
+    }
+
+    /**
+     * Serializes the return value into a CBOR response, and reports the
+     * duration and the size to the metrics. Cached results are converted from
+     * JSON.
+     */
+    private ResponseEntity<byte[]> serializeCborResponse(String endpointName,
+            String methodName, Object returnValue)
+            throws EndpointInternalException {
+        ObjectMapper cborMapper = getCborFormat().getMapper();
+        long startNanos = metrics.isEnabled() ? System.nanoTime() : 0;
+        byte[] cbor;
+        try {
+            if (returnValue instanceof CachedResult cachedResult) {
+                cbor = cborMapper.writeValueAsBytes(
+                        objectMapper.readTree(cachedResult.getJson()));
+            } else {
+                cbor = endpointInvoker.writeValueAsBytes(cborMapper,
+                        endpointName, methodName, returnValue);
+            }
+        } catch (JacksonException e) {
+            throw endpointInvoker.createSerializationException(endpointName,
+                    methodName, e);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(endpointName, methodName, Phase.SERIALIZATION,
+                    System.nanoTime() - startNanos);
+            metrics.recordResponseSize(endpointName, methodName, cbor.length);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_CBOR)
+                .body(cbor);
+    }
+
+    private static void writeCborResponse(ResponseEntity<byte[]> entity,
+            HttpServletResponse response) {
+        try {
+            writeResponseEntity(entity, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // The surrogate pair is encoded as four bytes
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Converts an error of an endpoint call into a response.
+     */
+    private ResponseEntity<String> createErrorResponse(String endpointName,
+            String methodName, Throwable error) {
+        if (error instanceof EndpointException e) {
             try {
                 return ResponseEntity.badRequest().body(endpointInvoker
                         .createResponseErrorObject(e.getSerializationData()));
@@ -333,22 +947,756 @@ public class EndpointController {
                 LOGGER.error(errorMessage, e);
                 return ResponseEntity.internalServerError().body(errorMessage);
             }
-        } catch (EndpointHttpException e) {
+        } else if (error instanceof IOException) {
+            LOGGER.error("Unable to read the request body", error);
+            return ResponseEntity.badRequest()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "Unable to read the request body"));
+        } else if (error instanceof EndpointHttpException e) {
             var resp = ResponseEntity.status(e.getHttpStatusCode());
             var message = e.getMessage();
 
             return message == null ? resp.build()
                     : resp.body(
                             endpointInvoker.createResponseErrorObject(message));
-        } finally {
+        }
+        LOGGER.error("Endpoint '{}' method '{}' failed", endpointName,
+                methodName, error);
+        return ResponseEntity.internalServerError()
+                .body(endpointInvoker
+                        .createResponseErrorObject("Endpoint call failed"));
+    }
 
-            if (enforcementResult != null
-                    && enforcementResult.endRequestAction() != null) {
-                enforcementResult.endRequestAction().run();
+    /**
+     * Waits for an asynchronous return value on the current thread.
+     */
+    private static Object awaitResult(CompletableFuture<?> asyncResult)
+            throws EndpointHttpException {
+        try {
+            return asyncResult.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EndpointHttpException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private boolean canExecuteAsync(String endpointName, String methodName,
+            HttpServletRequest request) {
+        // Calls to unknown methods fail fast, and uploaded files are
+        // cleaned up when the container thread leaves the dispatcher
+        return request.isAsyncSupported() && !isMultipartRequest(request)
+                && findRoute(endpointName, methodName, request) != null;
+    }
+
+    /**
+     * Releases the container thread and invokes the endpoint method with the
+     * {@link EndpointExecutor}. The response is completed with Spring MVC
+     * async processing when the call is done, the call times out, or it is
+     * rejected because the endpoint is at its limit.
+     */
+    private ResponseEntity<String> invokeEndpointAsync(String endpointName,
+            String methodName, ObjectNode body, boolean readBody,
+            HttpServletRequest request, HttpServletResponse response) {
+        var deferredResult = new AsyncEndpointResult(endpointName, methodName,
+                request, response, EndpointCborFormat.isCborRequest(request)
+                        && getCborFormat() != null);
+        // Endpoint code may rely on the request attributes and the current
+        // instances of the calling thread. The request attributes of the
+        // container thread are completed when it leaves the dispatcher, so
+        // the call gets its own ones for the same request.
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(
+                request, response);
+        Map<Class<?>, CurrentInstance> instances = CurrentInstance
+                .getInstances();
+        Runnable call = new DelegatingSecurityContextRunnable(() -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            CurrentInstance.restoreInstances(instances);
+            ResponseEntity<String> result;
+            try {
+                result = invokeEndpoint(endpointName, methodName, body,
+                        readBody, request, response, deferredResult);
+            } catch (RuntimeException e) {
+                result = createErrorResponse(endpointName, methodName, e);
+            } finally {
+                CurrentInstance.clearAll();
+                RequestContextHolder.resetRequestAttributes();
+                requestAttributes.requestCompleted();
+            }
+            // Otherwise, the result has been set or is waited for already
+            if (result != null) {
+                deferredResult.complete(result);
+            }
+        });
+        try {
+            endpointExecutor.execute(endpointName, call);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Endpoint '{}' method '{}' rejected", endpointName,
+                    methodName);
+            deferredResult.complete(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(endpointInvoker.createResponseErrorObject(
+                                    "Too many concurrent calls to the endpoint")));
+        }
+        // The response is completed asynchronously
+        return null;
+    }
+
+    /**
+     * The response of an endpoint call that is completed with Spring MVC async
+     * processing, either because the call is executed by the
+     * {@link EndpointExecutor} or because the endpoint method returned an
+     * asynchronous value. Spring MVC handles the async request, its timeout
+     * and its errors, and writes only the first of the result, the timeout and
+     * the rejection to the response on a container thread.
+     * <p>
+     * The request ends for the DAU tracking when the response is complete,
+     * not when the container thread leaves the dispatcher.
+     */
+    private final class AsyncEndpointResult
+            extends DeferredResult<ResponseEntity<?>> {
+        private final String endpointName;
+        private final String methodName;
+        private final boolean cbor;
+        private volatile CompletableFuture<?> pendingResult;
+
+        private AsyncEndpointResult(String endpointName, String methodName,
+                HttpServletRequest request, HttpServletResponse response,
+                boolean cbor) {
+            super(getAsyncTimeout(), () -> createTimeoutResponse());
+            this.endpointName = endpointName;
+            this.methodName = methodName;
+            this.cbor = cbor;
+            onTimeout(() -> {
+                LOGGER.warn("Endpoint '{}' method '{}' timed out",
+                        endpointName, methodName);
+                cancelPendingResult();
+            });
+            onError(error -> cancelPendingResult());
+            Runnable endRequestAction = (Runnable) request
+                    .getAttribute(END_REQUEST_ACTION_ATTRIBUTE);
+            request.removeAttribute(END_REQUEST_ACTION_ATTRIBUTE);
+            if (endRequestAction != null) {
+                onCompletion(endRequestWithInstances(endRequestAction));
+            }
+            startAsyncProcessing(request, response);
+        }
+
+        /**
+         * Completes the response when the given asynchronous return value is
+         * resolved. The value is always sent as a whole. Downloads are
+         * streamed when the response is written.
+         */
+        private void completeWhenResolved(CompletableFuture<?> asyncResult) {
+            pendingResult = asyncResult;
+            asyncResult.whenComplete((value, error) -> {
+                if (error != null) {
+                    complete(createErrorResponse(endpointName, methodName,
+                            error instanceof CompletionException
+                                    && error.getCause() != null
+                                            ? error.getCause()
+                                            : error));
+                    return;
+                }
+                if (EndpointDownload.isDownload(value)) {
+                    complete(EndpointDownload.createResponse(value));
+                    return;
+                }
+                try {
+                    Object result = EndpointStreamedResult.collect(value);
+                    complete(cbor
+                            ? serializeCborResponse(endpointName, methodName,
+                                    result)
+                            : ResponseEntity.ok(serializeReturnValue(
+                                    endpointName, methodName, result)));
+                } catch (EndpointInternalException e) {
+                    complete(createErrorResponse(endpointName, methodName,
+                            e));
+                }
+            });
+        }
+
+        /**
+         * Sets the result, unless the call has timed out or failed already.
+         */
+        private void complete(ResponseEntity<?> result) {
+            if (!setResult(withJsonContentType(result))
+                    && result.getBody() instanceof Resource download) {
+                EndpointDownload.discard(download);
+            }
+        }
+
+        private void cancelPendingResult() {
+            CompletableFuture<?> asyncResult = pendingResult;
+            if (asyncResult != null) {
+                asyncResult.cancel(true);
+            }
+        }
+
+        private void startAsyncProcessing(HttpServletRequest request,
+                HttpServletResponse response) {
+            boolean dispatched = request.getAttribute(
+                    WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE) != null;
+            WebAsyncManager asyncManager = WebAsyncUtils
+                    .getAsyncManager(request);
+            if (!dispatched) {
+                // Called directly rather than by the Spring dispatcher
+                asyncManager.setAsyncWebRequest(
+                        WebAsyncUtils.createAsyncWebRequest(request, response));
+            }
+            try {
+                asyncManager.startDeferredResultProcessing(this);
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "Unable to start async processing of the endpoint call",
+                        e);
+            }
+        }
+    }
+
+    private ResponseEntity<?> createTimeoutResponse() {
+        return withJsonContentType(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(endpointInvoker.createResponseErrorObject(
+                                "The endpoint call timed out")));
+    }
+
+    /**
+     * Gets the timeout of the calls that are completed asynchronously, or
+     * {@code null} for the async request timeout of Spring MVC.
+     */
+    private Long getAsyncTimeout() {
+        Duration timeout = endpointExecutor.getTimeout();
+        return timeout == null ? null : timeout.toMillis();
+    }
+
+    /**
+     * Wraps the action that ends the request for the DAU tracking, so that it
+     * runs with the current instances of the request.
+     */
+    private static Runnable endRequestWithInstances(Runnable endRequestAction) {
+        Map<Class<?>, CurrentInstance> instances = CurrentInstance
+                .getInstances();
+        return () -> {
+            Map<Class<?>, CurrentInstance> previous = CurrentInstance
+                    .getInstances();
+            CurrentInstance.restoreInstances(instances);
+            try {
+                endRequestAction.run();
+            } finally {
+                CurrentInstance.restoreInstances(previous);
+            }
+        };
+    }
+
+    /**
+     * Sets the JSON content type for string bodies, so that error responses
+     * are not negotiated with the accepted types of CBOR requests.
+     */
+    private static ResponseEntity<?> withJsonContentType(
+            ResponseEntity<?> entity) {
+        if (!(entity.getBody() instanceof String)
+                || entity.getHeaders().getContentType() != null) {
+            return entity;
+        }
+        return ResponseEntity.status(entity.getStatusCode())
+                .headers(entity.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON).body(entity.getBody());
+    }
+
+    /**
+     * Reports the duration of a call that is completed with async
+     * processing, when the response is complete.
+     */
+    private final class CallMetricsListener implements AsyncListener {
+        private final String endpointName;
+        private final String methodName;
+        private final long startNanos;
+
+        private CallMetricsListener(String endpointName, String methodName,
+                long startNanos) {
+            this.endpointName = endpointName;
+            this.methodName = methodName;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            metrics.recordCall(endpointName, methodName,
+                    ((HttpServletResponse) event.getSuppliedResponse())
+                            .getStatus(),
+                    System.nanoTime() - startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Reported when completed
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Reported when completed
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not used
+        }
+    }
+
+    /**
+     * Writes the response entity to the response. Binary bodies are written
+     * with the content type of the entity, resources are streamed as
+     * downloads, and string bodies are written as JSON.
+     *
+     * @return the number of bytes written
+     */
+    private static long writeResponseEntity(ResponseEntity<?> entity,
+            HttpServletResponse response) throws IOException {
+        if (response.isCommitted()) {
+            if (entity.getBody() instanceof Resource download) {
+                EndpointDownload.discard(download);
+            }
+            return 0;
+        }
+        response.setStatus(entity.getStatusCode().value());
+        entity.getHeaders().forEach((name, values) -> values
+                .forEach(value -> response.addHeader(name, value)));
+        Object body = entity.getBody();
+        byte[] bytes;
+        if (body instanceof Resource download) {
+            return EndpointDownload.write(download, response);
+        } else if (body instanceof byte[] binary) {
+            bytes = binary;
+        } else if (body != null) {
+            bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        } else {
+            return 0;
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * Invokes the batched calls. Unless the calls are executed on the
+     * container threads, each call is executed by the {@link EndpointExecutor}
+     * in the lane of its endpoint, one after another or all at once if
+     * {@link EndpointProperties#isBatchParallel()} is enabled.
+     */
+    private List<ResponseEntity<String>> invokeBatch(JsonNode calls,
+            HttpServletRequest request) {
+        List<ResponseEntity<String>> results = new ArrayList<>(calls.size());
+        if (!endpointExecutor.isEnabled()) {
+            for (JsonNode call : calls) {
+                results.add(invokeBatchCall(call, request));
+            }
+            return results;
+        }
+        boolean parallel = endpointProperties.isBatchParallel();
+        List<CompletableFuture<ResponseEntity<String>>> pending = new ArrayList<>(
+                calls.size());
+        for (JsonNode call : calls) {
+            var result = executeBatchCall(call, request);
+            if (parallel) {
+                pending.add(result);
             } else {
-                CurrentInstance.set(VaadinRequest.class, null);
+                results.add(awaitBatchCall(result));
             }
         }
+        for (var result : pending) {
+            results.add(awaitBatchCall(result));
+        }
+        return results;
+    }
+
+    /**
+     * Executes a batched call in the lane of its endpoint. Invalid calls and
+     * calls to unknown methods fail fast on the current thread.
+     */
+    private CompletableFuture<ResponseEntity<String>> executeBatchCall(
+            JsonNode call, HttpServletRequest request) {
+        JsonNode endpointNode = call.get("endpoint");
+        JsonNode methodNode = call.get("method");
+        if (endpointNode == null || !endpointNode.isString()
+                || methodNode == null || !methodNode.isString()
+                || findRoute(endpointNode.asString(), methodNode.asString(),
+                        request) == null) {
+            return CompletableFuture
+                    .completedFuture(invokeBatchCall(call, request));
+        }
+        String endpointName = endpointNode.asString();
+        String methodName = methodNode.asString();
+        var result = new CompletableFuture<ResponseEntity<String>>();
+        // Endpoint code may rely on the request attributes and the current
+        // instances of the calling thread, as in the calls of their own
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(
+                request);
+        Map<Class<?>, CurrentInstance> instances = CurrentInstance
+                .getInstances();
+        Runnable task = new DelegatingSecurityContextRunnable(() -> {
+            if (result.isDone()) {
+                // Timed out while queued
+                return;
+            }
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            CurrentInstance.restoreInstances(instances);
+            try {
+                result.complete(invokeBatchCall(call, request));
+            } catch (RuntimeException e) {
+                result.complete(
+                        createErrorResponse(endpointName, methodName, e));
+            } finally {
+                CurrentInstance.clearAll();
+                RequestContextHolder.resetRequestAttributes();
+                requestAttributes.requestCompleted();
+            }
+        });
+        try {
+            endpointExecutor.execute(endpointName, task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Batched call of endpoint '{}' method '{}' rejected",
+                    endpointName, methodName);
+            result.complete(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(endpointInvoker.createResponseErrorObject(
+                                    "Too many concurrent calls to the endpoint")));
+        }
+        return result;
+    }
+
+    /**
+     * Waits for the result of a batched call, at most for the timeout of the
+     * {@link EndpointExecutor}.
+     */
+    private ResponseEntity<String> awaitBatchCall(
+            CompletableFuture<ResponseEntity<String>> result) {
+        Duration timeout = endpointExecutor.getTimeout();
+        try {
+            return timeout == null || timeout.isZero() ? result.get()
+                    : result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            var timedOut = ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "The endpoint call timed out"));
+            // Keeps the call from starting if it is still queued
+            return result.complete(timedOut) ? timedOut : result.join();
+        } catch (ExecutionException e) {
+            LOGGER.error("Batched endpoint call failed", e.getCause());
+            return ResponseEntity.internalServerError()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "Batched endpoint call failed"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.internalServerError()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "Batch request was interrupted"));
+        }
+    }
+
+    private ResponseEntity<String> invokeBatchCall(JsonNode call,
+            HttpServletRequest request) {
+        JsonNode endpointName = call.get("endpoint");
+        JsonNode methodName = call.get("method");
+        if (endpointName == null || !endpointName.isString()
+                || methodName == null || !methodName.isString()) {
+            return ResponseEntity.badRequest()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "Each batched call must have string 'endpoint' and 'method' properties"));
+        }
+        JsonNode params = call.get("params");
+        if (params != null && !params.isNull() && !params.isObject()) {
+            return ResponseEntity.badRequest()
+                    .body(endpointInvoker.createResponseErrorObject(
+                            "The 'params' of a batched call must be a JSON object"));
+        }
+        ObjectNode body = params instanceof ObjectNode object ? object : null;
+        return invokeEndpoint(endpointName.asString(), methodName.asString(),
+                body, false, request, null, null);
+    }
+
+    private String writeBatchResults(List<ResponseEntity<String>> results)
+            throws JacksonException {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (ResponseEntity<String> result : results) {
+            ObjectNode entry = array.addObject();
+            entry.put("status", result.getStatusCode().value());
+            String body = result.getBody();
+            if (body == null) {
+                continue;
+            }
+            // Successful results and error objects are already JSON, other
+            // error messages are plain text
+            if (result.getStatusCode().is2xxSuccessful()
+                    || body.startsWith("{")) {
+                entry.putRawValue("body", new RawValue(body));
+            } else {
+                entry.put("body", body);
+            }
+        }
+        return objectMapper.writeValueAsString(array);
+    }
+
+    /**
+     * Serializes the return value directly to the response. Errors that occur
+     * before the response is committed are reported as usual; errors after
+     * that can only abort the response.
+     */
+    private void writeReturnValue(String endpointName, String methodName,
+            Object returnValue, HttpServletResponse response)
+            throws EndpointInternalException {
+        writeToResponse(endpointName, methodName,
+                MediaType.APPLICATION_JSON_VALUE, response,
+                out -> endpointInvoker.writeValue(out, endpointName,
+                        methodName, returnValue));
+    }
+
+    /**
+     * Serializes the elements of the return value one by one to the response,
+     * and closes the source of the elements when done, whether the writing
+     * succeeds or not.
+     */
+    private void writeElements(String endpointName, String methodName,
+            Object returnValue, boolean lineDelimited,
+            HttpServletResponse response) throws EndpointInternalException {
+        try {
+            writeToResponse(endpointName, methodName,
+                    lineDelimited ? EndpointStreamedResult.NDJSON_VALUE
+                            : MediaType.APPLICATION_JSON_VALUE,
+                    response,
+                    out -> endpointInvoker.writeElements(out, endpointName,
+                            methodName,
+                            EndpointStreamedResult.iterator(returnValue),
+                            lineDelimited));
+        } finally {
+            EndpointStreamedResult.close(returnValue);
+        }
+    }
+
+    /**
+     * Serializes the elements of the return value into a line delimited JSON
+     * response as a whole, and closes the source of the elements.
+     */
+    private ResponseEntity<byte[]> serializeElements(String endpointName,
+            String methodName, Object returnValue)
+            throws EndpointInternalException {
+        var out = new ByteArrayOutputStream();
+        long startNanos = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            endpointInvoker.writeElements(out, endpointName, methodName,
+                    EndpointStreamedResult.iterator(returnValue), true);
+        } catch (JacksonException e) {
+            throw endpointInvoker.createSerializationException(endpointName,
+                    methodName, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            EndpointStreamedResult.close(returnValue);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordPhase(endpointName, methodName, Phase.SERIALIZATION,
+                    System.nanoTime() - startNanos);
+            metrics.recordResponseSize(endpointName, methodName, out.size());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType
+                        .parseMediaType(EndpointStreamedResult.NDJSON_VALUE))
+                .body(out.toByteArray());
+    }
+
+    /**
+     * Writes a successful response with the given writer, buffering the
+     * beginning of the output so that errors can still be reported.
+     */
+    private void writeToResponse(String endpointName, String methodName,
+            String contentType, HttpServletResponse response,
+            ResponseBodyWriter bodyWriter) throws EndpointInternalException {
+        var out = new EndpointResponseOutputStream(response, contentType,
+                endpointProperties.getResponseBufferThreshold());
+        long startNanos = metrics.isEnabled() ? System.nanoTime() : 0;
+        try {
+            bodyWriter.write(out);
+            out.finish();
+            if (metrics.isEnabled()) {
+                metrics.recordPhase(endpointName, methodName,
+                        Phase.SERIALIZATION, System.nanoTime() - startNanos);
+                metrics.recordResponseSize(endpointName, methodName,
+                        out.getLength());
+            }
+        } catch (JacksonException e) {
+            if (out.isCommitted()) {
+                LOGGER.error(
+                        "Failed to serialize endpoint '{}' method '{}' response after the response was committed",
+                        endpointName, methodName, e);
+                throw e;
+            }
+            out.discard();
+            throw endpointInvoker.createSerializationException(endpointName,
+                    methodName, e);
+        } catch (EndpointInternalException e) {
+            if (out.isCommitted()) {
+                // The error has been logged already
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            out.discard();
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            out.release();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseBodyWriter {
+        void write(OutputStream out)
+                throws EndpointInternalException, IOException;
+    }
+
+    private static void writeCachedResult(CachedResult cachedResult,
+            HttpServletResponse response) {
+        byte[] json = cachedResult.getJson();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(json.length);
+        try {
+            response.getOutputStream().write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectNode readRequestBody(HttpServletRequest request)
+            throws IOException, EndpointBadRequestException {
+        JsonNode tree;
+        try {
+            tree = objectMapper.readTree(request.getInputStream());
+        } catch (JacksonException e) {
+            LOGGER.debug("Request body does not contain valid JSON", e);
+            throw new EndpointBadRequestException(
+                    "Request body does not contain valid JSON");
+        }
+        if (tree == null || tree.isMissingNode() || tree.isNull()) {
+            return null;
+        }
+        if (!tree.isObject()) {
+            throw new EndpointBadRequestException(
+                    "Request body must be a JSON object");
+        }
+        return (ObjectNode) tree;
+    }
+
+    /**
+     * Creates a stream of the parts of a multipart request whose uploaded
+     * files are streamed, within the size limits of the multipart
+     * configuration.
+     */
+    private EndpointMultipartStream createMultipartStream(
+            HttpServletRequest request)
+            throws IOException, EndpointBadRequestException {
+        String boundary = EndpointMultipartStream
+                .getBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new EndpointBadRequestException(
+                    "Missing boundary in multipart request");
+        }
+        long maxFileSize = -1;
+        long maxRequestSize = -1;
+        Object limits = request
+                .getAttribute(EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE);
+        if (limits instanceof MultipartConfigElement config) {
+            maxFileSize = config.getMaxFileSize();
+            maxRequestSize = config.getMaxRequestSize();
+        }
+        return new EndpointMultipartStream(request.getInputStream(), boundary,
+                maxFileSize, maxRequestSize);
+    }
+
+    /**
+     * Reads the body part of a multipart request whose uploaded files are
+     * streamed, and binds the {@link InputStream} parameters to the file
+     * parts. The files are read from the request only when the endpoint
+     * method reads the streams, in the order of the request.
+     */
+    private ObjectNode readStreamingUploadBody(String endpointName,
+            String methodName, EndpointMultipartStream parts,
+            HttpServletRequest request)
+            throws IOException, EndpointBadRequestException {
+        var bodyPart = parts.nextPart();
+        if (bodyPart == null || !BODY_PART_NAME.equals(bodyPart.getName())) {
+            // The client sends the body part before the files
+            throw new EndpointBadRequestException(
+                    "Missing body part in multipart request");
+        }
+        ObjectNode body;
+        try {
+            body = objectMapper.readValue(bodyPart.getInputStream(),
+                    ObjectNode.class);
+        } catch (JacksonException e) {
+            LOGGER.debug("Request body does not contain valid JSON", e);
+            throw new EndpointBadRequestException(
+                    "Request body does not contain valid JSON");
+        }
+        if (body == null) {
+            body = objectMapper.createObjectNode();
+        }
+        for (String parameter : getUploadStreamParameters(endpointName,
+                methodName, request)) {
+            // The client leaves out the parameters that are sent as files
+            if (!body.has(parameter)) {
+                body.putPOJO(parameter,
+                        parts.getPartInputStream("/" + parameter));
+            }
+        }
+        return body;
+    }
+
+    private List<String> getUploadStreamParameters(String endpointName,
+            String methodName, HttpServletRequest request) {
+        EndpointRoute route = findRoute(endpointName, methodName, request);
+        return route == null ? List.of()
+                : route.getInvocationPlan().getUploadStreamParameters();
+    }
+
+    private ObjectNode readCborRequestBody(HttpServletRequest request)
+            throws IOException, EndpointBadRequestException {
+        JsonNode tree;
+        try {
+            tree = getCborFormat().getMapper()
+                    .readTree(request.getInputStream());
+        } catch (JacksonException e) {
+            LOGGER.debug("Request body does not contain valid CBOR", e);
+            throw new EndpointBadRequestException(
+                    "Request body does not contain valid CBOR");
+        }
+        if (tree == null || tree.isMissingNode() || tree.isNull()) {
+            return null;
+        }
+        if (!tree.isObject()) {
+            throw new EndpointBadRequestException(
+                    "Request body must be a CBOR map");
+        }
+        return (ObjectNode) tree;
+    }
+
+    /**
+     * Gets the CBOR format, which is created from the endpoint object mapper
+     * when it is first needed.
+     *
+     * @return the CBOR format, or {@code null} if CBOR is not available
+     */
+    private EndpointCborFormat getCborFormat() {
+        EndpointCborFormat format = cborFormat;
+        if (format == null) {
+            format = EndpointCborFormat.create(objectMapper);
+            cborFormat = format;
+        }
+        return format;
     }
 
     private boolean isMultipartRequest(HttpServletRequest request) {
@@ -15,17 +15,21 @@
  */
 package com.vaadin.hilla;
 
+import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletContext;
 
 import java.lang.reflect.Method;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.webmvc.autoconfigure.WebMvcRegistrations;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.util.pattern.PathPatternParser;
@@ -45,6 +49,7 @@ import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
 public class EndpointControllerConfiguration {
     private static final EndpointTransferMapper ENDPOINT_TRANSFER_MAPPER = new EndpointTransferMapper();
     private final EndpointProperties endpointProperties;
+    private final SerializationNullabilityChecker serializationNullabilityChecker;
     private ObjectMapper endpointMapper;
 
     /**
@@ -56,6 +61,10 @@ public class EndpointControllerConfiguration {
     public EndpointControllerConfiguration(
             EndpointProperties endpointProperties) {
         this.endpointProperties = endpointProperties;
+        this.serializationNullabilityChecker = endpointProperties
+                .isSerializationNullabilityCheck()
+                        ? new SerializationNullabilityChecker()
+                        : null;
     }
 
     /**
@@ -118,9 +127,13 @@ public class EndpointControllerConfiguration {
                     : createDefaultEndpointMapper(applicationContext);
 
             if (this.endpointMapper != null) {
-                this.endpointMapper = this.endpointMapper.rebuild()
-                        .addModule(ENDPOINT_TRANSFER_MAPPER.getJacksonModule())
-                        .build();
+                var builder = this.endpointMapper.rebuild().addModule(
+                        ENDPOINT_TRANSFER_MAPPER.getJacksonModule());
+                if (serializationNullabilityChecker != null) {
+                    builder.addModule(
+                            serializationNullabilityChecker.getModule());
+                }
+                this.endpointMapper = builder.build();
             }
         }
         return this.endpointMapper;
@@ -146,6 +159,10 @@ public class EndpointControllerConfiguration {
      *            the servlet context
      * @param endpointRegistry
      *            the registry used to store endpoint information
+     * @param endpointResultCache
+     *            the cache for the results of cacheable methods
+     * @param endpointCallCoalescer
+     *            the coalescer for the calls of coalesced methods
      *
      * @return the endpoint invoker
      */
@@ -153,10 +170,41 @@ public class EndpointControllerConfiguration {
     EndpointInvoker endpointInvoker(ApplicationContext applicationContext,
             @Qualifier("hillaEndpointObjectMapper") ObjectMapper hillaEndpointObjectMapper,
             ExplicitNullableTypeChecker explicitNullableTypeChecker,
-            ServletContext servletContext, EndpointRegistry endpointRegistry) {
-        return new EndpointInvoker(applicationContext,
+            ServletContext servletContext, EndpointRegistry endpointRegistry,
+            EndpointResultCache endpointResultCache,
+            EndpointCallCoalescer endpointCallCoalescer) {
+        EndpointInvoker invoker = new EndpointInvoker(applicationContext,
                 hillaEndpointObjectMapper, explicitNullableTypeChecker,
                 servletContext, endpointRegistry);
+        invoker.setResultCache(endpointResultCache);
+        invoker.setCallCoalescer(endpointCallCoalescer);
+        invoker.setSerializationNullabilityChecker(
+                serializationNullabilityChecker);
+        return invoker;
+    }
+
+    /**
+     * Registers the cache for the results of endpoint methods annotated with
+     * {@link CacheableEndpointResult}.
+     *
+     * @return the endpoint result cache
+     */
+    @Bean
+    EndpointResultCache endpointResultCache() {
+        return new EndpointResultCache(
+                endpointProperties.getResultCacheSize().toBytes());
+    }
+
+    /**
+     * Registers the coalescer for the calls of endpoint methods annotated with
+     * {@link CoalescedEndpointCall}.
+     *
+     * @return the endpoint call coalescer
+     */
+    @Bean
+    EndpointCallCoalescer endpointCallCoalescer() {
+        return new EndpointCallCoalescer(
+                endpointProperties.getExecution().getTimeout());
     }
 
     /**
@@ -179,7 +227,65 @@ public class EndpointControllerConfiguration {
      */
     @Bean
     EndpointRegistry endpointRegistry(EndpointNameChecker endpointNameChecker) {
-        return new EndpointRegistry(endpointNameChecker);
+        EndpointRegistry registry = new EndpointRegistry(endpointNameChecker);
+        if (endpointProperties.getDispatch() != null) {
+            registry.setDispatch(endpointProperties.getDispatch());
+        }
+        return registry;
+    }
+
+    /**
+     * Registers the filter that resolves the endpoint method of each call
+     * once, for the security checks and the controller to share.
+     *
+     * @param endpointUtil
+     *            the endpoint utilities that find the routes of requests
+     * @return the filter registration
+     */
+    @Bean
+    FilterRegistrationBean<EndpointRoutingFilter> hillaEndpointRoutingFilter(
+            EndpointUtil endpointUtil) {
+        FilterRegistrationBean<EndpointRoutingFilter> registration = new FilterRegistrationBean<>(
+                new EndpointRoutingFilter(endpointUtil::findRoute));
+        // Before the security filters and the upload filter, which uses the
+        // resolved route
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Registers the filter that lets the endpoint methods with
+     * {@link java.io.InputStream} parameters stream the uploaded files.
+     *
+     * @param endpointUtil
+     *            the endpoint utilities that find the routes of requests
+     * @param multipartConfig
+     *            the multipart configuration with the upload size limits, if
+     *            any
+     * @return the filter registration
+     */
+    @Bean
+    FilterRegistrationBean<EndpointUploadFilter> hillaEndpointUploadFilter(
+            EndpointUtil endpointUtil,
+            ObjectProvider<MultipartConfigElement> multipartConfig) {
+        FilterRegistrationBean<EndpointUploadFilter> registration = new FilterRegistrationBean<>(
+                new EndpointUploadFilter(endpointUtil::findRoute,
+                        multipartConfig.getIfAvailable()));
+        // Right after the routing filter, before any filter that may parse
+        // the request parameters
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Registers the executor used for running endpoint methods away from the
+     * servlet container threads.
+     *
+     * @return the endpoint executor
+     */
+    @Bean
+    EndpointExecutor endpointExecutor() {
+        return new EndpointExecutor(endpointProperties.getExecution());
     }
 
     /**
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Sends the values of endpoint methods that return an {@link InputStream} or a
+ * {@link Resource} as downloads, instead of serializing them into JSON.
+ * <p>
+ * The content is copied to the response in chunks of a fixed size, so that it
+ * is never held in memory as a whole. Writing blocks while the client is not
+ * reading, which stops reading the source as well. The content length is only
+ * sent for files and byte arrays, other content is sent with chunked transfer
+ * encoding.
+ * <p>
+ * The content type is guessed from the file name of a resource, and the file
+ * name is sent in the {@code Content-Disposition} header. Content without a
+ * known type, such as a plain input stream, is sent as
+ * {@code application/octet-stream}.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class EndpointDownload {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(EndpointDownload.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private EndpointDownload() {
+    }
+
+    /**
+     * Checks if the given return value is sent as a download.
+     *
+     * @param returnValue
+     *            the value returned by an endpoint method
+     * @return {@code true} if the value is an input stream or a resource
+     */
+    static boolean isDownload(Object returnValue) {
+        return returnValue instanceof InputStream
+                || returnValue instanceof Resource;
+    }
+
+    /**
+     * Checks if the values of methods with the given return type are sent as
+     * downloads.
+     *
+     * @param returnType
+     *            the return type of an endpoint method
+     * @return {@code true} if the type is an input stream or a resource
+     */
+    static boolean isDownloadType(Class<?> returnType) {
+        return InputStream.class.isAssignableFrom(returnType)
+                || Resource.class.isAssignableFrom(returnType);
+    }
+
+    /**
+     * Creates the response for a download. The content is only read when the
+     * response is written with {@link #write(Resource, HttpServletResponse)}.
+     *
+     * @param returnValue
+     *            the input stream or the resource to send
+     * @return the response with the content type and disposition headers
+     */
+    static ResponseEntity<Resource> createResponse(Object returnValue) {
+        Resource resource = returnValue instanceof InputStream in
+                ? new InputStreamResource(in)
+                : (Resource) returnValue;
+        String filename = resource.getFilename();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(filename == null
+                ? MediaType.APPLICATION_OCTET_STREAM
+                : MediaTypeFactory.getMediaType(filename)
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(filename == null
+                ? ContentDisposition.attachment().build()
+                : ContentDisposition.attachment()
+                        .filename(filename, StandardCharsets.UTF_8).build());
+        // The browser must not render the content as something else
+        headers.set("X-Content-Type-Options", "nosniff");
+        if (resource.isFile() || resource instanceof ByteArrayResource) {
+            try {
+                headers.setContentLength(resource.contentLength());
+            } catch (IOException e) {
+                // Sent without the length
+            }
+        }
+        return ResponseEntity.ok().headers(headers).body(resource);
+    }
+
+    /**
+     * Copies the content of a download to the response, and closes the
+     * content.
+     *
+     * @param resource
+     *            the content to send
+     * @param response
+     *            the response to write to, with the headers already set
+     * @return the number of bytes written
+     * @throws IOException
+     *             if the content cannot be read, or the response cannot be
+     *             written
+     */
+    static long write(Resource resource, HttpServletResponse response)
+            throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long length = 0;
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+                length += count;
+            }
+            out.flush();
+            return length;
+        }
+    }
+
+    /**
+     * Closes the content of a download that is not sent, e.g. because the
+     * call timed out.
+     *
+     * @param resource
+     *            the content to close
+     */
+    static void discard(Resource resource) {
+        if (!(resource instanceof InputStreamResource)) {
+            // Other resources open a new stream when read
+            return;
+        }
+        try {
+            resource.getInputStream().close();
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.debug("Unable to close the content of a download", e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vaadin.hilla.EndpointProperties.Execution;
+import com.vaadin.hilla.EndpointProperties.ExecutionMode;
+import com.vaadin.hilla.EndpointProperties.Limits;
+
+/**
+ * Executes endpoint calls away from the servlet container threads, according
+ * to the {@code vaadin.endpoint.execution} settings.
+ * <p>
+ * Each endpoint gets its own lane with its own concurrency limit and queue, so
+ * that slow endpoints cannot use up the capacity of the fast ones. Calls that
+ * exceed both the limit and the queue of a lane are rejected. The lanes are
+ * created when an endpoint is called for the first time.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+public final class EndpointExecutor implements AutoCloseable {
+
+    private final ExecutionMode mode;
+    private final Execution execution;
+    private final Map<String, Limits> endpointLimits = new TreeMap<>(
+            String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new executor with the given settings.
+     *
+     * @param execution
+     *            the execution settings
+     */
+    public EndpointExecutor(Execution execution) {
+        this.mode = execution.getMode();
+        this.execution = execution;
+        this.endpointLimits.putAll(execution.getEndpoints());
+        if (mode == ExecutionMode.BOUNDED) {
+            if (execution.getMaxConcurrentCalls() <= 0) {
+                throw new IllegalStateException(
+                        "vaadin.endpoint.execution.max-concurrent-calls must be positive when the execution mode is BOUNDED");
+            }
+            endpointLimits.forEach((name, limits) -> {
+                if (limits.getMaxConcurrentCalls() != null
+                        && limits.getMaxConcurrentCalls() <= 0) {
+                    throw new IllegalStateException(String.format(
+                            "The max-concurrent-calls of endpoint '%s' must be positive when the execution mode is BOUNDED",
+                            name));
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the execution mode.
+     *
+     * @return the execution mode
+     */
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks whether endpoint calls are executed by this executor, rather
+     * than on the servlet container thread.
+     *
+     * @return {@code true} unless the mode is {@link ExecutionMode#CONTAINER}
+     */
+    public boolean isEnabled() {
+        return mode != ExecutionMode.CONTAINER;
+    }
+
+    /**
+     * Gets the maximum time a call may take.
+     *
+     * @return the timeout, {@link Duration#ZERO} for no limit, or
+     *         {@code null} for the async request timeout of Spring MVC
+     */
+    Duration getTimeout() {
+        return execution.getTimeout();
+    }
+
+    /**
+     * Executes a call of the given endpoint.
+     *
+     * @param endpointName
+     *            the name of the called endpoint, which must be registered
+     * @param call
+     *            the call to execute
+     * @throws RejectedExecutionException
+     *             if the endpoint is at its concurrency limit and its queue is
+     *             full
+     */
+    void execute(String endpointName, Runnable call) {
+        if (!isEnabled()) {
+            throw new IllegalStateException(
+                    "Endpoint calls are executed on the container threads");
+        }
+        Lane lane = lanes.computeIfAbsent(
+                endpointName.toLowerCase(Locale.ENGLISH), this::createLane);
+        lane.execute(call);
+    }
+
+    /**
+     * Gets the names of the endpoints that have been called, in lower case.
+     *
+     * @return the endpoint names
+     */
+    public Set<String> getEndpointNames() {
+        return Set.copyOf(lanes.keySet());
+    }
+
+    /**
+     * Gets the total number of calls that have been rejected because their
+     * endpoint was at its limit.
+     *
+     * @return the number of rejected calls
+     */
+    public long getRejectedCalls() {
+        return lanes.values().stream().mapToLong(Lane::getRejectedCalls).sum();
+    }
+
+    /**
+     * Gets the number of calls of the given endpoint that have been rejected
+     * because the endpoint was at its limit.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @return the number of rejected calls
+     */
+    public long getRejectedCalls(String endpointName) {
+        Lane lane = getLane(endpointName);
+        return lane == null ? 0 : lane.getRejectedCalls();
+    }
+
+    /**
+     * Gets the total number of calls that are currently waiting for their
+     * endpoint to get below its concurrency limit.
+     *
+     * @return the number of queued calls
+     */
+    public int getQueuedCalls() {
+        return lanes.values().stream().mapToInt(Lane::getQueuedCalls).sum();
+    }
+
+    /**
+     * Gets the number of calls of the given endpoint that are currently
+     * waiting for the endpoint to get below its concurrency limit.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @return the number of queued calls
+     */
+    public int getQueuedCalls(String endpointName) {
+        Lane lane = getLane(endpointName);
+        return lane == null ? 0 : lane.getQueuedCalls();
+    }
+
+    /**
+     * Gets the total number of calls that are currently running.
+     *
+     * @return the number of running calls
+     */
+    public int getActiveCalls() {
+        return lanes.values().stream().mapToInt(Lane::getActiveCalls).sum();
+    }
+
+    /**
+     * Gets the number of calls of the given endpoint that are currently
+     * running.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @return the number of running calls
+     */
+    public int getActiveCalls(String endpointName) {
+        Lane lane = getLane(endpointName);
+        return lane == null ? 0 : lane.getActiveCalls();
+    }
+
+    /**
+     * Stops accepting new calls. Calls that are already running or queued are
+     * completed.
+     */
+    @Override
+    public void close() {
+        lanes.values().forEach(Lane::shutdown);
+    }
+
+    private Lane getLane(String endpointName) {
+        return lanes.get(endpointName.toLowerCase(Locale.ENGLISH));
+    }
+
+    private Lane createLane(String endpointName) {
+        Limits limits = endpointLimits.get(endpointName);
+        int maxConcurrentCalls = limits != null
+                && limits.getMaxConcurrentCalls() != null
+                        ? limits.getMaxConcurrentCalls()
+                        : execution.getMaxConcurrentCalls();
+        int queueCapacity = limits != null && limits.getQueueCapacity() != null
+                ? limits.getQueueCapacity()
+                : execution.getQueueCapacity();
+
+        String threadNamePrefix = "hilla-endpoint-" + endpointName + "-";
+        ThreadFactory threadFactory = mode == ExecutionMode.VIRTUAL_THREAD
+                ? Thread.ofVirtual().name(threadNamePrefix, 0).factory()
+                : Thread.ofPlatform().name(threadNamePrefix, 0).daemon()
+                        .factory();
+        if (maxConcurrentCalls <= 0) {
+            // Only possible with virtual threads
+            return new Lane(Executors.newThreadPerTaskExecutor(threadFactory),
+                    null);
+        }
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrentCalls,
+                maxConcurrentCalls, 60, TimeUnit.SECONDS, queue, threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return new Lane(pool, pool);
+    }
+
+    private static final class Lane {
+        private final ExecutorService executor;
+        private final ThreadPoolExecutor pool;
+        private final LongAdder rejectedCalls = new LongAdder();
+        private final AtomicInteger activeCalls = new AtomicInteger();
+
+        private Lane(ExecutorService executor, ThreadPoolExecutor pool) {
+            this.executor = executor;
+            this.pool = pool;
+        }
+
+        private void execute(Runnable call) {
+            try {
+                executor.execute(() -> {
+                    activeCalls.incrementAndGet();
+                    try {
+                        call.run();
+                    } finally {
+                        activeCalls.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejectedCalls.increment();
+                throw e;
+            }
+        }
+
+        private long getRejectedCalls() {
+            return rejectedCalls.sum();
+        }
+
+        private int getQueuedCalls() {
+            return pool == null ? 0 : pool.getQueue().size();
+        }
+
+        private int getActiveCalls() {
+            return activeCalls.get();
+        }
+
+        private void shutdown() {
+            executor.shutdown();
+        }
+    }
+}
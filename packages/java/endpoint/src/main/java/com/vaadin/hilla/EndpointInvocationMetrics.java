@@ -0,0 +1,177 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.util.Locale;
+
+/**
+ * Receives the timings and payload sizes of endpoint calls.
+ * <p>
+ * Only calls of registered endpoint methods are reported, so that the number
+ * of distinct endpoint and method names is bounded. The methods are called on
+ * the threads that handle the calls and must be fast and thread safe.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+public interface EndpointInvocationMetrics {
+
+    /**
+     * The phases of an endpoint call, in the order they are executed.
+     */
+    enum Phase {
+        /**
+         * Checking that the user has access to the method.
+         */
+        ACCESS_CHECK,
+        /**
+         * Deserializing the method parameters from the request body.
+         */
+        DESERIALIZATION,
+        /**
+         * Bean Validation of the method parameters.
+         */
+        PARAMETER_VALIDATION,
+        /**
+         * Executing the method.
+         */
+        INVOCATION,
+        /**
+         * Checking that the return value has no unexpected {@code null}
+         * values.
+         */
+        NULLABILITY_CHECK,
+        /**
+         * Bean Validation of the return value.
+         */
+        RETURN_VALUE_VALIDATION,
+        /**
+         * Serializing the return value into the response body.
+         */
+        SERIALIZATION;
+
+        private final String tagValue = name().toLowerCase(Locale.ENGLISH)
+                .replace('_', '-');
+
+        /**
+         * Gets the name of the phase for use in metric tags.
+         *
+         * @return the phase name in kebab case
+         */
+        public String getTagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Metrics that ignore everything, used when no metrics are collected.
+     */
+    EndpointInvocationMetrics NONE = new EndpointInvocationMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordPhase(String endpointName, String methodName,
+                Phase phase, long durationNanos) {
+            // Not collected
+        }
+
+        @Override
+        public void recordCall(String endpointName, String methodName,
+                int status, long durationNanos) {
+            // Not collected
+        }
+
+        @Override
+        public void recordRequestSize(String endpointName, String methodName,
+                long bytes) {
+            // Not collected
+        }
+
+        @Override
+        public void recordResponseSize(String endpointName, String methodName,
+                long bytes) {
+            // Not collected
+        }
+    };
+
+    /**
+     * Checks whether anything is collected. When not, the callers skip taking
+     * the timings altogether.
+     *
+     * @return {@code true} if metrics are collected
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Records the duration of a phase of a call.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param phase
+     *            the phase
+     * @param durationNanos
+     *            the duration in nanoseconds
+     */
+    void recordPhase(String endpointName, String methodName, Phase phase,
+            long durationNanos);
+
+    /**
+     * Records the total duration of an HTTP call, from receiving the request
+     * until the response is complete.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param status
+     *            the HTTP status of the response
+     * @param durationNanos
+     *            the duration in nanoseconds
+     */
+    void recordCall(String endpointName, String methodName, int status,
+            long durationNanos);
+
+    /**
+     * Records the size of a request body.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param bytes
+     *            the size in bytes
+     */
+    void recordRequestSize(String endpointName, String methodName, long bytes);
+
+    /**
+     * Records the size of a response body.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param bytes
+     *            the size in bytes
+     */
+    void recordResponseSize(String endpointName, String methodName,
+            long bytes);
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.MethodDescriptor;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.googlecode.gentyref.GenericTypeReflector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NativeDetector;
+import org.springframework.lang.NonNullApi;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * An immutable description of how an endpoint method is invoked.
+ * <p>
+ * Everything that only depends on the endpoint class and the method signature
+ * is resolved once when the endpoint is registered, so that invoking the
+ * method only needs to bind the arguments, call the method and serialize the
+ * result. A new plan is created every time the endpoint is registered again,
+ * e.g. after a hot swap.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+public final class EndpointInvocationPlan {
+
+    /**
+     * The strategies for calling an endpoint method.
+     */
+    public enum Dispatch {
+        /**
+         * Calls the method through a {@link MethodHandle} that is created when
+         * the endpoint is registered. The call skips the per-call access and
+         * argument checks of reflection, which allows the JIT to inline it.
+         */
+        METHOD_HANDLE,
+        /**
+         * Calls the method with {@link Method#invoke(Object, Object...)}. This
+         * is used in native images where method handles cannot be created for
+         * arbitrary methods at runtime.
+         */
+        REFLECTION;
+
+        /**
+         * Gets the strategy to use when none has been configured.
+         *
+         * @return {@link #REFLECTION} in a native image, {@link #METHOD_HANDLE}
+         *         otherwise
+         */
+        public static Dispatch getDefault() {
+            return NativeDetector.inNativeImage() ? REFLECTION : METHOD_HANDLE;
+        }
+    }
+
+    private final Method method;
+    private final List<String> parameterNames;
+    private final Map<String, Integer> parameterIndexes;
+    private final Type[] parameterTypes;
+    private final String parameterTypeNames;
+    private final boolean nonNullApi;
+    private final Type asyncResultType;
+    private final CacheableEndpointResult resultCacheSettings;
+    private final CoalescedEndpointCall coalescingSettings;
+    private final boolean[] primitiveParameters;
+    private final Class<?>[] argumentTypes;
+    private final List<String> uploadStreamParameters;
+    private final MethodHandle methodHandle;
+
+    private volatile ParameterReaders parameterReaders;
+    private volatile MethodConstraints methodConstraints;
+
+    EndpointInvocationPlan(Method method, Class<?> endpointClass) {
+        this(method, endpointClass, Dispatch.getDefault());
+    }
+
+    EndpointInvocationPlan(Method method, Class<?> endpointClass,
+            Dispatch dispatch) {
+        this.method = method;
+        this.parameterNames = Arrays.stream(method.getParameters())
+                .map(Parameter::getName).toList();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < parameterNames.size(); i++) {
+            indexes.putIfAbsent(parameterNames.get(i), i);
+        }
+        this.parameterIndexes = Map.copyOf(indexes);
+        this.parameterTypes = GenericTypeReflector
+                .getExactParameterTypes(method, endpointClass);
+        this.parameterTypeNames = Stream.of(parameterTypes)
+                .map(Type::getTypeName).collect(Collectors.joining(", "));
+        this.nonNullApi = isNonNullApi(method.getDeclaringClass().getPackage());
+        this.asyncResultType = getAsyncResultType(
+                GenericTypeReflector.getExactReturnType(method, endpointClass));
+        this.resultCacheSettings = getSerializedResultSettings(method,
+                CacheableEndpointResult.class, asyncResultType != null);
+        this.coalescingSettings = getSerializedResultSettings(method,
+                CoalescedEndpointCall.class, asyncResultType != null);
+        Class<?>[] rawParameterTypes = method.getParameterTypes();
+        this.primitiveParameters = new boolean[rawParameterTypes.length];
+        this.argumentTypes = new Class<?>[rawParameterTypes.length];
+        List<String> uploadStreams = new ArrayList<>();
+        for (int i = 0; i < rawParameterTypes.length; i++) {
+            primitiveParameters[i] = rawParameterTypes[i].isPrimitive();
+            argumentTypes[i] = MethodType.methodType(rawParameterTypes[i])
+                    .wrap().returnType();
+            if (rawParameterTypes[i] == InputStream.class) {
+                uploadStreams.add(parameterNames.get(i));
+            }
+        }
+        this.uploadStreamParameters = List.copyOf(uploadStreams);
+        this.methodHandle = dispatch == Dispatch.METHOD_HANDLE
+                ? createMethodHandle(method)
+                : null;
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(EndpointInvocationPlan.class);
+    }
+
+    /**
+     * Gets the endpoint method described by this plan.
+     *
+     * @return the endpoint method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the names of the method parameters, in declaration order.
+     *
+     * @return the parameter names
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Gets the position of the parameter with the given name.
+     *
+     * @param parameterName
+     *            the parameter name
+     * @return the index of the parameter, or {@code -1} if the method has no
+     *         parameter with the given name
+     */
+    int getParameterIndex(String parameterName) {
+        Integer index = parameterIndexes.get(parameterName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets the exact parameter types of the method, resolved against the
+     * endpoint class.
+     *
+     * @return the parameter types, the returned array must not be modified
+     */
+    Type[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Gets the number of method parameters.
+     *
+     * @return the parameter count
+     */
+    public int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    /**
+     * Gets the names of the parameters that receive uploaded files as
+     * streams, which are read from the request as they arrive.
+     *
+     * @return the names of the {@link InputStream} parameters, empty if
+     *         there are none
+     */
+    List<String> getUploadStreamParameters() {
+        return uploadStreamParameters;
+    }
+
+    /**
+     * Gets the comma-separated list of the parameter type names, used in error
+     * messages.
+     *
+     * @return the parameter type names
+     */
+    String getParameterTypeNames() {
+        return parameterTypeNames;
+    }
+
+    /**
+     * Checks whether the package declaring the method is annotated with
+     * {@link NonNullApi}.
+     *
+     * @return {@code true} if the declaring package is non-null by default
+     */
+    boolean isNonNullApi() {
+        return nonNullApi;
+    }
+
+    /**
+     * Gets the type of the value that an asynchronous method resolves to, i.e.
+     * the type argument of the {@link CompletionStage} or {@link Mono} that
+     * the method returns.
+     *
+     * @return the resolved value type, or {@code null} if the method does not
+     *         return an asynchronous type
+     */
+    Type getAsyncResultType() {
+        return asyncResultType;
+    }
+
+    /**
+     * Gets the result cache settings of the method.
+     *
+     * @return the settings, or {@code null} if the result of the method is not
+     *         cached
+     */
+    CacheableEndpointResult getResultCacheSettings() {
+        return resultCacheSettings;
+    }
+
+    /**
+     * Gets the settings for coalescing concurrent calls of the method.
+     *
+     * @return the settings, or {@code null} if the calls of the method are
+     *         not coalesced
+     */
+    CoalescedEndpointCall getCoalescingSettings() {
+        return coalescingSettings;
+    }
+
+    /**
+     * Gets the strategy that is used for calling the method.
+     *
+     * @return the dispatch strategy
+     */
+    public Dispatch getDispatch() {
+        return methodHandle != null ? Dispatch.METHOD_HANDLE
+                : Dispatch.REFLECTION;
+    }
+
+    /**
+     * Calls the endpoint method with the given arguments.
+     * <p>
+     * Regardless of the dispatch strategy, this behaves like
+     * {@link Method#invoke(Object, Object...)}: invalid arguments cause an
+     * {@link IllegalArgumentException} and anything thrown by the method
+     * itself is wrapped in an {@link InvocationTargetException}. Calls whose
+     * endpoint or arguments do not match the exact parameter types, e.g. an
+     * {@code Integer} for a {@code long} parameter, are made with reflection
+     * too, so that they are converted or rejected in the same way.
+     *
+     * @param endpoint
+     *            the endpoint instance, ignored for static methods
+     * @param arguments
+     *            the method arguments
+     * @return the value returned by the method, or {@code null} for void
+     *         methods
+     * @throws IllegalAccessException
+     *             if the method is not accessible
+     * @throws InvocationTargetException
+     *             if the method throws an exception
+     */
+    Object invoke(Object endpoint, Object[] arguments)
+            throws IllegalAccessException, InvocationTargetException {
+        if (methodHandle == null || !matchesExactly(endpoint, arguments)) {
+            return method.invoke(endpoint, arguments);
+        }
+        try {
+            return (Object) methodHandle.invokeExact(endpoint, arguments);
+        } catch (Throwable e) {
+            // The casts of the handle cannot fail after the checks above, so
+            // this was thrown by the method
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Checks if the handle can be called with the given endpoint and
+     * arguments without converting them.
+     */
+    private boolean matchesExactly(Object endpoint, Object[] arguments) {
+        if (arguments.length != argumentTypes.length
+                || !Modifier.isStatic(method.getModifiers())
+                        && !method.getDeclaringClass().isInstance(endpoint)) {
+            return false;
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            if (argument == null ? primitiveParameters[i]
+                    : !argumentTypes[i].isInstance(argument)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the readers to deserialize the method parameters with the given
+     * mapper. The readers are created on first use and reused as long as the
+     * same mapper is used.
+     *
+     * @param objectMapper
+     *            the mapper used for deserializing request bodies
+     * @return the parameter readers, in declaration order
+     */
+    ObjectReader[] getParameterReaders(ObjectMapper objectMapper) {
+        ParameterReaders readers = parameterReaders;
+        if (readers == null || readers.objectMapper() != objectMapper) {
+            ObjectReader[] created = new ObjectReader[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                created[i] = objectMapper.readerFor(objectMapper
+                        .getTypeFactory().constructType(parameterTypes[i]));
+            }
+            readers = new ParameterReaders(objectMapper, created);
+            parameterReaders = readers;
+        }
+        return readers.readers();
+    }
+
+    /**
+     * Gets which parts of the method are constrained for the given validator,
+     * so that the validation can be skipped when nothing is constrained. The
+     * constraints are read on first use and reused as long as the same
+     * validator is used.
+     *
+     * @param validator
+     *            the validator used for the method
+     * @param endpointClass
+     *            the class of the endpoint instance that is validated
+     * @return the method constraints
+     */
+    MethodConstraints getMethodConstraints(Validator validator,
+            Class<?> endpointClass) {
+        MethodConstraints constraints = methodConstraints;
+        int generation = EndpointInvoker.getConstraintsGeneration();
+        if (constraints == null || constraints.validator() != validator
+                || constraints.generation() != generation) {
+            constraints = MethodConstraints.read(validator, generation,
+                    endpointClass, method);
+            methodConstraints = constraints;
+        }
+        return constraints;
+    }
+
+    /**
+     * Creates a handle of type {@code (Object, Object[])Object} for the given
+     * method, or returns {@code null} if that is not possible, in which case
+     * the method is called with reflection.
+     */
+    private static MethodHandle createMethodHandle(Method method) {
+        try {
+            int parameterCount = method.getParameterCount();
+            MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                    .asFixedArity();
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle
+                    .asType(MethodType.genericMethodType(parameterCount + 1))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException | RuntimeException e) {
+            getLogger().debug(
+                    "Unable to create a method handle for '{}', falling back to reflection",
+                    method, e);
+            return null;
+        }
+    }
+
+    private static Type getAsyncResultType(Type returnType) {
+        Class<?> rawType = GenericTypeReflector.erase(returnType);
+        TypeVariable<? extends Class<?>> variable;
+        if (CompletionStage.class.isAssignableFrom(rawType)) {
+            variable = CompletionStage.class.getTypeParameters()[0];
+        } else if (Mono.class.isAssignableFrom(rawType)) {
+            variable = Mono.class.getTypeParameters()[0];
+        } else {
+            return null;
+        }
+        Type resultType = GenericTypeReflector.getTypeParameter(returnType,
+                variable);
+        if (resultType instanceof WildcardType wildcard) {
+            resultType = wildcard.getUpperBounds()[0];
+        }
+        // Raw types resolve to null
+        return resultType != null ? resultType : Object.class;
+    }
+
+    /**
+     * Gets an annotation that makes the invoker serialize the result of the
+     * method before returning it, unless the method returns a value that
+     * cannot be serialized as a whole in advance.
+     */
+    private static <A extends Annotation> A getSerializedResultSettings(
+            Method method, Class<A> annotationType, boolean async) {
+        A settings = method.getAnnotation(annotationType);
+        if (settings == null) {
+            return null;
+        }
+        Class<?> returnType = method.getReturnType();
+        if (async || Flux.class.isAssignableFrom(returnType)
+                || EndpointSubscription.class.isAssignableFrom(returnType)
+                || Stream.class.isAssignableFrom(returnType)
+                || Iterator.class.isAssignableFrom(returnType)
+                || EndpointDownload.isDownloadType(returnType)) {
+            getLogger().warn(
+                    "Ignoring @{} on '{}', as the results of methods that return a stream, a download or an asynchronous value are not serialized in advance",
+                    annotationType.getSimpleName(), method);
+            return null;
+        }
+        return settings;
+    }
+
+    private static boolean isNonNullApi(Package pkg) {
+        return pkg != null && Stream.of(pkg.getAnnotations())
+                .anyMatch(ann -> ann.annotationType().getSimpleName()
+                        .equals(NonNullApi.class.getSimpleName()));
+    }
+
+    private record ParameterReaders(ObjectMapper objectMapper,
+            ObjectReader[] readers) {
+    }
+
+    /**
+     * Tells whether the parameters and the return value of a method have
+     * constraints, including cascaded validation, for a validator.
+     *
+     * @param validator
+     *            the validator the constraints were read with
+     * @param generation
+     *            the generation of the constraints when they were read, see
+     *            {@link EndpointInvoker#invalidateConstraints()}
+     * @param parametersConstrained
+     *            {@code true} if the method parameters are validated
+     * @param returnValueConstrained
+     *            {@code true} if the return value is validated
+     */
+    record MethodConstraints(Validator validator, int generation,
+            boolean parametersConstrained, boolean returnValueConstrained) {
+
+        private static MethodConstraints read(Validator validator,
+                int generation, Class<?> endpointClass, Method method) {
+            try {
+                MethodDescriptor descriptor = validator
+                        .getConstraintsForClass(endpointClass)
+                        .getConstraintsForMethod(method.getName(),
+                                method.getParameterTypes());
+                if (descriptor == null) {
+                    return new MethodConstraints(validator, generation,
+                            false, false);
+                }
+                return new MethodConstraints(validator, generation,
+                        descriptor.hasConstrainedParameters(),
+                        descriptor.hasConstrainedReturnValue());
+            } catch (RuntimeException e) {
+                getLogger().debug(
+                        "Unable to read the constraints of '{}', validating every call",
+                        method, e);
+                return new MethodConstraints(validator, generation, true,
+                        true);
+            }
+        }
+    }
+}
@@ -20,20 +20,29 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
 import java.security.Principal;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -44,11 +53,20 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.http.ResponseEntity;
-import org.springframework.lang.NonNullApi;
 import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
 import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.TokenStreamContext;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.DatabindException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.SerializationFeature;
 import tools.jackson.databind.node.ObjectNode;
 
 import com.vaadin.flow.server.VaadinServletContext;
@@ -58,7 +76,11 @@ import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointInternalException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointNotFoundException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointUnauthorizedException;
+import com.vaadin.hilla.EndpointInvocationMetrics.Phase;
+import com.vaadin.hilla.EndpointInvocationPlan.MethodConstraints;
 import com.vaadin.hilla.EndpointRegistry.VaadinEndpointData;
+import com.vaadin.hilla.EndpointResultCache.CachedResult;
+import com.vaadin.hilla.SerializationNullabilityChecker.NullValueException;
 import com.vaadin.hilla.auth.EndpointAccessChecker;
 import com.vaadin.hilla.exception.EndpointException;
 import com.vaadin.hilla.exception.EndpointValidationException;
@@ -80,6 +102,20 @@ public class EndpointInvoker {
     private final ExplicitNullableTypeChecker explicitNullableTypeChecker;
     private final ServletContext servletContext;
     private final Validator validator;
+    /**
+     * Incremented when application classes are redefined, which makes the
+     * cached constraint lookups stale.
+     */
+    private static volatile int constraintsGeneration;
+
+    // Whether the validator finds anything to validate in beans of a type
+    private final Map<Class<?>, Boolean> constrainedBeanTypes = new ConcurrentHashMap<>();
+    private volatile int constrainedBeanTypesGeneration = constraintsGeneration;
+    private EndpointResultCache resultCache;
+    private EndpointCallCoalescer callCoalescer;
+    private EndpointInvocationMetrics metrics = EndpointInvocationMetrics.NONE;
+    private SerializationNullabilityChecker serializationNullabilityChecker;
+    private volatile EndpointAccessChecker accessChecker;
 
     /**
      * Creates an instance of this bean.
@@ -126,6 +162,73 @@ public class EndpointInvoker {
         return LoggerFactory.getLogger(EndpointInvoker.class);
     }
 
+    /**
+     * Drops the cached information about which beans and methods have
+     * constraints, for instance because constraint annotations may have been
+     * added to hot swapped classes.
+     */
+    static void invalidateConstraints() {
+        constraintsGeneration++;
+    }
+
+    /**
+     * Gets the number of times the cached constraint information has been
+     * dropped, so that information cached elsewhere can be dropped with it.
+     *
+     * @return the generation of the constraint information
+     */
+    static int getConstraintsGeneration() {
+        return constraintsGeneration;
+    }
+
+    /**
+     * Sets the cache for the results of methods annotated with
+     * {@link CacheableEndpointResult}. Without a cache, the annotation is
+     * ignored.
+     *
+     * @param resultCache
+     *            the result cache, or {@code null} to not cache results
+     */
+    void setResultCache(EndpointResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Sets the coalescer for the calls of methods annotated with
+     * {@link CoalescedEndpointCall}. Without a coalescer, the annotation is
+     * ignored.
+     *
+     * @param callCoalescer
+     *            the call coalescer, or {@code null} to not coalesce calls
+     */
+    void setCallCoalescer(EndpointCallCoalescer callCoalescer) {
+        this.callCoalescer = callCoalescer;
+    }
+
+    /**
+     * Sets the metrics that the durations of the call phases are reported to.
+     *
+     * @param metrics
+     *            the metrics, not {@code null}
+     */
+    void setMetrics(EndpointInvocationMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Sets the checker that checks the nullability of return values while
+     * they are serialized. The checker's module must be registered with the
+     * endpoint object mapper.
+     *
+     * @param serializationNullabilityChecker
+     *            the checker, or {@code null} to check return values before
+     *            serializing them
+     */
+    void setSerializationNullabilityChecker(
+            SerializationNullabilityChecker serializationNullabilityChecker) {
+        this.serializationNullabilityChecker = serializationNullabilityChecker;
+    }
+
     /**
      * Gets the return type of the given method.
      *
@@ -144,6 +247,49 @@ public class EndpointInvoker {
         return method.getReturnType();
     }
 
+    /**
+     * Gets the given endpoint method.
+     *
+     * @param endpointName
+     *            the name of the endpoint
+     * @param methodName
+     *            the name of the method
+     * @return the method, or {@code null} if there is no such method
+     */
+    public Method getMethod(String endpointName, String methodName) {
+        VaadinEndpointData endpointData = endpointRegistry.get(endpointName);
+        if (endpointData == null) {
+            getLogger().debug("Endpoint '{}' not found", endpointName);
+            return null;
+        }
+        return endpointData.getMethod(methodName).orElse(null);
+    }
+
+    /**
+     * Checks if the user has access to the given endpoint method, without
+     * invoking it.
+     *
+     * @param endpointName
+     *            the name of the endpoint
+     * @param methodName
+     *            the name of the method in the endpoint
+     * @param principal
+     *            the user principal object
+     * @param rolesChecker
+     *            a function for checking if a user is in a given role
+     * @throws EndpointNotFoundException
+     *             if there is no such endpoint method
+     * @throws EndpointHttpException
+     *             if the user does not have access to the method
+     */
+    public void checkAccess(String endpointName, String methodName,
+            Principal principal, Function<String, Boolean> rolesChecker)
+            throws EndpointHttpException {
+        EndpointRoute route = getRoute(endpointName, methodName);
+        checkMethodAccess(endpointName, methodName, route.getInvocationPlan(),
+                route.getEndpointData(), principal, rolesChecker);
+    }
+
     /**
      * Invoke the given endpoint method with the given parameters if the user
      * has access to do so.
@@ -168,20 +314,140 @@ public class EndpointInvoker {
             ObjectNode body, Principal principal,
             Function<String, Boolean> rolesChecker)
             throws EndpointHttpException {
-        VaadinEndpointData vaadinEndpointData = getVaadinEndpointData(
-                endpointName);
+        EndpointRoute route = getRoute(endpointName, methodName);
+        EndpointInvocationPlan invocationPlan = route.getInvocationPlan();
+        return invokeVaadinEndpointMethod(endpointName, methodName,
+                invocationPlan, route.getEndpointData(), principal,
+                rolesChecker,
+                () -> getVaadinEndpointParameters(body, invocationPlan,
+                        methodName, endpointName),
+                true, false);
+    }
 
-        Method methodToInvoke = getMethod(endpointName, methodName);
-        if (methodToInvoke == null) {
-            getLogger().debug("Method '{}' not found in endpoint '{}'",
-                    methodName, endpointName);
-            throw new EndpointNotFoundException();
-        }
+    /**
+     * Invoke the given endpoint method with the parameters read from the given
+     * JSON stream if the user has access to do so.
+     * <p>
+     * Unlike {@link #invoke(String, String, ObjectNode, Principal, Function)},
+     * the request body is not parsed into a JSON tree first. Each parameter is
+     * deserialized directly from the stream into its target type, so that the
+     * peak memory use for large request bodies is about the size of the
+     * resulting Java objects. The access is checked before the stream is read.
+     * <p>
+     * Parameters are matched by name regardless of their order in the body.
+     * Values with names that do not match any method parameter are assigned,
+     * in the order they appear, to the parameters that were not matched by
+     * name.
+     *
+     * @param endpointName
+     *            the name of the endpoint
+     * @param methodName
+     *            the name of the method in the endpoint
+     * @param body
+     *            the stream of the request body, containing a JSON object with
+     *            the method parameters, or an empty stream if the method has no
+     *            parameters
+     * @param principal
+     *            the user principal object
+     * @param rolesChecker
+     *            a function for checking if a user is in a given role
+     * @return the return value of the invoked endpoint method
+     * @throws EndpointHttpException
+     *             if thrown by the endpoint
+     */
+    public Object invoke(String endpointName, String methodName,
+            InputStream body, Principal principal,
+            Function<String, Boolean> rolesChecker)
+            throws EndpointHttpException {
+        EndpointRoute route = getRoute(endpointName, methodName);
+        EndpointInvocationPlan invocationPlan = route.getInvocationPlan();
+        return invokeVaadinEndpointMethod(endpointName, methodName,
+                invocationPlan, route.getEndpointData(), principal,
+                rolesChecker,
+                () -> readVaadinEndpointParameters(body, invocationPlan,
+                        methodName, endpointName),
+                true, false);
+    }
+
+    /**
+     * Invokes the given endpoint method like
+     * {@link #invoke(String, String, ObjectNode, Principal, Function)}, for a
+     * caller that writes the result into a response.
+     * <p>
+     * If the method returns a {@link CompletionStage} or a {@link Mono}, the
+     * returned value is a {@link CompletableFuture} that completes with the
+     * resolved value after it has passed the nullability and validation
+     * checks, or exceptionally with an {@link EndpointHttpException} or an
+     * {@link EndpointException}. The caller must not block on it on a thread
+     * that the value may depend on.
+     * <p>
+     * If the method is annotated with {@link CacheableEndpointResult} and a
+     * result cache is set, or with {@link CoalescedEndpointCall} and a call
+     * coalescer is set, the returned value is the serialized result as an
+     * {@link CachedResult}.
+     *
+     * @param route
+     *            the route that the call has been resolved to
+     * @param serializedWithChecks
+     *            {@code true} if the caller serializes the return value with
+     *            {@link #writeValueAsString(String, String, Object)} or
+     *            {@link #writeValue(OutputStream, String, String, Object)},
+     *            which check the nullability of the value while serializing
+     *            it if enabled
+     */
+    Object invokeForResponse(EndpointRoute route, String endpointName,
+            String methodName, ObjectNode body, Principal principal,
+            Function<String, Boolean> rolesChecker,
+            boolean serializedWithChecks) throws EndpointHttpException {
+        VaadinEndpointData vaadinEndpointData = route.getEndpointData();
+        EndpointInvocationPlan invocationPlan = route.getInvocationPlan();
 
+        if (isResultSerialized(invocationPlan)) {
+            return invokeSerializedVaadinEndpointMethod(endpointName,
+                    methodName, invocationPlan, vaadinEndpointData, principal,
+                    rolesChecker, () -> body);
+        }
         return invokeVaadinEndpointMethod(endpointName, methodName,
-                methodToInvoke, body, vaadinEndpointData, principal,
-                rolesChecker);
+                invocationPlan, vaadinEndpointData, principal, rolesChecker,
+                () -> getVaadinEndpointParameters(body, invocationPlan,
+                        methodName, endpointName),
+                isCheckedBeforeSerialization(serializedWithChecks), true);
+    }
+
+    /**
+     * Invokes the given endpoint method like
+     * {@link #invoke(String, String, InputStream, Principal, Function)}, for a
+     * caller that writes the result into a response. The returned value is
+     * the same as for
+     * {@link #invokeForResponse(EndpointRoute, String, String, ObjectNode, Principal, Function, boolean)}.
+     *
+     * @param route
+     *            the route that the call has been resolved to
+     * @param serializedWithChecks
+     *            {@code true} if the caller serializes the return value with
+     *            {@link #writeValueAsString(String, String, Object)} or
+     *            {@link #writeValue(OutputStream, String, String, Object)},
+     *            which check the nullability of the value while serializing
+     *            it if enabled
+     */
+    Object invokeForResponse(EndpointRoute route, String endpointName,
+            String methodName, InputStream body, Principal principal,
+            Function<String, Boolean> rolesChecker,
+            boolean serializedWithChecks) throws EndpointHttpException {
+        VaadinEndpointData vaadinEndpointData = route.getEndpointData();
+        EndpointInvocationPlan invocationPlan = route.getInvocationPlan();
 
+        if (isResultSerialized(invocationPlan)) {
+            // The parameters are needed as a tree for the call key
+            return invokeSerializedVaadinEndpointMethod(endpointName,
+                    methodName, invocationPlan, vaadinEndpointData, principal,
+                    rolesChecker, () -> readRequestBody(body));
+        }
+        return invokeVaadinEndpointMethod(endpointName, methodName,
+                invocationPlan, vaadinEndpointData, principal, rolesChecker,
+                () -> readVaadinEndpointParameters(body, invocationPlan,
+                        methodName, endpointName),
+                isCheckedBeforeSerialization(serializedWithChecks), true);
     }
 
     public VaadinEndpointData getVaadinEndpointData(String endpointName)
@@ -195,6 +461,31 @@ public class EndpointInvoker {
         return vaadinEndpointData;
     }
 
+    /**
+     * Finds the route to the given endpoint method in the routing table of
+     * the registry.
+     *
+     * @param endpointName
+     *            the name of the endpoint
+     * @param methodName
+     *            the name of the method in the endpoint
+     * @return the route
+     * @throws EndpointNotFoundException
+     *             if there is no such endpoint method
+     */
+    EndpointRoute getRoute(String endpointName, String methodName)
+            throws EndpointNotFoundException {
+        EndpointRoute route = endpointRegistry.getRoute(endpointName,
+                methodName);
+        if (route == null) {
+            getVaadinEndpointData(endpointName);
+            getLogger().debug("Method '{}' not found in endpoint '{}'",
+                    methodName, endpointName);
+            throw new EndpointNotFoundException();
+        }
+        return route;
+    }
+
     String createResponseErrorObject(String errorMessage) {
         ObjectNode objectNode = endpointObjectMapper.createObjectNode();
         objectNode.put(EndpointException.ERROR_MESSAGE_FIELD, errorMessage);
@@ -207,19 +498,281 @@ public class EndpointInvoker {
     }
 
     EndpointAccessChecker getAccessChecker() {
-        VaadinServletContext vaadinServletContext = new VaadinServletContext(
-                servletContext);
-        VaadinConnectAccessCheckerWrapper wrapper = vaadinServletContext
-                .getAttribute(VaadinConnectAccessCheckerWrapper.class, () -> {
-                    EndpointAccessChecker accessChecker = applicationContext
-                            .getBean(EndpointAccessChecker.class);
-                    return new VaadinConnectAccessCheckerWrapper(accessChecker);
-                });
-        return wrapper.accessChecker;
+        EndpointAccessChecker checker = accessChecker;
+        if (checker == null) {
+            VaadinServletContext vaadinServletContext = new VaadinServletContext(
+                    servletContext);
+            VaadinConnectAccessCheckerWrapper wrapper = vaadinServletContext
+                    .getAttribute(VaadinConnectAccessCheckerWrapper.class,
+                            () -> {
+                                EndpointAccessChecker accessChecker = applicationContext
+                                        .getBean(EndpointAccessChecker.class);
+                                return new VaadinConnectAccessCheckerWrapper(
+                                        accessChecker);
+                            });
+            // Looked up once, as the lookup allocates on every call
+            checker = wrapper.accessChecker;
+            accessChecker = checker;
+        }
+        return checker;
+    }
+
+    EndpointInternalException createSerializationException(
+            String endpointName, String methodName, JacksonException e) {
+        String errorMessage = String.format(
+                "Failed to serialize endpoint '%s' method '%s' response. "
+                        + "Double check method's return type or specify a custom mapper bean with qualifier '%s'",
+                endpointName, methodName,
+                EndpointController.ENDPOINT_MAPPER_FACTORY_BEAN_QUALIFIER);
+        getLogger().error(errorMessage, e);
+        return new EndpointInternalException(errorMessage);
+    }
+
+    /**
+     * Serializes the return value of the given method into a string. If
+     * enabled, the nullability of the value is checked while serializing it.
+     *
+     * @throws EndpointInternalException
+     *             if the value has unexpected {@code null} values
+     * @throws JacksonException
+     *             if the value cannot be serialized
+     */
+    String writeValueAsString(String endpointName, String methodName,
+            Object returnValue) throws EndpointInternalException {
+        ObjectWriter writer = getReturnValueWriter(endpointObjectMapper,
+                endpointName, methodName, returnValue);
+        try {
+            return writer.writeValueAsString(returnValue);
+        } catch (RuntimeException e) {
+            throw createNullValueException(endpointName, methodName,
+                    returnValue, e);
+        }
+    }
+
+    /**
+     * Serializes the return value of the given method into the given stream.
+     * If enabled, the nullability of the value is checked while serializing
+     * it.
+     *
+     * @throws EndpointInternalException
+     *             if the value has unexpected {@code null} values
+     * @throws JacksonException
+     *             if the value cannot be serialized
+     */
+    void writeValue(OutputStream out, String endpointName, String methodName,
+            Object returnValue) throws EndpointInternalException {
+        ObjectWriter writer = getReturnValueWriter(endpointObjectMapper,
+                endpointName, methodName, returnValue);
+        try {
+            writer.writeValue(out, returnValue);
+        } catch (RuntimeException e) {
+            throw createNullValueException(endpointName, methodName,
+                    returnValue, e);
+        }
+    }
+
+    /**
+     * Serializes the return value of the given method into bytes with the
+     * given mapper, which must have the same modules as the endpoint object
+     * mapper. If enabled, the nullability of the value is checked while
+     * serializing it.
+     *
+     * @throws EndpointInternalException
+     *             if the value has unexpected {@code null} values
+     * @throws JacksonException
+     *             if the value cannot be serialized
+     */
+    byte[] writeValueAsBytes(ObjectMapper mapper, String endpointName,
+            String methodName, Object returnValue)
+            throws EndpointInternalException {
+        ObjectWriter writer = getReturnValueWriter(mapper, endpointName,
+                methodName, returnValue);
+        try {
+            return writer.writeValueAsBytes(returnValue);
+        } catch (RuntimeException e) {
+            throw createNullValueException(endpointName, methodName,
+                    returnValue, e);
+        }
+    }
+
+    /**
+     * Serializes the elements of a return value of the given method one by
+     * one into the given stream, either as a JSON array or as
+     * newline-delimited JSON. If enabled, the nullability of each element is
+     * checked as for the items of a collection.
+     *
+     * @throws EndpointInternalException
+     *             if an element has unexpected {@code null} values
+     * @throws JacksonException
+     *             if an element cannot be serialized
+     * @throws IOException
+     *             if writing to the stream fails
+     */
+    void writeElements(OutputStream out, String endpointName,
+            String methodName, Iterator<?> elements, boolean lineDelimited)
+            throws EndpointInternalException, IOException {
+        // The output is flushed when the buffers are full, not per element
+        ObjectWriter writer = endpointObjectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        Type checkedType = getCheckedReturnValueType(endpointName,
+                methodName);
+        Type elementType = checkedType == null ? null
+                : getElementType(checkedType);
+        if (elementType != null) {
+            writer = serializationNullabilityChecker.getCheckingWriter(writer,
+                    elementType);
+        }
+        boolean empty = true;
+        try (SequenceWriter sequence = lineDelimited ? writer.writeValues(out)
+                : writer.writeValuesAsArray(out)) {
+            while (elements.hasNext()) {
+                Object element = elements.next();
+                if (elementType != null) {
+                    String implicitNullError = serializationNullabilityChecker
+                            .checkBeforeSerialization(element, elementType);
+                    if (implicitNullError != null) {
+                        throw createImplicitNullException(endpointName,
+                                methodName, implicitNullError);
+                    }
+                }
+                try {
+                    sequence.write(element);
+                } catch (RuntimeException e) {
+                    throw createNullValueException(endpointName, methodName,
+                            element, elementType, e);
+                }
+                empty = false;
+            }
+        }
+        if (lineDelimited && !empty) {
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Gets the declared type of the elements of a stream, an iterator, an
+     * iterable or an array type, or {@code null} if it cannot be resolved.
+     */
+    private static Type getElementType(Type type) {
+        Class<?> rawType = GenericTypeReflector.erase(type);
+        if (rawType.isArray()) {
+            return GenericTypeReflector.getArrayComponentType(type);
+        }
+        TypeVariable<?> variable;
+        if (Stream.class.isAssignableFrom(rawType)) {
+            variable = Stream.class.getTypeParameters()[0];
+        } else if (Iterator.class.isAssignableFrom(rawType)) {
+            variable = Iterator.class.getTypeParameters()[0];
+        } else if (Iterable.class.isAssignableFrom(rawType)) {
+            variable = Iterable.class.getTypeParameters()[0];
+        } else {
+            return null;
+        }
+        Type elementType = GenericTypeReflector.getTypeParameter(type,
+                variable);
+        if (elementType instanceof WildcardType wildcard) {
+            elementType = wildcard.getUpperBounds()[0];
+        }
+        return elementType;
+    }
+
+    private boolean isCheckedBeforeSerialization(
+            boolean serializedWithChecks) {
+        return !serializedWithChecks || serializationNullabilityChecker == null;
     }
 
-    String writeValueAsString(Object returnValue) throws JacksonException {
-        return endpointObjectMapper.writeValueAsString(returnValue);
+    /**
+     * Gets the writer for the return value of the given method, after
+     * checking the parts of the value that are checked before serializing.
+     */
+    private ObjectWriter getReturnValueWriter(ObjectMapper mapper,
+            String endpointName, String methodName, Object returnValue)
+            throws EndpointInternalException {
+        ObjectWriter writer = mapper.writer();
+        Type checkedType = getCheckedReturnValueType(endpointName,
+                methodName);
+        if (checkedType == null) {
+            return writer;
+        }
+        String implicitNullError = serializationNullabilityChecker
+                .checkBeforeSerialization(returnValue, checkedType);
+        if (implicitNullError != null) {
+            throw createImplicitNullException(endpointName, methodName,
+                    implicitNullError);
+        }
+        return serializationNullabilityChecker.getCheckingWriter(writer,
+                checkedType);
+    }
+
+    /**
+     * Gets the declared type of the return value of the given method if the
+     * value is checked while serializing, or {@code null} if it is not.
+     */
+    private Type getCheckedReturnValueType(String endpointName,
+            String methodName) {
+        if (serializationNullabilityChecker == null) {
+            return null;
+        }
+        EndpointRoute route = endpointRegistry.getRoute(endpointName,
+                methodName);
+        if (route == null) {
+            return null;
+        }
+        EndpointInvocationPlan invocationPlan = route.getInvocationPlan();
+        Method method = invocationPlan.getMethod();
+        if (invocationPlan.getAsyncResultType() != null) {
+            return ExplicitNullableTypeChecker.isAsyncResultRequired(method,
+                    invocationPlan.isNonNullApi())
+                            ? invocationPlan.getAsyncResultType()
+                            : null;
+        }
+        return ExplicitNullableTypeChecker.isRequired(method,
+                invocationPlan.isNonNullApi()) ? method.getGenericReturnType()
+                        : null;
+    }
+
+    /**
+     * Converts a failed check during the serialization into the same error as
+     * when the value is checked before serializing, with the path to the
+     * offending value. Other errors are rethrown.
+     */
+    private EndpointInternalException createNullValueException(
+            String endpointName, String methodName, Object returnValue,
+            RuntimeException e) {
+        return createNullValueException(endpointName, methodName, returnValue,
+                getCheckedReturnValueType(endpointName, methodName), e);
+    }
+
+    private EndpointInternalException createNullValueException(
+            String endpointName, String methodName, Object value,
+            Type checkedType, RuntimeException e) {
+        NullValueException nullValueException = SerializationNullabilityChecker
+                .findNullValueException(e);
+        if (nullValueException == null) {
+            throw e;
+        }
+        // The reflective check describes the value the same way as usual
+        String implicitNullError = explicitNullableTypeChecker
+                .checkValueForType(value, checkedType);
+        if (implicitNullError == null) {
+            implicitNullError = nullValueException.getMessage();
+        }
+        if (e instanceof JacksonException jacksonException) {
+            implicitNullError += String.format(" Path: %s",
+                    jacksonException.getPathReference());
+        }
+        return createImplicitNullException(endpointName, methodName,
+                implicitNullError);
+    }
+
+    private EndpointInternalException createImplicitNullException(
+            String endpointName, String methodName, String implicitNullError) {
+        String errorMessage = String.format(
+                "Unexpected return value in endpoint '%s' method '%s'. %s",
+                endpointName, methodName, implicitNullError);
+        getLogger().error(errorMessage);
+        return new EndpointInternalException(errorMessage);
     }
 
     private List<ValidationErrorData> createBeanValidationErrors(
@@ -283,21 +836,6 @@ public class EndpointInvoker {
         return new EndpointValidationException(message, validationErrorData);
     }
 
-    private Type[] getJavaParameters(Method methodToInvoke, Type classType) {
-        return Stream.of(GenericTypeReflector
-                .getExactParameterTypes(methodToInvoke, classType))
-                .toArray(Type[]::new);
-    }
-
-    private Method getMethod(String endpointName, String methodName) {
-        VaadinEndpointData endpointData = endpointRegistry.get(endpointName);
-        if (endpointData == null) {
-            getLogger().debug("Endpoint '{}' not found", endpointName);
-            return null;
-        }
-        return endpointData.getMethod(methodName).orElse(null);
-    }
-
     private Map<String, JsonNode> getRequestParameters(ObjectNode body,
             List<String> parameterNames) {
         // Respect the order of parameters in the request body
@@ -330,36 +868,177 @@ public class EndpointInvoker {
         return orderedData;
     }
 
-    private Object[] getVaadinEndpointParameters(
-            Map<String, JsonNode> requestParameters, Type[] javaParameters,
-            String methodName, String endpointName) {
+    private Object[] getVaadinEndpointParameters(ObjectNode body,
+            EndpointInvocationPlan invocationPlan, String methodName,
+            String endpointName) throws EndpointBadRequestException {
+        Map<String, JsonNode> requestParameters = getRequestParameters(body,
+                invocationPlan.getParameterNames());
+        checkParameterCount(invocationPlan, requestParameters.size(),
+                methodName, endpointName);
+
+        Type[] javaParameters = invocationPlan.getParameterTypes();
+        ObjectReader[] parameterReaders = invocationPlan
+                .getParameterReaders(endpointObjectMapper);
         Object[] endpointParameters = new Object[javaParameters.length];
         String[] parameterNames = new String[requestParameters.size()];
         requestParameters.keySet().toArray(parameterNames);
         Map<String, String> errorParams = new HashMap<>();
-        Set<ConstraintViolation<Object>> constraintViolations = new LinkedHashSet<>();
 
         for (int i = 0; i < javaParameters.length; i++) {
-            Type parameterType = javaParameters[i];
-            Type incomingType = parameterType;
             try {
-                Object parameter = endpointObjectMapper
-                        .readerFor(endpointObjectMapper.getTypeFactory()
-                                .constructType(incomingType))
+                endpointParameters[i] = parameterReaders[i]
                         .readValue(requestParameters.get(parameterNames[i]));
-                endpointParameters[i] = parameter;
+            } catch (JacksonException e) {
+                onParameterDeserializationError(e, javaParameters[i],
+                        parameterNames[i], errorParams, methodName,
+                        endpointName);
+            }
+        }
+
+        return checkVaadinEndpointParameters(endpointParameters, errorParams,
+                methodName, endpointName);
+    }
 
-                if (parameter != null) {
-                    constraintViolations.addAll(validator.validate(parameter));
+    private Object[] readVaadinEndpointParameters(InputStream body,
+            EndpointInvocationPlan invocationPlan, String methodName,
+            String endpointName) throws EndpointBadRequestException {
+        Type[] javaParameters = invocationPlan.getParameterTypes();
+        ObjectReader[] parameterReaders = invocationPlan
+                .getParameterReaders(endpointObjectMapper);
+        Object[] endpointParameters = new Object[javaParameters.length];
+        String[] boundNames = new String[javaParameters.length];
+        // Values that cannot be matched by name are kept as trees until all
+        // the named parameters have been read
+        Map<String, JsonNode> unmatchedParameters = null;
+        Map<String, String> errorParams = new HashMap<>();
+
+        try (JsonParser parser = endpointObjectMapper.reader()
+                .createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token != null && token != JsonToken.VALUE_NULL) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new EndpointBadRequestException(
+                            "Request body must be a JSON object");
+                }
+                TokenStreamContext bodyContext = parser.streamReadContext();
+                while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    int index = invocationPlan.getParameterIndex(name);
+                    if (index < 0) {
+                        if (unmatchedParameters == null) {
+                            unmatchedParameters = new LinkedHashMap<>();
+                        }
+                        unmatchedParameters.put(name,
+                                endpointObjectMapper.readTree(parser));
+                        continue;
+                    }
+                    boundNames[index] = name;
+                    try {
+                        endpointParameters[index] = parameterReaders[index]
+                                .readValue(parser);
+                    } catch (DatabindException e) {
+                        onParameterDeserializationError(e,
+                                javaParameters[index], name, errorParams,
+                                methodName, endpointName);
+                        skipToContext(parser, bodyContext);
+                    }
+                }
+            }
+        } catch (StreamReadException e) {
+            getLogger().debug("Request body does not contain valid JSON", e);
+            throw new EndpointBadRequestException(
+                    "Request body does not contain valid JSON");
+        } catch (JacksonException e) {
+            getLogger().error("Unable to read the request body", e);
+            throw new EndpointBadRequestException(
+                    "Unable to read the request body");
+        }
+
+        int boundCount = 0;
+        for (String boundName : boundNames) {
+            if (boundName != null) {
+                boundCount++;
+            }
+        }
+        int unmatchedCount = unmatchedParameters == null ? 0
+                : unmatchedParameters.size();
+        checkParameterCount(invocationPlan, boundCount + unmatchedCount,
+                methodName, endpointName);
+
+        if (unmatchedParameters != null) {
+            if (getLogger().isDebugEnabled()) {
+                getLogger().debug(
+                        "The parameter names in the request body do not match the method parameters. Expected: {}, but got: {}",
+                        invocationPlan.getParameterNames(),
+                        unmatchedParameters.keySet());
+            }
+            var unmatched = unmatchedParameters.entrySet().iterator();
+            for (int i = 0; i < javaParameters.length; i++) {
+                if (boundNames[i] != null) {
+                    continue;
+                }
+                var entry = unmatched.next();
+                try {
+                    endpointParameters[i] = parameterReaders[i]
+                            .readValue(entry.getValue());
+                } catch (JacksonException e) {
+                    onParameterDeserializationError(e, javaParameters[i],
+                            entry.getKey(), errorParams, methodName,
+                            endpointName);
                 }
-            } catch (JacksonException e) {
-                String typeName = parameterType.getTypeName();
-                getLogger().error(
-                        "Unable to deserialize an endpoint '{}' method '{}' "
-                                + "parameter '{}' with type '{}'",
-                        endpointName, methodName, parameterNames[i], typeName,
-                        e);
-                errorParams.put(parameterNames[i], typeName);
+            }
+        }
+
+        return checkVaadinEndpointParameters(endpointParameters, errorParams,
+                methodName, endpointName);
+    }
+
+    /**
+     * Skips the remaining tokens of a value that could not be deserialized, so
+     * that the parser is positioned at the end of the value within the given
+     * context.
+     */
+    private static void skipToContext(JsonParser parser,
+            TokenStreamContext context) {
+        while (parser.streamReadContext() != context
+                && parser.nextToken() != null) {
+            // skip
+        }
+    }
+
+    private void checkParameterCount(EndpointInvocationPlan invocationPlan,
+            int requestParameterCount, String methodName, String endpointName)
+            throws EndpointBadRequestException {
+        if (invocationPlan.getParameterCount() != requestParameterCount) {
+            throw new EndpointBadRequestException(String.format(
+                    "Incorrect number of parameters for endpoint '%s' method '%s', "
+                            + "expected: %s, got: %s",
+                    endpointName, methodName,
+                    invocationPlan.getParameterCount(),
+                    requestParameterCount));
+        }
+    }
+
+    private void onParameterDeserializationError(JacksonException e,
+            Type parameterType, String parameterName,
+            Map<String, String> errorParams, String methodName,
+            String endpointName) {
+        String typeName = parameterType.getTypeName();
+        getLogger().error(
+                "Unable to deserialize an endpoint '{}' method '{}' "
+                        + "parameter '{}' with type '{}'",
+                endpointName, methodName, parameterName, typeName, e);
+        errorParams.put(parameterName, typeName);
+    }
+
+    private Object[] checkVaadinEndpointParameters(Object[] endpointParameters,
+            Map<String, String> errorParams, String methodName,
+            String endpointName) {
+        Set<ConstraintViolation<Object>> constraintViolations = new LinkedHashSet<>();
+        for (Object parameter : endpointParameters) {
+            if (parameter != null && isBeanConstrained(parameter.getClass())) {
+                constraintViolations.addAll(validator.validate(parameter));
             }
         }
 
@@ -370,10 +1049,40 @@ public class EndpointInvoker {
                 errorParams, constraintViolations);
     }
 
+    /**
+     * Checks if validating a bean of the given type can find anything, which
+     * is the case if the type or its properties have constraints, or if any
+     * of its properties are validated in cascade.
+     */
+    private boolean isBeanConstrained(Class<?> beanType) {
+        int currentGeneration = constraintsGeneration;
+        if (constrainedBeanTypesGeneration != currentGeneration) {
+            constrainedBeanTypes.clear();
+            constrainedBeanTypesGeneration = currentGeneration;
+        }
+        return constrainedBeanTypes.computeIfAbsent(beanType, type -> {
+            try {
+                return validator.getConstraintsForClass(type)
+                        .isBeanConstrained();
+            } catch (RuntimeException e) {
+                getLogger().debug(
+                        "Unable to read the constraints of '{}', validating every value",
+                        type, e);
+                return true;
+            }
+        });
+    }
+
+    private MethodConstraints getMethodConstraints(
+            EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData) {
+        return invocationPlan.getMethodConstraints(validator,
+                vaadinEndpointData.getEndpointObject().getClass());
+    }
+
     private ResponseEntity<String> handleMethodExecutionError(
-            String endpointName, String methodName, InvocationTargetException e)
+            String endpointName, String methodName, Throwable wrappedException)
             throws EndpointHttpException {
-        var wrappedException = e.getCause();
         if (wrappedException instanceof EndpointHttpException ex) {
             throw ex;
         } else if (EndpointException.class
@@ -386,7 +1095,7 @@ public class EndpointInvoker {
             String errorMessage = String.format(
                     "Endpoint '%s' method '%s' execution failure", endpointName,
                     methodName);
-            getLogger().error(errorMessage, e);
+            getLogger().error(errorMessage, wrappedException);
             throw new EndpointInternalException(errorMessage);
         }
     }
@@ -410,14 +1119,135 @@ public class EndpointInvoker {
     }
 
     private Object invokeVaadinEndpointMethod(String endpointName,
-            String methodName, Method methodToInvoke, ObjectNode body,
+            String methodName, EndpointInvocationPlan invocationPlan,
             VaadinEndpointData vaadinEndpointData, Principal principal,
-            Function<String, Boolean> rolesChecker)
+            Function<String, Boolean> rolesChecker,
+            ParameterBinder parameterBinder, boolean checkNullability,
+            boolean resolveAsync) throws EndpointHttpException {
+        HillaStats.reportEndpointActive();
+        EndpointPhaseTimer timer = EndpointPhaseTimer.start(metrics,
+                endpointName, methodName);
+        checkMethodAccess(endpointName, methodName, invocationPlan,
+                vaadinEndpointData, principal, rolesChecker);
+        timer.lap(Phase.ACCESS_CHECK);
+        return invokeAccessibleVaadinEndpointMethod(endpointName, methodName,
+                invocationPlan, vaadinEndpointData, parameterBinder,
+                checkNullability, resolveAsync, timer);
+    }
+
+    /**
+     * Answers the call from the result cache if possible. Otherwise, invokes
+     * the method, or waits for an identical call that is in progress if the
+     * calls are coalesced, and caches the serialized result. The access is
+     * checked in all cases.
+     */
+    private CachedResult invokeSerializedVaadinEndpointMethod(
+            String endpointName, String methodName,
+            EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData, Principal principal,
+            Function<String, Boolean> rolesChecker, RequestBody requestBody)
             throws EndpointHttpException {
         HillaStats.reportEndpointActive();
+        EndpointPhaseTimer timer = EndpointPhaseTimer.start(metrics,
+                endpointName, methodName);
+        checkMethodAccess(endpointName, methodName, invocationPlan,
+                vaadinEndpointData, principal, rolesChecker);
+        timer.lap(Phase.ACCESS_CHECK);
+
+        ObjectNode body = requestBody.read();
+        CacheableEndpointResult cacheSettings = isResultCached(invocationPlan)
+                ? invocationPlan.getResultCacheSettings()
+                : null;
+        byte[] json = cacheSettings == null ? null
+                : resultCache.get(resultCache.createKey(endpointName,
+                        methodName, body, cacheSettings, principal));
+        if (json != null) {
+            return new CachedResult(json);
+        }
+        timer.skip();
+        EndpointCallCoalescer.Execution execution = () -> {
+            Object returnValue = invokeAccessibleVaadinEndpointMethod(
+                    endpointName, methodName, invocationPlan,
+                    vaadinEndpointData,
+                    () -> getVaadinEndpointParameters(body, invocationPlan,
+                            methodName, endpointName),
+                    true, true, timer);
+            byte[] result;
+            try {
+                result = endpointObjectMapper.writeValueAsBytes(returnValue);
+            } catch (JacksonException e) {
+                throw createSerializationException(endpointName, methodName,
+                        e);
+            }
+            timer.lap(Phase.SERIALIZATION);
+            if (cacheSettings != null) {
+                // The body is copied as the caller may modify it later
+                resultCache.put(
+                        resultCache.createKey(endpointName, methodName,
+                                body == null ? null : body.deepCopy(),
+                                cacheSettings, principal),
+                        result, cacheSettings.timeUnit()
+                                .toNanos(cacheSettings.ttl()));
+            }
+            return result;
+        };
+        CoalescedEndpointCall coalescingSettings = isCoalesced(invocationPlan)
+                ? invocationPlan.getCoalescingSettings()
+                : null;
+        if (coalescingSettings == null) {
+            json = execution.execute();
+        } else {
+            json = callCoalescer.execute(EndpointResultCache.createKey(
+                    endpointName, methodName, body,
+                    !coalescingSettings.shared(),
+                    !coalescingSettings.shared()
+                            || coalescingSettings.perRoles(),
+                    principal), execution);
+        }
+        return new CachedResult(json);
+    }
+
+    private boolean isResultSerialized(EndpointInvocationPlan invocationPlan) {
+        return isResultCached(invocationPlan) || isCoalesced(invocationPlan);
+    }
+
+    private boolean isResultCached(EndpointInvocationPlan invocationPlan) {
+        return resultCache != null && resultCache.isEnabled()
+                && invocationPlan.getResultCacheSettings() != null;
+    }
+
+    private boolean isCoalesced(EndpointInvocationPlan invocationPlan) {
+        return callCoalescer != null
+                && invocationPlan.getCoalescingSettings() != null;
+    }
+
+    private ObjectNode readRequestBody(InputStream body)
+            throws EndpointBadRequestException {
+        JsonNode tree;
+        try {
+            tree = endpointObjectMapper.readTree(body);
+        } catch (JacksonException e) {
+            getLogger().debug("Request body does not contain valid JSON", e);
+            throw new EndpointBadRequestException(
+                    "Request body does not contain valid JSON");
+        }
+        if (tree == null || tree.isMissingNode() || tree.isNull()) {
+            return null;
+        }
+        if (!tree.isObject()) {
+            throw new EndpointBadRequestException(
+                    "Request body must be a JSON object");
+        }
+        return (ObjectNode) tree;
+    }
 
-        var checkError = checkAccess(vaadinEndpointData, methodToInvoke,
-                principal, rolesChecker);
+    private void checkMethodAccess(String endpointName, String methodName,
+            EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData, Principal principal,
+            Function<String, Boolean> rolesChecker)
+            throws EndpointHttpException {
+        var checkError = checkAccess(vaadinEndpointData,
+                invocationPlan.getMethod(), principal, rolesChecker);
         if (checkError != null) {
             var message = String.format(
                     "Endpoint '%s' method '%s' request cannot be accessed, reason: '%s'",
@@ -428,40 +1258,38 @@ public class EndpointInvoker {
                 throw new EndpointForbiddenException(message);
             }
         }
+    }
 
-        var parameterNames = Arrays.stream(methodToInvoke.getParameters())
-                .map(Parameter::getName).toList();
-        Map<String, JsonNode> requestParameters = getRequestParameters(body,
-                parameterNames);
-        Type[] javaParameters = getJavaParameters(methodToInvoke, ClassUtils
-                .getUserClass(vaadinEndpointData.getEndpointObject()));
-        if (javaParameters.length != requestParameters.size()) {
-            throw new EndpointBadRequestException(String.format(
-                    "Incorrect number of parameters for endpoint '%s' method '%s', "
-                            + "expected: %s, got: %s",
-                    endpointName, methodName, javaParameters.length,
-                    requestParameters.size()));
-        }
-
-        Object[] vaadinEndpointParameters = getVaadinEndpointParameters(
-                requestParameters, javaParameters, methodName, endpointName);
+    private Object invokeAccessibleVaadinEndpointMethod(String endpointName,
+            String methodName, EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData,
+            ParameterBinder parameterBinder, boolean checkNullability,
+            boolean resolveAsync, EndpointPhaseTimer timer)
+            throws EndpointHttpException {
+        Method methodToInvoke = invocationPlan.getMethod();
+        Object[] vaadinEndpointParameters = parameterBinder.bind();
+        timer.lap(Phase.DESERIALIZATION);
 
-        Set<ConstraintViolation<Object>> methodParameterConstraintViolations = validator
-                .forExecutables()
-                .validateParameters(vaadinEndpointData.getEndpointObject(),
-                        methodToInvoke, vaadinEndpointParameters);
-        if (!methodParameterConstraintViolations.isEmpty()) {
-            throw new EndpointValidationException(
-                    String.format(
-                            "Validation error in endpoint '%s' method '%s'",
-                            endpointName, methodName),
-                    createMethodValidationErrors(
-                            methodParameterConstraintViolations));
+        if (getMethodConstraints(invocationPlan, vaadinEndpointData)
+                .parametersConstrained()) {
+            Set<ConstraintViolation<Object>> methodParameterConstraintViolations = validator
+                    .forExecutables()
+                    .validateParameters(vaadinEndpointData.getEndpointObject(),
+                            methodToInvoke, vaadinEndpointParameters);
+            if (!methodParameterConstraintViolations.isEmpty()) {
+                throw new EndpointValidationException(
+                        String.format(
+                                "Validation error in endpoint '%s' method '%s'",
+                                endpointName, methodName),
+                        createMethodValidationErrors(
+                                methodParameterConstraintViolations));
+            }
         }
+        timer.lap(Phase.PARAMETER_VALIDATION);
 
         Object returnValue;
         try {
-            returnValue = methodToInvoke.invoke(
+            returnValue = invocationPlan.invoke(
                     vaadinEndpointData.getEndpointObject(),
                     vaadinEndpointParameters);
         } catch (IllegalArgumentException e) {
@@ -469,7 +1297,7 @@ public class EndpointInvoker {
                     "Received incorrect arguments for endpoint '%s' method '%s'. "
                             + "Expected parameter types (and their order) are: '[%s]'",
                     endpointName, methodName,
-                    listMethodParameterTypes(javaParameters));
+                    invocationPlan.getParameterTypeNames());
             getLogger().debug(errorMessage, e);
             throw new EndpointBadRequestException(errorMessage);
         } catch (IllegalAccessException e) {
@@ -479,44 +1307,121 @@ public class EndpointInvoker {
             getLogger().error(errorMessage, e);
             throw new EndpointInternalException(errorMessage);
         } catch (InvocationTargetException e) {
-            return handleMethodExecutionError(endpointName, methodName, e);
+            return handleMethodExecutionError(endpointName, methodName,
+                    e.getCause());
+        }
+        timer.lap(Phase.INVOCATION);
+
+        if (resolveAsync && returnValue != null
+                && invocationPlan.getAsyncResultType() != null) {
+            return resolveAsyncReturnValue(endpointName, methodName,
+                    invocationPlan, vaadinEndpointData, returnValue,
+                    checkNullability, timer);
+        }
+
+        String implicitNullError = null;
+        if (checkNullability) {
+            implicitNullError = this.explicitNullableTypeChecker
+                    .checkValueForAnnotatedElement(returnValue, methodToInvoke,
+                            invocationPlan.isNonNullApi());
+            timer.lap(Phase.NULLABILITY_CHECK);
         }
+        checkReturnValue(endpointName, methodName, invocationPlan,
+                vaadinEndpointData, returnValue, implicitNullError);
+        timer.lap(Phase.RETURN_VALUE_VALIDATION);
+        return returnValue;
+    }
+
+    /**
+     * Waits for the value of an asynchronous return value without blocking.
+     * The nullability and the validation checks are done for the resolved
+     * value instead of the {@link CompletionStage} or {@link Mono} itself.
+     * Cancelling the returned future cancels the pending work.
+     */
+    private CompletableFuture<Object> resolveAsyncReturnValue(
+            String endpointName, String methodName,
+            EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData, Object returnValue,
+            boolean checkNullability, EndpointPhaseTimer timer) {
+        CompletableFuture<?> source = returnValue instanceof Mono<?> mono
+                ? mono.toFuture()
+                : ((CompletionStage<?>) returnValue).toCompletableFuture();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        source.whenComplete((value, error) -> {
+            try {
+                if (error != null) {
+                    handleMethodExecutionError(endpointName, methodName,
+                            error instanceof CompletionException
+                                    && error.getCause() != null
+                                            ? error.getCause()
+                                            : error);
+                }
+                // Waiting for the value is not part of any phase
+                timer.skip();
+                String implicitNullError = null;
+                if (checkNullability) {
+                    implicitNullError = this.explicitNullableTypeChecker
+                            .checkValueForAsyncResult(value,
+                                    invocationPlan.getMethod(),
+                                    invocationPlan.getAsyncResultType(),
+                                    invocationPlan.isNonNullApi());
+                    timer.lap(Phase.NULLABILITY_CHECK);
+                }
+                checkReturnValue(endpointName, methodName, invocationPlan,
+                        vaadinEndpointData, value, implicitNullError);
+                timer.lap(Phase.RETURN_VALUE_VALIDATION);
+                result.complete(value);
+            } catch (EndpointHttpException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return result;
+    }
 
-        String implicitNullError = this.explicitNullableTypeChecker
-                .checkValueForAnnotatedElement(returnValue, methodToInvoke,
-                        isNonNullApi(methodToInvoke.getDeclaringClass()
-                                .getPackage()));
+    private void checkReturnValue(String endpointName, String methodName,
+            EndpointInvocationPlan invocationPlan,
+            VaadinEndpointData vaadinEndpointData, Object returnValue,
+            String implicitNullError) throws EndpointInternalException {
         if (implicitNullError != null) {
-            String errorMessage = String.format(
-                    "Unexpected return value in endpoint '%s' method '%s'. %s",
-                    endpointName, methodName, implicitNullError);
-            getLogger().error(errorMessage);
-            throw new EndpointInternalException(errorMessage);
+            throw createImplicitNullException(endpointName, methodName,
+                    implicitNullError);
         }
 
+        if (!getMethodConstraints(invocationPlan, vaadinEndpointData)
+                .returnValueConstrained()) {
+            return;
+        }
         Set<ConstraintViolation<Object>> returnValueConstraintViolations = validator
                 .forExecutables()
                 .validateReturnValue(vaadinEndpointData.getEndpointObject(),
-                        methodToInvoke, returnValue);
+                        invocationPlan.getMethod(), returnValue);
         if (!returnValueConstraintViolations.isEmpty()) {
             String errorMessage = String.format(
                     "Endpoint '%s' method '%s' returned a value that has validation errors: '%s'",
                     endpointName, methodName, returnValueConstraintViolations);
             throw new EndpointInternalException(errorMessage);
         }
-
-        return returnValue;
     }
 
-    private boolean isNonNullApi(Package pkg) {
-        return Stream.of(pkg.getAnnotations())
-                .anyMatch(ann -> ann.annotationType().getSimpleName()
-                        .equals(NonNullApi.class.getSimpleName()));
+    /**
+     * Produces the arguments for an endpoint method call from the request.
+     */
+    @FunctionalInterface
+    private interface ParameterBinder {
+        Object[] bind() throws EndpointHttpException;
     }
 
-    private String listMethodParameterTypes(Type[] javaParameters) {
-        return Stream.of(javaParameters).map(Type::getTypeName)
-                .collect(Collectors.joining(", "));
+    /**
+     * Produces the request body as a tree.
+     */
+    @FunctionalInterface
+    private interface RequestBody {
+        ObjectNode read() throws EndpointHttpException;
     }
 
     private static class VaadinConnectAccessCheckerWrapper {
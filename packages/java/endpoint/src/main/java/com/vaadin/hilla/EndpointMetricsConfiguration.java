@@ -0,0 +1,172 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+import com.vaadin.hilla.push.PushMessageHandler;
+
+/**
+ * Reports the endpoint call metrics to the Micrometer {@link MeterRegistry}
+ * of the application, if there is one.
+ * <p>
+ * The durations of the phases of each call, the durations of the calls and
+ * the payload sizes are tagged with the endpoint and method names. The
+ * {@link EndpointExecutor}, {@link EndpointResultCache},
+ * {@link EndpointCallCoalescer} and {@link PushMessageHandler} counters are
+ * reported too. Without a registry, the calls are not measured at all.
+ */
+@AutoConfiguration
+@ConditionalOnClass(MeterRegistry.class)
+class EndpointMetricsConfiguration {
+
+    /**
+     * Sets up the metrics once all singletons are created, so that the meter
+     * registry is looked up regardless of the order of the configurations.
+     */
+    @Bean
+    SmartInitializingSingleton hillaEndpointMetricsBinder(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<EndpointInvoker> endpointInvoker,
+            ObjectProvider<EndpointController> endpointController,
+            ObjectProvider<EndpointExecutor> endpointExecutor,
+            ObjectProvider<EndpointResultCache> resultCache,
+            ObjectProvider<EndpointCallCoalescer> callCoalescer,
+            ObjectProvider<PushMessageHandler> pushMessageHandler) {
+        return () -> {
+            MeterRegistry registry = meterRegistry.getIfUnique();
+            if (registry == null) {
+                return;
+            }
+            var metrics = new MicrometerEndpointInvocationMetrics(registry);
+            endpointInvoker.ifUnique(invoker -> invoker.setMetrics(metrics));
+            endpointController
+                    .ifUnique(controller -> controller.setMetrics(metrics));
+            endpointExecutor
+                    .ifUnique(executor -> bindExecutor(executor, registry));
+            resultCache.ifUnique(cache -> bindResultCache(cache, registry));
+            callCoalescer.ifUnique(
+                    coalescer -> bindCallCoalescer(coalescer, registry));
+            pushMessageHandler
+                    .ifUnique(handler -> bindPushMessageHandler(handler,
+                            registry));
+        };
+    }
+
+    private static void bindExecutor(EndpointExecutor executor,
+            MeterRegistry registry) {
+        if (!executor.isEnabled()) {
+            return;
+        }
+        Gauge.builder("hilla.endpoint.executor.active", executor,
+                EndpointExecutor::getActiveCalls)
+                .description("The endpoint calls being executed")
+                .register(registry);
+        Gauge.builder("hilla.endpoint.executor.queued", executor,
+                EndpointExecutor::getQueuedCalls)
+                .description("The endpoint calls waiting for execution")
+                .register(registry);
+        FunctionCounter.builder("hilla.endpoint.executor.rejected", executor,
+                EndpointExecutor::getRejectedCalls)
+                .description(
+                        "The endpoint calls rejected because of the concurrency limits")
+                .register(registry);
+    }
+
+    private static void bindResultCache(EndpointResultCache cache,
+            MeterRegistry registry) {
+        if (!cache.isEnabled()) {
+            return;
+        }
+        FunctionCounter
+                .builder("hilla.endpoint.result.cache.requests", cache,
+                        EndpointResultCache::getHitCount)
+                .tag("result", "hit")
+                .description("The calls of cacheable endpoint methods")
+                .register(registry);
+        FunctionCounter
+                .builder("hilla.endpoint.result.cache.requests", cache,
+                        EndpointResultCache::getMissCount)
+                .tag("result", "miss")
+                .description("The calls of cacheable endpoint methods")
+                .register(registry);
+        FunctionCounter
+                .builder("hilla.endpoint.result.cache.evictions", cache,
+                        EndpointResultCache::getEvictionCount)
+                .description(
+                        "The cached endpoint results removed to make room for new ones")
+                .register(registry);
+        Gauge.builder("hilla.endpoint.result.cache.size", cache,
+                EndpointResultCache::getSize)
+                .description("The total size of the cached endpoint results")
+                .baseUnit("bytes").register(registry);
+    }
+
+    private static void bindCallCoalescer(EndpointCallCoalescer coalescer,
+            MeterRegistry registry) {
+        FunctionCounter
+                .builder("hilla.endpoint.coalesced.calls", coalescer,
+                        EndpointCallCoalescer::getExecutionCount)
+                .tag("result", "executed")
+                .description("The calls of coalesced endpoint methods")
+                .register(registry);
+        FunctionCounter
+                .builder("hilla.endpoint.coalesced.calls", coalescer,
+                        EndpointCallCoalescer::getCoalescedCount)
+                .tag("result", "coalesced")
+                .description("The calls of coalesced endpoint methods")
+                .register(registry);
+        Gauge.builder("hilla.endpoint.coalesced.ratio", coalescer,
+                EndpointCallCoalescer::getCoalescingRatio)
+                .description(
+                        "The ratio of the coalesced calls to all calls of coalesced endpoint methods")
+                .register(registry);
+        Gauge.builder("hilla.endpoint.coalesced.in.flight", coalescer,
+                EndpointCallCoalescer::getInFlightCount)
+                .description("The coalesced endpoint calls being executed")
+                .register(registry);
+    }
+
+    private static void bindPushMessageHandler(PushMessageHandler handler,
+            MeterRegistry registry) {
+        FunctionCounter
+                .builder("hilla.push.overflow.items", handler,
+                        PushMessageHandler::getDroppedItemCount)
+                .tag("result", "dropped")
+                .description(
+                        "The items of buffered push subscriptions that were not sent because the client did not keep up")
+                .register(registry);
+        FunctionCounter
+                .builder("hilla.push.overflow.items", handler,
+                        PushMessageHandler::getConflatedItemCount)
+                .tag("result", "conflated")
+                .description(
+                        "The items of buffered push subscriptions that were not sent because the client did not keep up")
+                .register(registry);
+        Gauge.builder("hilla.push.shared.subscriptions", handler,
+                PushMessageHandler::getSharedSubscriptionCount)
+                .description(
+                        "The shared subscriptions to fluxes of endpoint methods")
+                .register(registry);
+    }
+}
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Reads the parts of a {@code multipart/form-data} request body as they
+ * arrive, without buffering them.
+ * <p>
+ * Only one part can be read at a time, in the order of the request. Moving to
+ * the next part skips the unread content of the current one. At most a
+ * buffer of a fixed size is kept in memory.
+ * <p>
+ * The sizes of the parts and of the whole request can be limited, as for the
+ * uploads parsed by the servlet container. Reading fails with a
+ * {@link SizeLimitExceededException} when a limit is exceeded.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class EndpointMultipartStream {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_HEADER_LINE_LENGTH = 8192;
+    private static final int MAX_HEADER_LINES = 32;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private final long maxPartSize;
+    private final long maxRequestSize;
+    private long requestSize;
+    private long partSize;
+    private boolean sizeLimitExceeded;
+    private int position;
+    private int limit;
+    private boolean bodyEnded;
+    private boolean finished;
+    private Part currentPart;
+    private final Set<String> skippedParts = new HashSet<>();
+
+    /**
+     * Creates a stream reading the given request body.
+     *
+     * @param in
+     *            the request body
+     * @param boundary
+     *            the boundary of the parts, from the content type of the
+     *            request
+     */
+    EndpointMultipartStream(InputStream in, String boundary) {
+        this(in, boundary, -1, -1);
+    }
+
+    /**
+     * Creates a stream reading the given request body, with limits for the
+     * sizes of the parts and of the request.
+     *
+     * @param in
+     *            the request body
+     * @param boundary
+     *            the boundary of the parts, from the content type of the
+     *            request
+     * @param maxPartSize
+     *            the maximum size of the body of a part in bytes, or a
+     *            negative value for no limit
+     * @param maxRequestSize
+     *            the maximum size of the request body in bytes, or a negative
+     *            value for no limit
+     */
+    EndpointMultipartStream(InputStream in, String boundary, long maxPartSize,
+            long maxRequestSize) {
+        this.in = in;
+        this.maxPartSize = maxPartSize;
+        this.maxRequestSize = maxRequestSize;
+        this.delimiter = ("\r\n--" + boundary)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // The first delimiter is not preceded by a line break, and anything
+        // before it is skipped as if it was the body of a part
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Gets the boundary parameter of a multipart content type.
+     *
+     * @param contentType
+     *            the content type of the request
+     * @return the boundary, or {@code null} if there is none
+     */
+    static String getBoundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            String boundary = MediaType.parseMediaType(contentType)
+                    .getParameter("boundary");
+            if (boundary != null && boundary.length() > 1
+                    && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                boundary = boundary.substring(1, boundary.length() - 1);
+            }
+            return boundary == null || boundary.isEmpty() ? null : boundary;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether reading the request has failed because it exceeds one
+     * of the size limits.
+     *
+     * @return {@code true} if a size limit has been exceeded
+     */
+    boolean isSizeLimitExceeded() {
+        return sizeLimitExceeded;
+    }
+
+    /**
+     * Moves to the next part, skipping the unread content of the current one.
+     *
+     * @return the next part, or {@code null} if there are no more parts
+     * @throws IOException
+     *             if the request cannot be read or is malformed
+     */
+    Part nextPart() throws IOException {
+        if (currentPart != null) {
+            if (!bodyEnded) {
+                skippedParts.add(currentPart.getName());
+            }
+            currentPart = null;
+        }
+        byte[] skipBuffer = new byte[256];
+        while (readBody(skipBuffer, 0, skipBuffer.length) >= 0) {
+            // Skip the rest of the body
+        }
+        if (finished) {
+            return null;
+        }
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (int i = 0;; i++) {
+            String line = readHeaderLine();
+            if (line.isEmpty()) {
+                break;
+            }
+            if (i >= MAX_HEADER_LINES) {
+                throw new IOException("Too many headers in a multipart part");
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String header = line.substring(0, colon).trim()
+                    .toLowerCase(Locale.ENGLISH);
+            String value = line.substring(colon + 1).trim();
+            if (header.equals("content-disposition")) {
+                name = getDispositionParameter(value, "name");
+                filename = getDispositionParameter(value, "filename");
+            } else if (header.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        if (name == null) {
+            throw new IOException("A multipart part has no name");
+        }
+        bodyEnded = false;
+        partSize = 0;
+        currentPart = new Part(name, filename, contentType);
+        return currentPart;
+    }
+
+    /**
+     * Gets a stream of the body of the part with the given name. The stream
+     * moves to the part when it is first read, skipping the parts before it.
+     *
+     * @param name
+     *            the name of the part
+     * @return the stream of the part body
+     */
+    InputStream getPartInputStream(String name) {
+        return new LazyPartInputStream(name);
+    }
+
+    private Part findPart(String name) throws IOException {
+        if (currentPart != null && currentPart.getName().equals(name)) {
+            return currentPart;
+        }
+        if (skippedParts.contains(name)) {
+            throw new IOException(String.format(
+                    "The part '%s' was skipped, as a later part was read first",
+                    name));
+        }
+        Part part;
+        while ((part = nextPart()) != null) {
+            if (part.getName().equals(name)) {
+                return part;
+            }
+        }
+        throw new IOException(
+                String.format("The request has no part named '%s'", name));
+    }
+
+    private int readBody(byte[] target, int offset, int length)
+            throws IOException {
+        if (bodyEnded || finished) {
+            return -1;
+        }
+        while (true) {
+            int index = indexOfDelimiter();
+            // The end of the buffer may be the start of the delimiter
+            int available = index >= 0 ? index - position
+                    : limit - position - delimiter.length + 1;
+            if (available > 0) {
+                int count = Math.min(length, available);
+                partSize += count;
+                if (maxPartSize >= 0 && partSize > maxPartSize
+                        && currentPart != null) {
+                    throw sizeLimitExceeded(String.format(
+                            "The part '%s' exceeds the maximum size of %d bytes",
+                            currentPart.getName(), maxPartSize));
+                }
+                System.arraycopy(buffer, position, target, offset, count);
+                position += count;
+                return count;
+            }
+            if (index >= 0) {
+                position += delimiter.length;
+                readDelimiterSuffix();
+                bodyEnded = true;
+                return -1;
+            }
+            if (!fill()) {
+                throw new EOFException(
+                        "Unexpected end of the multipart request body");
+            }
+        }
+    }
+
+    private void readDelimiterSuffix() throws IOException {
+        ensureAvailable(2);
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            // The closing delimiter, the epilogue is ignored
+            finished = true;
+            return;
+        }
+        // Optional whitespace before the line break
+        while (true) {
+            ensureAvailable(1);
+            byte b = buffer[position];
+            if (b != ' ' && b != '\t') {
+                break;
+            }
+            position++;
+        }
+        ensureAvailable(2);
+        if (buffer[position] != '\r' || buffer[position + 1] != '\n') {
+            throw new IOException("Malformed multipart request body");
+        }
+        position += 2;
+    }
+
+    private String readHeaderLine() throws IOException {
+        while (true) {
+            for (int i = position; i < limit - 1; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, position, i - position,
+                            StandardCharsets.UTF_8);
+                    position = i + 2;
+                    return line;
+                }
+            }
+            if (limit - position >= MAX_HEADER_LINE_LENGTH) {
+                throw new IOException(
+                        "Too long header in a multipart request body");
+            }
+            if (!fill()) {
+                throw new EOFException(
+                        "Unexpected end of the multipart request body");
+            }
+        }
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer: for (int i = position; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private void ensureAvailable(int count) throws IOException {
+        while (limit - position < count) {
+            if (!fill()) {
+                throw new EOFException(
+                        "Unexpected end of the multipart request body");
+            }
+        }
+    }
+
+    /**
+     * Reads more data into the buffer, moving the unread data to its start.
+     *
+     * @return {@code false} if the request body has ended
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            // Only happens with header lines that do not fit the buffer
+            return false;
+        }
+        int count = in.read(buffer, limit, buffer.length - limit);
+        if (count < 0) {
+            return false;
+        }
+        requestSize += count;
+        if (maxRequestSize >= 0 && requestSize > maxRequestSize) {
+            throw sizeLimitExceeded(String.format(
+                    "The request exceeds the maximum size of %d bytes",
+                    maxRequestSize));
+        }
+        limit += count;
+        return true;
+    }
+
+    private SizeLimitExceededException sizeLimitExceeded(String message) {
+        sizeLimitExceeded = true;
+        return new SizeLimitExceededException(message);
+    }
+
+    private static String getDispositionParameter(String disposition,
+            String parameter) {
+        for (String token : disposition.split(";")) {
+            int equals = token.indexOf('=');
+            if (equals < 0 || !token.substring(0, equals).trim()
+                    .equalsIgnoreCase(parameter)) {
+                continue;
+            }
+            String value = token.substring(equals + 1).trim();
+            if (value.length() > 1 && value.startsWith("\"")
+                    && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Thrown when the request body exceeds one of the size limits.
+     */
+    static final class SizeLimitExceededException extends IOException {
+        private SizeLimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A part of the request body.
+     */
+    final class Part {
+        private final String name;
+        private final String filename;
+        private final String contentType;
+
+        private Part(String name, String filename, String contentType) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+        }
+
+        /**
+         * Gets the name of the part, which is a JSON pointer to a parameter
+         * for uploaded files.
+         *
+         * @return the part name
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the name of the uploaded file.
+         *
+         * @return the file name, or {@code null} if the part is not a file
+         */
+        String getFilename() {
+            return filename;
+        }
+
+        /**
+         * Gets the content type of the part.
+         *
+         * @return the content type, or {@code null} if not specified
+         */
+        String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets a stream of the body of the part. The stream can only be read
+         * until the next part is moved to.
+         *
+         * @return the stream of the part body
+         */
+        InputStream getInputStream() {
+            return new PartInputStream(this);
+        }
+    }
+
+    private class PartInputStream extends InputStream {
+        private final Part part;
+
+        private PartInputStream(Part part) {
+            this.part = part;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length)
+                throws IOException {
+            if (currentPart != part) {
+                if (!skippedParts.contains(part.getName())) {
+                    // The part was read to the end before moving on
+                    return -1;
+                }
+                throw new IOException(String.format(
+                        "The part '%s' was skipped, as a later part was read first",
+                        part.getName()));
+            }
+            if (length == 0) {
+                return 0;
+            }
+            return readBody(target, offset, length);
+        }
+    }
+
+    private final class LazyPartInputStream extends InputStream {
+        private final String name;
+        private InputStream delegate;
+
+        private LazyPartInputStream(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return getDelegate().read();
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length)
+                throws IOException {
+            return getDelegate().read(target, offset, length);
+        }
+
+        private InputStream getDelegate() throws IOException {
+            if (delegate == null) {
+                delegate = findPart(name).getInputStream();
+            }
+            return delegate;
+        }
+    }
+}
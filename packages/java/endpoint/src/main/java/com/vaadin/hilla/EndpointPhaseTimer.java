@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import com.vaadin.hilla.EndpointInvocationMetrics.Phase;
+
+/**
+ * Measures the consecutive phases of a single endpoint call: each
+ * {@link #lap(Phase)} records the time since the previous lap, or since the
+ * timer was started.
+ * <p>
+ * When metrics are not collected, {@link #NONE} is used, which does not read
+ * the clock at all. The timer is not thread safe, but may be handed over to
+ * another thread together with the call.
+ */
+final class EndpointPhaseTimer {
+
+    static final EndpointPhaseTimer NONE = new EndpointPhaseTimer(null, null,
+            null);
+
+    private final EndpointInvocationMetrics metrics;
+    private final String endpointName;
+    private final String methodName;
+    private long lapStart;
+
+    private EndpointPhaseTimer(EndpointInvocationMetrics metrics,
+            String endpointName, String methodName) {
+        this.metrics = metrics;
+        this.endpointName = endpointName;
+        this.methodName = methodName;
+        this.lapStart = metrics != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Starts timing the phases of a call.
+     *
+     * @param metrics
+     *            the metrics to report to
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @return the started timer, or {@link #NONE} if the metrics are disabled
+     */
+    static EndpointPhaseTimer start(EndpointInvocationMetrics metrics,
+            String endpointName, String methodName) {
+        return metrics.isEnabled()
+                ? new EndpointPhaseTimer(metrics, endpointName, methodName)
+                : NONE;
+    }
+
+    /**
+     * Records the time since the previous lap as the duration of the given
+     * phase.
+     *
+     * @param phase
+     *            the phase that has just ended
+     */
+    void lap(Phase phase) {
+        if (metrics == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        metrics.recordPhase(endpointName, methodName, phase, now - lapStart);
+        lapStart = now;
+    }
+
+    /**
+     * Restarts the lap without recording anything, to leave out time that
+     * does not belong to any phase.
+     */
+    void skip() {
+        if (metrics != null) {
+            lapStart = System.nanoTime();
+        }
+    }
+}
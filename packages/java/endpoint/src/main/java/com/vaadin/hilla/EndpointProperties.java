@@ -15,9 +15,15 @@
  */
 package com.vaadin.hilla;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Class that contains all Vaadin endpoint customizable properties.
@@ -29,6 +35,75 @@ public class EndpointProperties {
     @Value("${vaadin.endpoint.prefix:/connect}")
     private String endpointPrefix;
 
+    /**
+     * The strategy used for calling endpoint methods. When not set, method
+     * handles are used, except in native images where reflection is used.
+     */
+    private EndpointInvocationPlan.Dispatch dispatch;
+
+    /**
+     * Whether endpoint method parameters are deserialized directly from the
+     * request stream, without parsing the whole request body into a JSON tree
+     * first.
+     */
+    private boolean streamingRequestBinding = false;
+
+    /**
+     * Whether endpoint results are serialized directly to the response output
+     * stream, instead of serializing them into a string first.
+     */
+    private boolean streamingResponse = false;
+
+    /**
+     * The number of bytes of a streamed endpoint result that are buffered
+     * before the response is committed. Serialization errors that happen
+     * within this limit are reported with the usual error response.
+     */
+    private int responseBufferThreshold = 64 * 1024;
+
+    /**
+     * Whether several endpoint calls can be sent in one batch request. The
+     * batched calls do not have endpoint URLs of their own, so security rules
+     * that match endpoint URLs do not apply to them, and only the access
+     * annotations of each called method are checked.
+     */
+    private boolean batchEnabled = false;
+
+    /**
+     * Whether the calls of a batch request are executed concurrently. Only
+     * applies if the execution mode is not CONTAINER.
+     */
+    private boolean batchParallel = false;
+
+    /**
+     * The maximum number of calls accepted in a batch request.
+     */
+    private int batchMaxSize = 100;
+
+    /**
+     * The maximum total size of the results of methods annotated with
+     * {@link CacheableEndpointResult} that are kept in memory. Zero disables
+     * the result cache.
+     */
+    private DataSize resultCacheSize = DataSize.ofMegabytes(10);
+
+    /**
+     * Whether the nullability of endpoint return values is checked while they
+     * are serialized, instead of walking the values separately before the
+     * serialization.
+     */
+    private boolean serializationNullabilityCheck = false;
+
+    /**
+     * Where endpoint methods are executed.
+     */
+    private final Execution execution = new Execution();
+
+    /**
+     * How messages are sent through the push channel.
+     */
+    private final Push push = new Push();
+
     /**
      * Customize the prefix for all Vaadin endpoints. See default value in the
      * {@link EndpointProperties#endpointPrefix} field annotation.
@@ -39,4 +114,569 @@ public class EndpointProperties {
         return endpointPrefix;
     }
 
+    /**
+     * Gets the strategy used for calling endpoint methods.
+     *
+     * @return the configured strategy, or {@code null} to use
+     *         {@link EndpointInvocationPlan.Dispatch#getDefault()}
+     */
+    public EndpointInvocationPlan.Dispatch getDispatch() {
+        return dispatch;
+    }
+
+    /**
+     * Sets the strategy used for calling endpoint methods.
+     *
+     * @param dispatch
+     *            the strategy, or {@code null} to use the default
+     */
+    public void setDispatch(EndpointInvocationPlan.Dispatch dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    /**
+     * Checks whether endpoint method parameters are deserialized directly from
+     * the request stream.
+     *
+     * @return {@code true} if the request body is read as a stream,
+     *         {@code false} if it is parsed into a JSON tree first
+     */
+    public boolean isStreamingRequestBinding() {
+        return streamingRequestBinding;
+    }
+
+    /**
+     * Sets whether endpoint method parameters are deserialized directly from
+     * the request stream.
+     *
+     * @param streamingRequestBinding
+     *            {@code true} to read the request body as a stream
+     */
+    public void setStreamingRequestBinding(boolean streamingRequestBinding) {
+        this.streamingRequestBinding = streamingRequestBinding;
+    }
+
+    /**
+     * Checks whether endpoint results are serialized directly to the response
+     * output stream.
+     *
+     * @return {@code true} if results are streamed to the response
+     */
+    public boolean isStreamingResponse() {
+        return streamingResponse;
+    }
+
+    /**
+     * Sets whether endpoint results are serialized directly to the response
+     * output stream.
+     *
+     * @param streamingResponse
+     *            {@code true} to stream results to the response
+     */
+    public void setStreamingResponse(boolean streamingResponse) {
+        this.streamingResponse = streamingResponse;
+    }
+
+    /**
+     * Gets the number of bytes of a streamed endpoint result that are buffered
+     * before the response is committed.
+     *
+     * @return the buffer threshold in bytes
+     */
+    public int getResponseBufferThreshold() {
+        return responseBufferThreshold;
+    }
+
+    /**
+     * Sets the number of bytes of a streamed endpoint result that are buffered
+     * before the response is committed.
+     *
+     * @param responseBufferThreshold
+     *            the buffer threshold in bytes, not negative
+     */
+    public void setResponseBufferThreshold(int responseBufferThreshold) {
+        if (responseBufferThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "The response buffer threshold must not be negative");
+        }
+        this.responseBufferThreshold = responseBufferThreshold;
+    }
+
+    /**
+     * Checks whether several endpoint calls can be sent in one batch request.
+     *
+     * @return {@code true} if batch requests are accepted, {@code false}
+     *         otherwise
+     */
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    /**
+     * Sets whether several endpoint calls can be sent in one batch request.
+     * Security rules that match endpoint URLs do not apply to batched calls,
+     * only the access annotations of each called method are checked.
+     *
+     * @param batchEnabled
+     *            {@code true} to accept batch requests
+     */
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    /**
+     * Checks whether the calls of a batch request are executed concurrently.
+     * Only applies if the execution mode is not
+     * {@link ExecutionMode#CONTAINER}, as the calls are executed by the
+     * {@link EndpointExecutor}.
+     *
+     * @return {@code true} if batched calls are executed concurrently,
+     *         {@code false} if they are executed one after another
+     */
+    public boolean isBatchParallel() {
+        return batchParallel;
+    }
+
+    /**
+     * Sets whether the calls of a batch request are executed concurrently.
+     *
+     * @param batchParallel
+     *            {@code true} to execute batched calls concurrently
+     */
+    public void setBatchParallel(boolean batchParallel) {
+        this.batchParallel = batchParallel;
+    }
+
+    /**
+     * Gets the maximum number of calls accepted in a batch request.
+     *
+     * @return the maximum batch size
+     */
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of calls accepted in a batch request.
+     *
+     * @param batchMaxSize
+     *            the maximum batch size
+     */
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    /**
+     * Gets the maximum total size of the cached endpoint results.
+     *
+     * @return the result cache size
+     */
+    public DataSize getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    /**
+     * Sets the maximum total size of the cached endpoint results.
+     *
+     * @param resultCacheSize
+     *            the result cache size, zero to disable the cache
+     */
+    public void setResultCacheSize(DataSize resultCacheSize) {
+        if (resultCacheSize.isNegative()) {
+            throw new IllegalArgumentException(
+                    "The result cache size must not be negative");
+        }
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    /**
+     * Checks whether the nullability of endpoint return values is checked
+     * while they are serialized.
+     *
+     * @return {@code true} if return values are checked while serializing,
+     *         {@code false} if they are checked separately
+     */
+    public boolean isSerializationNullabilityCheck() {
+        return serializationNullabilityCheck;
+    }
+
+    /**
+     * Sets whether the nullability of endpoint return values is checked while
+     * they are serialized.
+     *
+     * @param serializationNullabilityCheck
+     *            {@code true} to check return values while serializing
+     */
+    public void setSerializationNullabilityCheck(
+            boolean serializationNullabilityCheck) {
+        this.serializationNullabilityCheck = serializationNullabilityCheck;
+    }
+
+    /**
+     * Gets the settings for where endpoint methods are executed.
+     *
+     * @return the execution settings
+     */
+    public Execution getExecution() {
+        return execution;
+    }
+
+    /**
+     * Gets the settings for sending messages through the push channel.
+     *
+     * @return the push settings
+     */
+    public Push getPush() {
+        return push;
+    }
+
+    /**
+     * The modes for executing endpoint methods.
+     */
+    public enum ExecutionMode {
+        /**
+         * Endpoint methods are executed on the servlet container thread that
+         * handles the request.
+         */
+        CONTAINER,
+        /**
+         * Endpoint methods are executed on new virtual threads, and the servlet
+         * container thread is released while the method runs.
+         */
+        VIRTUAL_THREAD,
+        /**
+         * Endpoint methods are executed on a bounded thread pool of each
+         * endpoint, and the servlet container thread is released while the
+         * method runs.
+         */
+        BOUNDED
+    }
+
+    /**
+     * Settings for where endpoint methods are executed, bound from the
+     * {@code vaadin.endpoint.execution} properties.
+     */
+    public static class Execution {
+
+        /**
+         * Where endpoint methods are executed.
+         */
+        private ExecutionMode mode = ExecutionMode.CONTAINER;
+
+        /**
+         * The maximum number of concurrently running calls of each endpoint,
+         * {@code 0} for no limit. A limit is required in the
+         * {@link ExecutionMode#BOUNDED} mode. Not used in the
+         * {@link ExecutionMode#CONTAINER} mode.
+         */
+        private int maxConcurrentCalls = 0;
+
+        /**
+         * The maximum number of calls of each endpoint that wait for a free
+         * slot when the concurrency limit is reached. Further calls are
+         * rejected with status 503.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * The maximum time a call may take before the request is completed
+         * with status 503, {@code 0} for no limit. This also applies to
+         * waiting for the value of methods that return a
+         * {@code CompletableFuture} or a {@code Mono}, in any mode. When not
+         * set, the async request timeout of Spring MVC applies, which is set
+         * with {@code spring.mvc.async.request-timeout}.
+         */
+        private Duration timeout;
+
+        /**
+         * Limits that override the defaults for individual endpoints, by
+         * endpoint name.
+         */
+        private final Map<String, Limits> endpoints = new HashMap<>();
+
+        /**
+         * Gets the mode for executing endpoint methods.
+         *
+         * @return the execution mode
+         */
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        /**
+         * Sets the mode for executing endpoint methods.
+         *
+         * @param mode
+         *            the execution mode, not {@code null}
+         */
+        public void setMode(ExecutionMode mode) {
+            this.mode = Objects.requireNonNull(mode);
+        }
+
+        /**
+         * Gets the default maximum number of concurrently running calls of
+         * each endpoint.
+         *
+         * @return the concurrency limit, or {@code 0} for no limit
+         */
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        /**
+         * Sets the default maximum number of concurrently running calls of
+         * each endpoint.
+         *
+         * @param maxConcurrentCalls
+         *            the concurrency limit, or {@code 0} for no limit
+         */
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        /**
+         * Gets the default maximum number of waiting calls of each endpoint.
+         *
+         * @return the queue capacity
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Sets the default maximum number of waiting calls of each endpoint.
+         *
+         * @param queueCapacity
+         *            the queue capacity
+         */
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Gets the maximum time a call may take.
+         *
+         * @return the timeout, {@link Duration#ZERO} for no limit, or
+         *         {@code null} for the async request timeout of Spring MVC
+         */
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * Sets the maximum time a call may take.
+         *
+         * @param timeout
+         *            the timeout, {@link Duration#ZERO} for no limit, or
+         *            {@code null} for the async request timeout of Spring
+         *            MVC
+         */
+        public void setTimeout(Duration timeout) {
+            if (timeout != null && timeout.isNegative()) {
+                throw new IllegalArgumentException(
+                        "The timeout must not be negative");
+            }
+            this.timeout = timeout;
+        }
+
+        /**
+         * Gets the limits that override the defaults for individual
+         * endpoints.
+         *
+         * @return a mutable map of limits by endpoint name
+         */
+        public Map<String, Limits> getEndpoints() {
+            return endpoints;
+        }
+    }
+
+    /**
+     * Execution limits of a single endpoint. Unset values fall back to the
+     * defaults in {@link Execution}.
+     */
+    public static class Limits {
+
+        private Integer maxConcurrentCalls;
+
+        private Integer queueCapacity;
+
+        /**
+         * Gets the maximum number of concurrently running calls.
+         *
+         * @return the concurrency limit, {@code 0} for no limit, or
+         *         {@code null} to use the default
+         */
+        public Integer getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        /**
+         * Sets the maximum number of concurrently running calls.
+         *
+         * @param maxConcurrentCalls
+         *            the concurrency limit, {@code 0} for no limit, or
+         *            {@code null} to use the default
+         */
+        public void setMaxConcurrentCalls(Integer maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        /**
+         * Gets the maximum number of waiting calls.
+         *
+         * @return the queue capacity, or {@code null} to use the default
+         */
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Sets the maximum number of waiting calls.
+         *
+         * @param queueCapacity
+         *            the queue capacity, or {@code null} to use the default
+         */
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Settings for sending messages through the push channel, bound from the
+     * {@code vaadin.endpoint.push} properties.
+     */
+    public static class Push {
+
+        /**
+         * The maximum number of messages of each connection that wait to be
+         * sent, or {@code 0}, the default, for no limit. With a limit, a
+         * connection whose client does not keep up is closed when the queue
+         * is full, and the client subscribes again. Only set a limit that is
+         * well above the number of items a subscription emits at once, e.g. a
+         * {@code Flux} of a large list.
+         */
+        private int queueCapacity;
+
+        /**
+         * The time the messages are collected for before they are sent
+         * together in one frame. With {@code 0}, the messages are sent as soon
+         * as possible, and only the messages that are queued while the
+         * previous frame is written are sent together.
+         */
+        private Duration flushWindow = Duration.ZERO;
+
+        /**
+         * The maximum size of a frame with several messages, in characters. A
+         * single message that is larger is sent in a frame of its own.
+         */
+        private int maxFrameSize = 64 * 1024;
+
+        /**
+         * The number of recently sent items that are remembered, so that an
+         * item that is sent to many subscriptions is serialized only once.
+         * With {@code 0}, the default, the items are serialized for each
+         * subscription. Only enable this if the items are not modified after
+         * they are emitted, as an item that is emitted again within a second
+         * is sent as it was first serialized. The subscriptions of a
+         * {@link com.vaadin.hilla.SharedSubscription} method always share the
+         * serialized items.
+         */
+        private int itemCacheSize;
+
+        /**
+         * Gets the maximum number of waiting messages of each connection.
+         *
+         * @return the queue capacity, {@code 0} for no limit
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Sets the maximum number of waiting messages of each connection.
+         *
+         * @param queueCapacity
+         *            the queue capacity, {@code 0} for no limit
+         */
+        public void setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException(
+                        "The queue capacity must not be negative");
+            }
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Gets the time the messages are collected for before they are sent.
+         *
+         * @return the flush window, {@link Duration#ZERO} to send as soon as
+         *         possible
+         */
+        public Duration getFlushWindow() {
+            return flushWindow;
+        }
+
+        /**
+         * Sets the time the messages are collected for before they are sent.
+         *
+         * @param flushWindow
+         *            the flush window, {@link Duration#ZERO} to send as soon
+         *            as possible
+         */
+        public void setFlushWindow(Duration flushWindow) {
+            if (flushWindow.isNegative()) {
+                throw new IllegalArgumentException(
+                        "The flush window must not be negative");
+            }
+            this.flushWindow = flushWindow;
+        }
+
+        /**
+         * Gets the maximum size of a frame with several messages.
+         *
+         * @return the maximum frame size in characters
+         */
+        public int getMaxFrameSize() {
+            return maxFrameSize;
+        }
+
+        /**
+         * Sets the maximum size of a frame with several messages.
+         *
+         * @param maxFrameSize
+         *            the maximum frame size in characters, at least {@code 1}
+         */
+        public void setMaxFrameSize(int maxFrameSize) {
+            if (maxFrameSize < 1) {
+                throw new IllegalArgumentException(
+                        "The maximum frame size must be at least 1");
+            }
+            this.maxFrameSize = maxFrameSize;
+        }
+
+        /**
+         * Gets the number of recently sent items that are remembered.
+         *
+         * @return the item cache size, {@code 0} if the items are serialized
+         *         for each subscription
+         */
+        public int getItemCacheSize() {
+            return itemCacheSize;
+        }
+
+        /**
+         * Sets the number of recently sent items that are remembered.
+         *
+         * @param itemCacheSize
+         *            the item cache size, {@code 0} to serialize the items
+         *            for each subscription
+         */
+        public void setItemCacheSize(int itemCacheSize) {
+            if (itemCacheSize < 0) {
+                throw new IllegalArgumentException(
+                        "The item cache size must not be negative");
+            }
+            this.itemCacheSize = itemCacheSize;
+        }
+    }
 }
@@ -17,10 +17,16 @@ package com.vaadin.hilla;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
@@ -30,6 +36,10 @@ import org.springframework.util.ClassUtils;
 
 /**
  * Keeps track of registered endpoints.
+ * <p>
+ * The endpoints are kept in an immutable snapshot that is replaced as a whole
+ * when endpoints are registered, so that looking up an endpoint never locks
+ * and never sees a partially updated registry, e.g. during a hot swap.
  */
 @Component
 public class EndpointRegistry {
@@ -40,24 +50,43 @@ public class EndpointRegistry {
      * Tracks methods inside a given endpoint class.
      */
     public static class VaadinEndpointData {
-        final Map<String, Method> methods = new HashMap<>();
+        final Map<String, Method> methods;
+        private final Map<String, EndpointInvocationPlan> invocationPlans;
         private final Object vaadinEndpointObject;
 
         private VaadinEndpointData(Object vaadinEndpointObject,
+                Class<?> endpointClass,
+                EndpointInvocationPlan.Dispatch dispatch,
                 Method... endpointMethods) {
             this.vaadinEndpointObject = vaadinEndpointObject;
+            Map<String, Method> methodsByName = new HashMap<>();
+            Map<String, EndpointInvocationPlan> plans = new HashMap<>();
             Stream.of(endpointMethods)
                     .filter(method -> method.getDeclaringClass() != Object.class
                             && !method.isBridge())
-                    .forEach(method -> methods.put(
-                            method.getName().toLowerCase(Locale.ENGLISH),
-                            method));
+                    .forEach(method -> {
+                        String name = method.getName()
+                                .toLowerCase(Locale.ENGLISH);
+                        methodsByName.put(name, method);
+                        plans.put(name, new EndpointInvocationPlan(method,
+                                endpointClass, dispatch));
+                    });
+            // The method names as declared, which clients normally use, are
+            // found without converting them to lower case
+            Map<String, EndpointInvocationPlan> lookup = new HashMap<>(plans);
+            methodsByName.values()
+                    .forEach(method -> lookup.putIfAbsent(method.getName(),
+                            plans.get(method.getName()
+                                    .toLowerCase(Locale.ENGLISH))));
+            this.methods = Map.copyOf(methodsByName);
+            this.invocationPlans = Map.copyOf(lookup);
         }
 
         /**
          * Gets all the endpoint methods.
          *
-         * @return the endpoint methods
+         * @return an unmodifiable map of the lower case method names to the
+         *         endpoint methods
          */
         public Map<String, Method> getMethods() {
             return methods;
@@ -72,8 +101,24 @@ public class EndpointRegistry {
          *         optional if no method was found
          */
         public Optional<Method> getMethod(String methodName) {
-            return Optional.ofNullable(
-                    methods.get(methodName.toLowerCase(Locale.ENGLISH)));
+            return getInvocationPlan(methodName)
+                    .map(EndpointInvocationPlan::getMethod);
+        }
+
+        /**
+         * Finds the invocation plan of the method with the given name.
+         *
+         * @param methodName
+         *            the name to look for
+         * @return An optional containing the invocation plan or an empty
+         *         optional if no method was found
+         */
+        public Optional<EndpointInvocationPlan> getInvocationPlan(
+                String methodName) {
+            EndpointInvocationPlan plan = invocationPlans.get(methodName);
+            return Optional.ofNullable(plan != null ? plan
+                    : invocationPlans
+                            .get(methodName.toLowerCase(Locale.ENGLISH)));
         }
 
         public Object getEndpointObject() {
@@ -81,8 +126,67 @@ public class EndpointRegistry {
         }
     }
 
+    /**
+     * An immutable state of the registry.
+     *
+     * @param endpoints
+     *            the endpoints by their lower case names
+     * @param lookup
+     *            the endpoints by their lower case names and by their names
+     *            as declared
+     * @param routes
+     *            the routing table, with the routes to the endpoint methods by
+     *            the endpoint and the method names, both in lower case and as
+     *            declared
+     */
+    private record Snapshot(Map<String, VaadinEndpointData> endpoints,
+            Map<String, VaadinEndpointData> lookup,
+            Map<String, Map<String, EndpointRoute>> routes) {
+        private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(),
+                Map.of());
+
+        private static Snapshot of(List<RegisteredEndpoint> registered) {
+            Map<String, VaadinEndpointData> endpoints = new HashMap<>();
+            registered.forEach(endpoint -> endpoints.put(endpoint.name(),
+                    endpoint.data()));
+            Map<String, VaadinEndpointData> lookup = new HashMap<>(endpoints);
+            registered.forEach(endpoint -> lookup.putIfAbsent(
+                    endpoint.declaredName(), endpoints.get(endpoint.name())));
+            Map<String, Map<String, EndpointRoute>> routes = new HashMap<>();
+            endpoints.forEach((endpointName, data) -> {
+                Map<String, EndpointRoute> methodRoutes = new HashMap<>();
+                data.methods.keySet()
+                        .forEach(methodName -> methodRoutes.put(methodName,
+                                new EndpointRoute(endpointName, methodName,
+                                        data, data.invocationPlans
+                                                .get(methodName))));
+                data.methods.forEach((methodName, method) -> methodRoutes
+                        .putIfAbsent(method.getName(),
+                                methodRoutes.get(methodName)));
+                routes.put(endpointName, Map.copyOf(methodRoutes));
+            });
+            // The names as declared, which clients normally use, are found
+            // without converting them to lower case
+            registered.forEach(endpoint -> routes.putIfAbsent(
+                    endpoint.declaredName(), routes.get(endpoint.name())));
+            return new Snapshot(Map.copyOf(endpoints), Map.copyOf(lookup),
+                    Map.copyOf(routes));
+        }
+    }
+
+    /**
+     * An endpoint that is about to be added to the registry.
+     */
+    private record RegisteredEndpoint(String name, String declaredName,
+            VaadinEndpointData data) {
+    }
+
     private final EndpointNameChecker endpointNameChecker;
-    private final Map<String, VaadinEndpointData> vaadinEndpoints = new HashMap<>();
+    private final Object registrationLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private List<RegisteredEndpoint> registered = List.of();
+    private EndpointInvocationPlan.Dispatch dispatch = EndpointInvocationPlan.Dispatch
+            .getDefault();
 
     /**
      * Creates a new registry using the given name checker.
@@ -95,18 +199,69 @@ public class EndpointRegistry {
         this.endpointNameChecker = endpointNameChecker;
     }
 
-    private static String getEndpointNameForClass(Class<?> beanType) {
+    /**
+     * Sets the strategy used for calling the methods of endpoints registered
+     * after this call.
+     *
+     * @param dispatch
+     *            the dispatch strategy, not {@code null}
+     */
+    public void setDispatch(EndpointInvocationPlan.Dispatch dispatch) {
+        this.dispatch = Objects.requireNonNull(dispatch);
+    }
+
+    private static String getDeclaredEndpointName(Class<?> beanType) {
         // BrowserCallable has no value so this works
         return Optional.ofNullable(beanType.getAnnotation(Endpoint.class))
                 .map(Endpoint::value).filter(value -> !value.isEmpty())
-                .orElse(beanType.getSimpleName()).toLowerCase(Locale.ENGLISH);
+                .orElse(beanType.getSimpleName());
     }
 
     String registerEndpoint(Object endpointBean) {
+        RegisteredEndpoint endpoint = createEndpoint(endpointBean);
+        synchronized (registrationLock) {
+            List<RegisteredEndpoint> endpoints = new ArrayList<>(registered);
+            endpoints.removeIf(other -> other.name().equals(endpoint.name()));
+            endpoints.add(endpoint);
+            publish(endpoints);
+        }
+        return endpoint.name();
+    }
+
+    /**
+     * Replaces all registered endpoints with the given ones at once. The new
+     * endpoints are prepared before any of them is visible, so that the
+     * registry is not changed at all if one of them is invalid.
+     *
+     * @param endpointBeans
+     *            the endpoint instances to register
+     * @return the names of the registered endpoints
+     */
+    Set<String> replaceEndpoints(Collection<?> endpointBeans) {
+        Map<String, RegisteredEndpoint> endpoints = new LinkedHashMap<>();
+        for (Object endpointBean : endpointBeans) {
+            RegisteredEndpoint endpoint = createEndpoint(endpointBean);
+            // The last one wins, as when registered one by one
+            endpoints.remove(endpoint.name());
+            endpoints.put(endpoint.name(), endpoint);
+        }
+        synchronized (registrationLock) {
+            publish(new ArrayList<>(endpoints.values()));
+        }
+        return Set.copyOf(endpoints.keySet());
+    }
+
+    private void publish(List<RegisteredEndpoint> endpoints) {
+        registered = List.copyOf(endpoints);
+        snapshot = Snapshot.of(registered);
+    }
+
+    private RegisteredEndpoint createEndpoint(Object endpointBean) {
         // Check the bean type instead of the implementation type in
         // case of e.g. proxies
         Class<?> beanType = ClassUtils.getUserClass(endpointBean.getClass());
-        String endpointName = getEndpointNameForClass(beanType);
+        String declaredName = getDeclaredEndpointName(beanType);
+        String endpointName = declaredName.toLowerCase(Locale.ENGLISH);
 
         if (endpointName.isEmpty()) {
             throw new IllegalStateException(String.format(
@@ -129,27 +284,55 @@ public class EndpointRegistry {
         Method[] endpointPublicMethods = beanType.getMethods();
         AccessibleObject.setAccessible(endpointPublicMethods, true);
 
-        vaadinEndpoints.put(endpointName,
-                new VaadinEndpointData(endpointBean, endpointPublicMethods));
+        VaadinEndpointData data = new VaadinEndpointData(endpointBean,
+                beanType, dispatch, endpointPublicMethods);
         LOGGER.debug("Registered endpoint '{}' with class '{}'", endpointName,
                 beanType);
-        return endpointName;
+        return new RegisteredEndpoint(endpointName, declaredName, data);
     }
 
     /**
      * Gets all registered endpoints.
      *
-     * @return a map of endpoint names to endpoint data
+     * @return an unmodifiable snapshot of the endpoint names in lower case
+     *         mapped to the endpoint data
      */
     public Map<String, VaadinEndpointData> getEndpoints() {
-        return vaadinEndpoints;
+        return snapshot.endpoints();
     }
 
     VaadinEndpointData get(String endpointName) {
-        return vaadinEndpoints.get(endpointName.toLowerCase(Locale.ENGLISH));
+        Map<String, VaadinEndpointData> lookup = snapshot.lookup();
+        VaadinEndpointData endpointData = lookup.get(endpointName);
+        return endpointData != null ? endpointData
+                : lookup.get(endpointName.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Finds the route to an endpoint method in the routing table of the
+     * current state of the registry.
+     *
+     * @param endpointName
+     *            the endpoint name, not case sensitive
+     * @param methodName
+     *            the method name, not case sensitive
+     * @return the route, or {@code null} if there is no such method
+     */
+    EndpointRoute getRoute(String endpointName, String methodName) {
+        Map<String, Map<String, EndpointRoute>> routes = snapshot.routes();
+        Map<String, EndpointRoute> methodRoutes = routes.get(endpointName);
+        if (methodRoutes == null) {
+            methodRoutes = routes.get(endpointName.toLowerCase(Locale.ENGLISH));
+            if (methodRoutes == null) {
+                return null;
+            }
+        }
+        EndpointRoute route = methodRoutes.get(methodName);
+        return route != null ? route
+                : methodRoutes.get(methodName.toLowerCase(Locale.ENGLISH));
     }
 
     boolean isEmpty() {
-        return vaadinEndpoints.isEmpty();
+        return snapshot.endpoints().isEmpty();
     }
 }
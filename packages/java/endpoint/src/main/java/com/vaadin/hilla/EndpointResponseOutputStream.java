@@ -0,0 +1,207 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * An output stream that writes a successful endpoint response directly to the
+ * servlet response.
+ * <p>
+ * The first bytes are kept in pooled buffers until the given threshold is
+ * exceeded. Until then, nothing has been sent to the client, so that the
+ * output can still be {@link #discard() discarded} and replaced with an error
+ * response if serialization fails. Responses that fit within the threshold are
+ * sent with a {@code Content-Length} header when {@link #finish() finished}.
+ * Larger responses are committed with status 200 and the rest of the output
+ * is written through to the servlet output stream.
+ * <p>
+ * The stream is not thread safe. {@link #close()} does not send anything, so
+ * that a serializer closing its target on failure cannot commit a partial
+ * response; {@link #finish()} must be called explicitly, and
+ * {@link #release()} must always be called when the stream is no longer used.
+ */
+final class EndpointResponseOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private static final int MAX_POOLED_CHUNKS = 256;
+
+    private static final Queue<byte[]> CHUNK_POOL = new ArrayBlockingQueue<>(
+            MAX_POOLED_CHUNKS);
+
+    private final HttpServletResponse response;
+    private final String contentType;
+    private final int threshold;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int bufferedLength;
+    private long length;
+    private OutputStream target;
+
+    EndpointResponseOutputStream(HttpServletResponse response,
+            String contentType, int threshold) {
+        this.response = response;
+        this.contentType = contentType;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        length++;
+        if (target != null) {
+            target.write(b);
+            return;
+        }
+        if (bufferedLength + 1 > threshold) {
+            commit();
+            target.write(b);
+            return;
+        }
+        int offset = bufferedLength % CHUNK_SIZE;
+        if (offset == 0) {
+            chunks.add(acquireChunk());
+        }
+        chunks.get(chunks.size() - 1)[offset] = (byte) b;
+        bufferedLength++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        this.length += length;
+        if (target != null) {
+            target.write(bytes, offset, length);
+            return;
+        }
+        if (bufferedLength + length > threshold) {
+            commit();
+            target.write(bytes, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int chunkOffset = bufferedLength % CHUNK_SIZE;
+            if (chunkOffset == 0) {
+                chunks.add(acquireChunk());
+            }
+            int count = Math.min(length, CHUNK_SIZE - chunkOffset);
+            System.arraycopy(bytes, offset, chunks.get(chunks.size() - 1),
+                    chunkOffset, count);
+            offset += count;
+            length -= count;
+            bufferedLength += count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Buffered output is only sent when the threshold is exceeded or the
+        // response is finished
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        // Intentionally empty, see finish()
+    }
+
+    /**
+     * Checks whether any output has already been sent to the client, in which
+     * case the response status can no longer be changed.
+     *
+     * @return {@code true} if the response has been committed
+     */
+    boolean isCommitted() {
+        return target != null;
+    }
+
+    /**
+     * Gets the number of bytes written to this stream, including the buffered
+     * output.
+     *
+     * @return the length of the output in bytes
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Sends the buffered output, if any, and flushes the response.
+     *
+     * @throws IOException
+     *             if writing to the client fails
+     */
+    void finish() throws IOException {
+        if (target == null) {
+            response.setContentLength(bufferedLength);
+            commit();
+        }
+        target.flush();
+    }
+
+    /**
+     * Drops the buffered output. Must only be called if the response has not
+     * been committed.
+     */
+    void discard() {
+        if (target != null) {
+            throw new IllegalStateException(
+                    "The response has already been committed");
+        }
+        releaseChunks();
+        bufferedLength = 0;
+        length = 0;
+    }
+
+    /**
+     * Returns the buffers to the pool.
+     */
+    void release() {
+        releaseChunks();
+    }
+
+    private void commit() throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        target = response.getOutputStream();
+        int remaining = bufferedLength;
+        for (byte[] chunk : chunks) {
+            int count = Math.min(remaining, CHUNK_SIZE);
+            target.write(chunk, 0, count);
+            remaining -= count;
+        }
+        releaseChunks();
+    }
+
+    private void releaseChunks() {
+        for (byte[] chunk : chunks) {
+            CHUNK_POOL.offer(chunk);
+        }
+        chunks.clear();
+    }
+
+    private static byte[] acquireChunk() {
+        byte[] chunk = CHUNK_POOL.poll();
+        return chunk != null ? chunk : new byte[CHUNK_SIZE];
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Caches the serialized results of endpoint methods annotated with
+ * {@link CacheableEndpointResult}.
+ * <p>
+ * The results are keyed by the endpoint and method names, the parameters and,
+ * if configured for the method, the principal name or the roles. The cache is
+ * bounded by the total size of the cached results: when a new result does not
+ * fit, the least recently used results are evicted. Expired results are
+ * dropped when they are looked up or evicted.
+ * <p>
+ * Inject this bean to evict results when the data they are based on changes,
+ * and to monitor the hit rate.
+ */
+public class EndpointResultCache {
+
+    private final long maxSize;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f,
+            true);
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize
+     *            the maximum total size of the cached results in bytes,
+     *            {@code 0} to disable caching
+     */
+    public EndpointResultCache(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(
+                    "The maximum size must not be negative");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Checks whether results are cached at all.
+     *
+     * @return {@code true} if the maximum size is positive
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void evictAll() {
+        removeIf(key -> true);
+    }
+
+    /**
+     * Removes the cached results of all methods of the given endpoint.
+     *
+     * @param endpointName
+     *            the endpoint name, not case sensitive
+     */
+    public void evict(String endpointName) {
+        String endpoint = endpointName.toLowerCase(Locale.ENGLISH);
+        removeIf(key -> key.endpoint().equals(endpoint));
+    }
+
+    /**
+     * Removes the cached results of the given endpoint method.
+     *
+     * @param endpointName
+     *            the endpoint name, not case sensitive
+     * @param methodName
+     *            the method name, not case sensitive
+     */
+    public void evict(String endpointName, String methodName) {
+        String endpoint = endpointName.toLowerCase(Locale.ENGLISH);
+        String method = methodName.toLowerCase(Locale.ENGLISH);
+        removeIf(key -> key.endpoint().equals(endpoint)
+                && key.method().equals(method));
+    }
+
+    /**
+     * Gets the number of calls that were answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of calls of cacheable methods that were not answered
+     * from the cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the ratio of the calls answered from the cache to all calls of
+     * cacheable methods.
+     *
+     * @return the hit rate between {@code 0} and {@code 1}, {@code 0} if no
+     *         cacheable methods have been called
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of results that have been removed to make room for new
+     * ones.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of cached results, including expired results that have
+     * not been removed yet.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the total size of the cached results.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Creates the key for a call of a cacheable method.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param parameters
+     *            the parameters of the call, or {@code null} if there are none
+     * @param settings
+     *            the cache settings of the method
+     * @param principal
+     *            the calling user, or {@code null} for anonymous calls
+     * @return the key
+     */
+    Key createKey(String endpointName, String methodName, JsonNode parameters,
+            CacheableEndpointResult settings, Principal principal) {
+        return createKey(endpointName, methodName, parameters,
+                settings.perPrincipal(), settings.perRoles(), principal);
+    }
+
+    /**
+     * Creates the key for a call of an endpoint method, which is scoped to the
+     * calling user or their roles if requested.
+     *
+     * @param endpointName
+     *            the endpoint name
+     * @param methodName
+     *            the method name
+     * @param parameters
+     *            the parameters of the call, or {@code null} if there are none
+     * @param perPrincipal
+     *            whether the key includes the principal name
+     * @param perRoles
+     *            whether the key includes the roles
+     * @param principal
+     *            the calling user, or {@code null} for anonymous calls
+     * @return the key
+     */
+    static Key createKey(String endpointName, String methodName,
+            JsonNode parameters, boolean perPrincipal, boolean perRoles,
+            Principal principal) {
+        String principalName = perPrincipal && principal != null
+                ? principal.getName()
+                : null;
+        Set<String> roles = null;
+        if (perRoles) {
+            roles = new TreeSet<>();
+            if (principal instanceof Authentication authentication) {
+                for (GrantedAuthority authority : authentication
+                        .getAuthorities()) {
+                    roles.add(authority.getAuthority());
+                }
+            }
+        }
+        // The parameters are compared as trees, so the order of the
+        // properties does not matter
+        return new Key(endpointName.toLowerCase(Locale.ENGLISH),
+                methodName.toLowerCase(Locale.ENGLISH),
+                parameters == null || parameters.isEmpty() ? null : parameters,
+                principalName, roles);
+    }
+
+    /**
+     * Gets the cached result for the given key.
+     *
+     * @param key
+     *            the key
+     * @return the serialized result, or {@code null} if there is no result or
+     *         it has expired
+     */
+    byte[] get(Key key) {
+        byte[] json = null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() - System.nanoTime() > 0) {
+                    json = entry.json();
+                } else {
+                    entries.remove(key);
+                    size -= entry.json().length;
+                }
+            }
+        }
+        (json != null ? hits : misses).increment();
+        return json;
+    }
+
+    /**
+     * Caches the given result.
+     *
+     * @param key
+     *            the key, whose parameters must not be modified after this
+     * @param json
+     *            the serialized result, which must not be modified after this
+     * @param ttlNanos
+     *            the time the result is used for, in nanoseconds
+     */
+    void put(Key key, byte[] json, long ttlNanos) {
+        if (json.length > maxSize || ttlNanos <= 0) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(json, expiresAt));
+            if (previous != null) {
+                size -= previous.json().length;
+            }
+            size += json.length;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.json().length;
+                if (eldest.expiresAt() - System.nanoTime() > 0) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private synchronized void removeIf(Predicate<Key> predicate) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet()
+                .iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                iterator.remove();
+                size -= entry.getValue().json().length;
+            }
+        }
+    }
+
+    /**
+     * Identifies a call of a cacheable or coalesced method.
+     */
+    record Key(String endpoint, String method, JsonNode parameters,
+            String principalName, Set<String> roles) {
+    }
+
+    private record Entry(byte[] json, long expiresAt) {
+    }
+
+    /**
+     * A serialized endpoint method result, which is returned by the
+     * {@link EndpointInvoker} in place of the result of a method annotated
+     * with {@link CacheableEndpointResult}.
+     */
+    public static final class CachedResult {
+        private final byte[] json;
+
+        CachedResult(byte[] json) {
+            this.json = json;
+        }
+
+        /**
+         * Gets the serialized result.
+         *
+         * @return the result as UTF-8 encoded JSON, the returned array must not
+         *         be modified
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+    }
+}
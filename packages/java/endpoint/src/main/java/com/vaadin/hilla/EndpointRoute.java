@@ -0,0 +1,211 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import org.springframework.util.ClassUtils;
+
+import com.vaadin.flow.server.auth.AccessAnnotationChecker;
+import com.vaadin.hilla.EndpointRegistry.VaadinEndpointData;
+import com.vaadin.hilla.auth.EndpointAccessChecker;
+
+/**
+ * An endpoint method that a request URI can be routed to, with everything
+ * that is needed to check the access to it and to invoke it.
+ * <p>
+ * The routes are created once for each state of the {@link EndpointRegistry}.
+ * The route of a request is resolved once by the
+ * {@link EndpointRoutingFilter} and stored in the {@link #ATTRIBUTE} request
+ * attribute, so that the security filters, the {@link EndpointController} and
+ * the {@link EndpointInvoker} do not repeat the lookup.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class EndpointRoute {
+
+    /**
+     * The request attribute that holds the route of a request, if it has been
+     * resolved.
+     */
+    static final String ATTRIBUTE = EndpointRoute.class.getName();
+
+    private final String endpointName;
+    private final String methodName;
+    private final VaadinEndpointData endpointData;
+    private final EndpointInvocationPlan invocationPlan;
+    private final Class<?> endpointClass;
+    private volatile AnonymousAccess anonymous;
+
+    EndpointRoute(String endpointName, String methodName,
+            VaadinEndpointData endpointData,
+            EndpointInvocationPlan invocationPlan) {
+        this.endpointName = endpointName;
+        this.methodName = methodName;
+        this.endpointData = endpointData;
+        this.invocationPlan = invocationPlan;
+        this.endpointClass = ClassUtils
+                .getUserClass(endpointData.getEndpointObject());
+    }
+
+    /**
+     * Gets the route of a request, resolving it and storing it in the request
+     * only if it has not been resolved for the request URI yet.
+     *
+     * @param request
+     *            the request
+     * @param resolver
+     *            finds the route of a request, or returns {@code null} if the
+     *            request does not go to an endpoint method
+     * @return the route, or {@code null} if the request does not go to an
+     *         endpoint method
+     */
+    static EndpointRoute resolve(HttpServletRequest request,
+            Function<HttpServletRequest, EndpointRoute> resolver) {
+        Resolution resolution = getResolution(request);
+        if (resolution != null) {
+            return resolution.route();
+        }
+        EndpointRoute route = resolver.apply(request);
+        request.setAttribute(ATTRIBUTE,
+                new Resolution(request.getRequestURI(), route));
+        return route;
+    }
+
+    /**
+     * Gets the route of a request like
+     * {@link #resolve(HttpServletRequest, Function)}, but without storing it
+     * in the request, for callers that must not modify the request.
+     *
+     * @param request
+     *            the request
+     * @param resolver
+     *            finds the route of a request, or returns {@code null} if the
+     *            request does not go to an endpoint method
+     * @return the route, or {@code null} if the request does not go to an
+     *         endpoint method
+     */
+    static EndpointRoute find(HttpServletRequest request,
+            Function<HttpServletRequest, EndpointRoute> resolver) {
+        Resolution resolution = getResolution(request);
+        return resolution != null ? resolution.route()
+                : resolver.apply(request);
+    }
+
+    /**
+     * Gets the route that has been resolved for a request, if it goes to the
+     * given endpoint method.
+     *
+     * @param request
+     *            the request
+     * @param endpointName
+     *            the endpoint name, not case sensitive
+     * @param methodName
+     *            the method name, not case sensitive
+     * @return the route, or {@code null} if no route has been resolved for the
+     *         request or the route goes to another method
+     */
+    static EndpointRoute get(HttpServletRequest request, String endpointName,
+            String methodName) {
+        Resolution resolution = request != null ? getResolution(request)
+                : null;
+        if (resolution != null) {
+            EndpointRoute route = resolution.route();
+            if (route != null
+                    && route.endpointName.equalsIgnoreCase(endpointName)
+                    && route.methodName.equalsIgnoreCase(methodName)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static Resolution getResolution(HttpServletRequest request) {
+        // The attribute is kept when the request is forwarded to another URI
+        if (request.getAttribute(ATTRIBUTE) instanceof Resolution resolution
+                && resolution.requestUri().equals(request.getRequestURI())) {
+            return resolution;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the endpoint data.
+     *
+     * @return the endpoint data
+     */
+    VaadinEndpointData getEndpointData() {
+        return endpointData;
+    }
+
+    /**
+     * Gets the invocation plan of the method.
+     *
+     * @return the invocation plan
+     */
+    EndpointInvocationPlan getInvocationPlan() {
+        return invocationPlan;
+    }
+
+    /**
+     * Checks if anonymous users have access to the method. The result is
+     * computed once for each route if the standard checker is used, until the
+     * access decisions are invalidated.
+     *
+     * @param checker
+     *            the checker of the access annotations
+     * @return {@code true} if the method is public
+     */
+    boolean isAnonymous(AccessAnnotationChecker checker) {
+        // Subclasses of the annotation checker may decide differently
+        if (checker.getClass() != AccessAnnotationChecker.class) {
+            return checkAnonymous(checker);
+        }
+        int generation = EndpointAccessChecker.getAccessDecisionsGeneration();
+        AnonymousAccess access = anonymous;
+        if (access == null || access.generation() != generation) {
+            access = new AnonymousAccess(checkAnonymous(checker), generation);
+            anonymous = access;
+        }
+        return access.allowed();
+    }
+
+    private boolean checkAnonymous(AccessAnnotationChecker checker) {
+        Method method = invocationPlan.getMethod();
+        // Inherited methods are checked with the annotations of the endpoint
+        // class
+        return method.getDeclaringClass().equals(endpointClass)
+                ? checker.hasAccess(method, null, role -> false)
+                : checker.hasAccess(endpointClass, null, role -> false);
+    }
+
+    /**
+     * The cached result of {@link #isAnonymous(AccessAnnotationChecker)}, with
+     * the generation of the access decisions it was computed in.
+     */
+    private record AnonymousAccess(boolean allowed, int generation) {
+    }
+
+    /**
+     * The route resolved for a request URI, {@code null} if the URI does not
+     * go to an endpoint method.
+     */
+    private record Resolution(String requestUri, EndpointRoute route) {
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Resolves the {@link EndpointRoute} of endpoint calls before any other
+ * filter, and stores it in the request.
+ * <p>
+ * The security checks of {@link EndpointUtil}, the {@link EndpointController}
+ * and the {@link EndpointInvoker} use the stored route, so that the request
+ * URI is matched and the endpoint method is looked up only once for each
+ * call.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+class EndpointRoutingFilter extends OncePerRequestFilter {
+
+    private final Function<HttpServletRequest, EndpointRoute> routeResolver;
+
+    EndpointRoutingFilter(
+            Function<HttpServletRequest, EndpointRoute> routeResolver) {
+        this.routeResolver = routeResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Endpoint methods are only called with POST requests
+        return !"POST".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointRoute.resolve(request, routeResolver);
+        filterChain.doFilter(request, response);
+    }
+}
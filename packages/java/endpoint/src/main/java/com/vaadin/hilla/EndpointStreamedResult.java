@@ -0,0 +1,155 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles the return values of endpoint methods that are written element by
+ * element, instead of serializing them as a whole.
+ * <p>
+ * Values of type {@link Stream} and {@link Iterator} are always written
+ * incrementally as a JSON array. If the client accepts
+ * {@value #NDJSON_VALUE}, these values, {@link Iterable}s and arrays are
+ * written as newline-delimited JSON instead, one element per line, so that the
+ * client can process the elements as they arrive.
+ * <p>
+ * A stream, or an iterator that is {@link AutoCloseable}, is closed as soon as
+ * it has been written, so that e.g. a database cursor behind it is only open
+ * while the response is being written.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class EndpointStreamedResult {
+
+    /**
+     * The content type of newline-delimited JSON.
+     */
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(EndpointStreamedResult.class);
+
+    private EndpointStreamedResult() {
+    }
+
+    /**
+     * Checks if the given return value is always written element by element.
+     *
+     * @param returnValue
+     *            the value returned by an endpoint method
+     * @return {@code true} if the value is a stream or an iterator
+     */
+    static boolean isStreamed(Object returnValue) {
+        return returnValue instanceof Stream<?>
+                || returnValue instanceof Iterator<?>;
+    }
+
+    /**
+     * Checks if the given return value can be written as newline-delimited
+     * JSON.
+     *
+     * @param returnValue
+     *            the value returned by an endpoint method
+     * @return {@code true} if the value has elements
+     */
+    static boolean hasElements(Object returnValue) {
+        return isStreamed(returnValue) || returnValue instanceof Iterable<?>
+                || returnValue instanceof Object[];
+    }
+
+    /**
+     * Checks if the client accepts newline-delimited JSON.
+     *
+     * @param request
+     *            the request to check
+     * @return {@code true} if newline-delimited JSON is accepted
+     */
+    static boolean isNdjsonRequest(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(NDJSON_VALUE);
+    }
+
+    /**
+     * Gets an iterator over the elements of the given return value.
+     *
+     * @param returnValue
+     *            a value for which {@link #hasElements(Object)} is
+     *            {@code true}
+     * @return the iterator over the elements
+     */
+    static Iterator<?> iterator(Object returnValue) {
+        if (returnValue instanceof Stream<?> stream) {
+            return stream.iterator();
+        } else if (returnValue instanceof Iterator<?> iterator) {
+            return iterator;
+        } else if (returnValue instanceof Object[] array) {
+            return Arrays.asList(array).iterator();
+        }
+        return ((Iterable<?>) returnValue).iterator();
+    }
+
+    /**
+     * Reads the elements of a stream or an iterator into a list, for the
+     * responses that are sent as a whole. The source is closed when read.
+     * Other values are returned as is.
+     *
+     * @param returnValue
+     *            the value returned by an endpoint method
+     * @return the list of elements, or the given value
+     */
+    static Object collect(Object returnValue) {
+        if (!isStreamed(returnValue)) {
+            return returnValue;
+        }
+        try {
+            List<Object> elements = new ArrayList<>();
+            iterator(returnValue).forEachRemaining(elements::add);
+            return elements;
+        } finally {
+            close(returnValue);
+        }
+    }
+
+    /**
+     * Closes a stream, or an iterator that is {@link AutoCloseable}. Other
+     * values are ignored.
+     *
+     * @param returnValue
+     *            the value returned by an endpoint method
+     */
+    static void close(Object returnValue) {
+        if (returnValue instanceof Stream<?> stream) {
+            stream.close();
+        } else if (returnValue instanceof Iterator<?>
+                && returnValue instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOGGER.debug("Unable to close an endpoint result", e);
+            }
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.vaadin.hilla;
 
+import java.util.function.Function;
+
 import reactor.core.publisher.Flux;
 
 /**
@@ -24,17 +26,37 @@ import reactor.core.publisher.Flux;
  * An unsubscribe event is sent when "cancel" is called in the browser but also
  * if the browser has disconnected from the server either explicitly or been
  * disconnected from the server for a long enough time.
+ * <p>
+ * The items can be buffered for a client that does not keep up with them, see
+ * {@link #withOverflow(OverflowStrategy, int)} and
+ * {@link #withConflation(Function, int)}.
  */
 public class EndpointSubscription<TT> {
 
     private Flux<TT> flux;
     private Runnable onUnsubscribe;
+    private OverflowStrategy overflowStrategy;
+    private int bufferSize;
+    private Function<? super TT, ?> conflationKey;
 
     private EndpointSubscription(Flux<TT> flux, Runnable onUnsubscribe) {
         this.flux = flux;
         this.onUnsubscribe = onUnsubscribe;
     }
 
+    private EndpointSubscription(EndpointSubscription<TT> subscription,
+            OverflowStrategy overflowStrategy, int bufferSize,
+            Function<? super TT, ?> conflationKey) {
+        this(subscription.flux, subscription.onUnsubscribe);
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(
+                    "The buffer size must be at least 1");
+        }
+        this.overflowStrategy = overflowStrategy;
+        this.bufferSize = bufferSize;
+        this.conflationKey = conflationKey;
+    }
+
     /**
      * Returns the flux value provide for this subscription.
      */
@@ -50,6 +72,75 @@ public class EndpointSubscription<TT> {
         return onUnsubscribe;
     }
 
+    /**
+     * Returns what is done with the items that arrive while the buffer of the
+     * subscription is full.
+     *
+     * @return the overflow strategy, or {@code null} if the items are not
+     *         buffered by this subscription
+     */
+    public OverflowStrategy getOverflowStrategy() {
+        return overflowStrategy;
+    }
+
+    /**
+     * Returns the maximum number of items that wait to be sent.
+     *
+     * @return the buffer size, or {@code 0} if the items are not buffered by
+     *         this subscription
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the function that gives the key of an item, for keeping the
+     * latest item of each key.
+     *
+     * @return the key extractor, or {@code null} if only the latest item is
+     *         kept, or the items are not conflated
+     */
+    public Function<? super TT, ?> getConflationKey() {
+        return conflationKey;
+    }
+
+    /**
+     * Creates a copy of this subscription that buffers the items for a client
+     * that does not keep up with them. This takes precedence over the
+     * {@link SubscriptionOverflow} annotation of the endpoint method.
+     *
+     * @param overflowStrategy
+     *            what is done with the items that arrive while the buffer is
+     *            full
+     * @param bufferSize
+     *            the maximum number of items that wait to be sent, at least 1
+     * @return the new subscription
+     */
+    public EndpointSubscription<TT> withOverflow(
+            OverflowStrategy overflowStrategy, int bufferSize) {
+        return new EndpointSubscription<>(this, overflowStrategy, bufferSize,
+                null);
+    }
+
+    /**
+     * Creates a copy of this subscription that only keeps the latest item of
+     * each key for a client that does not keep up with the items, as with
+     * {@link OverflowStrategy#KEEP_LATEST}. For example, with the id of an
+     * entity as the key, only the latest version of each entity is sent.
+     *
+     * @param keyExtractor
+     *            gives the key of an item
+     * @param bufferSize
+     *            the maximum number of keys with an item that waits to be
+     *            sent, at least 1
+     * @return the new subscription
+     */
+    public EndpointSubscription<TT> withConflation(
+            Function<? super TT, ?> keyExtractor, int bufferSize) {
+        return new EndpointSubscription<>(this, OverflowStrategy.KEEP_LATEST,
+                bufferSize, keyExtractor);
+    }
+
     /**
      * Creates a new endpoint subscription.
      *
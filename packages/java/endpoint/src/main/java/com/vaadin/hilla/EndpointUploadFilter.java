@@ -0,0 +1,102 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.multipart.support.StandardMultipartHttpServletRequest;
+
+/**
+ * Keeps the multipart requests to endpoint methods with {@link InputStream}
+ * parameters from being parsed before the method is called, so that the
+ * uploaded files can be streamed to the method.
+ * <p>
+ * The request is marked as already resolved for the Spring dispatcher, which
+ * would otherwise store the uploaded files in memory or on disk first. The
+ * {@link EndpointController} reads the parts from the request body instead.
+ * Other filters must not read the parameters of these requests, as that
+ * parses the request body.
+ * <p>
+ * The size limits of the multipart configuration, such as
+ * {@code spring.servlet.multipart.max-file-size} and
+ * {@code spring.servlet.multipart.max-request-size}, are passed on to the
+ * controller, which enforces them while reading the parts.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+class EndpointUploadFilter extends OncePerRequestFilter {
+
+    /**
+     * The request attribute that is set for the requests whose parts are
+     * streamed. The value is the {@link MultipartConfigElement} with the size
+     * limits of the request.
+     */
+    static final String STREAMING_UPLOAD_ATTRIBUTE = EndpointUploadFilter.class
+            .getName() + ".streaming";
+
+    private final Function<HttpServletRequest, EndpointRoute> routeResolver;
+    private final MultipartConfigElement multipartConfig;
+
+    EndpointUploadFilter(
+            Function<HttpServletRequest, EndpointRoute> routeResolver) {
+        this(routeResolver, null);
+    }
+
+    EndpointUploadFilter(
+            Function<HttpServletRequest, EndpointRoute> routeResolver,
+            MultipartConfigElement multipartConfig) {
+        this.routeResolver = routeResolver;
+        // Without a configuration, the sizes are not limited
+        this.multipartConfig = multipartConfig != null ? multipartConfig
+                : new MultipartConfigElement("");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return !"POST".equals(request.getMethod()) || contentType == null
+                || !contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (hasUploadStreams(request)) {
+            request.setAttribute(STREAMING_UPLOAD_ATTRIBUTE, multipartConfig);
+            // Resolved lazily, so the parts are only parsed if requested
+            request = new StandardMultipartHttpServletRequest(request, true);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean hasUploadStreams(HttpServletRequest request) {
+        // Shared with the routing filter, whichever runs first resolves it
+        EndpointRoute route = EndpointRoute.resolve(request, routeResolver);
+        return route != null && !route.getInvocationPlan()
+                .getUploadStreamParameters().isEmpty();
+    }
+}
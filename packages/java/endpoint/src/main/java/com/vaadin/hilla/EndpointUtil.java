@@ -17,15 +17,12 @@ package com.vaadin.hilla;
 
 import jakarta.servlet.http.HttpServletRequest;
 
-import java.lang.reflect.Method;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ClassUtils;
 import org.springframework.web.util.pattern.PathPattern;
 import org.springframework.web.util.pattern.PathPatternParser;
 
@@ -47,6 +44,9 @@ public class EndpointUtil implements EndpointRequestUtil {
     @Autowired
     private EndpointAccessChecker accessChecker;
 
+    // Parsed once, as the endpoint prefix does not change
+    private volatile PathPatterns pathPatterns;
+
     /**
      * Checks if the request is for an endpoint.
      * <p>
@@ -61,11 +61,7 @@ public class EndpointUtil implements EndpointRequestUtil {
      */
     @Override
     public boolean isEndpointRequest(HttpServletRequest request) {
-        return getEndpoint(request).isPresent();
-    }
-
-    private Optional<Method> getEndpoint(HttpServletRequest request) {
-        return getEndpointData(request).map(EndpointData::method);
+        return getRoute(request) != null || isBatchRequest(request);
     }
 
     /**
@@ -78,59 +74,73 @@ public class EndpointUtil implements EndpointRequestUtil {
      */
     @Override
     public boolean isAnonymousEndpoint(HttpServletRequest request) {
-        var endpointData = getEndpointData(request);
-        if (endpointData.isEmpty()) {
-            return false;
-        }
-        var invokedEndpointClass = ClassUtils
-                .getUserClass(endpointData.get().endpointObject());
-        var methodDeclaringClass = endpointData.get().method()
-                .getDeclaringClass();
-        if (methodDeclaringClass.equals(invokedEndpointClass)) {
-            return accessChecker.getAccessAnnotationChecker().hasAccess(
-                    endpointData.get().method(), null, role -> false);
-        } else {
-            return accessChecker.getAccessAnnotationChecker()
-                    .hasAccess(invokedEndpointClass, null, role -> false);
+        EndpointRoute route = getRoute(request);
+        if (route != null) {
+            return route.isAnonymous(
+                    accessChecker.getAccessAnnotationChecker());
         }
+        // A batch may contain calls to anonymous endpoints, the access to
+        // each call is checked with its annotations when it is invoked, see
+        // EndpointProperties.isBatchEnabled()
+        return isBatchRequest(request);
     }
 
-    private Optional<PathPattern.PathMatchInfo> getPathMatchInfo(
-            HttpServletRequest request) {
-        PathPatternParser pathParser = new PathPatternParser();
-        PathPattern pathPattern = pathParser
-                .parse(endpointProperties.getEndpointPrefix()
-                        + EndpointController.ENDPOINT_METHODS);
-
-        RequestPath requestPath = RequestPath.parse(request.getRequestURI(),
-                request.getContextPath());
-        PathContainer pathWithinApplication = requestPath
-                .pathWithinApplication();
-        PathPattern.PathMatchInfo matchInfo = pathPattern
-                .matchAndExtract(pathWithinApplication);
-        return Optional.ofNullable(matchInfo);
+    /**
+     * Gets the route that the {@link EndpointRoutingFilter} has resolved for
+     * the request. The request is not modified here, as these checks may be
+     * done with a request that does not support setting attributes.
+     */
+    private EndpointRoute getRoute(HttpServletRequest request) {
+        return EndpointRoute.find(request, this::findRoute);
     }
 
-    private Optional<EndpointData> getEndpointData(HttpServletRequest request) {
-        Optional<PathPattern.PathMatchInfo> matchInfo = getPathMatchInfo(
-                request);
-        if (matchInfo.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Finds the route of a request in the routing table of the registry.
+     *
+     * @param request
+     *            the request
+     * @return the route, or {@code null} if the request does not go to an
+     *         endpoint method
+     */
+    EndpointRoute findRoute(HttpServletRequest request) {
+        PathPattern.PathMatchInfo matchInfo = getPathPatterns().methods()
+                .matchAndExtract(getPathWithinApplication(request));
+        if (matchInfo == null) {
+            return null;
         }
+        Map<String, String> uriVariables = matchInfo.getUriVariables();
+        return registry.getRoute(uriVariables.get("endpoint"),
+                uriVariables.get("method"));
+    }
+
+    private boolean isBatchRequest(HttpServletRequest request) {
+        return endpointProperties.isBatchEnabled() && getPathPatterns().batch()
+                .matches(getPathWithinApplication(request));
+    }
 
-        Map<String, String> uriVariables = matchInfo.get().getUriVariables();
-        String endpointName = uriVariables.get("endpoint");
-        String methodName = uriVariables.get("method");
-        EndpointRegistry.VaadinEndpointData data = registry.get(endpointName);
-        if (data == null) {
-            return Optional.empty();
+    private PathPatterns getPathPatterns() {
+        PathPatterns patterns = pathPatterns;
+        if (patterns == null) {
+            PathPatternParser pathParser = new PathPatternParser();
+            String prefix = endpointProperties.getEndpointPrefix();
+            patterns = new PathPatterns(
+                    pathParser.parse(
+                            prefix + EndpointController.ENDPOINT_METHODS),
+                    pathParser.parse(
+                            prefix + EndpointController.ENDPOINT_BATCH));
+            pathPatterns = patterns;
         }
-        Optional<Method> endpointMethod = data.getMethod(methodName);
-        return endpointMethod.map(
-                method -> new EndpointData(method, data.getEndpointObject()));
+        return patterns;
+    }
+
+    private static PathContainer getPathWithinApplication(
+            HttpServletRequest request) {
+        RequestPath requestPath = RequestPath.parse(request.getRequestURI(),
+                request.getContextPath());
+        return requestPath.pathWithinApplication();
     }
 
-    private record EndpointData(Method method, Object endpointObject) {
+    private record PathPatterns(PathPattern methods, PathPattern batch) {
     }
 
 }
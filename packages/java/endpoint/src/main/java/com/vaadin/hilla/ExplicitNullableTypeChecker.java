@@ -17,6 +17,8 @@ package com.vaadin.hilla;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
@@ -26,6 +28,8 @@ import java.util.stream.Stream;
 
 import com.github.javaparser.ast.expr.AnnotationExpr;
 
+import com.vaadin.hilla.ExplicitNullableTypeCheckerHelper.Plans;
+
 /**
  * A checker for TypeScript null compatibility in Vaadin endpoint methods
  * parameter and return types.
@@ -34,6 +38,9 @@ public class ExplicitNullableTypeChecker {
     private static final String NULLABLE_ANNOTATION_NAME = "nullable";
     private static final String NONNULL_ANNOTATION_NAME = "nonnull";
 
+    // The plans are shared by all checks of this checker
+    private final Plans plans = new Plans();
+
     /**
      * Checks if the reflected element should be required (not nullable) in the
      * generated Typescript code based on annotations.
@@ -128,8 +135,61 @@ public class ExplicitNullableTypeChecker {
         return null;
     }
 
+    /**
+     * Validates the given value for the value that the asynchronous return
+     * value of the given method resolves to, e.g. the {@code T} in
+     * {@code CompletableFuture<T>}.
+     * <p>
+     * The value is required if the method return value is required, unless
+     * the type argument is explicitly annotated as nullable, or if the type
+     * argument is explicitly annotated as non-null.
+     *
+     * @param value
+     *            the resolved value to validate
+     * @param method
+     *            the method that returned the asynchronous value
+     * @param resultType
+     *            the declared type of the resolved value
+     * @param requiredByContext
+     *            {@code true} if the context defines that the node is required
+     *
+     * @return error message when the value is null while the expected type does
+     *         not explicitly allow null, or null meaning the value is OK.
+     */
+    public String checkValueForAsyncResult(Object value, Method method,
+            Type resultType, boolean requiredByContext) {
+        return isAsyncResultRequired(method, requiredByContext)
+                ? checkValueForType(value, resultType)
+                : null;
+    }
+
+    /**
+     * Checks if the value that the asynchronous return value of the given
+     * method resolves to is required, see
+     * {@link #checkValueForAsyncResult(Object, Method, Type, boolean)}.
+     */
+    static boolean isAsyncResultRequired(Method method,
+            boolean requiredByContext) {
+        boolean required = isRequired(method, requiredByContext);
+        AnnotatedType returnType = method.getAnnotatedReturnType();
+        if (returnType instanceof AnnotatedParameterizedType parameterizedType
+                && parameterizedType
+                        .getAnnotatedActualTypeArguments().length > 0) {
+            Annotation[] annotations = parameterizedType
+                    .getAnnotatedActualTypeArguments()[0].getAnnotations();
+            if (hasAnnotation(Stream.of(annotations),
+                    NULLABLE_ANNOTATION_NAME)) {
+                required = false;
+            } else if (hasAnnotation(Stream.of(annotations),
+                    NONNULL_ANNOTATION_NAME)) {
+                required = true;
+            }
+        }
+        return required;
+    }
+
     String checkValueForType(Object value, Type expectedType) {
-        return new ExplicitNullableTypeCheckerHelper().checkValueForType(value,
-                expectedType);
+        return new ExplicitNullableTypeCheckerHelper(plans)
+                .checkValueForType(value, expectedType);
     }
 }
@@ -27,13 +27,16 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.slf4j.Logger;
@@ -44,16 +47,59 @@ import com.vaadin.hilla.parser.utils.Generics;
 
 /**
  * A helper class for ExplicitNullableTypeChecker.
+ * <p>
+ * What to check for each type is worked out once and kept in a
+ * {@link Plans} cache that is shared between the helpers, so that checking a
+ * value only walks the value itself.
  */
 class ExplicitNullableTypeCheckerHelper {
 
-    // A map for tracking already visited Beans.
+    /**
+     * Incremented when application classes are hot swapped, which makes all
+     * the cached plans stale.
+     */
+    private static volatile int plansGeneration;
+
+    private final Plans plans;
+    private final boolean checkBeans;
+
+    // The already visited beans by type, compared by identity
     private Map<Type, Set<Object>> visitedBeans;
 
+    ExplicitNullableTypeCheckerHelper() {
+        this(new Plans());
+    }
+
+    ExplicitNullableTypeCheckerHelper(Plans plans) {
+        this(plans, true);
+    }
+
+    /**
+     * Creates a helper that uses the given plans.
+     *
+     * @param plans
+     *            the cached plans
+     * @param checkBeans
+     *            {@code false} to only check the values and the items of
+     *            containers, but not the properties of beans
+     */
+    ExplicitNullableTypeCheckerHelper(Plans plans, boolean checkBeans) {
+        this.plans = plans;
+        this.checkBeans = checkBeans;
+    }
+
     private static Logger getLogger() {
         return LoggerFactory.getLogger(EndpointController.class);
     }
 
+    /**
+     * Drops all cached plans, for instance because the bean properties of
+     * hot swapped classes may have changed.
+     */
+    static void invalidatePlans() {
+        plansGeneration++;
+    }
+
     /**
      * Check if the Bean value and type have been visited.
      */
@@ -75,8 +121,11 @@ class ExplicitNullableTypeCheckerHelper {
         if (visitedBeans == null) {
             visitedBeans = new HashMap<>();
         }
-        visitedBeans.putIfAbsent(type, new HashSet<>());
-        visitedBeans.get(type).add(value);
+        visitedBeans
+                .computeIfAbsent(type,
+                        key -> Collections
+                                .newSetFromMap(new IdentityHashMap<>()))
+                .add(value);
     }
 
     /**
@@ -91,138 +140,95 @@ class ExplicitNullableTypeCheckerHelper {
      *         not explicitly allow null, or null meaning the value is OK.
      */
     String checkValueForType(Object value, Type expectedType) {
-        Class<?> clazz;
-        if (expectedType instanceof TypeVariable) {
-            return null;
-        } else if (expectedType instanceof ParameterizedType) {
-            clazz = (Class<?>) ((ParameterizedType) expectedType).getRawType();
-        } else {
-            clazz = (Class<?>) expectedType;
+        TypePlan plan = plans.get(expectedType);
+        if (value == null) {
+            return plan.nullError;
         }
+        return switch (plan.kind) {
+        case ITERABLE -> checkIterable(value, plan);
+        case ARRAY -> value instanceof Object[] array
+                ? checkArray(array, plan)
+                : null;
+        case MAP -> checkMapValues((Map<?, ?>) value, plan);
+        case BEAN -> checkBeans ? checkBeanFields(value, plan) : null;
+        case OTHER -> null;
+        };
+    }
 
-        if (value != null) {
-            if (Iterable.class.isAssignableFrom(clazz)) {
-                return checkIterable((Iterable<?>) value, expectedType);
-            } else if (clazz.isArray() && value instanceof Object[]) {
-                return checkIterable(Arrays.asList((Object[]) value),
-                        expectedType);
-            } else if (Map.class.isAssignableFrom(clazz)) {
-                return checkMapValues((Map<?, ?>) value, expectedType);
-            } else if (expectedType instanceof Class<?>
-                    && !clazz.getName().startsWith("java.")) {
-                return checkBeanFields(value, expectedType);
-            } else {
-                return null;
+    private String checkIterable(Object value, TypePlan plan) {
+        // Indexed access avoids creating an iterator for the common lists
+        if (value instanceof List<?> list && value instanceof RandomAccess) {
+            for (int i = 0, size = list.size(); i < size; i++) {
+                String error = checkValueForType(list.get(i), plan.itemType);
+                if (error != null) {
+                    return createItemError(plan, error);
+                }
             }
-        }
-
-        if (expectedType.equals(Void.TYPE)) {
-            // Corner case: void methods return null value by design
-            return null;
-        }
-
-        if (Void.class.isAssignableFrom(clazz)) {
-            // Corner case: explicit Void parameter
             return null;
         }
-
-        if (Optional.class.isAssignableFrom(clazz)) {
-            return String.format(
-                    "Got null value for type '%s', consider Optional.empty",
-                    expectedType.getTypeName());
-        }
-
-        return String.format(
-                "Got null value for type '%s', which is neither Optional"
-                        + " nor void",
-                expectedType.getTypeName());
-    }
-
-    private String checkIterable(Iterable<?> value, Type expectedType) {
-        Type itemType = Object.class;
-        String iterableDescription = "iterable";
-        if (expectedType instanceof ParameterizedType) {
-            itemType = ((ParameterizedType) expectedType)
-                    .getActualTypeArguments()[0];
-            iterableDescription = "collection";
-        } else if (expectedType instanceof Class<?>) {
-            var expectedClass = ((Class<?>) expectedType);
-
-            if (Iterable.class.isAssignableFrom(expectedClass)) {
-                // Let's deal with classes extending or implementing an iterator
-                itemType = Generics.getExactIterableType(expectedClass)
-                        .orElse(Object.class);
-                iterableDescription = "collection";
-            } else {
-                itemType = expectedClass.getComponentType();
-                iterableDescription = "array";
+        for (Object item : (Iterable<?>) value) {
+            String error = checkValueForType(item, plan.itemType);
+            if (error != null) {
+                return createItemError(plan, error);
             }
         }
+        return null;
+    }
 
+    private String checkArray(Object[] value, TypePlan plan) {
         for (Object item : value) {
-            String error = checkValueForType(item, itemType);
+            String error = checkValueForType(item, plan.itemType);
             if (error != null) {
-                return String.format("Unexpected null item in %s type '%s'. %s",
-                        iterableDescription, expectedType, error);
+                return createItemError(plan, error);
             }
         }
-
         return null;
     }
 
-    private String checkMapValues(Map<?, ?> value, Type expectedType) {
-        Type valueType = Object.class;
-
-        if (expectedType instanceof ParameterizedType) {
-            valueType = ((ParameterizedType) expectedType)
-                    .getActualTypeArguments()[1];
-        }
+    private static String createItemError(TypePlan plan, String error) {
+        return String.format("Unexpected null item in %s type '%s'. %s",
+                plan.iterableDescription, plan.type, error);
+    }
 
+    private String checkMapValues(Map<?, ?> value, TypePlan plan) {
         for (Map.Entry<?, ?> e : value.entrySet()) {
-            String error = checkValueForType(e.getValue(), valueType);
+            String error = checkValueForType(e.getValue(), plan.itemType);
             if (error != null) {
                 return String.format(
                         "Unexpected null value for key '%s' of "
                                 + "map type '%s'. %s",
-                        e.getKey(), expectedType, error);
+                        e.getKey(), plan.type, error);
             }
         }
 
         return null;
     }
 
-    private String checkBeanFields(Object value, Type expectedType) {
-        if (hasVisited(value, expectedType)) {
+    private String checkBeanFields(Object value, TypePlan plan) {
+        if (plan.introspectionError != null) {
+            return plan.introspectionError;
+        }
+        if (plan.properties.isEmpty()) {
             return null;
         }
-        markAsVisited(value, expectedType);
-        Class<?> clazz = (Class<?>) expectedType;
-        // the context is the package where the object is defined
-        boolean requiredByContext = clazz.getPackage() != null
-                && clazz.getPackage().isAnnotationPresent(NonNullApi.class);
+        if (hasVisited(value, plan.type)) {
+            return null;
+        }
+        markAsVisited(value, plan.type);
         try {
-            for (PropertyDescriptor propertyDescriptor : Introspector
-                    .getBeanInfo(clazz).getPropertyDescriptors()) {
-                if (!isPropertySubjectForChecking(propertyDescriptor,
-                        requiredByContext)) {
-                    continue;
-                }
-
-                Method readMethod = propertyDescriptor.getReadMethod();
-                Type propertyType = readMethod.getGenericReturnType();
-                Object propertyValue = readMethod.invoke(value);
+            for (BeanProperty property : plan.properties) {
+                Object propertyValue = property.readMethod().invoke(value);
 
-                String error = checkValueForType(propertyValue, propertyType);
+                String error = checkValueForType(propertyValue,
+                        property.type());
                 if (error != null) {
                     return String.format(
                             "Unexpected null value in Java "
                                     + "Bean type '%s' property '%s'. %s",
-                            expectedType.getTypeName(),
-                            propertyDescriptor.getName(), error);
+                            plan.type.getTypeName(), property.name(), error);
                 }
             }
-        } catch (IntrospectionException | InvocationTargetException
-                | IllegalAccessException e) {
+        } catch (InvocationTargetException | IllegalAccessException e) {
             getLogger().error(
                     "Cannot check for null property values in Java Bean", e);
             return e.toString();
@@ -231,33 +237,186 @@ class ExplicitNullableTypeCheckerHelper {
         return null;
     }
 
-    private boolean isPropertySubjectForChecking(
-            PropertyDescriptor propertyDescriptor, boolean requiredByContext) {
-        try {
-            String name = propertyDescriptor.getName();
+    private static List<BeanProperty> getCheckedProperties(Class<?> clazz)
+            throws IntrospectionException {
+        // the context is the package where the object is defined
+        boolean requiredByContext = clazz.getPackage() != null
+                && clazz.getPackage().isAnnotationPresent(NonNullApi.class);
+        List<BeanProperty> properties = new ArrayList<>();
+        for (PropertyDescriptor propertyDescriptor : Introspector
+                .getBeanInfo(clazz).getPropertyDescriptors()) {
             Method readMethod = propertyDescriptor.getReadMethod();
-            if (readMethod == null) {
-                return false;
+            if (readMethod == null || readMethod.getReturnType().isPrimitive()
+                    || !isPropertySubjectForChecking(propertyDescriptor,
+                            requiredByContext)) {
+                // Primitive values are never null and have nothing to check
+                continue;
             }
+            properties.add(new BeanProperty(propertyDescriptor.getName(),
+                    readMethod, readMethod.getGenericReturnType()));
+        }
+        return List.copyOf(properties);
+    }
 
-            Class<?> declaringClass = readMethod.getDeclaringClass();
-            final Set<String> declaredFieldNames = Arrays
-                    .stream(declaringClass.getDeclaredFields())
-                    .map(Field::getName).collect(Collectors.toSet());
-            if (!declaredFieldNames.contains(name)) {
-                return false;
+    private static boolean isPropertySubjectForChecking(
+            PropertyDescriptor propertyDescriptor, boolean requiredByContext) {
+        String name = propertyDescriptor.getName();
+        Method readMethod = propertyDescriptor.getReadMethod();
+        Field field = findDeclaredField(readMethod.getDeclaringClass(), name);
+        if (field == null) {
+            return false;
+        }
+        return (!Modifier.isStatic(field.getModifiers())
+                && !Modifier.isTransient(field.getModifiers())
+                && isRequired(field, requiredByContext)
+                && !field.isAnnotationPresent(JsonIgnore.class));
+    }
+
+    private static Field findDeclaredField(Class<?> declaringClass,
+            String name) {
+        for (Field field : declaringClass.getDeclaredFields()) {
+            if (field.getName().equals(name)) {
+                return field;
             }
+        }
+        return null;
+    }
 
-            Field field = readMethod.getDeclaringClass().getDeclaredField(name);
-            return (!Modifier.isStatic(field.getModifiers())
-                    && !Modifier.isTransient(field.getModifiers())
-                    && isRequired(field, requiredByContext)
-                    && !field.isAnnotationPresent(JsonIgnore.class));
-        } catch (NoSuchFieldException e) {
-            getLogger().error("Unexpected missing declared field in Java Bean",
-                    e);
-            return false;
+    /**
+     * The cached plans for checking values of given types. The plans are
+     * dropped when classes are hot swapped.
+     */
+    static final class Plans {
+        private final Map<Type, TypePlan> plans = new ConcurrentHashMap<>();
+        private volatile int generation = plansGeneration;
+
+        TypePlan get(Type type) {
+            int currentGeneration = plansGeneration;
+            if (generation != currentGeneration) {
+                plans.clear();
+                generation = currentGeneration;
+            }
+            TypePlan plan = plans.get(type);
+            if (plan == null) {
+                // Not computeIfAbsent, as building a plan does not recurse
+                // but may be slow, and a duplicate plan is harmless
+                plan = new TypePlan(type);
+                plans.putIfAbsent(type, plan);
+            }
+            return plan;
+        }
+    }
+
+    enum Kind {
+        ITERABLE, ARRAY, MAP, BEAN, OTHER
+    }
+
+    /**
+     * What to check for values of a type.
+     */
+    static final class TypePlan {
+        private final Type type;
+        private final Kind kind;
+        private final String nullError;
+        private Type itemType;
+        private String iterableDescription;
+        private List<BeanProperty> properties = List.of();
+        private String introspectionError;
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the type of the items of an iterable or an array, or the type
+         * of the values of a map.
+         */
+        Type getItemType() {
+            return itemType;
+        }
+
+        /**
+         * Gets the bean properties that are checked, for a bean type.
+         */
+        List<BeanProperty> getProperties() {
+            return properties;
+        }
+
+        private TypePlan(Type type) {
+            this.type = type;
+            if (type instanceof TypeVariable) {
+                kind = Kind.OTHER;
+                nullError = null;
+                return;
+            }
+            Class<?> clazz = type instanceof ParameterizedType parameterizedType
+                    ? (Class<?>) parameterizedType.getRawType()
+                    : (Class<?>) type;
+            nullError = getNullError(type, clazz);
+
+            if (Iterable.class.isAssignableFrom(clazz)) {
+                kind = Kind.ITERABLE;
+                iterableDescription = "collection";
+                if (type instanceof ParameterizedType parameterizedType) {
+                    itemType = parameterizedType.getActualTypeArguments()[0];
+                } else {
+                    // Let's deal with classes extending or implementing an
+                    // iterator
+                    itemType = Generics.getExactIterableType(clazz)
+                            .orElse(Object.class);
+                }
+            } else if (clazz.isArray()) {
+                kind = Kind.ARRAY;
+                iterableDescription = "array";
+                itemType = clazz.getComponentType();
+            } else if (Map.class.isAssignableFrom(clazz)) {
+                kind = Kind.MAP;
+                itemType = type instanceof ParameterizedType parameterizedType
+                        ? parameterizedType.getActualTypeArguments()[1]
+                        : Object.class;
+            } else if (type instanceof Class<?> && !clazz.isPrimitive()
+                    && !clazz.getName().startsWith("java.")) {
+                kind = Kind.BEAN;
+                try {
+                    properties = getCheckedProperties(clazz);
+                } catch (IntrospectionException e) {
+                    getLogger().error(
+                            "Cannot check for null property values in Java Bean",
+                            e);
+                    introspectionError = e.toString();
+                }
+            } else {
+                kind = Kind.OTHER;
+            }
+        }
+
+        private static String getNullError(Type type, Class<?> clazz) {
+            if (type.equals(Void.TYPE)) {
+                // Corner case: void methods return null value by design
+                return null;
+            }
+
+            if (Void.class.isAssignableFrom(clazz)) {
+                // Corner case: explicit Void parameter
+                return null;
+            }
+
+            if (Optional.class.isAssignableFrom(clazz)) {
+                return String.format(
+                        "Got null value for type '%s', consider Optional.empty",
+                        type.getTypeName());
+            }
+
+            return String.format(
+                    "Got null value for type '%s', which is neither Optional"
+                            + " nor void",
+                    type.getTypeName());
         }
     }
 
+    /**
+     * A bean property whose value is checked, with its declared type.
+     */
+    record BeanProperty(String name, Method readMethod, Type type) {
+    }
 }
@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import com.vaadin.base.devserver.hotswap.HotswapClassEvent;
 import com.vaadin.base.devserver.hotswap.VaadinHotswapper;
+import com.vaadin.hilla.auth.EndpointAccessChecker;
 
 /**
  * Takes care of updating internals of Hilla that need updates when application
@@ -60,6 +61,14 @@ public class Hotswapper implements VaadinHotswapper {
             if (isIgnoredClasses(changedClasses)) {
                 return;
             }
+            if (Boolean.TRUE.equals(redefined)) {
+                // Bean properties may have been added or removed
+                ExplicitNullableTypeCheckerHelper.invalidatePlans();
+                // Constraint annotations may have been added or removed
+                EndpointInvoker.invalidateConstraints();
+                // Security annotations may have changed
+                EndpointAccessChecker.invalidateAccessDecisions();
+            }
             if (affectsEndpoints(changedClasses)) {
                 if (getLogger().isDebugEnabled()) {
                     String changed = List.of(changedClasses).toString();
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Reports the endpoint call metrics to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * The meters are looked up once for each endpoint method, phase and status,
+ * and kept for the following calls. The endpoint and method names are
+ * lowercased in the tags, as they are not case sensitive.
+ */
+final class MicrometerEndpointInvocationMetrics
+        implements EndpointInvocationMetrics {
+
+    static final String PHASE_TIMER = "hilla.endpoint.phase";
+    static final String CALL_TIMER = "hilla.endpoint.calls";
+    static final String REQUEST_SIZE = "hilla.endpoint.request.size";
+    static final String RESPONSE_SIZE = "hilla.endpoint.response.size";
+
+    private static final String ENDPOINT_TAG = "endpoint";
+    private static final String METHOD_TAG = "method";
+
+    private final MeterRegistry registry;
+    private final Map<PhaseKey, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<CallKey, Timer> callTimers = new ConcurrentHashMap<>();
+    private final Map<MethodKey, DistributionSummary> requestSizes = new ConcurrentHashMap<>();
+    private final Map<MethodKey, DistributionSummary> responseSizes = new ConcurrentHashMap<>();
+
+    MicrometerEndpointInvocationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordPhase(String endpointName, String methodName,
+            Phase phase, long durationNanos) {
+        phaseTimers
+                .computeIfAbsent(new PhaseKey(normalize(endpointName),
+                        normalize(methodName), phase),
+                        key -> Timer.builder(PHASE_TIMER)
+                                .description(
+                                        "The duration of a phase of an endpoint call")
+                                .tag(ENDPOINT_TAG, key.endpoint())
+                                .tag(METHOD_TAG, key.method())
+                                .tag("phase", key.phase().getTagValue())
+                                .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordCall(String endpointName, String methodName, int status,
+            long durationNanos) {
+        callTimers
+                .computeIfAbsent(new CallKey(normalize(endpointName),
+                        normalize(methodName), status),
+                        key -> Timer.builder(CALL_TIMER)
+                                .description(
+                                        "The duration of endpoint calls, from receiving the request until the response is complete")
+                                .tag(ENDPOINT_TAG, key.endpoint())
+                                .tag(METHOD_TAG, key.method())
+                                .tag("status", Integer.toString(key.status()))
+                                .register(registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRequestSize(String endpointName, String methodName,
+            long bytes) {
+        requestSizes.computeIfAbsent(methodKey(endpointName, methodName),
+                key -> createSizeSummary(REQUEST_SIZE,
+                        "The size of endpoint request bodies", key))
+                .record(bytes);
+    }
+
+    @Override
+    public void recordResponseSize(String endpointName, String methodName,
+            long bytes) {
+        responseSizes.computeIfAbsent(methodKey(endpointName, methodName),
+                key -> createSizeSummary(RESPONSE_SIZE,
+                        "The size of serialized endpoint return values", key))
+                .record(bytes);
+    }
+
+    private static MethodKey methodKey(String endpointName,
+            String methodName) {
+        return new MethodKey(normalize(endpointName), normalize(methodName));
+    }
+
+    private static String normalize(String name) {
+        // The names are not case sensitive in calls
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private DistributionSummary createSizeSummary(String name,
+            String description, MethodKey key) {
+        return DistributionSummary.builder(name).description(description)
+                .baseUnit("bytes").tag(ENDPOINT_TAG, key.endpoint())
+                .tag(METHOD_TAG, key.method()).register(registry);
+    }
+
+    private record MethodKey(String endpoint, String method) {
+    }
+
+    private record PhaseKey(String endpoint, String method, Phase phase) {
+    }
+
+    private record CallKey(String endpoint, String method, int status) {
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+/**
+ * What is done with the items of a push subscription that arrive while its
+ * buffer is full, because the client does not keep up with them.
+ *
+ * @see SubscriptionOverflow
+ * @see EndpointSubscription#withOverflow(OverflowStrategy, int)
+ */
+public enum OverflowStrategy {
+
+    /**
+     * The subscription fails: the upstream is cancelled, and the client gets
+     * an error once it has received the buffered items.
+     */
+    ERROR,
+
+    /**
+     * The oldest buffered item is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new item is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Only the latest item is kept: a new item replaces the buffered one. With
+     * a key extractor, see
+     * {@link EndpointSubscription#withConflation(java.util.function.Function, int)},
+     * the latest item is kept for each key instead, and the oldest key is
+     * dropped when the buffer is full.
+     */
+    KEEP_LATEST
+}
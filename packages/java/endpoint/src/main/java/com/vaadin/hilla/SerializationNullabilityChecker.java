@@ -0,0 +1,308 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.BeanDescription;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.introspect.AnnotatedField;
+import tools.jackson.databind.introspect.AnnotatedMember;
+import tools.jackson.databind.introspect.AnnotatedMethod;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.BeanPropertyWriter;
+import tools.jackson.databind.ser.ValueSerializerModifier;
+import tools.jackson.databind.ser.impl.PropertySerializerMap;
+
+import com.vaadin.hilla.ExplicitNullableTypeCheckerHelper.BeanProperty;
+import com.vaadin.hilla.ExplicitNullableTypeCheckerHelper.Kind;
+import com.vaadin.hilla.ExplicitNullableTypeCheckerHelper.Plans;
+import com.vaadin.hilla.ExplicitNullableTypeCheckerHelper.TypePlan;
+
+/**
+ * Checks endpoint return values for unexpected {@code null} values while they
+ * are serialized, so that the value is walked only once.
+ * <p>
+ * The same rules apply as in {@link ExplicitNullableTypeChecker}. The value
+ * itself and the items of containers are checked before the serialization,
+ * which does not need reflection. The required properties of beans are
+ * checked by the property writers of the {@link #getModule() module} as the
+ * beans are serialized. As with the reflective checker, the properties of a
+ * bean are only checked if the bean is reached through required properties,
+ * and the properties are matched by the getter or field name. Beans that
+ * Jackson does not serialize as beans, e.g. because of a custom serializer,
+ * are not checked.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class SerializationNullabilityChecker {
+
+    private static final Object ATTRIBUTE = SerializationNullabilityChecker.class;
+
+    private final Plans plans = new Plans();
+
+    /**
+     * Gets the module that adds the checks to the serializers of beans. The
+     * module must be registered with the endpoint object mapper.
+     *
+     * @return the module
+     */
+    JacksonModule getModule() {
+        SimpleModule module = new SimpleModule(
+                SerializationNullabilityChecker.class.getSimpleName());
+        module.setSerializerModifier(new CheckingSerializerModifier());
+        return module;
+    }
+
+    /**
+     * Checks the parts of the value that do not need serializing: the value
+     * itself, and the items of containers.
+     *
+     * @param value
+     *            the value to check
+     * @param type
+     *            the declared type of the value
+     * @return error message when the value is null while the expected type does
+     *         not explicitly allow null, or null meaning the value is OK.
+     */
+    String checkBeforeSerialization(Object value, Type type) {
+        return new ExplicitNullableTypeCheckerHelper(plans, false)
+                .checkValueForType(value, type);
+    }
+
+    /**
+     * Gets a writer that checks the properties of the beans in a value of the
+     * given type while writing it.
+     *
+     * @param writer
+     *            the writer to use otherwise
+     * @param type
+     *            the declared type of the value
+     * @return the writer to use, which is the given writer if values of the
+     *         type contain no beans that are checked
+     */
+    ObjectWriter getCheckingWriter(ObjectWriter writer, Type type) {
+        if (!containsCheckedBeans(type)) {
+            return writer;
+        }
+        return writer.withAttribute(ATTRIBUTE, new CheckState());
+    }
+
+    /**
+     * Finds the error that aborted the serialization of a value, if it was
+     * caused by a failed check.
+     *
+     * @param error
+     *            the error thrown while serializing
+     * @return the failed check, or {@code null} if the error has another
+     *         cause
+     */
+    static NullValueException findNullValueException(Throwable error) {
+        // Jackson wraps the exception to add the property path
+        for (Throwable cause = error; cause != null; cause = cause
+                .getCause()) {
+            if (cause instanceof NullValueException nullValueException) {
+                return nullValueException;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if values of the given type may contain beans whose properties
+     * are checked, either directly or as items of containers.
+     */
+    private boolean containsCheckedBeans(Type type) {
+        TypePlan plan = plans.get(type);
+        // The depth is limited for types that contain themselves
+        for (int depth = 0; depth < 16; depth++) {
+            switch (plan.getKind()) {
+            case BEAN:
+                return !plan.getProperties().isEmpty();
+            case OTHER:
+                return false;
+            default:
+                plan = plans.get(plan.getItemType());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Thrown by the property writers when a required property is
+     * {@code null}. The message describes the property, and the path to it
+     * is added by Jackson when wrapping the exception.
+     */
+    static final class NullValueException extends RuntimeException {
+        NullValueException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * The state of checking a single value.
+     */
+    private final class CheckState {
+        private final ExplicitNullableTypeCheckerHelper helper = new ExplicitNullableTypeCheckerHelper(
+                plans, false);
+        // Greater than zero while serializing values that are not checked
+        private int suspended;
+    }
+
+    private final class CheckingSerializerModifier
+            extends ValueSerializerModifier {
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(
+                SerializationConfig config, BeanDescription.Supplier beanDesc,
+                List<BeanPropertyWriter> beanProperties) {
+            TypePlan plan = plans.get(beanDesc.getBeanClass());
+            Map<String, Type> getterTypes = new HashMap<>();
+            Map<String, Type> fieldTypes = new HashMap<>();
+            if (plan.getKind() == Kind.BEAN) {
+                for (BeanProperty property : plan.getProperties()) {
+                    getterTypes.put(property.readMethod().getName(),
+                            property.type());
+                    fieldTypes.put(property.name(), property.type());
+                }
+            }
+            List<BeanPropertyWriter> writers = new ArrayList<>(
+                    beanProperties.size());
+            for (BeanPropertyWriter writer : beanProperties) {
+                AnnotatedMember member = writer.getMember();
+                Type checkedType = null;
+                if (member instanceof AnnotatedMethod) {
+                    checkedType = getterTypes.get(member.getName());
+                } else if (member instanceof AnnotatedField) {
+                    checkedType = fieldTypes.get(member.getName());
+                }
+                writers.add(new CheckingPropertyWriter(writer, checkedType));
+            }
+            return writers;
+        }
+    }
+
+    /**
+     * Checks a required property before writing it, and keeps track of
+     * whether the nested beans are checked. The value of a checked property is
+     * read only once, for both the check and the serialization.
+     */
+    private final class CheckingPropertyWriter extends BeanPropertyWriter {
+        private final Type checkedType;
+
+        private CheckingPropertyWriter(BeanPropertyWriter base,
+                Type checkedType) {
+            super(base);
+            this.checkedType = checkedType;
+        }
+
+        @Override
+        public void serializeAsProperty(Object bean, JsonGenerator g,
+                SerializationContext ctxt) throws Exception {
+            if (!(ctxt.getAttribute(ATTRIBUTE) instanceof CheckState state)
+                    || state.suspended > 0) {
+                super.serializeAsProperty(bean, g, ctxt);
+                return;
+            }
+            if (checkedType == null) {
+                // The nested beans are not checked, as in the reflective
+                // checker
+                state.suspended++;
+                try {
+                    super.serializeAsProperty(bean, g, ctxt);
+                } finally {
+                    state.suspended--;
+                }
+                return;
+            }
+            Object value = get(bean);
+            String error = state.helper.checkValueForType(value, checkedType);
+            if (error != null) {
+                throw new NullValueException(String.format(
+                        "Unexpected null value in Java "
+                                + "Bean type '%s' property '%s'. %s",
+                        bean.getClass().getTypeName(), getName(), error));
+            }
+            if (containsCheckedBeans(checkedType)) {
+                serializeValue(bean, value, g, ctxt);
+                return;
+            }
+            state.suspended++;
+            try {
+                serializeValue(bean, value, g, ctxt);
+            } finally {
+                state.suspended--;
+            }
+        }
+
+        /**
+         * Writes the property with the value that has already been read, in
+         * the same way as {@link BeanPropertyWriter#serializeAsProperty},
+         * which would read it again.
+         */
+        private void serializeValue(Object bean, Object value, JsonGenerator g,
+                SerializationContext ctxt) throws Exception {
+            if (value == null) {
+                if (_suppressableValue != null && ctxt
+                        .includeFilterSuppressNulls(_suppressableValue)) {
+                    return;
+                }
+                if (_nullSerializer != null) {
+                    g.writeName(_name);
+                    _nullSerializer.serialize(null, g, ctxt);
+                }
+                return;
+            }
+            ValueSerializer<Object> serializer = _serializer;
+            if (serializer == null) {
+                Class<?> type = value.getClass();
+                PropertySerializerMap serializers = _dynamicSerializers;
+                serializer = serializers.serializerFor(type);
+                if (serializer == null) {
+                    serializer = _findAndAddDynamic(serializers, type, ctxt);
+                }
+            }
+            if (_suppressableValue != null) {
+                if (MARKER_FOR_EMPTY == _suppressableValue) {
+                    if (serializer.isEmpty(ctxt, value)) {
+                        return;
+                    }
+                } else if (_suppressableValue.equals(value)) {
+                    return;
+                }
+            }
+            if (value == bean
+                    && _handleSelfReference(bean, g, ctxt, serializer)) {
+                return;
+            }
+            g.writeName(_name);
+            if (_typeSerializer == null) {
+                serializer.serialize(value, g, ctxt);
+            } else {
+                serializer.serializeWithType(value, g, ctxt, _typeSerializer);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets identical push subscriptions to the annotated endpoint method share
+ * one subscription to the flux of the method.
+ * <p>
+ * When a client subscribes, the access to the method is checked for the
+ * user, but the method is only invoked if there is no active subscription
+ * with the same parameters. Otherwise, the client gets the items of the
+ * existing flux from then on, and earlier items are not repeated. Each item is
+ * serialized once for all subscribers. The flux is cancelled when the last
+ * subscriber unsubscribes, and the unsubscribe callback of an
+ * {@link EndpointSubscription} is then called once.
+ * <p>
+ * Only use this for methods whose items do not depend on the user, but only
+ * on the parameters. The subscribers do not slow down the flux: a subscriber
+ * that does not keep up with the items is handled by the
+ * {@link SubscriptionOverflow} settings of the method, or, if the method has
+ * the {@link ClientDemand} annotation, gets an error once 256 items wait for
+ * it.
+ * <p>
+ * The annotation is ignored for methods that return neither a {@code Flux}
+ * nor an {@link EndpointSubscription}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SharedSubscription {
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Buffers the items of the push subscriptions of the annotated endpoint
+ * method, and decides what happens when the client does not keep up with
+ * them.
+ * <p>
+ * Without this, every item is sent as soon as the {@code Flux} emits it, and
+ * a client that is slower than the producer makes the messages pile up on the
+ * server until the connection is closed. With this, at most
+ * {@link #bufferSize()} items wait for each subscription, and the
+ * {@link #strategy()} is applied to the items that arrive while the buffer is
+ * full. The number of dropped and conflated items is reported in the
+ * metrics.
+ * <p>
+ * The settings of an {@link EndpointSubscription} returned by the method take
+ * precedence over the annotation. The annotation is ignored for methods that
+ * return neither a {@code Flux} nor an {@link EndpointSubscription}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SubscriptionOverflow {
+
+    /**
+     * What is done with the items that arrive while the buffer is full.
+     *
+     * @return the overflow strategy
+     */
+    OverflowStrategy strategy();
+
+    /**
+     * The maximum number of items that wait to be sent for a subscription.
+     * Values smaller than one are treated as one.
+     *
+     * @return the buffer size, 256 by default
+     */
+    int bufferSize() default 256;
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.auth;
+
+import jakarta.annotation.security.DenyAll;
+import jakarta.annotation.security.PermitAll;
+import jakarta.annotation.security.RolesAllowed;
+
+import java.lang.reflect.AnnotatedElement;
+import java.security.Principal;
+import java.util.function.Function;
+
+import com.vaadin.flow.server.auth.AccessAnnotationChecker;
+import com.vaadin.flow.server.auth.AnonymousAllowed;
+
+/**
+ * The access rule of an endpoint method or class, resolved from its security
+ * annotations once so that checking the access does not read the annotations
+ * again.
+ * <p>
+ * The rules are the same as in {@link AccessAnnotationChecker}: {@link DenyAll}
+ * denies everyone, {@link AnonymousAllowed} allows everyone, and otherwise the
+ * user must be authenticated and have one of the {@link RolesAllowed} roles,
+ * or the element must be annotated with {@link PermitAll}.
+ */
+final class AccessDecision {
+
+    private enum Rule {
+        DENY, ANONYMOUS, AUTHENTICATED, ROLES
+    }
+
+    private static final AccessDecision DENY = new AccessDecision(Rule.DENY,
+            null);
+    private static final AccessDecision ANONYMOUS = new AccessDecision(
+            Rule.ANONYMOUS, null);
+    private static final AccessDecision AUTHENTICATED = new AccessDecision(
+            Rule.AUTHENTICATED, null);
+
+    private final Rule rule;
+    private final String[] roles;
+
+    private AccessDecision(Rule rule, String[] roles) {
+        this.rule = rule;
+        this.roles = roles;
+    }
+
+    /**
+     * Resolves the access rule from the annotations of the given element.
+     *
+     * @param securityTarget
+     *            the method or class whose annotations apply, as returned by
+     *            {@link AccessAnnotationChecker#getSecurityTarget}
+     * @return the access decision
+     */
+    static AccessDecision of(AnnotatedElement securityTarget) {
+        if (securityTarget.isAnnotationPresent(DenyAll.class)) {
+            return DENY;
+        }
+        if (securityTarget.isAnnotationPresent(AnonymousAllowed.class)) {
+            return ANONYMOUS;
+        }
+        RolesAllowed rolesAllowed = securityTarget
+                .getAnnotation(RolesAllowed.class);
+        if (rolesAllowed != null) {
+            return new AccessDecision(Rule.ROLES, rolesAllowed.value());
+        }
+        return securityTarget.isAnnotationPresent(PermitAll.class)
+                ? AUTHENTICATED
+                : DENY;
+    }
+
+    /**
+     * Checks whether the given user has access.
+     *
+     * @param principal
+     *            the user principal object, or {@code null} for anonymous
+     *            users
+     * @param rolesChecker
+     *            a function for checking if the user is in a given role
+     * @return {@code true} if the user has access
+     */
+    boolean hasAccess(Principal principal,
+            Function<String, Boolean> rolesChecker) {
+        switch (rule) {
+        case ANONYMOUS:
+            return true;
+        case AUTHENTICATED:
+            return principal != null;
+        case ROLES:
+            if (principal == null) {
+                return false;
+            }
+            for (String role : roles) {
+                if (Boolean.TRUE.equals(rolesChecker.apply(role))) {
+                    return true;
+                }
+            }
+            return false;
+        default:
+            return false;
+        }
+    }
+}
@@ -20,8 +20,11 @@ import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import com.vaadin.flow.server.VaadinService;
@@ -76,7 +79,16 @@ public class EndpointAccessChecker {
     public static final String ACCESS_DENIED_MSG_DEV_MODE = "Access denied to Vaadin endpoint; "
             + "to enable endpoint access use one of the following annotations: @AnonymousAllowed, @PermitAll, @RolesAllowed";
 
+    /**
+     * Incremented when application classes are hot swapped, which makes all
+     * the cached access decisions stale.
+     */
+    private static volatile int decisionsGeneration;
+
     private final AccessAnnotationChecker accessAnnotationChecker;
+    private final boolean decisionsCached;
+    private final Map<AnnotatedElement, AccessDecision> decisions = new ConcurrentHashMap<>();
+    private volatile int generation = decisionsGeneration;
 
     /**
      * Creates a new instance.
@@ -87,6 +99,33 @@ public class EndpointAccessChecker {
     public EndpointAccessChecker(
             AccessAnnotationChecker accessAnnotationChecker) {
         this.accessAnnotationChecker = accessAnnotationChecker;
+        // Subclasses of the annotation checker may decide differently
+        this.decisionsCached = accessAnnotationChecker != null
+                && accessAnnotationChecker
+                        .getClass() == AccessAnnotationChecker.class;
+    }
+
+    /**
+     * Discards the cached access decisions, so that the security annotations
+     * are read again. Called when classes are redefined at runtime.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     */
+    public static void invalidateAccessDecisions() {
+        decisionsGeneration++;
+    }
+
+    /**
+     * Gets the number of times the cached access decisions have been
+     * discarded, so that decisions cached elsewhere can be discarded with
+     * them.
+     * <p>
+     * For internal use only. May be renamed or removed in a future release.
+     *
+     * @return the generation of the access decisions
+     */
+    public static int getAccessDecisionsGeneration() {
+        return decisionsGeneration;
     }
 
     /**
@@ -131,8 +170,11 @@ public class EndpointAccessChecker {
      */
     public String check(Method method, Principal principal,
             Function<String, Boolean> rolesChecker) {
-        if (accessAnnotationChecker.hasAccess(method, principal,
-                rolesChecker)) {
+        boolean hasAccess = decisionsCached
+                ? getDecision(method).hasAccess(principal, rolesChecker)
+                : accessAnnotationChecker.hasAccess(method, principal,
+                        rolesChecker);
+        if (hasAccess) {
             return null;
         }
 
@@ -158,7 +200,11 @@ public class EndpointAccessChecker {
      */
     public String check(Class<?> clazz, Principal principal,
             Function<String, Boolean> rolesChecker) {
-        if (accessAnnotationChecker.hasAccess(clazz, principal, rolesChecker)) {
+        boolean hasAccess = decisionsCached
+                ? getDecision(clazz).hasAccess(principal, rolesChecker)
+                : accessAnnotationChecker.hasAccess(clazz, principal,
+                        rolesChecker);
+        if (hasAccess) {
             return null;
         }
 
@@ -170,6 +216,28 @@ public class EndpointAccessChecker {
         }
     }
 
+    /**
+     * Gets the access decision of the given method or class, resolving it on
+     * first use.
+     */
+    private AccessDecision getDecision(AnnotatedElement element) {
+        int currentGeneration = decisionsGeneration;
+        if (generation != currentGeneration) {
+            decisions.clear();
+            generation = currentGeneration;
+        }
+        AccessDecision decision = decisions.get(element);
+        if (decision == null) {
+            AnnotatedElement securityTarget = element instanceof Method method
+                    ? accessAnnotationChecker.getSecurityTarget(method)
+                    : accessAnnotationChecker
+                            .getSecurityTarget((Class<?>) element);
+            decision = AccessDecision.of(securityTarget);
+            decisions.put(element, decision);
+        }
+        return decision;
+    }
+
     private boolean isDevMode() {
         VaadinService vaadinService = VaadinService.getCurrent();
         return (vaadinService != null && !vaadinService
@@ -15,6 +15,7 @@
  */
 package com.vaadin.hilla.endpointransfermapper;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -126,6 +127,8 @@ public class EndpointTransferMapper {
         registerMapper(new PageableMapper());
         registerMapper(new UUIDMapper());
         registerMapper(new PageMapper());
+        jacksonModule.addDeserializer(InputStream.class,
+                new InputStreamDeserializer());
     }
 
     /**
@@ -351,4 +354,30 @@ public class EndpointTransferMapper {
                     "Expected a POJONode wrapping a MultipartFile");
         }
     }
+
+    /**
+     * A deserializer for the streams of uploaded files. It is needed because
+     * otherwise Jackson tries to deserialize the object which is already a
+     * POJO.
+     */
+    public static class InputStreamDeserializer
+            extends ValueDeserializer<InputStream> {
+
+        @Override
+        public InputStream deserialize(JsonParser p,
+                DeserializationContext ctxt) {
+            JsonNode node = p.readValueAsTree();
+
+            if (node instanceof POJONode) {
+                Object pojo = ((POJONode) node).getPojo();
+
+                if (pojo instanceof InputStream) {
+                    return (InputStream) pojo;
+                }
+            }
+
+            throw new RuntimeException(
+                    "Expected a POJONode wrapping an InputStream");
+        }
+    }
 }
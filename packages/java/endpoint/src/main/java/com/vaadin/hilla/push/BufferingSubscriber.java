@@ -0,0 +1,306 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Operators;
+
+import com.vaadin.hilla.OverflowStrategy;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+/**
+ * Subscribes to the flux of a push subscription, and buffers its items for a
+ * client that does not keep up with them.
+ * <p>
+ * The items are sent to the client as long as fewer than
+ * {@value #MAX_IN_FLIGHT} messages of the subscription wait to be written to
+ * the connection, and, if the client requests the items with credits, as long
+ * as the client has credits left. The others wait in a buffer of a fixed
+ * size, and the
+ * {@link OverflowStrategy} decides what is done with the items that arrive
+ * while the buffer is full. The completion or the error of the flux is passed
+ * on once the buffered items have been sent.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class BufferingSubscriber extends BaseSubscriber<Object> {
+
+    /**
+     * The maximum number of messages of a subscription that have been sent,
+     * but not yet written to the connection.
+     */
+    static final int MAX_IN_FLIGHT = 16;
+
+    /**
+     * The buffer size of subscriptions that are buffered without settings.
+     */
+    static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private static final Object NONE = new Object();
+    private static final Object SINGLE_KEY = new Object();
+
+    private final String fluxId;
+    private final OverflowStrategy strategy;
+    private final int bufferSize;
+    private final Function<Object, ?> keyExtractor;
+    private final PushMessageSender sender;
+    private final Consumer<Throwable> onError;
+    private final Runnable onComplete;
+    private final LongAdder droppedItems;
+    private final LongAdder conflatedItems;
+
+    private final Deque<Object> items = new ArrayDeque<>();
+    private final Map<Object, Object> latestItems = new LinkedHashMap<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private int inFlight;
+    private long credits;
+    private boolean creditsAnnounced;
+    private boolean done;
+    private Throwable failure;
+    private boolean terminated;
+
+    /**
+     * Creates a new subscriber.
+     *
+     * @param fluxId
+     *            the id of the subscription
+     * @param strategy
+     *            what is done with the items that arrive while the buffer is
+     *            full
+     * @param bufferSize
+     *            the maximum number of buffered items
+     * @param keyExtractor
+     *            gives the key of an item for
+     *            {@link OverflowStrategy#KEEP_LATEST}, or {@code null} to only
+     *            keep the latest item
+     * @param credits
+     *            the number of items the client can receive, or
+     *            {@link Long#MAX_VALUE} if the client does not limit the items
+     * @param sender
+     *            sends the messages to the client
+     * @param onError
+     *            called with the error of the flux, or the overflow error
+     * @param onComplete
+     *            called when the flux has completed
+     * @param droppedItems
+     *            counts the dropped items
+     * @param conflatedItems
+     *            counts the items replaced by a later item
+     */
+    BufferingSubscriber(String fluxId, OverflowStrategy strategy,
+            int bufferSize, Function<Object, ?> keyExtractor, long credits,
+            PushMessageSender sender, Consumer<Throwable> onError,
+            Runnable onComplete, LongAdder droppedItems,
+            LongAdder conflatedItems) {
+        this.fluxId = fluxId;
+        this.strategy = strategy;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.keyExtractor = keyExtractor;
+        this.credits = credits;
+        // The client is only told to send credits if they limit the items
+        this.creditsAnnounced = credits == Long.MAX_VALUE;
+        this.sender = sender;
+        this.onError = onError;
+        this.onComplete = onComplete;
+        this.droppedItems = droppedItems;
+        this.conflatedItems = conflatedItems;
+    }
+
+    /**
+     * Lets the client receive more items.
+     *
+     * @param n
+     *            the number of additional items, at least 1
+     */
+    void addCredits(long n) {
+        synchronized (this) {
+            credits = Operators.addCap(credits, n);
+        }
+        drain();
+    }
+
+    /**
+     * Stops sending the buffered items and cancels the flux, e.g. when the
+     * client has unsubscribed.
+     */
+    void discard() {
+        synchronized (this) {
+            terminated = true;
+            items.clear();
+            latestItems.clear();
+        }
+        dispose();
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        // The buffer decides what is kept, so the flux emits freely
+        requestUnbounded();
+    }
+
+    @Override
+    protected void hookOnNext(Object item) {
+        boolean overflow;
+        synchronized (this) {
+            overflow = !terminated && !buffer(item);
+            if (overflow) {
+                done = true;
+                failure = Exceptions.failWithOverflow(
+                        "The buffer of push subscription " + fluxId
+                                + " is full");
+            }
+        }
+        if (overflow) {
+            cancel();
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        synchronized (this) {
+            done = true;
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        synchronized (this) {
+            done = true;
+            failure = throwable;
+        }
+        drain();
+    }
+
+    /**
+     * Adds an item to the buffer.
+     *
+     * @return {@code false} if the buffer overflowed with
+     *         {@link OverflowStrategy#ERROR}
+     */
+    private boolean buffer(Object item) {
+        if (strategy == OverflowStrategy.KEEP_LATEST) {
+            Object key = keyExtractor == null ? SINGLE_KEY
+                    : keyExtractor.apply(item);
+            if (latestItems.containsKey(key)) {
+                conflatedItems.increment();
+            } else if (latestItems.size() >= bufferSize) {
+                removeFirst(latestItems.values().iterator());
+                droppedItems.increment();
+            }
+            // A replaced item keeps its place, so that frequently updated
+            // keys are not sent after the others
+            latestItems.put(key, item);
+            return true;
+        }
+        if (items.size() < bufferSize) {
+            items.add(item);
+            return true;
+        }
+        droppedItems.increment();
+        switch (strategy) {
+        case DROP_OLDEST:
+            items.poll();
+            items.add(item);
+            return true;
+        case DROP_NEWEST:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            // The ongoing drain goes through the buffer again
+            return;
+        }
+        int missed = 1;
+        do {
+            Object item;
+            while ((item = poll()) != NONE) {
+                ClientMessageUpdate update = new ClientMessageUpdate(fluxId,
+                        item);
+                if (!creditsAnnounced) {
+                    // Only one thread drains at a time
+                    creditsAnnounced = true;
+                    update.setCredits(true);
+                }
+                sender.send(update, this::onWritten);
+            }
+            boolean completed = false;
+            Throwable error = null;
+            synchronized (this) {
+                if (done && !terminated && isBufferEmpty()) {
+                    terminated = true;
+                    completed = failure == null;
+                    error = failure;
+                }
+            }
+            if (completed) {
+                onComplete.run();
+            } else if (error != null) {
+                onError.accept(error);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized Object poll() {
+        if (terminated || inFlight >= MAX_IN_FLIGHT || credits == 0
+                || isBufferEmpty()) {
+            return NONE;
+        }
+        inFlight++;
+        if (credits != Long.MAX_VALUE) {
+            credits--;
+        }
+        if (strategy == OverflowStrategy.KEEP_LATEST) {
+            return removeFirst(latestItems.values().iterator());
+        }
+        return items.poll();
+    }
+
+    private void onWritten() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    private boolean isBufferEmpty() {
+        return items.isEmpty() && latestItems.isEmpty();
+    }
+
+    private static Object removeFirst(Iterator<Object> iterator) {
+        Object first = iterator.next();
+        iterator.remove();
+        return first;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.function.Consumer;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+/**
+ * Subscribes to the flux of a push subscription, and only requests as many
+ * items from it as the client has requested with credits. A client that does
+ * not keep up with the items thus slows down the flux, if the flux supports
+ * backpressure.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class DemandSubscriber extends BaseSubscriber<Object> {
+
+    private final String fluxId;
+    private final long initialRequest;
+    private final Consumer<AbstractClientMessage> sender;
+    private final Consumer<Throwable> onError;
+    private final Runnable onComplete;
+    private boolean creditsAnnounced;
+
+    /**
+     * Creates a new subscriber.
+     *
+     * @param fluxId
+     *            the id of the subscription
+     * @param initialRequest
+     *            the number of items the client can receive at first
+     * @param sender
+     *            sends the messages to the client
+     * @param onError
+     *            called with the error of the flux
+     * @param onComplete
+     *            called when the flux has completed
+     */
+    DemandSubscriber(String fluxId, long initialRequest,
+            Consumer<AbstractClientMessage> sender,
+            Consumer<Throwable> onError, Runnable onComplete) {
+        this.fluxId = fluxId;
+        this.initialRequest = initialRequest;
+        this.sender = sender;
+        this.onError = onError;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        if (initialRequest > 0) {
+            request(initialRequest);
+        }
+    }
+
+    @Override
+    protected void hookOnNext(Object item) {
+        ClientMessageUpdate update = new ClientMessageUpdate(fluxId, item);
+        if (!creditsAnnounced) {
+            creditsAnnounced = true;
+            update.setCredits(true);
+        }
+        sender.accept(update);
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        onComplete.run();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        onError.accept(throwable);
+    }
+}
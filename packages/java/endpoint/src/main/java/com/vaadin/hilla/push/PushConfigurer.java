@@ -66,12 +66,17 @@ public class PushConfigurer {
     PushEndpoint pushEndpoint(
             @Qualifier("hillaEndpointObjectMapper") ObjectMapper objectMapper,
             PushMessageHandler pushMessageHandler) {
-        return new PushEndpoint(objectMapper, pushMessageHandler);
+        return new PushEndpoint(objectMapper, pushMessageHandler,
+                endpointProperties.getPush());
     }
 
     @Bean
-    PushMessageHandler pushMessageHandler(EndpointInvoker endpointInvoker) {
-        return new PushMessageHandler(endpointInvoker);
+    PushMessageHandler pushMessageHandler(EndpointInvoker endpointInvoker,
+            @Qualifier("hillaEndpointObjectMapper") ObjectMapper objectMapper) {
+        PushMessageHandler pushMessageHandler = new PushMessageHandler(
+                endpointInvoker);
+        pushMessageHandler.setObjectMapper(objectMapper);
+        return pushMessageHandler;
     }
 
     @Bean
@@ -17,7 +17,10 @@ package com.vaadin.hilla.push;
 
 import java.io.IOException;
 import java.security.Principal;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 import org.atmosphere.cpr.AtmosphereRequest;
 import org.atmosphere.cpr.AtmosphereResource;
@@ -33,21 +36,43 @@ import org.springframework.security.core.context.SecurityContextImpl;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.ObjectMapper;
 
+import com.vaadin.hilla.EndpointProperties;
 import com.vaadin.hilla.push.messages.fromclient.AbstractServerMessage;
 import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
 
 /**
  * Sets up and configures the push channel.
+ * <p>
+ * The messages to the client are queued for each connection, and written by a
+ * writer on a virtual thread of its own, so that the threads that produce the
+ * messages are not blocked by slow clients. See {@link PushOutboundQueue}.
+ * <p>
+ * The items of update messages are serialized when they are sent, by the
+ * thread that produces them. If the item cache is enabled, an item that is
+ * sent to many subscriptions is only serialized once. See
+ * {@link SerializedItemCache}.
  */
 public class PushEndpoint extends AtmosphereHandlerAdapter {
 
     private ObjectMapper objectMapper;
     private PushMessageHandler pushMessageHandler;
+    private final EndpointProperties.Push settings;
+    private final SerializedItemCache serializedItems;
+    private final Map<String, PushOutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+    private final ThreadFactory writerThreadFactory = Thread.ofVirtual()
+            .name("hilla-push-writer-", 0).factory();
+    private final Executor writerExecutor = task -> writerThreadFactory
+            .newThread(task).start();
 
     PushEndpoint(ObjectMapper objectMapper,
-            PushMessageHandler pushMessageHandler) {
+            PushMessageHandler pushMessageHandler,
+            EndpointProperties.Push settings) {
         this.objectMapper = objectMapper;
         this.pushMessageHandler = pushMessageHandler;
+        this.settings = settings;
+        this.serializedItems = new SerializedItemCache(objectMapper,
+                settings.getItemCacheSize());
     }
 
     @Override
@@ -121,18 +146,8 @@ public class PushEndpoint extends AtmosphereHandlerAdapter {
                 getLogger().debug(
                         "Received push message from the client: " + message);
             }
-            Consumer<AbstractClientMessage> sender = msg -> {
-                try {
-                    if (getLogger().isDebugEnabled()) {
-                        getLogger().debug(
-                                "Sending push message to the client: " + msg);
-                    }
-                    resource.write(objectMapper.writeValueAsString(msg));
-                } catch (JacksonException | IllegalArgumentException e1) {
-                    getLogger().warn(
-                            "Unexpected problem when sending push message", e1);
-                }
-            };
+            PushMessageSender sender = (msg, onWritten) -> send(resource,
+                    msg, onWritten);
 
             pushMessageHandler.handleMessage(resource.uuid(), message, sender);
         } catch (JacksonException e) {
@@ -142,6 +157,70 @@ public class PushEndpoint extends AtmosphereHandlerAdapter {
 
     }
 
+    /**
+     * Queues a message to the client of the given connection.
+     *
+     * @param resource
+     *            the Atmosphere resource of the connection
+     * @param message
+     *            the message to send
+     * @param onWritten
+     *            called when the message has been written
+     */
+    private void send(AtmosphereResource resource,
+            AbstractClientMessage message, Runnable onWritten) {
+        if (message instanceof ClientMessageUpdate update) {
+            // Only the envelope is serialized for each subscription
+            update.setItem(serializedItems.serialize(update.getItem()));
+        }
+        PushOutboundQueue queue = outboundQueues.get(resource.uuid());
+        if (queue == null) {
+            // Not connected through this endpoint, written right away
+            writeNow(resource, message);
+            onWritten.run();
+        } else if (!queue.offer(message, onWritten)) {
+            getLogger().warn(
+                    "Closing push connection {} as the client does not keep up with the messages",
+                    resource.uuid());
+            // The closed queue is kept until the connection is disconnected,
+            // so that the messages that are sent meanwhile are dropped
+            queue.close();
+            try {
+                resource.close();
+            } catch (IOException e) {
+                getLogger().debug("Unable to close push connection", e);
+            }
+        }
+    }
+
+    private void writeNow(AtmosphereResource resource,
+            AbstractClientMessage message) {
+        try {
+            if (getLogger().isDebugEnabled()) {
+                getLogger().debug(
+                        "Sending push message to the client: " + message);
+            }
+            resource.write(objectMapper.writeValueAsString(message));
+        } catch (JacksonException | IllegalArgumentException e) {
+            getLogger().warn("Unexpected problem when sending push message",
+                    e);
+        }
+    }
+
+    private PushOutboundQueue createOutboundQueue(
+            AtmosphereResource resource) {
+        return new PushOutboundQueue(objectMapper, resource::write,
+                writerExecutor, settings.getQueueCapacity(),
+                settings.getFlushWindow(), settings.getMaxFrameSize());
+    }
+
+    private void closeOutboundQueue(String connectionId) {
+        PushOutboundQueue queue = outboundQueues.remove(connectionId);
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
     /**
      * Called when the client sends the first request (to establish a push
      * connection).
@@ -150,6 +229,7 @@ public class PushEndpoint extends AtmosphereHandlerAdapter {
      *            the resource which was connected
      */
     private void onConnect(AtmosphereResource resource) {
+        outboundQueues.put(resource.uuid(), createOutboundQueue(resource));
         pushMessageHandler.handleBrowserConnect(resource.uuid());
         resource.addEventListener(new DisconnectListener(this));
     }
@@ -183,6 +263,7 @@ public class PushEndpoint extends AtmosphereHandlerAdapter {
      *            the Atmosphere event
      */
     private void onDisconnect(AtmosphereResourceEvent event) {
+        closeOutboundQueue(event.getResource().uuid());
         pushMessageHandler.handleBrowserDisconnect(event.getResource().uuid());
     }
 
@@ -193,7 +274,10 @@ public class PushEndpoint extends AtmosphereHandlerAdapter {
      *            the Atmosphere event
      */
     private void onReconnect(AtmosphereResourceEvent event) {
-        pushMessageHandler.handleBrowserReconnect(event.getResource().uuid());
+        AtmosphereResource resource = event.getResource();
+        outboundQueues.computeIfAbsent(resource.uuid(),
+                uuid -> createOutboundQueue(resource));
+        pushMessageHandler.handleBrowserReconnect(resource.uuid());
     }
 
     private void onThrowable(AtmosphereResourceEvent event) {
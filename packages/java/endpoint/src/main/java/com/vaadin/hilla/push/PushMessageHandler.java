@@ -17,11 +17,14 @@ package com.vaadin.hilla.push;
 
 import jakarta.servlet.ServletContext;
 
+import java.lang.reflect.Method;
 import java.security.Principal;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,15 +32,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.node.ArrayNode;
 import tools.jackson.databind.node.ObjectNode;
 
 import com.vaadin.hilla.AuthenticationUtil;
+import com.vaadin.hilla.ClientDemand;
 import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointNotFoundException;
 import com.vaadin.hilla.EndpointInvoker;
 import com.vaadin.hilla.EndpointSubscription;
+import com.vaadin.hilla.OverflowStrategy;
+import com.vaadin.hilla.SharedSubscription;
+import com.vaadin.hilla.SubscriptionOverflow;
 import com.vaadin.hilla.push.messages.fromclient.AbstractServerMessage;
+import com.vaadin.hilla.push.messages.fromclient.RequestMessage;
 import com.vaadin.hilla.push.messages.fromclient.SubscribeMessage;
 import com.vaadin.hilla.push.messages.fromclient.UnsubscribeMessage;
 import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
@@ -48,6 +57,25 @@ import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
 /**
  * Handles incoming requests from the client and connects them to fluxes
  * returned from endpoints.
+ * <p>
+ * The items of a flux are sent as they are emitted, unless the endpoint method
+ * has the {@link SubscriptionOverflow} annotation, or returns an
+ * {@link EndpointSubscription} with an {@link OverflowStrategy}. Then the
+ * items are buffered for each subscription, and only sent as fast as they are
+ * written to the connection.
+ * <p>
+ * A client can limit the items it receives with credits: the number of items
+ * it can receive is given when subscribing, and increased with a
+ * {@link RequestMessage} as it processes them. For buffered subscriptions, the
+ * credits limit the items that are sent from the buffer. For endpoint methods
+ * with the {@link ClientDemand} annotation, they are mapped to the demand on
+ * the flux. Otherwise they are ignored, and all the items are requested from
+ * the flux. The first update of a subscription that uses the credits is
+ * flagged with {@link ClientMessageUpdate#isCredits()}, so that the client
+ * only sends more credits for such subscriptions.
+ * <p>
+ * Identical subscriptions to a {@link SharedSubscription} method share one
+ * subscription to its flux, see {@link SharedSubscriptions}.
  */
 @Service
 public class PushMessageHandler {
@@ -56,23 +84,32 @@ public class PushMessageHandler {
         private final Disposable fluxSubscriptionDisposable;
 
         private SubscriptionInfo(Disposable fluxSubscriptionDisposable,
-                Runnable unsubscribeHandler) {
+                LongConsumer creditHandler, Runnable unsubscribeHandler) {
             this.fluxSubscriptionDisposable = fluxSubscriptionDisposable;
+            this.creditHandler = creditHandler;
             this.unsubscribeHandler = unsubscribeHandler;
         }
 
+        private final LongConsumer creditHandler;
         private final Runnable unsubscribeHandler;
 
         private Disposable getFluxSubscriptionDisposable() {
             return fluxSubscriptionDisposable;
         }
 
+        private LongConsumer getCreditHandler() {
+            return creditHandler;
+        }
+
         private Runnable getUnsubscribeHandler() {
             return unsubscribeHandler;
         }
     }
 
     private final EndpointInvoker endpointInvoker;
+    private final LongAdder droppedItems = new LongAdder();
+    private final LongAdder conflatedItems = new LongAdder();
+    private final SharedSubscriptions sharedSubscriptions;
 
     /*
      * Maps from connection id to subscription id inside that connection to the
@@ -92,6 +129,49 @@ public class PushMessageHandler {
      */
     public PushMessageHandler(EndpointInvoker endpointInvoker) {
         this.endpointInvoker = endpointInvoker;
+        this.sharedSubscriptions = new SharedSubscriptions(endpointInvoker);
+    }
+
+    /**
+     * Sets the mapper that serializes the items of shared subscriptions once
+     * for all subscribers. Without a mapper, the items are serialized for
+     * each subscriber.
+     *
+     * @param objectMapper
+     *            the mapper that serializes the push messages
+     */
+    void setObjectMapper(ObjectMapper objectMapper) {
+        sharedSubscriptions.setObjectMapper(objectMapper);
+    }
+
+    /**
+     * Gets the number of fluxes of {@link SharedSubscription} methods that
+     * have subscribers.
+     *
+     * @return the number of shared fluxes
+     */
+    public int getSharedSubscriptionCount() {
+        return sharedSubscriptions.size();
+    }
+
+    /**
+     * Gets the number of items of buffered subscriptions that have been
+     * dropped because the buffer was full.
+     *
+     * @return the number of dropped items
+     */
+    public long getDroppedItemCount() {
+        return droppedItems.sum();
+    }
+
+    /**
+     * Gets the number of items of buffered subscriptions that have been
+     * replaced by a later item before they were sent.
+     *
+     * @return the number of conflated items
+     */
+    public long getConflatedItemCount() {
+        return conflatedItems.sum();
     }
 
     /**
@@ -113,6 +193,8 @@ public class PushMessageHandler {
         } else if (message instanceof UnsubscribeMessage) {
             handleBrowserUnsubscribe(connectionId,
                     (UnsubscribeMessage) message);
+        } else if (message instanceof RequestMessage) {
+            handleBrowserRequest(connectionId, (RequestMessage) message);
         } else {
             throw new IllegalArgumentException(
                     "Unknown message type: " + message.getClass().getName());
@@ -154,24 +236,37 @@ public class PushMessageHandler {
                 .getSecurityHolderRoleChecker();
 
         try {
-            Object returnValue = endpointInvoker.invoke(
-                    message.getEndpointName(), message.getMethodName(),
-                    paramsObject, principal, isInRole);
+            Method method = endpointInvoker.getMethod(
+                    message.getEndpointName(), message.getMethodName());
+            boolean shared = method != null
+                    && method.isAnnotationPresent(SharedSubscription.class);
 
             Flux<?> flux;
             Runnable unsubscribeHandler = null;
-            if (returnValue instanceof EndpointSubscription) {
-                EndpointSubscription<?> endpointSubscription = (EndpointSubscription<?>) returnValue;
-                flux = endpointSubscription.getFlux();
-                unsubscribeHandler = endpointSubscription.getOnUnsubscribe();
+            EndpointSubscription<?> endpointSubscription = null;
+            if (shared) {
+                SharedSubscriptions.SharedFlux sharedFlux = sharedSubscriptions
+                        .get(message, paramsObject, principal, isInRole);
+                // The unsubscribe callback is called when the last
+                // subscriber leaves
+                flux = sharedFlux.getFlux();
+                endpointSubscription = sharedFlux.getEndpointSubscription();
             } else {
-                flux = (Flux<?>) returnValue;
+                Object returnValue = endpointInvoker.invoke(
+                        message.getEndpointName(), message.getMethodName(),
+                        paramsObject, principal, isInRole);
+                if (returnValue instanceof EndpointSubscription) {
+                    endpointSubscription = (EndpointSubscription<?>) returnValue;
+                    flux = endpointSubscription.getFlux();
+                    unsubscribeHandler = endpointSubscription
+                            .getOnUnsubscribe();
+                } else {
+                    flux = (Flux<?>) returnValue;
+                }
             }
 
             CompletableFuture<Void> waitForSubscriptionData = new CompletableFuture<>();
-            Disposable endpointFluxSubscriber = flux.subscribe(item -> {
-                send(sender, new ClientMessageUpdate(fluxId, item));
-            }, error -> {
+            Consumer<Throwable> onError = error -> {
                 // An exception was thrown from the Flux
 
                 // Ensure that the subscription data has been stored before it
@@ -182,7 +277,8 @@ public class PushMessageHandler {
                             "Exception in Flux"));
                     getLogger().error("Exception in Flux", error);
                 });
-            }, () -> {
+            };
+            Runnable onComplete = () -> {
                 // Flux completed
 
                 // Ensure that the subscription data has been stored before it
@@ -191,11 +287,42 @@ public class PushMessageHandler {
                     disposeSubscriptionInfo(connectionId, fluxId, false);
                     send(sender, new ClientMessageComplete(fluxId));
                 });
-            });
-
-            fluxSubscriptionInfos.get(connectionId).put(fluxId,
-                    new SubscriptionInfo(endpointFluxSubscriber,
-                            unsubscribeHandler));
+            };
+
+            // Credits may arrive as soon as the client has got items, so the
+            // subscription data is stored before subscribing when possible
+            ConcurrentHashMap<String, SubscriptionInfo> connectionInfos = fluxSubscriptionInfos
+                    .get(connectionId);
+            Long request = message.getRequest();
+            long credits = request == null ? Long.MAX_VALUE
+                    : Math.max(0, request);
+            boolean clientDemand = method != null
+                    && method.isAnnotationPresent(ClientDemand.class);
+            BufferingSubscriber bufferingSubscriber = createBufferingSubscriber(
+                    message, method, shared, clientDemand,
+                    endpointSubscription, credits, sender, onError,
+                    onComplete);
+            if (bufferingSubscriber != null) {
+                connectionInfos.put(fluxId,
+                        new SubscriptionInfo(bufferingSubscriber::discard,
+                                bufferingSubscriber::addCredits,
+                                unsubscribeHandler));
+                flux.subscribe(bufferingSubscriber);
+            } else if (clientDemand && request != null) {
+                DemandSubscriber demandSubscriber = new DemandSubscriber(
+                        fluxId, credits, sender, onError, onComplete);
+                connectionInfos.put(fluxId,
+                        new SubscriptionInfo(demandSubscriber,
+                                demandSubscriber::request,
+                                unsubscribeHandler));
+                flux.subscribe(demandSubscriber);
+            } else {
+                Disposable endpointFluxSubscriber = flux.subscribe(item -> {
+                    send(sender, new ClientMessageUpdate(fluxId, item));
+                }, onError, onComplete);
+                connectionInfos.put(fluxId, new SubscriptionInfo(
+                        endpointFluxSubscriber, null, unsubscribeHandler));
+            }
             waitForSubscriptionData.complete(null);
 
             waitForSubscriptionData.complete(null);
@@ -209,6 +336,51 @@ public class PushMessageHandler {
 
     }
 
+    /**
+     * Creates the subscriber that buffers the items of the given subscription,
+     * if the items are buffered. The subscribers of a shared flux must not slow
+     * it down, so they are buffered if the client demand is used.
+     *
+     * @return the subscriber, or {@code null} if the items are sent as they
+     *         are emitted
+     */
+    @SuppressWarnings("unchecked")
+    private BufferingSubscriber createBufferingSubscriber(
+            SubscribeMessage message, Method method, boolean shared,
+            boolean clientDemand, EndpointSubscription<?> endpointSubscription,
+            long credits,
+            Consumer<AbstractClientMessage> sender,
+            Consumer<Throwable> onError, Runnable onComplete) {
+        OverflowStrategy strategy;
+        int bufferSize;
+        Function<Object, ?> keyExtractor = null;
+        SubscriptionOverflow overflow = method == null ? null
+                : method.getAnnotation(SubscriptionOverflow.class);
+        if (endpointSubscription != null
+                && endpointSubscription.getOverflowStrategy() != null) {
+            strategy = endpointSubscription.getOverflowStrategy();
+            bufferSize = endpointSubscription.getBufferSize();
+            keyExtractor = (Function<Object, ?>) endpointSubscription
+                    .getConflationKey();
+        } else if (overflow != null) {
+            strategy = overflow.strategy();
+            bufferSize = overflow.bufferSize();
+        } else if (shared && clientDemand && credits != Long.MAX_VALUE) {
+            strategy = OverflowStrategy.ERROR;
+            bufferSize = BufferingSubscriber.DEFAULT_BUFFER_SIZE;
+        } else {
+            return null;
+        }
+        if (shared && keyExtractor != null) {
+            Function<Object, ?> itemKeyExtractor = keyExtractor;
+            keyExtractor = item -> itemKeyExtractor
+                    .apply(SerializedItem.unwrap(item));
+        }
+        return new BufferingSubscriber(message.getId(), strategy, bufferSize,
+                keyExtractor, credits, PushMessageSender.of(sender), onError,
+                onComplete, droppedItems, conflatedItems);
+    }
+
     private void send(Consumer<AbstractClientMessage> sender,
             AbstractClientMessage message) {
         sender.accept(message);
@@ -253,6 +425,24 @@ public class PushMessageHandler {
         disposeConnectionInfo(connectionId, true);
     }
 
+    private void handleBrowserRequest(String connectionId,
+            RequestMessage message) {
+        if (message.getN() <= 0) {
+            getLogger().warn("Ignoring a request of {} items for flux id {}",
+                    message.getN(), message.getId());
+            return;
+        }
+        ConcurrentHashMap<String, SubscriptionInfo> fluxMap = fluxSubscriptionInfos
+                .get(connectionId);
+        SubscriptionInfo subscriptionInfo = fluxMap == null ? null
+                : fluxMap.get(message.getId());
+        // The subscription may have ended while the request was on its way
+        if (subscriptionInfo != null
+                && subscriptionInfo.getCreditHandler() != null) {
+            subscriptionInfo.getCreditHandler().accept(message.getN());
+        }
+    }
+
     private void handleBrowserUnsubscribe(String connectionId,
             UnsubscribeMessage message) {
         String fluxId = message.getId();
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.function.Consumer;
+
+import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
+
+/**
+ * Sends messages to the client of a push connection, and tells when they have
+ * been written to the connection, so that buffered subscriptions only send
+ * as fast as the client receives.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+@FunctionalInterface
+interface PushMessageSender extends Consumer<AbstractClientMessage> {
+
+    /**
+     * Sends a message to the client.
+     *
+     * @param message
+     *            the message to send
+     * @param onWritten
+     *            called when the message has been written to the connection,
+     *            or discarded
+     */
+    void send(AbstractClientMessage message, Runnable onWritten);
+
+    @Override
+    default void accept(AbstractClientMessage message) {
+        send(message, () -> {
+        });
+    }
+
+    /**
+     * Gets a sender for the given consumer. Messages sent with a plain
+     * consumer count as written once the consumer has accepted them.
+     *
+     * @param sender
+     *            the consumer of the messages
+     * @return the sender
+     */
+    static PushMessageSender of(Consumer<AbstractClientMessage> sender) {
+        if (sender instanceof PushMessageSender pushMessageSender) {
+            return pushMessageSender;
+        }
+        return (message, onWritten) -> {
+            sender.accept(message);
+            onWritten.run();
+        };
+    }
+}
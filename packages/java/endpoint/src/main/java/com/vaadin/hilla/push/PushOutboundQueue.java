@@ -0,0 +1,255 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
+
+/**
+ * The messages that wait to be sent through one push connection.
+ * <p>
+ * The messages are queued by the threads that produce them, and serialized
+ * and written by a writer task of the connection, so that a slow client does
+ * not block the producers. The writer sends all pending messages at once: a
+ * single message is sent as is, several messages are sent as a JSON array in
+ * one frame, up to the maximum frame size. With a flush window, the writer
+ * waits for more messages before sending the first one.
+ * <p>
+ * The queue is unbounded unless a capacity is given. When a bounded queue is
+ * full, the client does not keep up with the messages and no more messages
+ * are accepted.
+ * <p>
+ * A callback can be given for each message, which is called once the message
+ * has been written.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class PushOutboundQueue {
+
+    private static final Runnable NOT_TRACKED = () -> {
+    };
+
+    private final BlockingQueue<Outbound> messages;
+    private final ObjectMapper objectMapper;
+    private final Consumer<String> frameWriter;
+    private final Executor writerExecutor;
+    private final Duration flushWindow;
+    private final int maxFrameSize;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Creates a new queue.
+     *
+     * @param objectMapper
+     *            the mapper that serializes the messages
+     * @param frameWriter
+     *            writes a frame to the connection
+     * @param writerExecutor
+     *            runs the writer task when there are messages to send
+     * @param capacity
+     *            the maximum number of waiting messages, or {@code 0} for no
+     *            limit
+     * @param flushWindow
+     *            the time the messages are collected for before they are
+     *            sent
+     * @param maxFrameSize
+     *            the maximum size of a frame with several messages, in
+     *            characters
+     */
+    PushOutboundQueue(ObjectMapper objectMapper, Consumer<String> frameWriter,
+            Executor writerExecutor, int capacity, Duration flushWindow,
+            int maxFrameSize) {
+        this.messages = capacity > 0 ? new ArrayBlockingQueue<>(capacity)
+                : new LinkedBlockingQueue<>();
+        this.objectMapper = objectMapper;
+        this.frameWriter = frameWriter;
+        this.writerExecutor = writerExecutor;
+        this.flushWindow = flushWindow;
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Queues a message to be sent. Messages that are queued after the queue
+     * has been closed are ignored.
+     *
+     * @param message
+     *            the message to send
+     * @return {@code false} if the queue is full, {@code true} otherwise
+     */
+    boolean offer(AbstractClientMessage message) {
+        return offer(message, NOT_TRACKED);
+    }
+
+    /**
+     * Queues a message to be sent. Messages that are queued after the queue
+     * has been closed are ignored.
+     *
+     * @param message
+     *            the message to send
+     * @param onWritten
+     *            called when the message has been written, or discarded
+     *            because it could not be serialized. Not called for messages
+     *            that are not sent because the queue is closed.
+     * @return {@code false} if the queue is full, {@code true} otherwise
+     */
+    boolean offer(AbstractClientMessage message, Runnable onWritten) {
+        if (closed) {
+            return true;
+        }
+        if (!messages.offer(new Outbound(message, onWritten))) {
+            return false;
+        }
+        if (writing.compareAndSet(false, true)) {
+            writerExecutor.execute(this::write);
+        }
+        return true;
+    }
+
+    /**
+     * Discards the waiting messages and stops sending messages.
+     */
+    void close() {
+        closed = true;
+        messages.clear();
+    }
+
+    /**
+     * Gets the number of waiting messages.
+     *
+     * @return the number of messages
+     */
+    int size() {
+        return messages.size();
+    }
+
+    private void write() {
+        do {
+            try {
+                if (!flushWindow.isZero()) {
+                    awaitFlushWindow();
+                }
+                flush();
+            } finally {
+                writing.set(false);
+            }
+            // Messages that were queued after the queue was drained, but
+            // before the flag was cleared, did not start another writer
+        } while (!closed && !messages.isEmpty()
+                && writing.compareAndSet(false, true));
+    }
+
+    private void awaitFlushWindow() {
+        try {
+            Thread.sleep(flushWindow);
+        } catch (InterruptedException e) {
+            // Send what has been collected so far
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        StringBuilder frame = new StringBuilder("[");
+        List<Runnable> written = new ArrayList<>();
+        String single = null;
+        int count = 0;
+        Outbound outbound;
+        while (!closed && (outbound = messages.poll()) != null) {
+            String json = serialize(outbound.message());
+            if (json == null) {
+                runCallback(outbound.onWritten());
+                continue;
+            }
+            // With the separator and the closing bracket
+            if (count > 0
+                    && frame.length() + json.length() + 2 > maxFrameSize) {
+                writeFrame(frame, single, count, written);
+                frame.setLength(1);
+                count = 0;
+            }
+            if (count > 0) {
+                frame.append(',');
+            }
+            frame.append(json);
+            written.add(outbound.onWritten());
+            single = json;
+            count++;
+        }
+        if (count > 0 && !closed) {
+            writeFrame(frame, single, count, written);
+        }
+    }
+
+    private void writeFrame(StringBuilder frame, String single, int count,
+            List<Runnable> written) {
+        try {
+            frameWriter.accept(
+                    count == 1 ? single : frame.append(']').toString());
+        } catch (RuntimeException e) {
+            getLogger().debug("Unable to write a push frame", e);
+        }
+        written.forEach(this::runCallback);
+        written.clear();
+    }
+
+    private void runCallback(Runnable onWritten) {
+        if (onWritten == NOT_TRACKED) {
+            return;
+        }
+        try {
+            onWritten.run();
+        } catch (RuntimeException e) {
+            getLogger().warn("Unexpected problem after writing a push frame",
+                    e);
+        }
+    }
+
+    private String serialize(AbstractClientMessage message) {
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Sending push message to the client: {}",
+                    message);
+        }
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JacksonException | IllegalArgumentException e) {
+            getLogger().warn("Unexpected problem when sending push message",
+                    e);
+            return null;
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(PushOutboundQueue.class);
+    }
+
+    private record Outbound(AbstractClientMessage message,
+            Runnable onWritten) {
+    }
+}
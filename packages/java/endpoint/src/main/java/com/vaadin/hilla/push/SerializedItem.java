@@ -0,0 +1,68 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import tools.jackson.databind.util.RawValue;
+
+/**
+ * An item of a flux that has been serialized once, so that it can be sent to
+ * many subscribers without serializing it again. It is written as its JSON
+ * when a message that contains it is serialized.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class SerializedItem {
+
+    private final Object item;
+    private final RawValue json;
+
+    /**
+     * Creates a new serialized item.
+     *
+     * @param item
+     *            the item
+     * @param json
+     *            the item serialized into JSON
+     */
+    SerializedItem(Object item, String json) {
+        this.item = item;
+        this.json = new RawValue(json);
+    }
+
+    /**
+     * Gets the item, e.g. for finding its key.
+     *
+     * @param value
+     *            a serialized item, or an item that has not been serialized
+     * @return the item
+     */
+    static Object unwrap(Object value) {
+        return value instanceof SerializedItem serializedItem
+                ? serializedItem.item
+                : value;
+    }
+
+    @JsonValue
+    RawValue getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(item);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Serializes the items of push messages once, when the same item is sent to
+ * many subscriptions, e.g. by a flux that broadcasts to all its subscribers.
+ * <p>
+ * The recently serialized items are remembered by their identity, in a fixed
+ * number of slots. An item that is sent again shortly after, to another
+ * subscription, gets the same {@link SerializedItem}, whose JSON is written as
+ * is into the message of each subscription. An item is only reused for a
+ * short time, but must not be modified after it has been emitted, as the
+ * subscriptions that get it later would not see the change. This is why the
+ * cache is only used if it is enabled in the push settings.
+ * <p>
+ * The slots only refer to the serialized items weakly, so that they do not
+ * keep the items in memory once the messages are sent.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class SerializedItemCache {
+
+    /**
+     * The time an item is reused for, which is ample for sending an item to
+     * all the subscribers of a flux.
+     */
+    static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ObjectMapper objectMapper;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final LongSupplier clock;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param objectMapper
+     *            the mapper that serializes the items
+     * @param size
+     *            the number of items that are remembered, rounded up to a
+     *            power of two, or {@code 0} to serialize the items each time
+     */
+    SerializedItemCache(ObjectMapper objectMapper, int size) {
+        this(objectMapper, size, System::nanoTime);
+    }
+
+    SerializedItemCache(ObjectMapper objectMapper, int size,
+            LongSupplier clock) {
+        if (size < 0) {
+            throw new IllegalArgumentException(
+                    "The cache size must not be negative");
+        }
+        int capacity = size == 0 ? 0
+                : Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.objectMapper = objectMapper;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the given item serialized into JSON.
+     *
+     * @param item
+     *            the item to serialize
+     * @return the serialized item, or the given item if it is {@code null},
+     *         already serialized or cannot be serialized, in which case it is
+     *         serialized with the rest of the message
+     */
+    Object serialize(Object item) {
+        if (item == null || item instanceof SerializedItem) {
+            return item;
+        }
+        if (entries.length() == 0) {
+            return write(item);
+        }
+        int index = System.identityHashCode(item) & mask;
+        long now = clock.getAsLong();
+        Entry entry = entries.get(index);
+        if (entry != null) {
+            SerializedItem serialized = entry.serialized().get();
+            if (serialized != null && SerializedItem.unwrap(serialized) == item
+                    && now - entry.serializedAt() < MAX_AGE_NANOS) {
+                return serialized;
+            }
+        }
+        Object serialized = write(item);
+        if (serialized instanceof SerializedItem serializedItem) {
+            entries.set(index,
+                    new Entry(new WeakReference<>(serializedItem), now));
+        } else if (entry != null) {
+            entries.compareAndSet(index, entry, null);
+        }
+        return serialized;
+    }
+
+    private Object write(Object item) {
+        try {
+            return new SerializedItem(item,
+                    objectMapper.writeValueAsString(item));
+        } catch (JacksonException | IllegalArgumentException e) {
+            // Reported when the message is sent
+            getLogger().debug("Unable to serialize a push item", e);
+            return item;
+        }
+    }
+
+    private static Logger getLogger() {
+        return LoggerFactory.getLogger(SerializedItemCache.class);
+    }
+
+    private record Entry(WeakReference<SerializedItem> serialized,
+            long serializedAt) {
+    }
+}
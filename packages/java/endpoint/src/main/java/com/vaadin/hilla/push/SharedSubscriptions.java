@@ -0,0 +1,296 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.security.Principal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
+import com.vaadin.hilla.EndpointInvoker;
+import com.vaadin.hilla.EndpointSubscription;
+import com.vaadin.hilla.SharedSubscription;
+import com.vaadin.hilla.push.messages.fromclient.SubscribeMessage;
+
+/**
+ * The fluxes of the active subscriptions to {@link SharedSubscription}
+ * methods, by the endpoint method and the parameters.
+ * <p>
+ * A shared flux is registered and subscribed to when its first subscriber
+ * subscribes, and cancelled and forgotten when its last subscriber
+ * unsubscribes. A cancelled flux is never subscribed to again: a subscriber
+ * that comes later gets a new flux from the method. If an object mapper is
+ * set, the items are serialized once before they are passed to the
+ * subscribers, see {@link SerializedItem}.
+ * <p>
+ * For internal use only. May be renamed or removed in a future release.
+ */
+final class SharedSubscriptions {
+
+    private final EndpointInvoker endpointInvoker;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+    private volatile ObjectMapper objectMapper;
+
+    SharedSubscriptions(EndpointInvoker endpointInvoker) {
+        this.endpointInvoker = endpointInvoker;
+    }
+
+    void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Gets the number of shared fluxes with subscribers.
+     *
+     * @return the number of fluxes
+     */
+    int size() {
+        return upstreams.size();
+    }
+
+    /**
+     * Gets the shared flux for the given subscription, if the user has access
+     * to the method. The method is invoked if there is no shared flux yet.
+     *
+     * @param message
+     *            the subscribe message
+     * @param params
+     *            the parameters of the method
+     * @param principal
+     *            the user principal object
+     * @param rolesChecker
+     *            a function for checking if a user is in a given role
+     * @return the shared flux
+     * @throws EndpointHttpException
+     *             if the user does not have access to the method, or if
+     *             thrown by the endpoint
+     */
+    SharedFlux get(SubscribeMessage message, ObjectNode params,
+            Principal principal, Function<String, Boolean> rolesChecker)
+            throws EndpointHttpException {
+        String endpointName = message.getEndpointName();
+        String methodName = message.getMethodName();
+        endpointInvoker.checkAccess(endpointName, methodName, principal,
+                rolesChecker);
+        String key = (endpointName + '/' + methodName).toLowerCase(
+                Locale.ENGLISH) + '/' + message.getParams();
+        Invocation invocation = () -> endpointInvoker.invoke(endpointName,
+                methodName, params, principal, rolesChecker);
+        Upstream upstream = upstreams.get(key);
+        if (upstream == null) {
+            // Only registered when it is subscribed to
+            upstream = new Upstream(key, invocation.invoke());
+        }
+        return new SharedFlux(key, upstream, invocation);
+    }
+
+    private Object serialize(Object item) {
+        ObjectMapper mapper = objectMapper;
+        return mapper == null ? item
+                : new SerializedItem(item, mapper.writeValueAsString(item));
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object invoke() throws EndpointHttpException;
+    }
+
+    /**
+     * The shared flux of a subscription, as seen by one subscriber.
+     */
+    final class SharedFlux {
+        private final String key;
+        private final Invocation invocation;
+        private final EndpointSubscription<?> endpointSubscription;
+        private Upstream candidate;
+
+        private SharedFlux(String key, Upstream candidate,
+                Invocation invocation) {
+            this.key = key;
+            this.candidate = candidate;
+            this.invocation = invocation;
+            this.endpointSubscription = candidate.endpointSubscription;
+        }
+
+        /**
+         * Gets the flux for this subscriber. When it is subscribed to, it
+         * joins the registered flux of the subscription, or registers a new
+         * one. The items are {@link SerializedItem}s if an object mapper is
+         * set.
+         *
+         * @return the flux
+         */
+        Flux<Object> getFlux() {
+            return Flux.defer(() -> {
+                Upstream upstream;
+                try {
+                    upstream = join();
+                } catch (EndpointHttpException e) {
+                    return Flux.error(e);
+                }
+                return upstream.sink.asFlux()
+                        .doOnSubscribe(subscription -> upstream.connect())
+                        .doFinally(signal -> upstream.leave());
+            });
+        }
+
+        /**
+         * Gets the subscription returned by the method, for its settings.
+         *
+         * @return the subscription, or {@code null} if the method returned a
+         *         flux
+         */
+        EndpointSubscription<?> getEndpointSubscription() {
+            return endpointSubscription;
+        }
+
+        private Upstream join() throws EndpointHttpException {
+            while (true) {
+                Upstream own = candidate;
+                // Registered atomically with its first subscriber, so that a
+                // flux that is being cancelled is never joined
+                Upstream joined = upstreams.compute(key,
+                        (k, current) -> current != null && current.join()
+                                ? current
+                                : own.join() ? own : null);
+                if (joined != null) {
+                    if (joined != own) {
+                        own.discard();
+                    }
+                    return joined;
+                }
+                // The flux was cancelled after this subscriber got it
+                candidate = new Upstream(key, invocation.invoke());
+            }
+        }
+    }
+
+    /**
+     * A flux that is shared by the subscribers of a subscription.
+     */
+    private final class Upstream {
+        private final String key;
+        private final Flux<Object> source;
+        private final EndpointSubscription<?> endpointSubscription;
+        // Keeps the items that are emitted before the first subscriber is
+        // added to it
+        private final Sinks.Many<Object> sink = Sinks.many().multicast()
+                .onBackpressureBuffer(Queues.SMALL_BUFFER_SIZE, false);
+        private final Disposable.Swap connection = Disposables.swap();
+        private final AtomicBoolean connected = new AtomicBoolean();
+        private int subscribers;
+        private boolean used;
+        private boolean closed;
+
+        private Upstream(String key, Object returnValue) {
+            this.key = key;
+            Flux<?> flux;
+            if (returnValue instanceof EndpointSubscription<?> subscription) {
+                endpointSubscription = subscription;
+                flux = subscription.getFlux();
+                if (subscription.getOnUnsubscribe() != null) {
+                    flux = flux.doOnCancel(subscription.getOnUnsubscribe());
+                }
+            } else {
+                endpointSubscription = null;
+                flux = (Flux<?>) returnValue;
+            }
+            source = flux.map(SharedSubscriptions.this::serialize);
+        }
+
+        /**
+         * Adds a subscriber, unless the flux has been cancelled or has
+         * completed.
+         *
+         * @return {@code true} if the subscriber was added
+         */
+        private synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            used = true;
+            subscribers++;
+            return true;
+        }
+
+        /**
+         * Subscribes to the flux of the method, when its first subscriber has
+         * subscribed.
+         */
+        private void connect() {
+            if (connected.compareAndSet(false, true)) {
+                connection.update(source.subscribe(this::emitNext, error -> {
+                    close();
+                    sink.tryEmitError(error);
+                }, () -> {
+                    close();
+                    sink.tryEmitComplete();
+                }));
+            }
+        }
+
+        private void emitNext(Object item) {
+            // Dropped if the subscribers have left meanwhile
+            sink.tryEmitNext(item);
+        }
+
+        private void leave() {
+            synchronized (this) {
+                if (--subscribers > 0) {
+                    return;
+                }
+                closed = true;
+            }
+            upstreams.remove(key, this);
+            connection.dispose();
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            upstreams.remove(key, this);
+        }
+
+        /**
+         * Releases a flux that no subscriber has joined, calling the
+         * unsubscribe callback of the method.
+         */
+        private void discard() {
+            synchronized (this) {
+                if (used) {
+                    return;
+                }
+                closed = true;
+            }
+            if (endpointSubscription != null
+                    && endpointSubscription.getOnUnsubscribe() != null) {
+                endpointSubscription.getOnUnsubscribe().run();
+            }
+        }
+    }
+}
@@ -21,7 +21,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY)
 @JsonSubTypes({
         @JsonSubTypes.Type(value = SubscribeMessage.class, name = "subscribe"),
-        @JsonSubTypes.Type(value = UnsubscribeMessage.class, name = "unsubscribe") })
+        @JsonSubTypes.Type(value = UnsubscribeMessage.class, name = "unsubscribe"),
+        @JsonSubTypes.Type(value = RequestMessage.class, name = "request") })
 public abstract class AbstractServerMessage {
 
     private String id;
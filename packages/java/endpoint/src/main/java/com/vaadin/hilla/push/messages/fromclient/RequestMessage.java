@@ -0,0 +1,39 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push.messages.fromclient;
+
+/**
+ * Lets the server send more items of a subscription, as the {@code request(n)}
+ * of Reactive Streams. The client only sends this for the subscriptions that
+ * it subscribed to with a {@link SubscribeMessage#getRequest() request}.
+ */
+public class RequestMessage extends AbstractServerMessage {
+
+    private long n;
+
+    /**
+     * Gets the number of additional items the client can receive.
+     *
+     * @return the number of items
+     */
+    public long getN() {
+        return n;
+    }
+
+    public void setN(long n) {
+        this.n = n;
+    }
+}
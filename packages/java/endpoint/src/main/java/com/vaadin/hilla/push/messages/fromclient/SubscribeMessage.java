@@ -21,6 +21,7 @@ public class SubscribeMessage extends AbstractServerMessage {
 
     private String endpointName, methodName;
     private ArrayNode params;
+    private Long request;
 
     public String getEndpointName() {
         return endpointName;
@@ -46,4 +47,19 @@ public class SubscribeMessage extends AbstractServerMessage {
         this.params = params;
     }
 
+    /**
+     * Gets the number of items the client can receive before it requests
+     * more with a {@link RequestMessage}.
+     *
+     * @return the number of items, or {@code null} if the client does not
+     *         limit the items
+     */
+    public Long getRequest() {
+        return request;
+    }
+
+    public void setRequest(Long request) {
+        this.request = request;
+    }
+
 }
@@ -15,8 +15,12 @@
  */
 package com.vaadin.hilla.push.messages.toclient;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ClientMessageUpdate extends AbstractClientMessage {
     private Object item;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean credits;
 
     public ClientMessageUpdate() {
         super();
@@ -35,6 +39,21 @@ public class ClientMessageUpdate extends AbstractClientMessage {
         this.item = item;
     }
 
+    /**
+     * Tells whether the items of the subscription are limited by the credits
+     * the client requests. Only set on the first update of a subscription, so
+     * that the client only requests more items when they are used.
+     *
+     * @return {@code true} if the subscription uses the credits
+     */
+    public boolean isCredits() {
+        return credits;
+    }
+
+    public void setCredits(boolean credits) {
+        this.credits = credits;
+    }
+
     @Override
     public String toString() {
         return "ClientMessageUpdate [id=" + getId() + ", item=" + item + "]";
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import com.vaadin.flow.internal.CurrentInstance;
+import com.vaadin.hilla.EndpointProperties.ExecutionMode;
+import com.vaadin.hilla.auth.CsrfChecker;
+import com.vaadin.hilla.auth.EndpointAccessChecker;
+import com.vaadin.hilla.exception.EndpointException;
+import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
+
+/**
+ * Checks that endpoint calls are executed away from the container thread when
+ * an execution mode other than {@link ExecutionMode#CONTAINER} is configured,
+ * and that asynchronous return values complete the response when they are
+ * resolved.
+ */
+public class EndpointControllerAsyncTest {
+
+    @Endpoint
+    public static class AsyncTestEndpoint {
+        private final CountDownLatch release;
+        private final CompletableFuture<String> pending;
+
+        AsyncTestEndpoint(CountDownLatch release,
+                CompletableFuture<String> pending) {
+            this.release = release;
+            this.pending = pending;
+        }
+
+        public String threadKind() {
+            return Thread.currentThread().isVirtual() ? "virtual" : "platform";
+        }
+
+        public String block() throws InterruptedException {
+            release.await(5, TimeUnit.SECONDS);
+            return "released";
+        }
+
+        public String requestScopedValue() throws InterruptedException {
+            release.await(5, TimeUnit.SECONDS);
+            return RequestContextHolder.currentRequestAttributes()
+                    .getAttribute("value", RequestAttributes.SCOPE_REQUEST)
+                    + "/" + CurrentInstance.get(String.class);
+        }
+
+        public CompletableFuture<String> pending() {
+            return pending;
+        }
+
+        public Mono<String> mono() {
+            return Mono.just("mono");
+        }
+
+        public CompletableFuture<@NonNull String> missing() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        public CompletableFuture<String> failing() {
+            return CompletableFuture
+                    .failedFuture(new EndpointException("Not available"));
+        }
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CompletableFuture<String> pending = new CompletableFuture<>();
+    private EndpointProperties properties;
+    private EndpointExecutor executor;
+    private EndpointController controller;
+
+    @Before
+    public void setUp() {
+        properties = new EndpointProperties();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void virtualThreadMode_completesResponseAsynchronously()
+            throws Exception {
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        var result = controller.serveEndpoint("AsyncTestEndpoint",
+                "threadKind", request, response);
+
+        assertNull(result);
+        var entity = awaitResult(request);
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals("\"virtual\"", entity.getBody());
+    }
+
+    @Test
+    public void virtualThreadMode_propagatesRequestContext() throws Exception {
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        request.setAttribute("value", "scoped");
+        ServletRequestAttributes attributes = new ServletRequestAttributes(
+                request, response);
+        RequestContextHolder.setRequestAttributes(attributes);
+        CurrentInstance.set(String.class, "current");
+        try {
+            controller.serveEndpoint("AsyncTestEndpoint", "requestScopedValue",
+                    request, response);
+        } finally {
+            // The container thread leaves the dispatcher before the call is
+            // done
+            RequestContextHolder.resetRequestAttributes();
+            attributes.requestCompleted();
+            CurrentInstance.clearAll();
+        }
+
+        release.countDown();
+        var entity = awaitResult(request);
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals("\"scoped/current\"", entity.getBody());
+    }
+
+    @Test
+    public void boundedMode_rejectsCallsOverTheLimit() throws Exception {
+        properties.getExecution().setMode(ExecutionMode.BOUNDED);
+        properties.getExecution().setMaxConcurrentCalls(1);
+        properties.getExecution().setQueueCapacity(0);
+        createController();
+
+        MockHttpServletRequest blockedRequest = createRequest();
+        MockHttpServletResponse blockedResponse = new MockHttpServletResponse();
+        controller.serveEndpoint("AsyncTestEndpoint", "block", blockedRequest,
+                blockedResponse);
+        awaitActiveCall();
+
+        MockHttpServletRequest rejectedRequest = createRequest();
+        MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+        controller.serveEndpoint("AsyncTestEndpoint", "block", rejectedRequest,
+                rejectedResponse);
+        assertEquals(503,
+                awaitResult(rejectedRequest).getStatusCode().value());
+        assertEquals(1, executor.getRejectedCalls("AsyncTestEndpoint"));
+
+        release.countDown();
+        var blocked = awaitResult(blockedRequest);
+        assertEquals(200, blocked.getStatusCode().value());
+        assertEquals("\"released\"", blocked.getBody());
+    }
+
+    @Test
+    public void timedOutCall_keepsTimeoutResult() throws Exception {
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        properties.setStreamingResponse(true);
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serveEndpoint("AsyncTestEndpoint", "block", request,
+                response);
+        awaitActiveCall();
+        MockAsyncContext asyncContext = (MockAsyncContext) request
+                .getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        assertEquals(503, awaitResult(request).getStatusCode().value());
+        release.countDown();
+        awaitNoActiveCalls();
+
+        assertEquals(503, awaitResult(request).getStatusCode().value());
+        assertEquals("", response.getContentAsString());
+    }
+
+    @Test
+    public void batchCalls_areExecutedInEndpointLanes() throws Exception {
+        properties.setBatchEnabled(true);
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        createController();
+        MockHttpServletRequest request = createBatchRequest(
+                "threadKind", "requestScopedValue");
+        request.setAttribute("value", "scoped");
+        release.countDown();
+        CurrentInstance.set(String.class, "current");
+        ResponseEntity<String> result;
+        try {
+            result = controller.serveBatch(request,
+                    new MockHttpServletResponse());
+        } finally {
+            CurrentInstance.clearAll();
+        }
+
+        assertEquals(200, result.getStatusCode().value());
+        JsonNode results = new ObjectMapper().readTree(result.getBody());
+        assertEquals("virtual", results.get(0).get("body").asString());
+        assertEquals("scoped/current", results.get(1).get("body").asString());
+    }
+
+    @Test
+    public void parallelBatch_rejectsCallsOverTheLimit() throws Exception {
+        properties.setBatchEnabled(true);
+        properties.setBatchParallel(true);
+        properties.getExecution().setMode(ExecutionMode.BOUNDED);
+        properties.getExecution().setMaxConcurrentCalls(1);
+        properties.getExecution().setQueueCapacity(0);
+        createController();
+        MockHttpServletRequest request = createBatchRequest("block", "block");
+
+        var batch = CompletableFuture.supplyAsync(() -> controller
+                .serveBatch(request, new MockHttpServletResponse()));
+        awaitActiveCall();
+        release.countDown();
+        ResponseEntity<String> result = batch.get(5, TimeUnit.SECONDS);
+
+        JsonNode results = new ObjectMapper().readTree(result.getBody());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals("released", results.get(0).get("body").asString());
+        assertEquals(503, results.get(1).get("status").asInt());
+        assertEquals(1, executor.getRejectedCalls("AsyncTestEndpoint"));
+    }
+
+    @Test
+    public void unknownEndpoint_isHandledOnContainerThread() {
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        createController();
+        MockHttpServletRequest request = createRequest();
+
+        var result = controller.serveEndpoint("MissingEndpoint", "method",
+                request, new MockHttpServletResponse());
+
+        assertEquals(404, result.getStatusCode().value());
+    }
+
+    @Test
+    public void futureResult_completesResponseWhenResolved() throws Exception {
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        var result = controller.serveEndpoint("AsyncTestEndpoint", "pending",
+                request, response);
+
+        assertNull(result);
+        assertTrue(request.isAsyncStarted());
+        pending.complete("resolved");
+        var entity = awaitResult(request);
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals("\"resolved\"", entity.getBody());
+    }
+
+    @Test
+    public void monoResult_isSerialized() throws Exception {
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serveEndpoint("AsyncTestEndpoint", "mono", request,
+                response);
+
+        var entity = awaitResult(request);
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals("\"mono\"", entity.getBody());
+    }
+
+    @Test
+    public void futureResult_inVirtualThreadMode_completesResponseWhenResolved()
+            throws Exception {
+        properties.getExecution().setMode(ExecutionMode.VIRTUAL_THREAD);
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serveEndpoint("AsyncTestEndpoint", "pending", request,
+                response);
+
+        assertTrue(request.isAsyncStarted());
+        pending.complete("resolved");
+        var entity = awaitResult(request);
+        assertEquals(200, entity.getStatusCode().value());
+        assertEquals("\"resolved\"", entity.getBody());
+    }
+
+    @Test
+    public void nullResolvedValue_isReportedAsNullabilityError()
+            throws Exception {
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serveEndpoint("AsyncTestEndpoint", "missing", request,
+                response);
+
+        var entity = awaitResult(request);
+        assertEquals(500, entity.getStatusCode().value());
+        assertTrue(String.valueOf(entity.getBody())
+                .contains("Unexpected return value"));
+    }
+
+    @Test
+    public void failedFuture_isReportedAsEndpointError() throws Exception {
+        createController();
+        MockHttpServletRequest request = createRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.serveEndpoint("AsyncTestEndpoint", "failing", request,
+                response);
+
+        var entity = awaitResult(request);
+        assertEquals(400, entity.getStatusCode().value());
+        assertTrue(String.valueOf(entity.getBody()).contains("Not available"));
+    }
+
+    @Test
+    public void futureResult_withoutAsyncSupport_isAwaited() {
+        createController();
+        MockHttpServletRequest request = createRequest();
+        request.setAsyncSupported(false);
+        pending.complete("resolved");
+
+        var result = controller.serveEndpoint("AsyncTestEndpoint", "pending",
+                request, new MockHttpServletResponse());
+
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals("\"resolved\"", result.getBody());
+    }
+
+    private void createController() {
+        ServletContext servletContext = Mockito.mock(ServletContext.class);
+        CsrfChecker csrfChecker = new CsrfChecker(servletContext);
+        csrfChecker.setCsrfProtection(false);
+        EndpointRegistry endpointRegistry = new EndpointRegistry(
+                new EndpointNameChecker());
+        endpointRegistry
+                .registerEndpoint(new AsyncTestEndpoint(release, pending));
+        ApplicationContext appCtx = Mockito.mock(ApplicationContext.class);
+        ObjectMapper objectMapper = new JacksonObjectMapperFactory.Json()
+                .build();
+        EndpointAccessChecker accessChecker = Mockito
+                .mock(EndpointAccessChecker.class);
+        EndpointInvoker endpointInvoker = new EndpointInvoker(appCtx,
+                objectMapper, new ExplicitNullableTypeChecker(), servletContext,
+                endpointRegistry) {
+            @Override
+            EndpointAccessChecker getAccessChecker() {
+                return accessChecker;
+            }
+        };
+        executor = new EndpointExecutor(properties.getExecution());
+        controller = new EndpointController(appCtx, endpointRegistry,
+                endpointInvoker, csrfChecker, objectMapper, properties,
+                executor);
+    }
+
+    private static MockHttpServletRequest createRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST",
+                "/connect/AsyncTestEndpoint/method");
+        request.setAsyncSupported(true);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletRequest createBatchRequest(
+            String... methodNames) {
+        MockHttpServletRequest request = createRequest();
+        request.setRequestURI("/connect/_batch");
+        StringBuilder calls = new StringBuilder();
+        for (String methodName : methodNames) {
+            calls.append(calls.isEmpty() ? "[" : ",")
+                    .append("{\"endpoint\":\"AsyncTestEndpoint\",")
+                    .append("\"method\":\"").append(methodName)
+                    .append("\"}");
+        }
+        request.setContent(calls.append("]").toString()
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private void awaitActiveCall() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCalls("AsyncTestEndpoint") == 0) {
+            assertTrue("The call did not start", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitNoActiveCalls() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCalls("AsyncTestEndpoint") > 0) {
+            assertTrue("The call did not end", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Waits for the result that Spring MVC writes to the response when the
+     * request is dispatched again.
+     */
+    private static ResponseEntity<?> awaitResult(
+            MockHttpServletRequest request) throws InterruptedException {
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!asyncManager.hasConcurrentResult()) {
+            assertTrue("The call was not completed",
+                    System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        return (ResponseEntity<?>) asyncManager.getConcurrentResult();
+    }
+}
@@ -34,6 +34,7 @@ import static org.mockito.Mockito.when;
 import jakarta.annotation.security.DenyAll;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -42,10 +43,14 @@ import jakarta.validation.constraints.NotNull;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -67,13 +72,18 @@ import org.springframework.boot.jackson.autoconfigure.JacksonProperties;
 import org.springframework.cglib.proxy.Enhancer;
 import org.springframework.cglib.proxy.NoOp;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 import com.vaadin.flow.di.Lookup;
 import com.vaadin.flow.internal.CurrentInstance;
@@ -105,6 +115,7 @@ public class EndpointControllerTest {
     private static final Method TEST_VALIDATION_METHOD;
     private HttpServletRequest requestMock;
     private Principal principal;
+    private EndpointProperties endpointProperties;
     private ApplicationConfiguration appConfig;
     private MultipartHttpServletRequest multipartRequest;
     private MultipartFile multipartFile;
@@ -278,6 +289,61 @@ public class EndpointControllerTest {
         }
     }
 
+    @Endpoint
+    public static class DownloadTestClass {
+        public InputStream downloadStream() {
+            return new ByteArrayInputStream(
+                    "streamed".getBytes(StandardCharsets.UTF_8));
+        }
+
+        public Resource downloadResource() {
+            return new ByteArrayResource(
+                    "a,b".getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public String getFilename() {
+                    return "report.csv";
+                }
+            };
+        }
+    }
+
+    @Endpoint
+    public static class UploadTestClass {
+        public String upload(String name, InputStream file)
+                throws IOException {
+            return name + ": " + new String(file.readAllBytes(),
+                    StandardCharsets.UTF_8);
+        }
+    }
+
+    @Endpoint
+    public static class CborTestClass {
+        public BigDecimal decimal(BigDecimal value) {
+            return value;
+        }
+
+        public BigInteger integer(BigInteger value) {
+            return value;
+        }
+
+        public byte[] bytes(byte[] value) {
+            return value;
+        }
+    }
+
+    @Endpoint
+    public static class StreamTestClass {
+        private boolean closed;
+
+        public Stream<String> stream() {
+            return Stream.of("a", "b").onClose(() -> closed = true);
+        }
+
+        public List<Integer> list() {
+            return List.of(1, 2, 3);
+        }
+    }
+
     @Rule
     public final ExpectedException exception = ExpectedException.none();
 
@@ -285,6 +351,8 @@ public class EndpointControllerTest {
     public void setUp() throws IOException {
         requestMock = mock(HttpServletRequest.class);
         principal = mock(Principal.class);
+        endpointProperties = new EndpointProperties();
+        endpointProperties.setBatchEnabled(true);
 
         appConfig = Mockito.mock(ApplicationConfiguration.class);
 
@@ -606,6 +674,100 @@ public class EndpointControllerTest {
         assertTrue(response.getBody().contains("Check file length 2 OK"));
     }
 
+    @Test
+    public void should_BindStreamedPart_When_UploadIsStreamed()
+            throws IOException {
+        String boundary = "abc";
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\""
+                + EndpointController.BODY_PART_NAME + "\"\r\n\r\n"
+                + "{\"name\":\"report\"}\r\n" + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"/file\"; filename=\"report.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n" + "hello\r\n" + "--"
+                + boundary + "--\r\n";
+        when(requestMock.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE))
+                .thenReturn(Boolean.TRUE);
+        when(requestMock.getContentType())
+                .thenReturn("multipart/form-data; boundary=" + boundary);
+        when(requestMock.getInputStream()).thenReturn(
+                new DelegatingServletInputStream(new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8))));
+
+        var response = createVaadinController(new UploadTestClass())
+                .serveMultipartEndpoint(
+                        UploadTestClass.class.getSimpleName(), "upload",
+                        requestMock, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"report: hello\"", response.getBody());
+    }
+
+    @Test
+    public void should_Return413_When_StreamedUploadExceedsMaxFileSize()
+            throws IOException {
+        String body = "--abc\r\n" + "Content-Disposition: form-data; name=\""
+                + EndpointController.BODY_PART_NAME + "\"\r\n\r\n"
+                + "{\"name\":\"report\"}\r\n" + "--abc\r\n"
+                + "Content-Disposition: form-data; name=\"/file\"; filename=\"report.txt\"\r\n\r\n"
+                + "x".repeat(100) + "\r\n--abc--\r\n";
+        when(requestMock.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE))
+                .thenReturn(new MultipartConfigElement("", 50, -1, 0));
+        when(requestMock.getContentType())
+                .thenReturn("multipart/form-data; boundary=abc");
+        when(requestMock.getInputStream()).thenReturn(
+                new DelegatingServletInputStream(new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8))));
+
+        var response = createVaadinController(new UploadTestClass())
+                .serveMultipartEndpoint(
+                        UploadTestClass.class.getSimpleName(), "upload",
+                        requestMock, null);
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    @Test
+    public void should_Return400_When_StreamedUploadHasNoBodyPart()
+            throws IOException {
+        String body = "--abc\r\n"
+                + "Content-Disposition: form-data; name=\"/file\"; filename=\"report.txt\"\r\n\r\n"
+                + "hello\r\n--abc--\r\n";
+        when(requestMock.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE))
+                .thenReturn(Boolean.TRUE);
+        when(requestMock.getContentType())
+                .thenReturn("multipart/form-data; boundary=abc");
+        when(requestMock.getInputStream()).thenReturn(
+                new DelegatingServletInputStream(new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8))));
+
+        var response = createVaadinController(new UploadTestClass())
+                .serveMultipartEndpoint(
+                        UploadTestClass.class.getSimpleName(), "upload",
+                        requestMock, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void should_BindStoredFile_When_UploadIsNotStreamed()
+            throws IOException {
+        when(multipartRequest.getParameter(EndpointController.BODY_PART_NAME))
+                .thenReturn("{\"name\":\"report\"}");
+        when(multipartRequest.getFileMap()).thenReturn(
+                Collections.singletonMap("/file", multipartFile));
+
+        var response = createVaadinController(new UploadTestClass())
+                .serveMultipartEndpoint(
+                        UploadTestClass.class.getSimpleName(), "upload",
+                        multipartRequest, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"report: Hello\"", response.getBody());
+    }
+
     @Test
     public void should_AcceptMultipartFile_WithSingleParameter()
             throws IOException {
@@ -1445,6 +1607,294 @@ public class EndpointControllerTest {
                 responseBody), responseBody.contains(TEST_METHOD.getName()));
     }
 
+    @Test
+    public void should_ReturnResultPerCall_When_BatchIsServed()
+            throws IOException {
+        mockRequestBody("[" //
+                + "{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"testMethod\",\"params\":{\"value\":222}},"
+                + "{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"missingMethod\"},"
+                + "{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"testMethod\",\"params\":{\"value\":[222]}},"
+                + "{\"method\":\"testMethod\"}" //
+                + "]");
+
+        ResponseEntity<String> response = createVaadinController(TEST_ENDPOINT)
+                .serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        assertEquals(4, results.size());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals("222-test", results.get(0).get("body").asString());
+        assertEquals(404, results.get(1).get("status").asInt());
+        assertEquals(400, results.get(2).get("status").asInt());
+        assertEquals(EndpointValidationException.class.getName(),
+                results.get(2).get("body").get("type").asString());
+        assertEquals(400, results.get(3).get("status").asInt());
+    }
+
+    @Test
+    public void should_CheckAccessPerCall_When_BatchIsServed()
+            throws IOException {
+        mockRequestBody("[" //
+                + "{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"testAnonymousMethod\"},"
+                + "{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"testMethod\",\"params\":{\"value\":222}}"
+                + "]");
+
+        ResponseEntity<String> response = createVaadinControllerWithoutPrincipal()
+                .serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals("Hello, anonymous user!",
+                results.get(0).get("body").asString());
+        assertEquals(401, results.get(1).get("status").asInt());
+    }
+
+    @Test
+    public void should_Return400_When_BatchIsNotAnArray() throws IOException {
+        mockRequestBody("{\"endpoint\":\"" + TEST_ENDPOINT_NAME + "\"}");
+
+        ResponseEntity<String> response = createVaadinController(TEST_ENDPOINT)
+                .serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void should_Return404_When_BatchIsNotEnabled() throws IOException {
+        endpointProperties.setBatchEnabled(false);
+        mockRequestBody("[{\"endpoint\":\"" + TEST_ENDPOINT_NAME
+                + "\",\"method\":\"testAnonymousMethod\"}]");
+
+        ResponseEntity<String> response = createVaadinController(TEST_ENDPOINT)
+                .serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void should_Return401_When_BatchHasNoCsrfToken() {
+        when(requestMock.getHeader("X-CSRF-Token")).thenReturn(null);
+
+        ResponseEntity<String> response = createVaadinController(TEST_ENDPOINT)
+                .serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    public void should_ReturnCborResponse_When_RequestIsCbor()
+            throws IOException {
+        CBORMapper cborMapper = new CBORMapper();
+        byte[] body = cborMapper.writeValueAsBytes(
+                cborMapper.createObjectNode().put("value", 222));
+        when(requestMock.getContentType()).thenReturn("application/cbor");
+        when(requestMock.getInputStream())
+                .thenReturn(new DelegatingServletInputStream(
+                        new ByteArrayInputStream(body)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<String> result = createVaadinController(TEST_ENDPOINT)
+                .serveCborEndpoint(TEST_ENDPOINT_NAME, TEST_METHOD.getName(),
+                        requestMock, response);
+
+        assertNull(result);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/cbor", response.getContentType());
+        assertEquals("222-test",
+                cborMapper.readValue(response.getContentAsByteArray(),
+                        String.class));
+    }
+
+    @Test
+    public void should_ReturnJsonError_When_CborRequestFails()
+            throws IOException {
+        CBORMapper cborMapper = new CBORMapper();
+        ObjectNode params = cborMapper.createObjectNode();
+        params.putArray("value").add(222);
+        byte[] body = cborMapper.writeValueAsBytes(params);
+        when(requestMock.getContentType()).thenReturn("application/cbor");
+        when(requestMock.getInputStream())
+                .thenReturn(new DelegatingServletInputStream(
+                        new ByteArrayInputStream(body)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        createVaadinController(TEST_ENDPOINT).serveCborEndpoint(
+                TEST_ENDPOINT_NAME, TEST_METHOD.getName(), requestMock,
+                response);
+
+        assertEquals(400, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        JsonNode error = new ObjectMapper()
+                .readTree(response.getContentAsString());
+        assertEquals(EndpointValidationException.class.getName(),
+                error.get("type").asString());
+    }
+
+    @Test
+    public void should_RoundTripBigNumbersAndBytes_When_RequestIsCbor()
+            throws IOException {
+        CBORMapper cborMapper = new CBORMapper();
+        CborTestClass endpoint = new CborTestClass();
+
+        // The client decodes tag 4 [exponent, mantissa] as a number
+        byte[] decimal = callCborEndpoint(endpoint, "decimal",
+                cborMapper.createObjectNode().put("value", 1.5d));
+        Assert.assertArrayEquals(new byte[] { (byte) 0xc4, (byte) 0x82, 0x20,
+                0x0f }, decimal);
+        assertEquals(new BigDecimal("1.5"),
+                cborMapper.readValue(decimal, BigDecimal.class));
+
+        // The client decodes tag 2, a byte string, as a number
+        BigInteger big = BigInteger.ONE.shiftLeft(64);
+        byte[] integer = callCborEndpoint(endpoint, "integer",
+                cborMapper.createObjectNode().put("value", big));
+        Assert.assertArrayEquals(new byte[] { (byte) 0xc2, 0x49, 0x01, 0x00,
+                0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 }, integer);
+        assertEquals(big, cborMapper.readValue(integer, BigInteger.class));
+
+        // The client sends byte arrays as base64 strings, as in JSON, and
+        // decodes byte strings back to them
+        byte[] bytes = callCborEndpoint(endpoint, "bytes",
+                cborMapper.createObjectNode().put("value", "AQID"));
+        Assert.assertArrayEquals(new byte[] { 0x43, 0x01, 0x02, 0x03 },
+                bytes);
+    }
+
+    private byte[] callCborEndpoint(Object endpoint, String methodName,
+            ObjectNode params) throws IOException {
+        byte[] body = new CBORMapper().writeValueAsBytes(params);
+        when(requestMock.getContentType()).thenReturn("application/cbor");
+        when(requestMock.getInputStream())
+                .thenReturn(new DelegatingServletInputStream(
+                        new ByteArrayInputStream(body)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        createVaadinController(endpoint).serveCborEndpoint(
+                endpoint.getClass().getSimpleName(), methodName, requestMock,
+                response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/cbor", response.getContentType());
+        return response.getContentAsByteArray();
+    }
+
+    @Test
+    public void should_StreamDownload_When_MethodReturnsInputStream()
+            throws IOException {
+        mockRequestBody("{}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<String> result = createVaadinController(
+                new DownloadTestClass()).serveEndpoint(
+                        DownloadTestClass.class.getSimpleName(),
+                        "downloadStream", requestMock, response);
+
+        assertNull(result);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/octet-stream", response.getContentType());
+        assertEquals("attachment",
+                response.getHeader("Content-Disposition"));
+        assertEquals("streamed", response.getContentAsString());
+    }
+
+    @Test
+    public void should_SendFileName_When_MethodReturnsResource()
+            throws IOException {
+        mockRequestBody("{}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        createVaadinController(new DownloadTestClass()).serveEndpoint(
+                DownloadTestClass.class.getSimpleName(), "downloadResource",
+                requestMock, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/csv", response.getContentType());
+        assertEquals("attachment; filename=\"report.csv\"",
+                response.getHeader("Content-Disposition"));
+        assertEquals(3, response.getContentLength());
+        assertEquals("a,b", response.getContentAsString());
+    }
+
+    @Test
+    public void should_RejectDownload_When_CalledInBatch() throws IOException {
+        mockRequestBody("[{\"endpoint\":\""
+                + DownloadTestClass.class.getSimpleName()
+                + "\",\"method\":\"downloadStream\"}]");
+
+        ResponseEntity<String> response = createVaadinController(
+                new DownloadTestClass()).serveBatch(requestMock, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        assertEquals(400, results.get(0).get("status").asInt());
+    }
+
+    @Test
+    public void should_WriteJsonArrayAndCloseStream_When_MethodReturnsStream()
+            throws IOException {
+        mockRequestBody("{}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        StreamTestClass endpoint = new StreamTestClass();
+
+        ResponseEntity<String> result = createVaadinController(endpoint)
+                .serveEndpoint(StreamTestClass.class.getSimpleName(), "stream",
+                        requestMock, response);
+
+        assertNull(result);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals("[\"a\",\"b\"]", response.getContentAsString());
+        assertTrue(endpoint.closed);
+    }
+
+    @Test
+    public void should_WriteNdjson_When_ClientAcceptsNdjson()
+            throws IOException {
+        mockRequestBody("{}");
+        when(requestMock.getHeader("Accept"))
+                .thenReturn("application/x-ndjson, application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        createVaadinController(new StreamTestClass()).serveEndpoint(
+                StreamTestClass.class.getSimpleName(), "list", requestMock,
+                response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertEquals("1\n2\n3\n", response.getContentAsString());
+    }
+
+    @Test
+    public void should_CollectAndCloseStream_When_CalledInBatch()
+            throws IOException {
+        mockRequestBody("[{\"endpoint\":\""
+                + StreamTestClass.class.getSimpleName()
+                + "\",\"method\":\"stream\"}]");
+        StreamTestClass endpoint = new StreamTestClass();
+
+        ResponseEntity<String> response = createVaadinController(endpoint)
+                .serveBatch(requestMock, null);
+
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        assertEquals(200, results.get(0).get("status").asInt());
+        assertEquals("[\"a\",\"b\"]", results.get(0).get("body").toString());
+        assertTrue(endpoint.closed);
+    }
+
+    private void mockRequestBody(String body) throws IOException {
+        when(requestMock.getInputStream())
+                .thenReturn(new DelegatingServletInputStream(
+                        new ByteArrayInputStream(
+                                body.getBytes(StandardCharsets.UTF_8))));
+    }
+
     private ObjectNode createRequestParameters(String jsonBody) {
         return new ObjectMapper().readValue(jsonBody, ObjectNode.class);
     }
@@ -1527,9 +1977,12 @@ public class EndpointControllerTest {
 
         Mockito.doReturn(accessChecker).when(invoker).getAccessChecker();
 
+        EndpointExecutor executor = new EndpointExecutor(
+                endpointProperties.getExecution());
         EndpointController connectController = Mockito
                 .spy(new EndpointController(mockApplicationContext, registry,
-                        invoker, csrfChecker, endpointObjectMapper));
+                        invoker, csrfChecker, endpointObjectMapper,
+                        endpointProperties, executor));
         connectController.registerEndpoints();
         return connectController;
     }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares the endpoint method dispatch strategies for small-payload calls.
+ * <p>
+ * This is not run as part of the test suite. Run the {@link #main(String[])}
+ * method from the IDE, or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.vaadin.hilla.EndpointDispatchBenchmark}.
+ * The numbers are only indicative; use a profiler or JMH for anything more
+ * precise.
+ */
+public class EndpointDispatchBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 2_000_000;
+    private static final int MEASURED_ITERATIONS = 10_000_000;
+    private static final int ROUNDS = 5;
+
+    public static class SmallPayloadEndpoint {
+        public int add(int a, Integer b) {
+            return a + b;
+        }
+
+        public String greet(String name) {
+            return name;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SmallPayloadEndpoint endpoint = new SmallPayloadEndpoint();
+        Method add = SmallPayloadEndpoint.class.getMethod("add", int.class,
+                Integer.class);
+        Method greet = SmallPayloadEndpoint.class.getMethod("greet",
+                String.class);
+        add.setAccessible(true);
+        greet.setAccessible(true);
+
+        for (EndpointInvocationPlan.Dispatch dispatch : EndpointInvocationPlan.Dispatch
+                .values()) {
+            EndpointInvocationPlan addPlan = new EndpointInvocationPlan(add,
+                    SmallPayloadEndpoint.class, dispatch);
+            EndpointInvocationPlan greetPlan = new EndpointInvocationPlan(
+                    greet, SmallPayloadEndpoint.class, dispatch);
+            Object[] addArguments = { 1, 2 };
+            Object[] greetArguments = { "Hilla" };
+
+            run(endpoint, addPlan, addArguments, WARMUP_ITERATIONS);
+            run(endpoint, greetPlan, greetArguments, WARMUP_ITERATIONS);
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                long blackhole = run(endpoint, addPlan, addArguments,
+                        MEASURED_ITERATIONS);
+                blackhole += run(endpoint, greetPlan, greetArguments,
+                        MEASURED_ITERATIONS);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%-14s round %d: %6.2f ns/call (%d)%n",
+                        dispatch, round,
+                        (double) elapsed / (2L * MEASURED_ITERATIONS),
+                        blackhole);
+            }
+        }
+    }
+
+    private static long run(Object endpoint, EndpointInvocationPlan plan,
+            Object[] arguments, int iterations) throws Exception {
+        long blackhole = 0;
+        for (int i = 0; i < iterations; i++) {
+            blackhole += plan.invoke(endpoint, arguments).hashCode();
+        }
+        return blackhole;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.hilla.EndpointProperties.Execution;
+import com.vaadin.hilla.EndpointProperties.ExecutionMode;
+import com.vaadin.hilla.EndpointProperties.Limits;
+
+public class EndpointExecutorTest {
+
+    private Execution execution;
+    private EndpointExecutor executor;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        execution = new Execution();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void containerMode_isNotEnabled() {
+        executor = new EndpointExecutor(execution);
+
+        assertFalse(executor.isEnabled());
+        assertThrows(IllegalStateException.class,
+                () -> executor.execute("Endpoint", () -> {
+                }));
+    }
+
+    @Test
+    public void boundedMode_requiresConcurrencyLimit() {
+        execution.setMode(ExecutionMode.BOUNDED);
+
+        assertThrows(IllegalStateException.class,
+                () -> new EndpointExecutor(execution));
+    }
+
+    @Test
+    public void virtualThreadMode_runsCallsOnVirtualThreads()
+            throws InterruptedException {
+        execution.setMode(ExecutionMode.VIRTUAL_THREAD);
+        executor = new EndpointExecutor(execution);
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] virtual = new boolean[1];
+
+        executor.execute("Endpoint", () -> {
+            virtual[0] = Thread.currentThread().isVirtual();
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(virtual[0]);
+        assertEquals(Set.of("endpoint"), executor.getEndpointNames());
+    }
+
+    @Test
+    public void boundedMode_queuesAndRejectsCallsOverTheLimit()
+            throws InterruptedException {
+        execution.setMode(ExecutionMode.BOUNDED);
+        execution.setMaxConcurrentCalls(1);
+        execution.setQueueCapacity(1);
+        executor = new EndpointExecutor(execution);
+        CountDownLatch started = new CountDownLatch(1);
+
+        executor.execute("Slow", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute("Slow", this::awaitRelease);
+
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.execute("SLOW", this::awaitRelease));
+        assertEquals(1, executor.getActiveCalls("slow"));
+        assertEquals(1, executor.getQueuedCalls("slow"));
+        assertEquals(1, executor.getRejectedCalls("Slow"));
+        assertEquals(1, executor.getRejectedCalls());
+        assertEquals(1, executor.getQueuedCalls());
+    }
+
+    @Test
+    public void endpointLimits_overrideDefaults() throws InterruptedException {
+        execution.setMode(ExecutionMode.VIRTUAL_THREAD);
+        execution.setMaxConcurrentCalls(10);
+        Limits limits = new Limits();
+        limits.setMaxConcurrentCalls(1);
+        limits.setQueueCapacity(0);
+        execution.getEndpoints().put("slowEndpoint", limits);
+        executor = new EndpointExecutor(execution);
+        CountDownLatch started = new CountDownLatch(2);
+
+        executor.execute("SlowEndpoint", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        executor.execute("FastEndpoint", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.execute("FastEndpoint", this::awaitRelease);
+        assertThrows(RejectedExecutionException.class,
+                () -> executor.execute("SlowEndpoint", this::awaitRelease));
+        assertEquals(1, executor.getRejectedCalls("SlowEndpoint"));
+        assertEquals(0, executor.getRejectedCalls("FastEndpoint"));
+        assertEquals(0, executor.getRejectedCalls("UnknownEndpoint"));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
+
+public class EndpointInvocationPlanTest {
+
+    public static class GenericEndpoint<T> {
+        public String echo(T value, int count) {
+            return String.valueOf(value).repeat(count);
+        }
+    }
+
+    @Endpoint
+    public static class StringEndpoint extends GenericEndpoint<String> {
+    }
+
+    public static class DispatchTarget {
+        public static int twice(int value) {
+            return value * 2;
+        }
+
+        public void nothing() {
+        }
+
+        public String fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        public long widen(long value) {
+            return value;
+        }
+
+        public String cast(Object value) {
+            return (String) value;
+        }
+    }
+
+    public static class AsyncEndpoint<T> {
+        public CompletableFuture<List<String>> future() {
+            return null;
+        }
+
+        public CompletionStage<T> stage() {
+            return null;
+        }
+
+        public Mono<?> mono() {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public CompletableFuture raw() {
+            return null;
+        }
+    }
+
+    public static class IntegerAsyncEndpoint extends AsyncEndpoint<Integer> {
+    }
+
+    private EndpointRegistry registry;
+
+    @Before
+    public void setUp() {
+        EndpointNameChecker nameChecker = mock(EndpointNameChecker.class);
+        when(nameChecker.check(any())).thenReturn(null);
+        registry = new EndpointRegistry(nameChecker);
+    }
+
+    @Test
+    public void should_ResolveParametersAgainstEndpointClass() {
+        registry.registerEndpoint(new StringEndpoint());
+
+        EndpointInvocationPlan plan = registry.get("StringEndpoint")
+                .getInvocationPlan("ECHO").orElseThrow();
+
+        assertEquals("echo", plan.getMethod().getName());
+        assertEquals(List.of("value", "count"), plan.getParameterNames());
+        assertArrayEquals(new Type[] { String.class, int.class },
+                plan.getParameterTypes());
+        assertEquals("java.lang.String, int", plan.getParameterTypeNames());
+        assertFalse(plan.isNonNullApi());
+    }
+
+    @Test
+    public void should_DetectNonNullApiPackage() throws Exception {
+        EndpointInvocationPlan plan = new EndpointInvocationPlan(
+                com.vaadin.hilla.nonnullapi.NonNullableEntity.class
+                        .getMethod("getValue"),
+                com.vaadin.hilla.nonnullapi.NonNullableEntity.class);
+
+        assertTrue(plan.isNonNullApi());
+    }
+
+    @Test
+    public void should_ReuseParameterReaders_ForSameMapper() {
+        registry.registerEndpoint(new StringEndpoint());
+        EndpointInvocationPlan plan = registry.get("StringEndpoint")
+                .getInvocationPlan("echo").orElseThrow();
+        ObjectMapper mapper = new JacksonObjectMapperFactory.Json().build();
+
+        ObjectReader[] readers = plan.getParameterReaders(mapper);
+
+        assertEquals(2, readers.length);
+        assertSame(readers, plan.getParameterReaders(mapper));
+        assertNotSame(readers, plan.getParameterReaders(
+                new JacksonObjectMapperFactory.Json().build()));
+    }
+
+    @Test
+    public void should_RebuildPlans_When_EndpointIsRegisteredAgain() {
+        registry.registerEndpoint(new StringEndpoint());
+        EndpointInvocationPlan first = registry.get("StringEndpoint")
+                .getInvocationPlan("echo").orElseThrow();
+
+        registry.registerEndpoint(new StringEndpoint());
+        EndpointInvocationPlan second = registry.get("StringEndpoint")
+                .getInvocationPlan("echo").orElseThrow();
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void should_UseConfiguredDispatch() {
+        registry.setDispatch(EndpointInvocationPlan.Dispatch.REFLECTION);
+        registry.registerEndpoint(new StringEndpoint());
+
+        assertEquals(EndpointInvocationPlan.Dispatch.REFLECTION,
+                registry.get("StringEndpoint").getInvocationPlan("echo")
+                        .orElseThrow().getDispatch());
+    }
+
+    @Test
+    public void should_BehaveTheSame_WithAllDispatchStrategies()
+            throws Exception {
+        for (EndpointInvocationPlan.Dispatch dispatch : EndpointInvocationPlan.Dispatch
+                .values()) {
+            EndpointInvocationPlan echo = new EndpointInvocationPlan(
+                    StringEndpoint.class.getMethod("echo", Object.class,
+                            int.class),
+                    StringEndpoint.class, dispatch);
+            assertEquals(dispatch, echo.getDispatch());
+            assertEquals("abab", echo.invoke(new StringEndpoint(),
+                    new Object[] { "ab", 2 }));
+            assertThrows(IllegalArgumentException.class,
+                    () -> echo.invoke(new StringEndpoint(),
+                            new Object[] { "ab", null }));
+            assertThrows(IllegalArgumentException.class, () -> echo
+                    .invoke(new StringEndpoint(), new Object[] { "ab" }));
+
+            EndpointInvocationPlan twice = new EndpointInvocationPlan(
+                    DispatchTarget.class.getMethod("twice", int.class),
+                    DispatchTarget.class, dispatch);
+            assertEquals(42, twice.invoke(new DispatchTarget(),
+                    new Object[] { 21 }));
+
+            EndpointInvocationPlan nothing = new EndpointInvocationPlan(
+                    DispatchTarget.class.getMethod("nothing"),
+                    DispatchTarget.class, dispatch);
+            assertNull(nothing.invoke(new DispatchTarget(), new Object[0]));
+
+            EndpointInvocationPlan fail = new EndpointInvocationPlan(
+                    DispatchTarget.class.getMethod("fail", String.class),
+                    DispatchTarget.class, dispatch);
+            InvocationTargetException exception = assertThrows(
+                    InvocationTargetException.class,
+                    () -> fail.invoke(new DispatchTarget(),
+                            new Object[] { "oops" }));
+            assertEquals(IllegalStateException.class,
+                    exception.getCause().getClass());
+            assertEquals("oops", exception.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void should_SeparateInvalidArguments_FromMethodExceptions()
+            throws Exception {
+        for (EndpointInvocationPlan.Dispatch dispatch : EndpointInvocationPlan.Dispatch
+                .values()) {
+            EndpointInvocationPlan widen = new EndpointInvocationPlan(
+                    DispatchTarget.class.getMethod("widen", long.class),
+                    DispatchTarget.class, dispatch);
+            assertEquals(21L, widen.invoke(new DispatchTarget(),
+                    new Object[] { 21 }));
+            assertThrows(IllegalArgumentException.class,
+                    () -> widen.invoke(new DispatchTarget(),
+                            new Object[] { "21" }));
+            assertThrows(IllegalArgumentException.class,
+                    () -> widen.invoke(new StringEndpoint(),
+                            new Object[] { 21L }));
+
+            EndpointInvocationPlan cast = new EndpointInvocationPlan(
+                    DispatchTarget.class.getMethod("cast", Object.class),
+                    DispatchTarget.class, dispatch);
+            InvocationTargetException exception = assertThrows(
+                    InvocationTargetException.class,
+                    () -> cast.invoke(new DispatchTarget(),
+                            new Object[] { 1 }));
+            assertEquals(ClassCastException.class,
+                    exception.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void asyncResultType_isResolvedFromReturnType() throws Exception {
+        assertEquals("java.util.List<java.lang.String>",
+                createAsyncPlan("future").getAsyncResultType().getTypeName());
+        assertEquals(Integer.class,
+                createAsyncPlan("stage").getAsyncResultType());
+        assertEquals(Object.class,
+                createAsyncPlan("mono").getAsyncResultType());
+        assertEquals(Object.class,
+                createAsyncPlan("raw").getAsyncResultType());
+        assertNull(new EndpointInvocationPlan(
+                DispatchTarget.class.getMethod("nothing"),
+                DispatchTarget.class).getAsyncResultType());
+    }
+
+    private static EndpointInvocationPlan createAsyncPlan(String methodName)
+            throws NoSuchMethodException {
+        return new EndpointInvocationPlan(
+                AsyncEndpoint.class.getMethod(methodName),
+                IntegerAsyncEndpoint.class);
+    }
+}
@@ -16,20 +16,42 @@
 package com.vaadin.hilla;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Size;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
-
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.AdditionalAnswers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -42,8 +64,15 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import tools.jackson.databind.node.ObjectNode;
 
+import com.vaadin.hilla.EndpointInvocationException.EndpointBadRequestException;
+import com.vaadin.hilla.EndpointInvocationException.EndpointForbiddenException;
 import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
+import com.vaadin.hilla.EndpointInvocationException.EndpointInternalException;
+import com.vaadin.hilla.EndpointInvocationMetrics.Phase;
+import com.vaadin.hilla.EndpointResultCache.CachedResult;
 import com.vaadin.hilla.auth.EndpointAccessChecker;
+import com.vaadin.hilla.exception.EndpointValidationException;
+import com.vaadin.hilla.exception.EndpointValidationException.ValidationErrorData;
 import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
 
 @SpringBootTest(classes = { ServletContextTestSetup.class,
@@ -228,4 +257,399 @@ public class EndpointInvokerTest {
         assertEquals("I'm a teapot", ex.getMessage());
     }
 
+    @Endpoint
+    public static class StreamingEndpoint {
+        public String join(String text, int count, List<String> suffixes) {
+            return text.repeat(count) + String.join("", suffixes);
+        }
+    }
+
+    @Test
+    public void streamedBody_bindsParametersByName_inAnyOrder()
+            throws Exception {
+        endpointRegistry.registerEndpoint(new StreamingEndpoint());
+
+        Object result = endpointInvoker.invoke("StreamingEndpoint", "join",
+                stream("{\"suffixes\":[\"!\",\"?\"],\"count\":2,\"text\":\"ab\"}"),
+                principal, requestMock::isUserInRole);
+
+        assertEquals("abab!?", result);
+    }
+
+    @Test
+    public void streamedBody_bindsUnmatchedNames_inOrder() throws Exception {
+        endpointRegistry.registerEndpoint(new StreamingEndpoint());
+
+        Object result = endpointInvoker.invoke("StreamingEndpoint", "join",
+                stream("{\"count\":3,\"first\":\"x\",\"second\":[\".\"]}"),
+                principal, requestMock::isUserInRole);
+
+        assertEquals("xxx.", result);
+    }
+
+    @Test
+    public void streamedBody_withWrongParameterCount_isBadRequest() {
+        endpointRegistry.registerEndpoint(new StreamingEndpoint());
+
+        var ex = assertThrows(EndpointBadRequestException.class,
+                () -> endpointInvoker.invoke("StreamingEndpoint", "join",
+                        stream("{\"text\":\"ab\",\"count\":2}"), principal,
+                        requestMock::isUserInRole));
+        assertEquals(
+                "Incorrect number of parameters for endpoint 'StreamingEndpoint' method 'join', expected: 3, got: 2",
+                ex.getMessage());
+    }
+
+    @Test
+    public void streamedBody_withInvalidJson_isBadRequest() {
+        endpointRegistry.registerEndpoint(new StreamingEndpoint());
+
+        assertThrows(EndpointBadRequestException.class,
+                () -> endpointInvoker.invoke("StreamingEndpoint", "join",
+                        stream("{\"text\":"), principal,
+                        requestMock::isUserInRole));
+        assertThrows(EndpointBadRequestException.class,
+                () -> endpointInvoker.invoke("StreamingEndpoint", "join",
+                        stream("[\"ab\", 2, []]"), principal,
+                        requestMock::isUserInRole));
+    }
+
+    @Test
+    public void streamedBody_withUndeserializableValues_reportsAllParameters() {
+        endpointRegistry.registerEndpoint(new StreamingEndpoint());
+
+        var ex = assertThrows(EndpointValidationException.class,
+                () -> endpointInvoker.invoke("StreamingEndpoint", "join",
+                        stream("{\"count\":{\"nested\":[1,2]},\"text\":\"ab\",\"suffixes\":{\"a\":1}}"),
+                        principal, requestMock::isUserInRole));
+        assertEquals(
+                Set.of("count", "suffixes"), ex.getValidationErrorData()
+                        .stream().map(ValidationErrorData::getParameterName)
+                        .collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void streamedBody_withoutParameters_acceptsEmptyBody()
+            throws Exception {
+        @Endpoint
+        class TestEndpoint {
+            public String sayHello() {
+                return "Hello";
+            }
+        }
+        endpointRegistry.registerEndpoint(new TestEndpoint());
+
+        assertEquals("Hello",
+                endpointInvoker.invoke("TestEndpoint", "sayHello", stream(""),
+                        principal, requestMock::isUserInRole));
+    }
+
+    @Endpoint
+    public static class CachedEndpoint {
+        private int calls;
+
+        @CacheableEndpointResult(ttl = 1, timeUnit = TimeUnit.MINUTES)
+        public int count(String key) {
+            return ++calls;
+        }
+    }
+
+    @Test
+    public void cacheableMethod_isAnsweredFromCache_afterAccessCheck()
+            throws Exception {
+        var resultCache = new EndpointResultCache(1024);
+        endpointInvoker.setResultCache(resultCache);
+        endpointRegistry.registerEndpoint(new CachedEndpoint());
+
+        assertEquals("1",
+                invokeForResponse("CachedEndpoint", "count", "a").toString());
+        assertEquals("1",
+                invokeForResponse("CachedEndpoint", "count", "a").toString());
+        Object other = invokeForResponse("CachedEndpoint", "count", "b");
+        assertEquals(CachedResult.class, other.getClass());
+        assertEquals("2", other.toString());
+        assertEquals(1, resultCache.getHitCount());
+        assertEquals(2, resultCache.getMissCount());
+        Mockito.verify(endpointAccessChecker, Mockito.times(3))
+                .check(any(Method.class), any(), any());
+
+        when(endpointAccessChecker.check(any(Method.class), any(), any()))
+                .thenReturn("denied");
+        assertThrows(EndpointForbiddenException.class,
+                () -> invokeForResponse("CachedEndpoint", "count", "a"));
+
+        resultCache.evict("cachedendpoint", "COUNT");
+        assertEquals(0, resultCache.getEntryCount());
+    }
+
+    @Test
+    public void publicInvoke_returnsRawValue_withoutCaching()
+            throws Exception {
+        var resultCache = new EndpointResultCache(1024);
+        endpointInvoker.setResultCache(resultCache);
+        endpointRegistry.registerEndpoint(new CachedEndpoint());
+
+        assertEquals(1, endpointInvoker.invoke("CachedEndpoint", "count",
+                stream("{\"key\":\"a\"}"), principal,
+                requestMock::isUserInRole));
+        assertEquals(2, endpointInvoker.invoke("CachedEndpoint", "count",
+                stream("{\"key\":\"a\"}"), principal,
+                requestMock::isUserInRole));
+        assertEquals(0, resultCache.getEntryCount());
+    }
+
+    @Endpoint
+    public static class AsyncEndpoint {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        public CompletableFuture<String> load() {
+            return result;
+        }
+    }
+
+    @Test
+    public void publicInvoke_returnsAsyncValue_asReturnedByMethod()
+            throws Exception {
+        var endpoint = new AsyncEndpoint();
+        endpointRegistry.registerEndpoint(endpoint);
+
+        assertSame(endpoint.result, endpointInvoker.invoke("AsyncEndpoint",
+                "load", stream(""), principal, requestMock::isUserInRole));
+    }
+
+    @Endpoint
+    public static class CoalescedEndpoint {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @CoalescedEndpointCall
+        public int load(String key) throws InterruptedException {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return calls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void coalescedMethod_sharesExecution_betweenConcurrentCalls()
+            throws Exception {
+        var coalescer = new EndpointCallCoalescer();
+        endpointInvoker.setCallCoalescer(coalescer);
+        var endpoint = new CoalescedEndpoint();
+        endpointRegistry.registerEndpoint(endpoint);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(
+                    () -> invokeForResponse("CoalescedEndpoint", "load", "a"));
+            assertTrue(endpoint.started.await(10, TimeUnit.SECONDS));
+            // The parameters are compared as trees, not as text
+            Future<Object> second = executor.submit(
+                    () -> endpointInvoker.invokeForResponse(
+                            endpointInvoker.getRoute("CoalescedEndpoint",
+                                    "load"),
+                            "CoalescedEndpoint", "load",
+                            stream(" { \"key\" : \"a\" } "), principal,
+                            requestMock::isUserInRole, false));
+            while (coalescer.getCoalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+            endpoint.release.countDown();
+
+            Object firstResult = first.get(10, TimeUnit.SECONDS);
+            assertEquals(CachedResult.class, firstResult.getClass());
+            assertEquals("1", firstResult.toString());
+            assertEquals("1", second.get(10, TimeUnit.SECONDS).toString());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, coalescer.getExecutionCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+        assertEquals(0.5, coalescer.getCoalescingRatio(), 0);
+        assertEquals(0, coalescer.getInFlightCount());
+        Mockito.verify(endpointAccessChecker, Mockito.times(2))
+                .check(any(Method.class), any(), any());
+
+        // Calls after the execution has finished execute the method again
+        assertEquals("2", invokeForResponse("CoalescedEndpoint", "load", "a")
+                .toString());
+        assertEquals(2, coalescer.getExecutionCount());
+    }
+
+    @Test
+    public void coalescedMethod_doesNotShareExecution_betweenUsers()
+            throws Exception {
+        var coalescer = new EndpointCallCoalescer();
+        endpointInvoker.setCallCoalescer(coalescer);
+        var endpoint = new CoalescedEndpoint();
+        endpointRegistry.registerEndpoint(endpoint);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor
+                    .submit(() -> invokeForResponse("CoalescedEndpoint",
+                            "load", "a", () -> "alice"));
+            Future<Object> second = executor
+                    .submit(() -> invokeForResponse("CoalescedEndpoint",
+                            "load", "a", () -> "bob"));
+            while (coalescer.getExecutionCount() < 2) {
+                Thread.sleep(1);
+            }
+            endpoint.release.countDown();
+
+            assertEquals(Set.of("1", "2"),
+                    Set.of(first.get(10, TimeUnit.SECONDS).toString(),
+                            second.get(10, TimeUnit.SECONDS).toString()));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void coalescedCall_stopsWaiting_afterTimeout() throws Exception {
+        var coalescer = new EndpointCallCoalescer(Duration.ofMillis(50));
+        endpointInvoker.setCallCoalescer(coalescer);
+        var endpoint = new CoalescedEndpoint();
+        endpointRegistry.registerEndpoint(endpoint);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> first = executor.submit(
+                    () -> invokeForResponse("CoalescedEndpoint", "load", "a"));
+            assertTrue(endpoint.started.await(10, TimeUnit.SECONDS));
+
+            var ex = assertThrows(EndpointInternalException.class,
+                    () -> invokeForResponse("CoalescedEndpoint", "load",
+                            "a"));
+            assertEquals("Timed out while waiting for an identical call",
+                    ex.getMessage());
+
+            endpoint.release.countDown();
+            assertEquals("1", first.get(10, TimeUnit.SECONDS).toString());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, coalescer.getExecutionCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void phases_areTimed_whenMetricsAreSet() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        endpointInvoker
+                .setMetrics(new MicrometerEndpointInvocationMetrics(registry));
+        var resultCache = new EndpointResultCache(1024);
+        endpointInvoker.setResultCache(resultCache);
+        endpointRegistry.registerEndpoint(new CachedEndpoint());
+
+        invokeForResponse("CachedEndpoint", "count", "a");
+        invokeForResponse("CachedEndpoint", "count", "a");
+
+        for (Phase phase : Phase.values()) {
+            Timer timer = registry
+                    .find(MicrometerEndpointInvocationMetrics.PHASE_TIMER)
+                    .tags("endpoint", "cachedendpoint", "method", "count",
+                            "phase", phase.getTagValue())
+                    .timer();
+            assertEquals(phase.name(),
+                    phase == Phase.ACCESS_CHECK ? 2 : 1, timer.count());
+        }
+    }
+
+    @Endpoint
+    public static class ValidatedEndpoint {
+        public String plain(String text) {
+            return text;
+        }
+
+        public String constrained(@Size(max = 3) String text) {
+            return text;
+        }
+
+        public String bean(Item item) {
+            return item.name;
+        }
+    }
+
+    public static class Item {
+        public String name;
+    }
+
+    @Test
+    public void validation_isSkipped_whenNothingIsConstrained()
+            throws Exception {
+        Validator validator = useSpiedValidator();
+        endpointRegistry.registerEndpoint(new ValidatedEndpoint());
+
+        assertEquals("abcd", endpointInvoker.invoke("ValidatedEndpoint",
+                "plain", stream("{\"text\":\"abcd\"}"), principal,
+                requestMock::isUserInRole));
+        Mockito.verify(validator, Mockito.never()).forExecutables();
+        Mockito.verify(validator, Mockito.never()).validate(any());
+
+        assertThrows(EndpointValidationException.class,
+                () -> endpointInvoker.invoke("ValidatedEndpoint",
+                        "constrained", stream("{\"text\":\"abcd\"}"),
+                        principal, requestMock::isUserInRole));
+    }
+
+    @Test
+    public void constraints_areReadAgain_afterInvalidation()
+            throws Exception {
+        Validator validator = useSpiedValidator();
+        endpointRegistry.registerEndpoint(new ValidatedEndpoint());
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("a", endpointInvoker.invoke("ValidatedEndpoint",
+                    "bean", stream("{\"item\":{\"name\":\"a\"}}"),
+                    principal, requestMock::isUserInRole));
+        }
+        Mockito.verify(validator, Mockito.times(1))
+                .getConstraintsForClass(Item.class);
+        Mockito.verify(validator, Mockito.times(1))
+                .getConstraintsForClass(ValidatedEndpoint.class);
+
+        EndpointInvoker.invalidateConstraints();
+        assertEquals("a", endpointInvoker.invoke("ValidatedEndpoint", "bean",
+                stream("{\"item\":{\"name\":\"a\"}}"), principal,
+                requestMock::isUserInRole));
+        Mockito.verify(validator, Mockito.times(2))
+                .getConstraintsForClass(Item.class);
+        Mockito.verify(validator, Mockito.times(2))
+                .getConstraintsForClass(ValidatedEndpoint.class);
+    }
+
+    private Validator useSpiedValidator() {
+        Validator validator = Mockito.mock(Validator.class,
+                AdditionalAnswers.delegatesTo(Validation
+                        .buildDefaultValidatorFactory().getValidator()));
+        ApplicationContext context = Mockito.mock(ApplicationContext.class);
+        when(context.getBean(Validator.class)).thenReturn(validator);
+        endpointInvoker = new EndpointInvoker(context,
+                new JacksonObjectMapperFactory.Json().build(),
+                explicitNullableTypeChecker, servletContext, endpointRegistry) {
+            protected EndpointAccessChecker getAccessChecker() {
+                return endpointAccessChecker;
+            }
+        };
+        return validator;
+    }
+
+    private Object invokeForResponse(String endpointName, String methodName,
+            String key) throws EndpointHttpException {
+        return invokeForResponse(endpointName, methodName, key, principal);
+    }
+
+    private Object invokeForResponse(String endpointName, String methodName,
+            String key, Principal principal) throws EndpointHttpException {
+        return endpointInvoker.invokeForResponse(
+                endpointInvoker.getRoute(endpointName, methodName),
+                endpointName, methodName,
+                stream("{\"key\":\"" + key + "\"}"), principal,
+                requestMock::isUserInRole, false);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EndpointMultipartStreamTest {
+
+    private static final String BOUNDARY = "----hilla-boundary";
+
+    @Test
+    public void should_ReadPartsInOrder() throws IOException {
+        EndpointMultipartStream stream = createStream(
+                part("hilla_body_part", null, "{\"id\":1}"),
+                part("/file", "foo.txt", "foo\r\nbar"));
+
+        EndpointMultipartStream.Part body = stream.nextPart();
+        Assert.assertEquals("hilla_body_part", body.getName());
+        Assert.assertNull(body.getFilename());
+        Assert.assertEquals("{\"id\":1}", read(body.getInputStream()));
+
+        EndpointMultipartStream.Part file = stream.nextPart();
+        Assert.assertEquals("/file", file.getName());
+        Assert.assertEquals("foo.txt", file.getFilename());
+        Assert.assertEquals("text/plain", file.getContentType());
+        Assert.assertEquals("foo\r\nbar", read(file.getInputStream()));
+
+        Assert.assertNull(stream.nextPart());
+    }
+
+    @Test
+    public void should_StreamLargePart_When_ReadInSmallChunks()
+            throws IOException {
+        String content = "x".repeat(100_000) + "\r\n--" + "y".repeat(10);
+        EndpointMultipartStream stream = createStream(
+                part("/file", "big.bin", content));
+
+        // The request arrives a few bytes at a time
+        Assert.assertEquals(content,
+                read(stream.nextPart().getInputStream()));
+    }
+
+    @Test
+    public void should_SkipUnreadParts_When_LaterPartIsRead()
+            throws IOException {
+        EndpointMultipartStream stream = createStream(
+                part("hilla_body_part", null, "{}"),
+                part("/first", "first.txt", "first"),
+                part("/second", "second.txt", "second"));
+        stream.nextPart();
+        InputStream first = stream.getPartInputStream("/first");
+        InputStream second = stream.getPartInputStream("/second");
+
+        Assert.assertEquals("second", read(second));
+        Assert.assertThrows(IOException.class, first::read);
+    }
+
+    @Test
+    public void should_Fail_When_PartIsMissing() throws IOException {
+        EndpointMultipartStream stream = createStream(
+                part("hilla_body_part", null, "{}"));
+
+        InputStream missing = stream.getPartInputStream("/file");
+
+        Assert.assertThrows(IOException.class, missing::read);
+    }
+
+    @Test
+    public void should_Fail_When_RequestIsTruncated() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"/file\"\r\n\r\n"
+                + "no end";
+        EndpointMultipartStream stream = new EndpointMultipartStream(
+                new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8)),
+                BOUNDARY);
+
+        InputStream file = stream.nextPart().getInputStream();
+
+        Assert.assertThrows(IOException.class, () -> read(file));
+    }
+
+    @Test
+    public void should_Fail_When_PartExceedsMaxSize() throws IOException {
+        EndpointMultipartStream stream = createStream(10, -1,
+                part("hilla_body_part", null, "{}"),
+                part("/file", "big.bin", "x".repeat(11)));
+
+        Assert.assertEquals("{}", read(stream.nextPart().getInputStream()));
+        InputStream file = stream.nextPart().getInputStream();
+
+        Assert.assertThrows(
+                EndpointMultipartStream.SizeLimitExceededException.class,
+                () -> read(file));
+        Assert.assertTrue(stream.isSizeLimitExceeded());
+    }
+
+    @Test
+    public void should_ReadPart_When_PartHasMaxSize() throws IOException {
+        EndpointMultipartStream stream = createStream(10, -1,
+                part("/file", "file.bin", "x".repeat(10)));
+
+        Assert.assertEquals("x".repeat(10),
+                read(stream.nextPart().getInputStream()));
+        Assert.assertFalse(stream.isSizeLimitExceeded());
+    }
+
+    @Test
+    public void should_Fail_When_RequestExceedsMaxSize() throws IOException {
+        EndpointMultipartStream stream = createStream(-1, 100,
+                part("hilla_body_part", null, "{}"),
+                part("/file", "big.bin", "x".repeat(1000)));
+
+        Assert.assertThrows(
+                EndpointMultipartStream.SizeLimitExceededException.class,
+                () -> {
+                    while (stream.nextPart() != null) {
+                        // Skip the parts
+                    }
+                });
+        Assert.assertTrue(stream.isSizeLimitExceeded());
+    }
+
+    @Test
+    public void should_ParseBoundary_When_Quoted() {
+        Assert.assertEquals("abc", EndpointMultipartStream
+                .getBoundary("multipart/form-data; boundary=\"abc\""));
+        Assert.assertEquals(BOUNDARY, EndpointMultipartStream.getBoundary(
+                "multipart/form-data; boundary=" + BOUNDARY));
+        Assert.assertNull(
+                EndpointMultipartStream.getBoundary("multipart/form-data"));
+    }
+
+    private static String part(String name, String filename, String content) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\""
+                + (filename == null ? ""
+                        : "; filename=\"" + filename + "\"\r\n"
+                                + "Content-Type: text/plain")
+                + "\r\n\r\n" + content + "\r\n";
+    }
+
+    private static EndpointMultipartStream createStream(String... parts) {
+        return createStream(-1, -1, parts);
+    }
+
+    private static EndpointMultipartStream createStream(long maxPartSize,
+            long maxRequestSize, String... parts) {
+        String body = "preamble\r\n" + String.join("", parts) + "--"
+                + BOUNDARY + "--\r\n";
+        InputStream in = new ByteArrayInputStream(
+                body.getBytes(StandardCharsets.UTF_8));
+        return new EndpointMultipartStream(new SlowInputStream(in), BOUNDARY,
+                maxPartSize, maxRequestSize);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns at most a few bytes for each read, as a network stream might.
+     */
+    private static class SlowInputStream extends FilterInputStream {
+        private SlowInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.hilla.EndpointRegistry.VaadinEndpointData;
+
+public class EndpointRegistryTest {
+
+    @Endpoint
+    public static class FirstEndpoint {
+        public String getValue() {
+            return "first";
+        }
+    }
+
+    @Endpoint("CustomName")
+    public static class SecondEndpoint {
+        public String getValue() {
+            return "second";
+        }
+    }
+
+    @Endpoint("invalid")
+    public static class InvalidEndpoint {
+    }
+
+    private EndpointNameChecker nameChecker;
+    private EndpointRegistry registry;
+
+    @Before
+    public void setUp() {
+        nameChecker = mock(EndpointNameChecker.class);
+        when(nameChecker.check(any())).thenReturn(null);
+        registry = new EndpointRegistry(nameChecker);
+    }
+
+    @Test
+    public void should_FindEndpointsAndMethods_When_NameCaseDiffers() {
+        registry.registerEndpoint(new FirstEndpoint());
+        registry.registerEndpoint(new SecondEndpoint());
+
+        VaadinEndpointData first = registry.get("FirstEndpoint");
+        assertNotNull(first);
+        assertSame(first, registry.get("firstendpoint"));
+        assertSame(first, registry.get("FIRSTENDPOINT"));
+        assertSame(registry.get("CustomName"), registry.get("customname"));
+        assertSame(first.getInvocationPlan("getValue").orElseThrow(),
+                first.getInvocationPlan("GETVALUE").orElseThrow());
+        assertEquals("getValue",
+                first.getMethod("getvalue").orElseThrow().getName());
+        assertEquals(Set.of("firstendpoint", "customname"),
+                registry.getEndpoints().keySet());
+        assertEquals(Set.of("getvalue"), first.getMethods().keySet());
+    }
+
+    @Test
+    public void should_RouteMethods_When_NameCaseDiffers() {
+        registry.registerEndpoint(new FirstEndpoint());
+
+        EndpointRoute route = registry.getRoute("FirstEndpoint", "getValue");
+        assertNotNull(route);
+        assertSame(route, registry.getRoute("firstendpoint", "GETVALUE"));
+        assertSame(route, registry.getRoute("FIRSTENDPOINT", "getValue"));
+        assertSame(route, registry.getRoute("firstendpoint", "getvalue"));
+        assertSame(registry.get("FirstEndpoint"), route.getEndpointData());
+        assertSame(registry.get("FirstEndpoint").getInvocationPlan("getValue")
+                .orElseThrow(), route.getInvocationPlan());
+        assertNull(registry.getRoute("FirstEndpoint", "missing"));
+        assertNull(registry.getRoute("Missing", "getValue"));
+
+        registry.replaceEndpoints(List.of(new SecondEndpoint()));
+        assertNull(registry.getRoute("FirstEndpoint", "getValue"));
+        assertNotNull(registry.getRoute("CustomName", "getValue"));
+    }
+
+    @Test
+    public void should_RemoveObsoleteEndpoints_When_Replaced() {
+        registry.registerEndpoint(new FirstEndpoint());
+        Map<String, VaadinEndpointData> previous = registry.getEndpoints();
+
+        Set<String> names = registry
+                .replaceEndpoints(List.of(new SecondEndpoint()));
+
+        assertEquals(Set.of("customname"), names);
+        assertNull(registry.get("FirstEndpoint"));
+        assertNotNull(registry.get("CustomName"));
+        // Readers holding the previous snapshot are not affected
+        assertEquals(Set.of("firstendpoint"), previous.keySet());
+    }
+
+    @Test
+    public void should_KeepEndpoints_When_ReplacementIsInvalid() {
+        registry.registerEndpoint(new FirstEndpoint());
+        when(nameChecker.check(eq("invalid"))).thenReturn("reserved");
+
+        assertThrows(IllegalStateException.class,
+                () -> registry.replaceEndpoints(List.of(new SecondEndpoint(),
+                        new InvalidEndpoint())));
+
+        assertNotNull(registry.get("FirstEndpoint"));
+        assertNull(registry.get("CustomName"));
+    }
+
+    @Test
+    public void should_NotAllowModifyingEndpoints() {
+        registry.registerEndpoint(new FirstEndpoint());
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.getEndpoints().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.get("FirstEndpoint").getMethods().clear());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.ObjectMapper;
+
+import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
+
+public class EndpointResponseOutputStreamTest {
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void smallOutput_isSentWithContentLength_whenFinished()
+            throws Exception {
+        var out = new EndpointResponseOutputStream(response,
+                MediaType.APPLICATION_JSON_VALUE, 1024);
+
+        out.write("{\"a\":".getBytes(StandardCharsets.UTF_8));
+        out.write('1');
+        out.write('}');
+        out.flush();
+        assertFalse(out.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        out.finish();
+        out.release();
+
+        assertTrue(out.isCommitted());
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE,
+                response.getContentType());
+        assertEquals(7, response.getContentLength());
+        assertEquals("{\"a\":1}", response.getContentAsString());
+    }
+
+    @Test
+    public void largeOutput_isCommitted_whenThresholdIsExceeded()
+            throws Exception {
+        int threshold = EndpointResponseOutputStream.CHUNK_SIZE * 2 + 10;
+        byte[] data = new byte[threshold * 3];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        var out = new EndpointResponseOutputStream(response,
+                MediaType.APPLICATION_JSON_VALUE, threshold);
+
+        out.write(data, 0, threshold);
+        assertFalse(out.isCommitted());
+        out.write(data, threshold, 1);
+        assertTrue(out.isCommitted());
+        assertEquals(threshold + 1, response.getContentAsByteArray().length);
+
+        out.write(data, threshold + 1, data.length - threshold - 1);
+        out.finish();
+        out.release();
+
+        assertArrayEquals(data, response.getContentAsByteArray());
+        assertNull(response.getHeader("Content-Length"));
+    }
+
+    @Test
+    public void discardedOutput_isNotSent() throws Exception {
+        var out = new EndpointResponseOutputStream(response,
+                MediaType.APPLICATION_JSON_VALUE, 1024);
+
+        out.write("[1,2,".getBytes(StandardCharsets.UTF_8));
+        out.close();
+        out.discard();
+        out.release();
+
+        assertFalse(out.isCommitted());
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void discard_afterCommit_throws() throws Exception {
+        var out = new EndpointResponseOutputStream(response,
+                MediaType.APPLICATION_JSON_VALUE, 0);
+
+        out.write('[');
+
+        assertThrows(IllegalStateException.class, out::discard);
+        out.release();
+    }
+
+    @Test
+    public void serializedValue_matchesStringSerialization() throws Exception {
+        ObjectMapper mapper = new JacksonObjectMapperFactory.Json().build();
+        String[] values = new String[5000];
+        Arrays.fill(values, "ä€ value");
+        var out = new EndpointResponseOutputStream(response,
+                MediaType.APPLICATION_JSON_VALUE, 1000);
+
+        mapper.writeValue(out, values);
+        out.finish();
+        out.release();
+
+        assertEquals(mapper.writeValueAsString(values),
+                new String(response.getContentAsByteArray(),
+                        StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
+
+public class EndpointResultCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapperFactory.Json()
+            .build();
+
+    public static class Settings {
+        @CacheableEndpointResult(ttl = 1)
+        public void shared() {
+        }
+
+        @CacheableEndpointResult(ttl = 1, perPrincipal = true)
+        public void perPrincipal() {
+        }
+
+        @CacheableEndpointResult(ttl = 1, perRoles = true)
+        public void perRoles() {
+        }
+    }
+
+    @Test
+    public void parameters_areComparedRegardlessOfPropertyOrder()
+            throws Exception {
+        var cache = new EndpointResultCache(1024);
+        ObjectNode params = objectMapper.createObjectNode().put("a", 1)
+                .put("b", "x");
+        ObjectNode reordered = objectMapper.createObjectNode().put("b", "x")
+                .put("a", 1);
+
+        cache.put(cache.createKey("Endpoint", "method", params,
+                settings("shared"), null), json("1"), TTL);
+
+        assertArrayEquals(json("1"), cache.get(cache.createKey("endpoint",
+                "METHOD", reordered, settings("shared"), null)));
+        assertNull(cache.get(cache.createKey("endpoint", "method",
+                objectMapper.createObjectNode().put("a", 2),
+                settings("shared"), null)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedResults_areEvicted_whenSizeIsExceeded()
+            throws Exception {
+        var cache = new EndpointResultCache(10);
+        var first = cache.createKey("Endpoint", "first", null,
+                settings("shared"), null);
+        var second = cache.createKey("Endpoint", "second", null,
+                settings("shared"), null);
+        var third = cache.createKey("Endpoint", "third", null,
+                settings("shared"), null);
+
+        cache.put(first, json("1234"), TTL);
+        cache.put(second, json("1234"), TTL);
+        cache.get(first);
+        cache.put(third, json("1234"), TTL);
+
+        assertNull(cache.get(second));
+        assertArrayEquals(json("1234"), cache.get(first));
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(8, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.put(second, json("12345678901"), TTL);
+        assertNull(cache.get(second));
+    }
+
+    @Test
+    public void expiredResults_areNotReturned() throws Exception {
+        var cache = new EndpointResultCache(1024);
+        var key = cache.createKey("Endpoint", "method", null,
+                settings("shared"), null);
+
+        cache.put(key, json("1"), 1);
+        Thread.sleep(1);
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void evict_removesMatchingResults() throws Exception {
+        var cache = new EndpointResultCache(1024);
+        cache.put(cache.createKey("First", "a", null, settings("shared"),
+                null), json("1"), TTL);
+        cache.put(cache.createKey("First", "b", null, settings("shared"),
+                null), json("1"), TTL);
+        cache.put(cache.createKey("Second", "a", null, settings("shared"),
+                null), json("1"), TTL);
+
+        cache.evict("first", "A");
+        assertEquals(2, cache.getEntryCount());
+        cache.evict("FIRST");
+        assertEquals(1, cache.getEntryCount());
+        cache.evictAll();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void keys_includeThePrincipalOrRoles_onlyWhenConfigured()
+            throws Exception {
+        var cache = new EndpointResultCache(1024);
+        Principal alice = new TestingAuthenticationToken("alice", null,
+                "ROLE_USER");
+        Principal bob = new TestingAuthenticationToken("bob", null,
+                "ROLE_USER");
+        Principal admin = new TestingAuthenticationToken("carol", null,
+                "ROLE_USER", "ROLE_ADMIN");
+
+        assertEquals(
+                cache.createKey("E", "m", null, settings("shared"), alice),
+                cache.createKey("E", "m", null, settings("shared"), admin));
+        assertNotEquals(
+                cache.createKey("E", "m", null, settings("perPrincipal"),
+                        alice),
+                cache.createKey("E", "m", null, settings("perPrincipal"),
+                        bob));
+        assertEquals(
+                cache.createKey("E", "m", null, settings("perRoles"), alice),
+                cache.createKey("E", "m", null, settings("perRoles"), bob));
+        assertNotEquals(
+                cache.createKey("E", "m", null, settings("perRoles"), alice),
+                cache.createKey("E", "m", null, settings("perRoles"), admin));
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"), List.copyOf(cache
+                .createKey("E", "m", null, settings("perRoles"), admin)
+                .roles()));
+    }
+
+    private static CacheableEndpointResult settings(String methodName)
+            throws NoSuchMethodException {
+        return Settings.class.getMethod(methodName)
+                .getAnnotation(CacheableEndpointResult.class);
+    }
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
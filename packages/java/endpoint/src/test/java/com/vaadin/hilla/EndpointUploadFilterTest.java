@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.multipart.support.StandardMultipartHttpServletRequest;
+
+public class EndpointUploadFilterTest {
+
+    @Endpoint
+    public static class UploadEndpoint {
+        public void upload(String name, InputStream file) {
+        }
+
+        public void noStream(String name) {
+        }
+    }
+
+    private EndpointRegistry registry;
+
+    @Before
+    public void setUp() {
+        EndpointNameChecker nameChecker = mock(EndpointNameChecker.class);
+        when(nameChecker.check(any())).thenReturn(null);
+        registry = new EndpointRegistry(nameChecker);
+        registry.registerEndpoint(new UploadEndpoint());
+    }
+
+    @Test
+    public void should_WrapRequestLazily_When_MethodHasStreamParameters()
+            throws ServletException, IOException {
+        MockHttpServletRequest request = Mockito
+                .spy(createMultipartRequest());
+        MockFilterChain chain = new MockFilterChain();
+
+        createFilter("upload").doFilter(request,
+                new MockHttpServletResponse(), chain);
+
+        Assert.assertTrue(chain
+                .getRequest() instanceof StandardMultipartHttpServletRequest);
+        Assert.assertTrue(request.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE)
+                instanceof MultipartConfigElement);
+        // The parts are left in the request body for the controller
+        Mockito.verify(request, Mockito.never()).getParts();
+    }
+
+    @Test
+    public void should_PassSizeLimits_When_MultipartConfigIsSet()
+            throws ServletException, IOException {
+        MockHttpServletRequest request = createMultipartRequest();
+        MultipartConfigElement config = new MultipartConfigElement("", 1024,
+                4096, 0);
+
+        new EndpointUploadFilter(
+                req -> registry.getRoute("UploadEndpoint", "upload"), config)
+                .doFilter(request, new MockHttpServletResponse(),
+                        new MockFilterChain());
+
+        Assert.assertSame(config, request.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE));
+    }
+
+    @Test
+    public void should_NotWrapRequest_When_MethodHasNoStreamParameters()
+            throws ServletException, IOException {
+        MockHttpServletRequest request = createMultipartRequest();
+        MockFilterChain chain = new MockFilterChain();
+
+        createFilter("noStream").doFilter(request,
+                new MockHttpServletResponse(), chain);
+
+        Assert.assertSame(request, chain.getRequest());
+        Assert.assertNull(request.getAttribute(
+                EndpointUploadFilter.STREAMING_UPLOAD_ATTRIBUTE));
+    }
+
+    @Test
+    public void should_NotWrapRequest_When_RequestIsNotMultipart()
+            throws ServletException, IOException {
+        MockHttpServletRequest request = createMultipartRequest();
+        request.setContentType("application/json");
+        MockFilterChain chain = new MockFilterChain();
+
+        createFilter("upload").doFilter(request,
+                new MockHttpServletResponse(), chain);
+
+        Assert.assertSame(request, chain.getRequest());
+    }
+
+    private EndpointUploadFilter createFilter(String methodName) {
+        return new EndpointUploadFilter(
+                request -> registry.getRoute("UploadEndpoint", methodName));
+    }
+
+    private static MockHttpServletRequest createMultipartRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST",
+                "/connect/UploadEndpoint/upload");
+        request.setContentType("multipart/form-data; boundary=abc");
+        return request;
+    }
+}
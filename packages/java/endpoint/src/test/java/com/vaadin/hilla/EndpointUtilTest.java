@@ -15,9 +15,12 @@
  */
 package com.vaadin.hilla;
 
+import java.lang.reflect.Method;
+import java.security.Principal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.junit.Assert;
@@ -44,6 +47,8 @@ public class EndpointUtilTest {
     private EndpointUtil endpointUtil;
     @Autowired
     private EndpointRegistry registry;
+    @Autowired
+    private EndpointProperties endpointProperties;
 
     private static final Class<?>[] endpointClasses = new Class<?>[] {
             AccessControlTestClasses.AnonymousAllowedEndpoint.class,
@@ -126,6 +131,69 @@ public class EndpointUtilTest {
                 expected, endpointUtil.isAnonymousEndpoint(request));
     }
 
+    @Test
+    public void resolvedRoute_isShared_forSameRequestUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST",
+                "/connect/AnonymousAllowedEndpoint/noAnnotation");
+        EndpointRoute route = EndpointRoute.resolve(request,
+                endpointUtil::findRoute);
+
+        Assert.assertNotNull(route);
+        Assert.assertSame(route, EndpointRoute.get(request,
+                "anonymousallowedendpoint", "NOANNOTATION"));
+        Assert.assertNull(EndpointRoute.get(request,
+                "AnonymousAllowedEndpoint", "permitAll"));
+        Assert.assertTrue(endpointUtil.isAnonymousEndpoint(request));
+
+        // A request forwarded to another URI does not use the stored route
+        request.setRequestURI("/connect/DenyAllEndpoint/denyAll");
+        Assert.assertTrue(endpointUtil.isEndpointRequest(request));
+        Assert.assertFalse(endpointUtil.isAnonymousEndpoint(request));
+        Assert.assertNull(EndpointRoute.get(request,
+                "AnonymousAllowedEndpoint", "noAnnotation"));
+    }
+
+    @Test
+    public void anonymousAccess_isNotCached_forCustomChecker() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST",
+                "/connect/DenyAllEndpoint/denyAll");
+        EndpointRoute route = endpointUtil.findRoute(request);
+        AccessAnnotationChecker allowAll = new AccessAnnotationChecker() {
+            @Override
+            public boolean hasAccess(Method method, Principal principal,
+                    Function<String, Boolean> roleChecker) {
+                return true;
+            }
+
+            @Override
+            public boolean hasAccess(Class<?> cls, Principal principal,
+                    Function<String, Boolean> roleChecker) {
+                return true;
+            }
+        };
+
+        Assert.assertTrue(route.isAnonymous(allowAll));
+        Assert.assertFalse(route.isAnonymous(new AccessAnnotationChecker()));
+        Assert.assertTrue(route.isAnonymous(allowAll));
+        Assert.assertFalse(endpointUtil.isAnonymousEndpoint(request));
+    }
+
+    @Test
+    public void batchRequest_isOnlyRouted_whenEnabled() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST",
+                "/connect/_batch");
+        Assert.assertFalse(endpointUtil.isEndpointRequest(request));
+        Assert.assertFalse(endpointUtil.isAnonymousEndpoint(request));
+
+        endpointProperties.setBatchEnabled(true);
+        try {
+            Assert.assertTrue(endpointUtil.isEndpointRequest(request));
+            Assert.assertTrue(endpointUtil.isAnonymousEndpoint(request));
+        } finally {
+            endpointProperties.setBatchEnabled(false);
+        }
+    }
+
     @Test
     public void nonEndpointRequest() {
         testPath("/", false);
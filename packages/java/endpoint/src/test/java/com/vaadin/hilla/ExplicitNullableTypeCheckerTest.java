@@ -46,6 +46,7 @@ public class ExplicitNullableTypeCheckerTest {
     private Type stringListType;
     private Type stringToDateMapType;
     private Type stringArrayType;
+    private Type equalBeanListType;
 
     @Before
     public void setup() throws NoSuchMethodException {
@@ -62,6 +63,9 @@ public class ExplicitNullableTypeCheckerTest {
 
         stringArrayType = getClass().getMethod("arrayMethod", String[].class)
                 .getGenericReturnType();
+
+        equalBeanListType = getClass().getMethod("equalBeanListMethod")
+                .getGenericReturnType();
     }
 
     @Test
@@ -466,6 +470,35 @@ public class ExplicitNullableTypeCheckerTest {
                 .checkValueForType(nonNullableEntity, NonNullableEntity.class));
     }
 
+    @Test
+    public void should_CheckEachBean_When_BeansAreEqualButNotSame() {
+        EqualBean valid = new EqualBean();
+        valid.setTitle("foo");
+        EqualBean invalid = new EqualBean();
+
+        String error = explicitNullableTypeChecker.checkValueForType(
+                Arrays.asList(valid, invalid), equalBeanListType);
+
+        Assert.assertNotNull(error);
+        Assert.assertTrue(error.contains("title"));
+    }
+
+    @Test
+    public void should_ReturnSameResults_When_PlansAreInvalidated() {
+        Bean bean = new Bean();
+        Assert.assertNotNull(explicitNullableTypeChecker
+                .checkValueForType(bean, Bean.class));
+
+        ExplicitNullableTypeCheckerHelper.invalidatePlans();
+        bean.setTitle("foo");
+        Assert.assertNull(explicitNullableTypeChecker
+                .checkValueForType(bean, Bean.class));
+    }
+
+    public List<EqualBean> equalBeanListMethod() {
+        return List.of();
+    }
+
     public List<String> parametrizedListMethod(String... args) {
         final List<String> list = new ArrayList<String>();
         for (String arg : args) {
@@ -531,6 +564,29 @@ public class ExplicitNullableTypeCheckerTest {
         }
     }
 
+    static public class EqualBean {
+        @NonNull
+        private String title;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof EqualBean;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
     static private abstract class AbstractEntity<ID> {
         private ID id;
 
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.jspecify.annotations.NonNull;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import com.vaadin.hilla.SerializationNullabilityChecker.NullValueException;
+import com.vaadin.hilla.parser.jackson.JacksonObjectMapperFactory;
+
+public class SerializationNullabilityCheckerTest {
+    private SerializationNullabilityChecker checker;
+    private ObjectMapper mapper;
+
+    @Before
+    public void setup() {
+        checker = new SerializationNullabilityChecker();
+        mapper = new JacksonObjectMapperFactory.Json().build().rebuild()
+                .addModule(checker.getModule()).build();
+    }
+
+    @Test
+    public void should_SerializeValue_When_RequiredPropertiesAreSet() {
+        Order order = new Order();
+        order.item = new Item();
+        order.item.title = "foo";
+
+        String json = write(order, Order.class);
+
+        Assert.assertEquals("{\"item\":{\"title\":\"foo\"},\"note\":null}",
+                json);
+    }
+
+    @Test
+    public void should_ReportPath_When_NestedRequiredPropertyIsNull() {
+        Order order = new Order();
+        order.item = new Item();
+
+        ObjectWriter writer = checker.getCheckingWriter(mapper.writer(),
+                Order.class);
+        try {
+            writer.writeValueAsString(order);
+            Assert.fail("Expected the null title to be reported");
+        } catch (JacksonException e) {
+            NullValueException nullValueException = SerializationNullabilityChecker
+                    .findNullValueException(e);
+            Assert.assertNotNull(nullValueException);
+            Assert.assertTrue(nullValueException.getMessage()
+                    .contains("property 'title'"));
+            Assert.assertTrue(e.getPathReference().contains("\"item\""));
+            Assert.assertTrue(e.getPathReference().contains("\"title\""));
+        }
+    }
+
+    @Test
+    public void should_NotCheckProperties_When_BeanIsNotRequired() {
+        Order order = new Order();
+        order.item = new Item();
+        order.item.title = "foo";
+        // The note is not required, so its properties are not checked
+        order.note = new Item();
+
+        String json = write(order, Order.class);
+
+        Assert.assertEquals(
+                "{\"item\":{\"title\":\"foo\"},\"note\":{\"title\":null}}",
+                json);
+    }
+
+    @Test
+    public void should_NotCheckProperties_When_WriterIsNotChecking() {
+        Order order = new Order();
+        order.item = new Item();
+
+        String json = mapper.writeValueAsString(order);
+
+        Assert.assertEquals("{\"item\":{\"title\":null},\"note\":null}",
+                json);
+    }
+
+    @Test
+    public void should_CheckItems_When_BeansAreInContainers()
+            throws NoSuchMethodException {
+        Type itemListType = getClass().getMethod("itemList")
+                .getGenericReturnType();
+        List<Item> items = List.of(new Item());
+
+        Assert.assertNull(
+                checker.checkBeforeSerialization(items, itemListType));
+        ObjectWriter writer = checker.getCheckingWriter(mapper.writer(),
+                itemListType);
+        try {
+            writer.writeValueAsString(items);
+            Assert.fail("Expected the null title to be reported");
+        } catch (JacksonException e) {
+            Assert.assertNotNull(
+                    SerializationNullabilityChecker.findNullValueException(e));
+        }
+    }
+
+    @Test
+    public void should_ReturnError_When_ValueIsNullBeforeSerialization() {
+        String error = checker.checkBeforeSerialization(null, Item.class);
+
+        Assert.assertNotNull(error);
+        Assert.assertTrue(error.contains("Item"));
+    }
+
+    @Test
+    public void should_ReturnSameWriter_When_TypeHasNoCheckedBeans() {
+        ObjectWriter writer = mapper.writer();
+
+        Assert.assertSame(writer,
+                checker.getCheckingWriter(writer, String.class));
+        Assert.assertNotSame(writer,
+                checker.getCheckingWriter(writer, Order.class));
+    }
+
+    @Test
+    public void should_ReadCheckedPropertiesOnce() {
+        CountingItem item = new CountingItem();
+
+        String json = write(item, CountingItem.class);
+
+        Assert.assertEquals("{\"title\":\"foo\"}", json);
+        Assert.assertEquals(1, item.titleReads);
+        Assert.assertEquals(1, item.tagsReads);
+    }
+
+    private String write(Object value, Type type) {
+        Assert.assertNull(checker.checkBeforeSerialization(value, type));
+        return checker.getCheckingWriter(mapper.writer(), type)
+                .writeValueAsString(value);
+    }
+
+    public List<Item> itemList() {
+        return null;
+    }
+
+    public static class Order {
+        @NonNull
+        private Item item;
+        private Item note;
+
+        public Item getItem() {
+            return item;
+        }
+
+        public Item getNote() {
+            return note;
+        }
+    }
+
+    public static class Item {
+        @NonNull
+        private String title;
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    public static class CountingItem {
+        @NonNull
+        private String title = "foo";
+        @NonNull
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        private List<String> tags = List.of();
+        private int titleReads;
+        private int tagsReads;
+
+        public String getTitle() {
+            titleReads++;
+            return title;
+        }
+
+        public List<String> getTags() {
+            tagsReads++;
+            return tags;
+        }
+    }
+}
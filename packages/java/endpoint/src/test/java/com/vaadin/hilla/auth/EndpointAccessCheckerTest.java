@@ -492,4 +492,42 @@ public class EndpointAccessCheckerTest {
         assertAccessGranted(Test.class, "test");
     }
 
+    @Test
+    public void should_CheckRolesOfEachUser_When_DecisionIsReused()
+            throws Exception {
+        class Test {
+            @RolesAllowed(ROLE_USER)
+            public void test() {
+            }
+        }
+        Method method = Test.class.getMethod("test");
+        Principal principal = mock(Principal.class);
+
+        assertNull(checker.check(method, principal, ROLE_USER::equals));
+        assertNotNull(checker.check(method, principal, role -> false));
+        assertNotNull(checker.check(method, null, ROLE_USER::equals));
+
+        EndpointAccessChecker.invalidateAccessDecisions();
+        assertNull(checker.check(method, principal, ROLE_USER::equals));
+    }
+
+    @Test
+    public void should_UseAnnotationChecker_When_ItIsCustomized()
+            throws Exception {
+        class Test {
+            @DenyAll
+            public void test() {
+            }
+        }
+        AccessAnnotationChecker annotationChecker = Mockito
+                .spy(new AccessAnnotationChecker() {
+                });
+        checker = new EndpointAccessChecker(annotationChecker);
+        Method method = Test.class.getMethod("test");
+
+        assertNotNull(checker.check(method, requestMock));
+        Mockito.verify(annotationChecker).hasAccess(Mockito.eq(method),
+                Mockito.any(), Mockito.any());
+    }
+
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Sinks;
+
+import com.vaadin.hilla.OverflowStrategy;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+public class BufferingSubscriberTest {
+
+    private static final int IN_FLIGHT = BufferingSubscriber.MAX_IN_FLIGHT;
+
+    private final List<Object> sentItems = new ArrayList<>();
+    private final List<Boolean> sentCreditFlags = new ArrayList<>();
+    private final List<Runnable> pendingWrites = new ArrayList<>();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final LongAdder droppedItems = new LongAdder();
+    private final LongAdder conflatedItems = new LongAdder();
+    private Sinks.Many<Object> sink;
+
+    @Before
+    public void setUp() {
+        sink = Sinks.many().unicast().onBackpressureBuffer();
+    }
+
+    @Test
+    public void should_SendItemsRightAway_When_ClientKeepsUp() {
+        subscribe(OverflowStrategy.ERROR, 1, null);
+
+        emit(0, 3 * IN_FLIGHT, true);
+
+        Assert.assertEquals(range(0, 3 * IN_FLIGHT), sentItems);
+        Assert.assertEquals(0, droppedItems.sum());
+        Assert.assertFalse(sentCreditFlags.contains(true));
+    }
+
+    @Test
+    public void should_DropOldestItems_When_BufferIsFull() {
+        subscribe(OverflowStrategy.DROP_OLDEST, 3, null);
+
+        emit(0, IN_FLIGHT + 5, false);
+        writeAll();
+
+        List<Object> expected = range(0, IN_FLIGHT);
+        expected.addAll(range(IN_FLIGHT + 2, IN_FLIGHT + 5));
+        Assert.assertEquals(expected, sentItems);
+        Assert.assertEquals(2, droppedItems.sum());
+    }
+
+    @Test
+    public void should_DropNewestItems_When_BufferIsFull() {
+        subscribe(OverflowStrategy.DROP_NEWEST, 3, null);
+
+        emit(0, IN_FLIGHT + 5, false);
+        writeAll();
+
+        Assert.assertEquals(range(0, IN_FLIGHT + 3), sentItems);
+        Assert.assertEquals(2, droppedItems.sum());
+    }
+
+    @Test
+    public void should_KeepLatestItem_When_ClientDoesNotKeepUp() {
+        subscribe(OverflowStrategy.KEEP_LATEST, 3, null);
+
+        emit(0, IN_FLIGHT + 5, false);
+        writeAll();
+
+        List<Object> expected = range(0, IN_FLIGHT);
+        expected.add(IN_FLIGHT + 4);
+        Assert.assertEquals(expected, sentItems);
+        Assert.assertEquals(4, conflatedItems.sum());
+        Assert.assertEquals(0, droppedItems.sum());
+    }
+
+    @Test
+    public void should_KeepLatestItemOfEachKey_When_KeyExtractorIsGiven() {
+        subscribe(OverflowStrategy.KEEP_LATEST, 3,
+                item -> (Integer) item % 2);
+
+        emit(0, IN_FLIGHT + 5, false);
+        writeAll();
+
+        List<Object> expected = range(0, IN_FLIGHT);
+        // The first key keeps its place
+        expected.add(IN_FLIGHT + 4);
+        expected.add(IN_FLIGHT + 3);
+        Assert.assertEquals(expected, sentItems);
+        Assert.assertEquals(3, conflatedItems.sum());
+    }
+
+    @Test
+    public void should_FailAfterBufferedItems_When_BufferOverflows() {
+        subscribe(OverflowStrategy.ERROR, 3, null);
+
+        emit(0, IN_FLIGHT + 4, false);
+        Assert.assertEquals(Sinks.EmitResult.FAIL_CANCELLED,
+                sink.tryEmitNext(-1));
+        Assert.assertNull(error.get());
+        writeAll();
+
+        Assert.assertEquals(range(0, IN_FLIGHT + 3), sentItems);
+        Assert.assertTrue(error.get() instanceof IllegalStateException);
+        Assert.assertFalse(completed.get());
+    }
+
+    @Test
+    public void should_CompleteAfterBufferedItems() {
+        subscribe(OverflowStrategy.DROP_OLDEST, 10, null);
+
+        emit(0, IN_FLIGHT + 5, false);
+        sink.tryEmitComplete();
+        Assert.assertFalse(completed.get());
+        writeAll();
+
+        Assert.assertEquals(range(0, IN_FLIGHT + 5), sentItems);
+        Assert.assertTrue(completed.get());
+    }
+
+    @Test
+    public void should_StopSending_When_Discarded() {
+        BufferingSubscriber subscriber = subscribe(
+                OverflowStrategy.DROP_OLDEST, 10, null);
+
+        emit(0, IN_FLIGHT + 5, false);
+        subscriber.discard();
+        writeAll();
+
+        Assert.assertEquals(range(0, IN_FLIGHT), sentItems);
+        Assert.assertFalse(completed.get());
+        Assert.assertEquals(Sinks.EmitResult.FAIL_CANCELLED,
+                sink.tryEmitNext(-1));
+    }
+
+    @Test
+    public void should_OnlySendRequestedItems_When_ClientUsesCredits() {
+        BufferingSubscriber subscriber = subscribe(
+                OverflowStrategy.DROP_OLDEST, 10, null, 2);
+
+        emit(0, 5, true);
+        Assert.assertEquals(range(0, 2), sentItems);
+        Assert.assertEquals(List.of(true, false), sentCreditFlags);
+
+        subscriber.addCredits(2);
+        Assert.assertEquals(range(0, 4), sentItems);
+        sink.tryEmitComplete();
+        Assert.assertFalse(completed.get());
+
+        subscriber.addCredits(10);
+        writeAll();
+        Assert.assertEquals(range(0, 5), sentItems);
+        Assert.assertTrue(completed.get());
+    }
+
+    private BufferingSubscriber subscribe(OverflowStrategy strategy,
+            int bufferSize, Function<Object, ?> keyExtractor) {
+        return subscribe(strategy, bufferSize, keyExtractor, Long.MAX_VALUE);
+    }
+
+    private BufferingSubscriber subscribe(OverflowStrategy strategy,
+            int bufferSize, Function<Object, ?> keyExtractor, long credits) {
+        PushMessageSender sender = (message, onWritten) -> {
+            ClientMessageUpdate update = (ClientMessageUpdate) message;
+            sentItems.add(update.getItem());
+            sentCreditFlags.add(update.isCredits());
+            pendingWrites.add(onWritten);
+        };
+        BufferingSubscriber subscriber = new BufferingSubscriber("1",
+                strategy, bufferSize, keyExtractor, credits, sender,
+                error::set, () -> completed.set(true), droppedItems,
+                conflatedItems);
+        sink.asFlux().subscribe(subscriber);
+        return subscriber;
+    }
+
+    private void emit(int from, int to, boolean write) {
+        for (int i = from; i < to; i++) {
+            sink.tryEmitNext(i).orThrow();
+            if (write) {
+                writeAll();
+            }
+        }
+    }
+
+    private void writeAll() {
+        while (!pendingWrites.isEmpty()) {
+            List<Runnable> writes = new ArrayList<>(pendingWrites);
+            pendingWrites.clear();
+            writes.forEach(Runnable::run);
+        }
+    }
+
+    private static List<Object> range(int from, int to) {
+        return new ArrayList<>(IntStream.range(from, to).boxed().toList());
+    }
+}
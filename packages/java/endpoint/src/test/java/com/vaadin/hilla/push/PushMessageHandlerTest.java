@@ -42,6 +42,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import reactor.core.publisher.Flux;
 import tools.jackson.databind.ObjectMapper;
 
+import com.vaadin.hilla.ClientDemand;
 import com.vaadin.hilla.EndpointController;
 import com.vaadin.hilla.EndpointControllerConfiguration;
 import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
@@ -50,6 +51,7 @@ import com.vaadin.hilla.EndpointProperties;
 import com.vaadin.hilla.EndpointSubscription;
 import com.vaadin.hilla.ServletContextTestSetup;
 import com.vaadin.hilla.push.PushMessageHandler.SubscriptionInfo;
+import com.vaadin.hilla.push.messages.fromclient.RequestMessage;
 import com.vaadin.hilla.push.messages.fromclient.SubscribeMessage;
 import com.vaadin.hilla.push.messages.fromclient.UnsubscribeMessage;
 import com.vaadin.hilla.push.messages.toclient.AbstractClientMessage;
@@ -154,6 +156,13 @@ public class PushMessageHandlerTest {
         Assert.assertEquals(List.of(), unexpectedMessages);
     }
 
+    public static class ClientDemandEndpoint {
+        @ClientDemand
+        public Flux<String> testFlux() {
+            return Flux.just("Hello");
+        }
+    }
+
     private Flux<String> createSingleDataFlux() {
         return Flux.just("Hello");
     }
@@ -244,6 +253,48 @@ public class PushMessageHandlerTest {
         Assert.assertEquals(subscribeMessage.getId(), clientMessage.getId());
     }
 
+    @Test
+    public void fluxSubscription_onlyReceivesRequestedItems()
+            throws Exception {
+        Mockito.when(endpointInvoker.getMethod(ENDPOINT_NAME, FLUX_METHOD))
+                .thenReturn(ClientDemandEndpoint.class.getMethod(FLUX_METHOD));
+        SubscribeMessage subscribeMessage = createFluxSubscribe();
+        subscribeMessage.setRequest(0L);
+        List<AbstractClientMessage> messages = new ArrayList<>();
+        pushMessageHandler.handleMessage(connectionId, subscribeMessage,
+                messages::add);
+        Assert.assertEquals(List.of(), messages);
+
+        RequestMessage requestMessage = new RequestMessage();
+        requestMessage.setId(subscribeMessage.getId());
+        requestMessage.setN(1);
+        pushMessageHandler.handleMessage(connectionId, requestMessage,
+                messages::add);
+
+        Assert.assertEquals(2, messages.size());
+        Assert.assertEquals("Hello",
+                ((ClientMessageUpdate) messages.get(0)).getItem());
+        Assert.assertTrue(
+                ((ClientMessageUpdate) messages.get(0)).isCredits());
+        Assert.assertTrue(messages.get(1) instanceof ClientMessageComplete);
+    }
+
+    @Test
+    public void fluxSubscription_withoutClientDemand_ignoresCredits() {
+        SubscribeMessage subscribeMessage = createFluxSubscribe();
+        subscribeMessage.setRequest(0L);
+        List<AbstractClientMessage> messages = new ArrayList<>();
+        pushMessageHandler.handleMessage(connectionId, subscribeMessage,
+                messages::add);
+
+        Assert.assertEquals(2, messages.size());
+        Assert.assertEquals("Hello",
+                ((ClientMessageUpdate) messages.get(0)).getItem());
+        Assert.assertFalse(
+                ((ClientMessageUpdate) messages.get(0)).isCredits());
+        Assert.assertTrue(messages.get(1) instanceof ClientMessageComplete);
+    }
+
     @Test
     public void fluxSubscription_exceptionDeliveredToClient() throws Exception {
         SubscribeMessage subscribeMessage = createFluxWithExceptionSubscribe();
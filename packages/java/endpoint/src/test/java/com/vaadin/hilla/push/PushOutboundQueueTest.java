@@ -0,0 +1,146 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+public class PushOutboundQueueTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> writerTasks = new ArrayList<>();
+    private final List<String> frames = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        writerTasks.clear();
+        frames.clear();
+    }
+
+    @Test
+    public void should_SendPendingMessagesInOneFrame() {
+        PushOutboundQueue queue = createQueue(10, 64 * 1024);
+
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("1", "a")));
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("1", "b")));
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("2", "c")));
+        // Only the first message starts the writer
+        Assert.assertEquals(1, writerTasks.size());
+        runWriter();
+
+        Assert.assertEquals(1, frames.size());
+        JsonNode frame = objectMapper.readTree(frames.get(0));
+        Assert.assertTrue(frame.isArray());
+        Assert.assertEquals(3, frame.size());
+        Assert.assertEquals("a", frame.get(0).get("item").asText());
+        Assert.assertEquals("b", frame.get(1).get("item").asText());
+        Assert.assertEquals("2", frame.get(2).get("id").asText());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void should_SendSingleMessageAsIs() {
+        PushOutboundQueue queue = createQueue(10, 64 * 1024);
+
+        queue.offer(new ClientMessageUpdate("1", "a"));
+        runWriter();
+
+        Assert.assertEquals(1, frames.size());
+        JsonNode frame = objectMapper.readTree(frames.get(0));
+        Assert.assertTrue(frame.isObject());
+        Assert.assertEquals("a", frame.get("item").asText());
+    }
+
+    @Test
+    public void should_SplitFrames_When_MaxFrameSizeIsExceeded() {
+        String single = objectMapper
+                .writeValueAsString(new ClientMessageUpdate("1", "a"));
+        // Room for two messages in a frame
+        PushOutboundQueue queue = createQueue(10, 2 * single.length() + 3);
+
+        for (String item : List.of("a", "b", "c", "d", "e")) {
+            queue.offer(new ClientMessageUpdate("1", item));
+        }
+        runWriter();
+
+        Assert.assertEquals(3, frames.size());
+        Assert.assertEquals(2, objectMapper.readTree(frames.get(0)).size());
+        Assert.assertEquals(2, objectMapper.readTree(frames.get(1)).size());
+        Assert.assertTrue(objectMapper.readTree(frames.get(2)).isObject());
+        frames.forEach(frame -> Assert.assertTrue(
+                frame.length() <= 2 * single.length() + 3));
+    }
+
+    @Test
+    public void should_RejectMessages_When_QueueIsFull() {
+        PushOutboundQueue queue = createQueue(2, 64 * 1024);
+
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("1", "a")));
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("1", "b")));
+        Assert.assertFalse(queue.offer(new ClientMessageUpdate("1", "c")));
+        Assert.assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void should_AcceptAllMessages_When_Unbounded() {
+        PushOutboundQueue queue = createQueue(0, 64 * 1024);
+
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertTrue(
+                    queue.offer(new ClientMessageUpdate("1", "item" + i)));
+        }
+        Assert.assertEquals(5000, queue.size());
+        runWriter();
+
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(5000, frames.stream()
+                .map(objectMapper::readTree)
+                .mapToInt(frame -> frame.isArray() ? frame.size() : 1).sum());
+    }
+
+    @Test
+    public void should_DiscardMessages_When_Closed() {
+        PushOutboundQueue queue = createQueue(10, 64 * 1024);
+
+        queue.offer(new ClientMessageUpdate("1", "a"));
+        queue.close();
+        Assert.assertTrue(queue.offer(new ClientMessageUpdate("1", "b")));
+        runWriter();
+
+        Assert.assertTrue(frames.isEmpty());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    private PushOutboundQueue createQueue(int capacity, int maxFrameSize) {
+        return new PushOutboundQueue(objectMapper, frames::add,
+                writerTasks::add, capacity, Duration.ZERO, maxFrameSize);
+    }
+
+    private void runWriter() {
+        List<Runnable> tasks = new ArrayList<>(writerTasks);
+        writerTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import com.vaadin.hilla.EndpointProperties;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+public class SerializedItemCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void should_ReuseSerializedItem_When_SameItemIsSentAgain() {
+        SerializedItemCache cache = new SerializedItemCache(objectMapper, 16,
+                clock::get);
+        List<Integer> item = new ArrayList<>(List.of(1, 2));
+
+        Object first = cache.serialize(item);
+        Object second = cache.serialize(item);
+        Object equalItem = cache.serialize(List.of(1, 2));
+
+        Assert.assertTrue(first instanceof SerializedItem);
+        Assert.assertSame(first, second);
+        // Only the identity counts
+        Assert.assertNotSame(first, equalItem);
+        Assert.assertSame(item, SerializedItem.unwrap(first));
+    }
+
+    @Test
+    public void should_SpliceSerializedItemIntoMessages() {
+        SerializedItemCache cache = new SerializedItemCache(objectMapper, 16,
+                clock::get);
+        Object item = cache.serialize(List.of("a", "b"));
+
+        JsonNode first = objectMapper.readTree(objectMapper
+                .writeValueAsString(new ClientMessageUpdate("1", item)));
+        JsonNode second = objectMapper.readTree(objectMapper
+                .writeValueAsString(new ClientMessageUpdate("2", item)));
+
+        Assert.assertEquals("1", first.get("id").asText());
+        Assert.assertEquals("2", second.get("id").asText());
+        Assert.assertEquals("[\"a\",\"b\"]", first.get("item").toString());
+        Assert.assertEquals(first.get("item"), second.get("item"));
+    }
+
+    @Test
+    public void should_SerializeAgain_When_ItemIsOld() {
+        SerializedItemCache cache = new SerializedItemCache(objectMapper, 16,
+                clock::get);
+        List<Integer> item = new ArrayList<>(List.of(1));
+
+        Object first = cache.serialize(item);
+        item.add(2);
+        clock.addAndGet(SerializedItemCache.MAX_AGE_NANOS);
+        Object second = cache.serialize(item);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("[1,2]",
+                objectMapper.writeValueAsString(second));
+    }
+
+    @Test
+    public void should_SerializeEachTime_When_SizeIsZero() {
+        SerializedItemCache cache = new SerializedItemCache(objectMapper, 0,
+                clock::get);
+        Object item = List.of(1);
+
+        Assert.assertNotSame(cache.serialize(item), cache.serialize(item));
+    }
+
+    @Test
+    public void should_NotCacheItems_When_NotEnabled() {
+        Assert.assertEquals(0,
+                new EndpointProperties().getPush().getItemCacheSize());
+    }
+
+    @Test
+    public void should_KeepItem_When_NullOrSerialized() {
+        SerializedItemCache cache = new SerializedItemCache(objectMapper, 16,
+                clock::get);
+        Object serialized = cache.serialize("a");
+
+        Assert.assertNull(cache.serialize(null));
+        Assert.assertSame(serialized, cache.serialize(serialized));
+    }
+}
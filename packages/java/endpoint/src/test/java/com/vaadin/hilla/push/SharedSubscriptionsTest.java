@@ -0,0 +1,202 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.hilla.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import com.vaadin.hilla.EndpointInvocationException.EndpointForbiddenException;
+import com.vaadin.hilla.EndpointInvocationException.EndpointHttpException;
+import com.vaadin.hilla.EndpointInvoker;
+import com.vaadin.hilla.EndpointSubscription;
+import com.vaadin.hilla.push.messages.fromclient.SubscribeMessage;
+import com.vaadin.hilla.push.messages.toclient.ClientMessageUpdate;
+
+public class SharedSubscriptionsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EndpointInvoker endpointInvoker;
+    private SharedSubscriptions sharedSubscriptions;
+    private Sinks.Many<Object> sink;
+    private AtomicInteger unsubscribeCalls;
+
+    @Before
+    public void setUp() throws EndpointHttpException {
+        sink = Sinks.many().multicast().directBestEffort();
+        unsubscribeCalls = new AtomicInteger();
+        endpointInvoker = Mockito.mock(EndpointInvoker.class);
+        Mockito.when(endpointInvoker.invoke(Mockito.any(), Mockito.any(),
+                Mockito.any(ObjectNode.class), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> EndpointSubscription.of(
+                        sink.asFlux(), unsubscribeCalls::incrementAndGet));
+        sharedSubscriptions = new SharedSubscriptions(endpointInvoker);
+        sharedSubscriptions.setObjectMapper(objectMapper);
+    }
+
+    @Test
+    public void should_ShareFlux_When_ParametersAreEqual()
+            throws EndpointHttpException {
+        List<Object> items = new ArrayList<>();
+        get("Dashboard", "a").getFlux().subscribe(items::add);
+        get("dashboard", "a").getFlux().subscribe(items::add);
+        get("Dashboard", "b").getFlux().subscribe(items::add);
+
+        sink.tryEmitNext("item").orThrow();
+
+        Assert.assertEquals(2, sharedSubscriptions.size());
+        Assert.assertEquals(3, items.size());
+        // One serialized item for each shared flux
+        Assert.assertSame(items.get(0), items.get(1));
+        Assert.assertNotSame(items.get(0), items.get(2));
+        Mockito.verify(endpointInvoker, Mockito.times(2)).invoke(
+                Mockito.any(), Mockito.any(), Mockito.any(ObjectNode.class),
+                Mockito.any(), Mockito.any());
+        // The access is checked for each subscriber
+        Mockito.verify(endpointInvoker, Mockito.times(3)).checkAccess(
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void should_SerializeItemsOnce_For_AllSubscribers()
+            throws EndpointHttpException {
+        SharedSubscriptions.SharedFlux sharedFlux = get("Dashboard", "a");
+        List<Object> firstItems = new ArrayList<>();
+        List<Object> secondItems = new ArrayList<>();
+        sharedFlux.getFlux().subscribe(firstItems::add);
+        sharedFlux.getFlux().subscribe(secondItems::add);
+
+        sink.tryEmitNext(List.of(1, 2)).orThrow();
+
+        Assert.assertEquals(1, firstItems.size());
+        Assert.assertSame(firstItems.get(0), secondItems.get(0));
+        String message = objectMapper.writeValueAsString(
+                new ClientMessageUpdate("1", firstItems.get(0)));
+        Assert.assertEquals("[1,2]",
+                objectMapper.readTree(message).get("item").toString());
+        Assert.assertEquals(List.of(1, 2),
+                SerializedItem.unwrap(firstItems.get(0)));
+    }
+
+    @Test
+    public void should_CancelFlux_When_LastSubscriberLeaves()
+            throws EndpointHttpException {
+        Disposable first = get("Dashboard", "a").getFlux().subscribe();
+        Disposable second = get("Dashboard", "a").getFlux().subscribe();
+        Assert.assertEquals(1, sharedSubscriptions.size());
+
+        first.dispose();
+        Assert.assertEquals(0, unsubscribeCalls.get());
+        Assert.assertEquals(1, sharedSubscriptions.size());
+
+        second.dispose();
+        Assert.assertEquals(1, unsubscribeCalls.get());
+        Assert.assertEquals(0, sharedSubscriptions.size());
+        Assert.assertEquals(0, sink.currentSubscriberCount());
+        get("Dashboard", "a");
+        Mockito.verify(endpointInvoker, Mockito.times(2)).invoke(
+                Mockito.any(), Mockito.any(), Mockito.any(ObjectNode.class),
+                Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void should_NotRegisterFlux_Until_Subscribed()
+            throws EndpointHttpException {
+        SharedSubscriptions.SharedFlux sharedFlux = get("Dashboard", "a");
+        Assert.assertEquals(0, sharedSubscriptions.size());
+        Assert.assertEquals(0, sink.currentSubscriberCount());
+
+        Disposable subscription = sharedFlux.getFlux().subscribe();
+        Assert.assertEquals(1, sharedSubscriptions.size());
+        Assert.assertEquals(1, sink.currentSubscriberCount());
+
+        subscription.dispose();
+        Assert.assertEquals(0, sharedSubscriptions.size());
+    }
+
+    @Test
+    public void should_InvokeMethodAgain_When_FluxIsCancelledBeforeJoining()
+            throws EndpointHttpException {
+        Disposable first = get("Dashboard", "a").getFlux().subscribe();
+        // Got while the first subscriber is still there
+        SharedSubscriptions.SharedFlux late = get("Dashboard", "a");
+        first.dispose();
+        Assert.assertEquals(1, unsubscribeCalls.get());
+        Assert.assertEquals(0, sink.currentSubscriberCount());
+
+        List<Object> items = new ArrayList<>();
+        Disposable second = late.getFlux().subscribe(items::add);
+        sink.tryEmitNext("item").orThrow();
+
+        // The cancelled flux is not subscribed to again
+        Assert.assertEquals(1, items.size());
+        Assert.assertEquals(1, sink.currentSubscriberCount());
+        Assert.assertEquals(1, sharedSubscriptions.size());
+        Mockito.verify(endpointInvoker, Mockito.times(2)).invoke(
+                Mockito.any(), Mockito.any(), Mockito.any(ObjectNode.class),
+                Mockito.any(), Mockito.any());
+
+        second.dispose();
+        Assert.assertEquals(2, unsubscribeCalls.get());
+        Assert.assertEquals(0, sharedSubscriptions.size());
+    }
+
+    @Test
+    public void should_DiscardNewFlux_When_AnotherIsRegisteredFirst()
+            throws EndpointHttpException {
+        SharedSubscriptions.SharedFlux first = get("Dashboard", "a");
+        SharedSubscriptions.SharedFlux second = get("Dashboard", "a");
+        first.getFlux().subscribe();
+        second.getFlux().subscribe();
+
+        Assert.assertEquals(1, sharedSubscriptions.size());
+        Assert.assertEquals(1, sink.currentSubscriberCount());
+        // The flux of the second invocation is never subscribed to
+        Assert.assertEquals(1, unsubscribeCalls.get());
+    }
+
+    @Test
+    public void should_NotShareFlux_When_AccessIsDenied()
+            throws EndpointHttpException {
+        get("Dashboard", "a").getFlux().subscribe();
+        Mockito.doThrow(new EndpointForbiddenException("denied"))
+                .when(endpointInvoker).checkAccess(Mockito.any(),
+                        Mockito.any(), Mockito.any(), Mockito.any());
+
+        Assert.assertThrows(EndpointForbiddenException.class,
+                () -> get("Dashboard", "a"));
+    }
+
+    private SharedSubscriptions.SharedFlux get(String endpointName,
+            String param) throws EndpointHttpException {
+        SubscribeMessage message = new SubscribeMessage();
+        message.setId("1");
+        message.setEndpointName(endpointName);
+        message.setMethodName("getUpdates");
+        message.setParams(objectMapper.createArrayNode().add(param));
+        return sharedSubscriptions.get(message,
+                objectMapper.createObjectNode(), null, role -> false);
+    }
+}
@@ -15,11 +15,14 @@
  */
 package com.vaadin.hilla.parser.plugins.transfertypes;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.jspecify.annotations.NonNull;
 import tools.jackson.databind.JsonNode;
@@ -60,6 +63,8 @@ public final class TransferTypesPlugin
         classMap.put("org.springframework.data.domain.Sort$Order", Order.class);
         classMap.put("org.springframework.data.domain.Sort", Sort.class);
         classMap.put(UUID.class.getName(), String.class);
+        classMap.put(Stream.class.getName(), List.class);
+        classMap.put(Iterator.class.getName(), List.class);
         classMap.put("reactor.core.publisher.Flux", Flux.class);
         classMap.put("com.vaadin.hilla.EndpointSubscription",
                 EndpointSubscription.class);
@@ -68,6 +73,8 @@ public final class TransferTypesPlugin
         classMap.put(ArrayNode.class.getName(), List.class);
         classMap.put("org.springframework.web.multipart.MultipartFile",
                 File.class);
+        classMap.put(InputStream.class.getName(), File.class);
+        classMap.put("org.springframework.core.io.Resource", File.class);
         classMap.put("com.vaadin.signals.Signal", Signal.class);
         classMap.put("com.vaadin.signals.shared.SharedValueSignal",
                 ValueSignal.class);
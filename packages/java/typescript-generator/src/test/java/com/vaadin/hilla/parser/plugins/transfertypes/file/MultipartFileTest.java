@@ -30,4 +30,16 @@ public class MultipartFileTest extends AbstractFullStackTest {
             throws Exception {
         assertTypescriptMatchesSnapshot(MultipartFileEndpoint.class);
     }
+
+    @Test
+    public void should_ReplaceInputStreamClassWithLocalFileClass()
+            throws Exception {
+        assertTypescriptMatchesSnapshot(InputStreamEndpoint.class);
+    }
+
+    @Test
+    public void should_ReplaceDownloadTypesWithLocalFileClass()
+            throws Exception {
+        assertTypescriptMatchesSnapshot(DownloadEndpoint.class);
+    }
 }
@@ -0,0 +1,5 @@
+import { EndpointRequestInit as EndpointRequestInit_1 } from "@vaadin/hilla-frontend";
+import client_1 from "./connect-client.default.js";
+async function download_1(name: string | undefined, init?: EndpointRequestInit_1): Promise<File | undefined> { return client_1.call("DownloadEndpoint", "download", { name }, init); }
+async function open_1(name: string | undefined, init?: EndpointRequestInit_1): Promise<File | undefined> { return client_1.call("DownloadEndpoint", "open", { name }, init); }
+export { download_1 as download, open_1 as open };
@@ -0,0 +1,5 @@
+import { EndpointRequestInit as EndpointRequestInit_1 } from "@vaadin/hilla-frontend";
+import client_1 from "./connect-client.default.js";
+async function iterate_1(init?: EndpointRequestInit_1): Promise<Array<number | undefined> | undefined> { return client_1.call("StreamEndpoint", "iterate", {}, init); }
+async function stream_1(init?: EndpointRequestInit_1): Promise<Array<string | undefined> | undefined> { return client_1.call("StreamEndpoint", "stream", {}, init); }
+export { iterate_1 as iterate, stream_1 as stream };
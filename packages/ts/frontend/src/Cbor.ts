@@ -0,0 +1,442 @@
+/**
+ * A minimal CBOR (RFC 8949) codec for the endpoint calls that use the `cbor`
+ * wire format. It covers the data model of JSON plus what the server produces
+ * beyond it, and decodes that into the values of the JSON responses: byte
+ * strings become base64 strings, and big integers and decimal fractions
+ * become numbers.
+ */
+
+const textEncoder = new TextEncoder();
+const textDecoder = new TextDecoder();
+
+const BREAK = 0xff;
+
+const TAG_POSITIVE_BIGNUM = 2;
+const TAG_NEGATIVE_BIGNUM = 3;
+const TAG_DECIMAL_FRACTION = 4;
+
+class CborWriter {
+  #buffer = new Uint8Array(256);
+  #view = new DataView(this.#buffer.buffer);
+  #length = 0;
+
+  get bytes(): Uint8Array {
+    return this.#buffer.subarray(0, this.#length);
+  }
+
+  writeHead(majorType: number, value: number): void {
+    const major = majorType << 5;
+    if (value < 24) {
+      this.#ensure(1);
+      this.#buffer[this.#length++] = major | value;
+    } else if (value < 0x100) {
+      this.#ensure(2);
+      this.#buffer[this.#length++] = major | 24;
+      this.#buffer[this.#length++] = value;
+    } else if (value < 0x10000) {
+      this.#ensure(3);
+      this.#buffer[this.#length++] = major | 25;
+      this.#view.setUint16(this.#length, value);
+      this.#length += 2;
+    } else if (value < 0x100000000) {
+      this.#ensure(5);
+      this.#buffer[this.#length++] = major | 26;
+      this.#view.setUint32(this.#length, value);
+      this.#length += 4;
+    } else {
+      this.#ensure(9);
+      this.#buffer[this.#length++] = major | 27;
+      this.#view.setBigUint64(this.#length, BigInt(value));
+      this.#length += 8;
+    }
+  }
+
+  writeFloat(value: number): void {
+    this.#ensure(9);
+    this.#buffer[this.#length++] = 0xfb;
+    this.#view.setFloat64(this.#length, value);
+    this.#length += 8;
+  }
+
+  writeByte(value: number): void {
+    this.#ensure(1);
+    this.#buffer[this.#length++] = value;
+  }
+
+  writeBytes(bytes: Uint8Array): void {
+    this.#ensure(bytes.length);
+    this.#buffer.set(bytes, this.#length);
+    this.#length += bytes.length;
+  }
+
+  #ensure(count: number): void {
+    if (this.#length + count <= this.#buffer.length) {
+      return;
+    }
+    let size = this.#buffer.length * 2;
+    while (size < this.#length + count) {
+      size *= 2;
+    }
+    const buffer = new Uint8Array(size);
+    buffer.set(this.#buffer.subarray(0, this.#length));
+    this.#buffer = buffer;
+    this.#view = new DataView(buffer.buffer);
+  }
+}
+
+function encodeValue(writer: CborWriter, value: unknown): void {
+  if (value === null || value === undefined) {
+    writer.writeByte(0xf6);
+  } else if (typeof value === 'boolean') {
+    writer.writeByte(value ? 0xf5 : 0xf4);
+  } else if (typeof value === 'number') {
+    if (Number.isSafeInteger(value)) {
+      if (value >= 0) {
+        writer.writeHead(0, value);
+      } else {
+        writer.writeHead(1, -1 - value);
+      }
+    } else {
+      writer.writeFloat(value);
+    }
+  } else if (typeof value === 'bigint') {
+    encodeValue(writer, Number(value));
+  } else if (typeof value === 'string') {
+    const bytes = textEncoder.encode(value);
+    writer.writeHead(3, bytes.length);
+    writer.writeBytes(bytes);
+  } else if (value instanceof Uint8Array) {
+    writer.writeHead(2, value.length);
+    writer.writeBytes(value);
+  } else if (value instanceof ArrayBuffer) {
+    encodeValue(writer, new Uint8Array(value));
+  } else if (Array.isArray(value)) {
+    writer.writeHead(4, value.length);
+    for (const item of value) {
+      encodeValue(writer, item);
+    }
+  } else if (typeof value === 'object') {
+    // Objects such as dates are converted as in JSON.stringify
+    if ('toJSON' in value && typeof value.toJSON === 'function') {
+      encodeValue(writer, (value as { toJSON(): unknown }).toJSON());
+      return;
+    }
+    const entries = Object.entries(value).filter(([, item]) => typeof item !== 'function');
+    writer.writeHead(5, entries.length);
+    for (const [key, item] of entries) {
+      encodeValue(writer, key);
+      encodeValue(writer, item);
+    }
+  } else {
+    writer.writeByte(0xf6);
+  }
+}
+
+/**
+ * Encodes the value as CBOR. `undefined` values are encoded as `null`, as in
+ * the JSON requests.
+ *
+ * @param value - The value to encode.
+ * @returns The encoded bytes.
+ */
+export function encodeCbor(value: unknown): Uint8Array {
+  const writer = new CborWriter();
+  encodeValue(writer, value);
+  return writer.bytes;
+}
+
+class CborReader {
+  readonly #bytes: Uint8Array;
+  readonly #view: DataView;
+  #offset = 0;
+
+  constructor(bytes: Uint8Array) {
+    this.#bytes = bytes;
+    this.#view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+  }
+
+  get isAtEnd(): boolean {
+    return this.#offset >= this.#bytes.length;
+  }
+
+  peekByte(): number {
+    this.#check(1);
+    return this.#bytes[this.#offset];
+  }
+
+  readByte(): number {
+    this.#check(1);
+    return this.#bytes[this.#offset++];
+  }
+
+  readBytes(count: number): Uint8Array {
+    this.#check(count);
+    const bytes = this.#bytes.subarray(this.#offset, this.#offset + count);
+    this.#offset += count;
+    return bytes;
+  }
+
+  readUint(size: number): number {
+    this.#check(size);
+    let value: number;
+    switch (size) {
+      case 1:
+        value = this.#view.getUint8(this.#offset);
+        break;
+      case 2:
+        value = this.#view.getUint16(this.#offset);
+        break;
+      case 4:
+        value = this.#view.getUint32(this.#offset);
+        break;
+      default:
+        value = Number(this.#view.getBigUint64(this.#offset));
+    }
+    this.#offset += size;
+    return value;
+  }
+
+  readBigUint(size: number): bigint {
+    if (size !== 8) {
+      return BigInt(this.readUint(size));
+    }
+    this.#check(size);
+    const value = this.#view.getBigUint64(this.#offset);
+    this.#offset += size;
+    return value;
+  }
+
+  readFloat(size: number): number {
+    this.#check(size);
+    let value: number;
+    switch (size) {
+      case 2:
+        value = decodeHalf(this.#view.getUint16(this.#offset));
+        break;
+      case 4:
+        value = this.#view.getFloat32(this.#offset);
+        break;
+      default:
+        value = this.#view.getFloat64(this.#offset);
+    }
+    this.#offset += size;
+    return value;
+  }
+
+  #check(count: number): void {
+    if (this.#offset + count > this.#bytes.length) {
+      throw new SyntaxError('Unexpected end of CBOR data');
+    }
+  }
+}
+
+function decodeHalf(half: number): number {
+  const exponent = (half >> 10) & 0x1f;
+  const fraction = half & 0x3ff;
+  const sign = half & 0x8000 ? -1 : 1;
+  if (exponent === 0) {
+    return sign * 2 ** -14 * (fraction / 1024);
+  }
+  if (exponent === 0x1f) {
+    return fraction ? NaN : sign * Infinity;
+  }
+  return sign * 2 ** (exponent - 15) * (1 + fraction / 1024);
+}
+
+/**
+ * Reads the argument of a data item head, or returns -1 for indefinite
+ * lengths.
+ */
+function readArgument(reader: CborReader, info: number): number {
+  if (info < 24) {
+    return info;
+  }
+  switch (info) {
+    case 24:
+      return reader.readUint(1);
+    case 25:
+      return reader.readUint(2);
+    case 26:
+      return reader.readUint(4);
+    case 27:
+      return reader.readUint(8);
+    case 31:
+      return -1;
+    default:
+      throw new SyntaxError(`Invalid CBOR additional information ${info}`);
+  }
+}
+
+function readChunks(reader: CborReader, majorType: number, length: number): Uint8Array {
+  if (length >= 0) {
+    return reader.readBytes(length);
+  }
+  const chunks: Uint8Array[] = [];
+  while (reader.peekByte() !== BREAK) {
+    const head = reader.readByte();
+    if (head >> 5 !== majorType) {
+      throw new SyntaxError('Invalid chunk in an indefinite length CBOR string');
+    }
+    chunks.push(reader.readBytes(readArgument(reader, head & 0x1f)));
+  }
+  reader.readByte();
+  const bytes = new Uint8Array(chunks.reduce((total, chunk) => total + chunk.length, 0));
+  let offset = 0;
+  for (const chunk of chunks) {
+    bytes.set(chunk, offset);
+    offset += chunk.length;
+  }
+  return bytes;
+}
+
+function toBase64(bytes: Uint8Array): string {
+  let binary = '';
+  for (let i = 0; i < bytes.length; i += 0x8000) {
+    binary += String.fromCharCode(...bytes.subarray(i, i + 0x8000));
+  }
+  return btoa(binary);
+}
+
+function readBignum(reader: CborReader): bigint {
+  const head = reader.readByte();
+  if (head >> 5 !== 2) {
+    throw new SyntaxError('Invalid CBOR bignum');
+  }
+  const bytes = readChunks(reader, 2, readArgument(reader, head & 0x1f));
+  let value = 0n;
+  for (const byte of bytes) {
+    value = (value << 8n) | BigInt(byte);
+  }
+  return value;
+}
+
+/**
+ * Reads an integer exactly, including the big integers that do not fit in a
+ * number.
+ */
+function readInteger(reader: CborReader): bigint {
+  const head = reader.readByte();
+  const majorType = head >> 5;
+  const info = head & 0x1f;
+  if ((majorType === 0 || majorType === 1) && info < 28) {
+    const argument = info < 24 ? BigInt(info) : reader.readBigUint(2 ** (info - 24));
+    return majorType === 0 ? argument : -1n - argument;
+  }
+  if (majorType === 6) {
+    const tag = readArgument(reader, info);
+    if (tag === TAG_POSITIVE_BIGNUM) {
+      return readBignum(reader);
+    }
+    if (tag === TAG_NEGATIVE_BIGNUM) {
+      return -1n - readBignum(reader);
+    }
+  }
+  throw new SyntaxError('Invalid CBOR integer');
+}
+
+/**
+ * Decodes the content of a tag. Big numbers are converted to numbers, which
+ * is what parsing them from JSON gives. Other tags are ignored and the tagged
+ * value is used.
+ */
+function decodeTagged(reader: CborReader, tag: number): unknown {
+  switch (tag) {
+    case TAG_POSITIVE_BIGNUM:
+      return Number(readBignum(reader));
+    case TAG_NEGATIVE_BIGNUM:
+      return Number(-1n - readBignum(reader));
+    case TAG_DECIMAL_FRACTION: {
+      if (reader.readByte() !== 0x82) {
+        throw new SyntaxError('Invalid CBOR decimal fraction');
+      }
+      const exponent = readInteger(reader);
+      const mantissa = readInteger(reader);
+      // Parsing the decimal text rounds it once, as JSON.parse does
+      return Number(`${mantissa}e${exponent}`);
+    }
+    default:
+      return decodeValue(reader);
+  }
+}
+
+function decodeValue(reader: CborReader): unknown {
+  const head = reader.readByte();
+  const majorType = head >> 5;
+  const info = head & 0x1f;
+  if (majorType === 7) {
+    switch (info) {
+      case 20:
+        return false;
+      case 21:
+        return true;
+      case 22:
+      case 23:
+        // Null values are converted to undefined, as in the JSON responses
+        return undefined;
+      case 25:
+        return reader.readFloat(2);
+      case 26:
+        return reader.readFloat(4);
+      case 27:
+        return reader.readFloat(8);
+      default:
+        throw new SyntaxError(`Unsupported CBOR simple value ${info}`);
+    }
+  }
+  const argument = readArgument(reader, info);
+  switch (majorType) {
+    case 0:
+      return argument;
+    case 1:
+      return -1 - argument;
+    case 2:
+      // Byte arrays are base64 strings in the JSON responses
+      return toBase64(readChunks(reader, majorType, argument));
+    case 3:
+      return textDecoder.decode(readChunks(reader, majorType, argument));
+    case 4: {
+      const array: unknown[] = [];
+      while (argument < 0 ? reader.peekByte() !== BREAK : array.length < argument) {
+        array.push(decodeValue(reader));
+      }
+      if (argument < 0) {
+        reader.readByte();
+      }
+      return array;
+    }
+    case 5: {
+      const object: Record<string, unknown> = {};
+      for (let i = 0; argument < 0 ? reader.peekByte() !== BREAK : i < argument; i++) {
+        const key = String(decodeValue(reader));
+        // Defined as an own property, as JSON.parse does for "__proto__"
+        Object.defineProperty(object, key, {
+          configurable: true,
+          enumerable: true,
+          value: decodeValue(reader),
+          writable: true,
+        });
+      }
+      if (argument < 0) {
+        reader.readByte();
+      }
+      return object;
+    }
+    default:
+      return decodeTagged(reader, argument);
+  }
+}
+
+/**
+ * Decodes a CBOR value. `null` values are decoded as `undefined`, as in the
+ * JSON responses.
+ *
+ * @param bytes - The encoded bytes.
+ * @returns The decoded value.
+ */
+export function decodeCbor(bytes: Uint8Array): unknown {
+  const reader = new CborReader(bytes);
+  if (reader.isAtEnd) {
+    return undefined;
+  }
+  return decodeValue(reader);
+}
@@ -1,4 +1,5 @@
 import type { ReactiveControllerHost } from '@lit/reactive-element';
+import { decodeCbor, encodeCbor } from './Cbor.js';
 import csrfInfoSource from './CsrfInfoSource.js';
 import {
   EndpointError,
@@ -108,6 +109,71 @@ const assertResponseIsOk = async (response: Response): Promise<void> => {
   }
 };
 
+/**
+ * Gets the file name from the `Content-Disposition` header of a download.
+ * @param disposition - The header value.
+ */
+function getDownloadFilename(disposition: string): string {
+  const encoded = /filename\*=UTF-8''([^;]+)/iu.exec(disposition);
+  if (encoded) {
+    try {
+      return decodeURIComponent(encoded[1].trim());
+    } catch {
+      // Use the plain file name instead
+    }
+  }
+  const plain = /filename="((?:[^"\\]|\\.)*)"/iu.exec(disposition) ?? /filename=([^;]+)/iu.exec(disposition);
+  return plain ? plain[1].replace(/\\(.)/gu, '$1').trim() : '';
+}
+
+/**
+ * Checks if the response is a download, which the server sends for methods
+ * that return an `InputStream` or a `Resource`.
+ * @param response - The response to check.
+ */
+function isDownload(response: Response): boolean {
+  return response.headers.get('Content-Disposition')?.startsWith('attachment') ?? false;
+}
+
+const NDJSON = 'application/x-ndjson';
+
+/**
+ * Converts `null` values to `undefined` when parsing JSON responses.
+ */
+const nullToUndefined = (_: string, value: any): any => (value === null ? undefined : value);
+
+/**
+ * Parses the lines of a newline-delimited JSON body as they arrive.
+ * @param body - The response body.
+ */
+async function* readNdjson<T>(body: ReadableStream<Uint8Array>): AsyncGenerator<T, void, undefined> {
+  const reader = body.getReader();
+  const decoder = new TextDecoder();
+  let buffered = '';
+  let done = false;
+  try {
+    while (!done) {
+      const chunk = await reader.read();
+      done = chunk.done;
+      buffered += done ? decoder.decode() : decoder.decode(chunk.value, { stream: true });
+      const lines = buffered.split('\n');
+      // The last line may not be complete yet
+      buffered = done ? '' : lines.pop()!;
+      for (const line of lines) {
+        if (line.trim()) {
+          yield JSON.parse(line, nullToUndefined);
+        }
+      }
+    }
+  } finally {
+    if (!done) {
+      // The iteration was stopped early, the rest is not needed
+      await reader.cancel().catch(() => undefined);
+    }
+    reader.releaseLock();
+  }
+}
+
 /**
  * The `ConnectClient` constructor options.
  */
@@ -124,8 +190,21 @@ export interface ConnectClientOptions {
    * The Atmosphere options for the FluxConnection.
    */
   atmosphereOptions?: Partial<Atmosphere.Request>;
+  /**
+   * The `batch` property value.
+   */
+  batch?: boolean;
+  /**
+   * The `wireFormat` property value.
+   */
+  wireFormat?: WireFormat;
 }
 
+/**
+ * The format of the endpoint call request and response bodies.
+ */
+export type WireFormat = 'cbor' | 'json';
+
 export interface EndpointCallMetaInfo {
   /**
    * The endpoint name.
@@ -184,6 +263,23 @@ export type MiddlewareFunction = (context: MiddlewareContext, next: MiddlewareNe
  */
 export type Middleware = MiddlewareClass | MiddlewareFunction;
 
+/**
+ * A call waiting to be sent to the server as part of a batch request.
+ */
+interface BatchedCall {
+  context: MiddlewareContext;
+  reject(reason: unknown): void;
+  resolve(response: Response): void;
+}
+
+/**
+ * The result of a single call in a batch response.
+ */
+interface BatchedCallResult {
+  body?: unknown;
+  status: number;
+}
+
 /**
  * Extracts file objects from the object that is used to build the request body.
  *
@@ -253,6 +349,19 @@ export interface EndpointRequestInit {
  *
  * The default prefix is '/connect'.
  *
+ * ### Batching
+ *
+ * When the `batch` option is enabled, calls that are made in the same event
+ * loop task are sent to the server in a single request. Middlewares still see
+ * each call separately, with its own request and response. Only the calls
+ * whose requests have the same URL and headers after the middlewares are
+ * merged, the others are sent alone. The server must have batch requests
+ * enabled with `vaadin.endpoint.batch-enabled=true`, otherwise the calls are
+ * sent alone.
+ * ```js
+ * const client = new ConnectClient({batch: true});
+ * ```
+ *
  */
 export class ConnectClient {
   /**
@@ -267,8 +376,23 @@ export class ConnectClient {
    * The Atmosphere options for the FluxConnection.
    */
   atmosphereOptions: Partial<Atmosphere.Request> = {};
+  /**
+   * If true, calls made in the same event loop task are merged into one batch
+   * request. Methods that return a download cannot be called in a batch, use
+   * {@link ConnectClient.download} for them instead.
+   */
+  batch = false;
+  /**
+   * The format of the call request and response bodies. With `'cbor'`, the
+   * bodies are sent in the more compact CBOR format, which requires
+   * `jackson-dataformat-cbor` on the server. Batching and calls that upload
+   * files always use JSON.
+   */
+  wireFormat: WireFormat = 'json';
 
   #fluxConnection?: FluxConnection;
+  #batchedCalls: BatchedCall[] = [];
+  #batchSupported = true;
 
   /**
    * @param options - Constructor options.
@@ -285,6 +409,14 @@ export class ConnectClient {
     if (options.atmosphereOptions) {
       this.atmosphereOptions = options.atmosphereOptions;
     }
+
+    if (options.batch) {
+      this.batch = options.batch;
+    }
+
+    if (options.wireFormat) {
+      this.wireFormat = options.wireFormat;
+    }
   }
 
   /**
@@ -307,7 +439,8 @@ export class ConnectClient {
    * @param method - Method name to call in the endpoint class.
    * @param params - Optional parameters to pass to the method.
    * @param init - Optional parameters for the request
-   * @returns Decoded JSON response data.
+   * @returns Decoded JSON response data. For methods that return a download,
+   * the content as a `File`.
    */
   async call(
     endpoint: string,
@@ -318,10 +451,84 @@ export class ConnectClient {
     if (arguments.length < 2) {
       throw new TypeError(`2 arguments required, but got only ${arguments.length}`);
     }
+    return this.#call(endpoint, method, params, init);
+  }
 
+  /**
+   * Calls the given endpoint method that returns a download, i.e. an
+   * `InputStream` or a `Resource`, and returns the content as a stream. The
+   * content can be processed as it arrives, instead of waiting for all of it
+   * as with {@link ConnectClient.call}.
+   *
+   * @param endpoint - Endpoint name.
+   * @param method - Method name to call in the endpoint class.
+   * @param params - Optional parameters to pass to the method.
+   * @param init - Optional parameters for the request
+   * @returns The stream of the downloaded content.
+   */
+  async download(
+    endpoint: string,
+    method: string,
+    params?: Record<string, unknown>,
+    init?: EndpointRequestInit,
+  ): Promise<ReadableStream<Uint8Array>> {
+    const response: Response = await this.#call(endpoint, method, params, init, '*/*');
+    return response.body ?? new Blob().stream();
+  }
+
+  /**
+   * Calls the given endpoint method that returns a `Stream`, an `Iterator` or
+   * a collection, and iterates over the elements as they arrive. The server
+   * sends the elements as newline-delimited JSON, so that they can be
+   * rendered progressively instead of waiting for the whole result.
+   *
+   * Breaking out of the iteration aborts the rest of the response.
+   *
+   * @param endpoint - Endpoint name.
+   * @param method - Method name to call in the endpoint class.
+   * @param params - Optional parameters to pass to the method.
+   * @param init - Optional parameters for the request
+   * @returns An async iterator over the elements of the result.
+   */
+  async *iterate<T = any>(
+    endpoint: string,
+    method: string,
+    params?: Record<string, unknown>,
+    init?: EndpointRequestInit,
+  ): AsyncGenerator<T, void, undefined> {
+    const response: Response = await this.#call(endpoint, method, params, init, `${NDJSON}, application/json`);
+    if (!response.headers.get('Content-Type')?.startsWith(NDJSON) || !response.body) {
+      // Results without elements are sent as usual
+      const text = await response.text();
+      const value = text ? JSON.parse(text, nullToUndefined) : undefined;
+      if (Array.isArray(value)) {
+        yield* value;
+      } else if (value !== undefined) {
+        yield value;
+      }
+      return;
+    }
+    yield* readNdjson<T>(response.body);
+  }
+
+  /**
+   * Sends the call through the middlewares. With an `accept` value, the call
+   * is sent alone with a JSON body, and the response is returned as is for
+   * the caller to read.
+   */
+  async #call(
+    endpoint: string,
+    method: string,
+    params: Record<string, unknown> | undefined,
+    init: EndpointRequestInit | undefined,
+    accept?: string,
+  ): Promise<any> {
     const csrfInfo = await csrfInfoSource.get();
+    const raw = accept !== undefined;
+    const cbor = this.wireFormat === 'cbor' && !raw;
     const headers: Record<string, string> = {
-      Accept: 'application/json',
+      // Errors are always sent as JSON
+      Accept: accept ?? (cbor ? 'application/cbor, application/json' : 'application/json'),
       ...Object.fromEntries(csrfInfo.headerEntries),
     };
 
@@ -339,6 +546,11 @@ export class ConnectClient {
       for (const [path, file] of files) {
         body.append(path, file);
       }
+    } else if (cbor) {
+      headers['Content-Type'] = 'application/cbor';
+      if (params) {
+        body = encodeCbor(params);
+      }
     } else {
       headers['Content-Type'] = 'application/json';
       if (params) {
@@ -368,10 +580,31 @@ export class ConnectClient {
     async function responseHandlerMiddleware(context: MiddlewareContext, next: MiddlewareNext): Promise<Response> {
       const response = await next(context);
       await assertResponseIsOk(response);
+      if (raw) {
+        return response;
+      }
+      if (isDownload(response)) {
+        const blob = await response.blob();
+        return new File([blob], getDownloadFilename(response.headers.get('Content-Disposition')!), {
+          type: blob.type,
+        }) as any;
+      }
+      if (response.headers.get('Content-Type')?.startsWith('application/cbor')) {
+        return decodeCbor(new Uint8Array(await response.arrayBuffer())) as any;
+      }
       const text = await response.text();
-      return JSON.parse(text, (_, value: any) => (value === null ? undefined : value));
+      return JSON.parse(text, nullToUndefined);
     }
 
+    // Calls that can be aborted, upload files or stream the response are
+    // always sent alone
+    const batched = this.batch && !cbor && !raw && !init?.signal && files.size === 0;
+    const send = async (context: MiddlewareContext) =>
+      // Calls that a middleware has sent elsewhere are sent alone as well
+      batched && this.#batchSupported && context.request.url === request.url
+        ? this.#enqueueBatchedCall(context)
+        : fetch(context.request, { signal: init?.signal });
+
     // The actual fetch call itself is expressed as a middleware
     // chain item for our convenience. Always having an ending of the chain
     // this way makes the folding down below more concise.
@@ -380,7 +613,7 @@ export class ConnectClient {
       const connectionState = init?.mute ? undefined : $wnd.Vaadin?.connectionState;
       connectionState?.loadingStarted();
       try {
-        const response = await fetch(context.request, { signal: init?.signal });
+        const response = await send(context);
         connectionState?.loadingFinished();
         return response;
       } catch (error: unknown) {
@@ -432,4 +665,90 @@ export class ConnectClient {
   subscribe(endpoint: string, method: string, params?: any): Subscription<any> {
     return this.fluxConnection.subscribe(endpoint, method, params ? Object.values(params) : []);
   }
+
+  async #enqueueBatchedCall(context: MiddlewareContext): Promise<Response> {
+    return new Promise((resolve, reject) => {
+      this.#batchedCalls.push({ context, reject, resolve });
+      if (this.#batchedCalls.length === 1) {
+        setTimeout(() => {
+          void this.#sendBatch();
+        }, 0);
+      }
+    });
+  }
+
+  async #sendBatch(): Promise<void> {
+    const calls = this.#batchedCalls;
+    this.#batchedCalls = [];
+
+    // The batch request has the headers of its calls, so only the calls
+    // whose headers are the same after the middlewares are sent together
+    const groups = new Map<string, BatchedCall[]>();
+    for (const call of calls) {
+      const key = JSON.stringify(Array.from(call.context.request.headers.entries()));
+      groups.set(key, [...(groups.get(key) ?? []), call]);
+    }
+    await Promise.all(Array.from(groups.values(), async (group) => this.#sendBatchGroup(group)));
+  }
+
+  async #sendBatchGroup(calls: BatchedCall[]): Promise<void> {
+    const sendAlone = ({ context, resolve, reject }: BatchedCall) => {
+      fetch(context.request).then(resolve, reject);
+    };
+
+    if (calls.length === 1) {
+      sendAlone(calls[0]);
+      return;
+    }
+
+    try {
+      const entries = await Promise.all(
+        calls.map(async ({ context }) => {
+          // The request is kept unread in case it is sent alone
+          const text = await context.request.clone().text();
+          return {
+            endpoint: context.endpoint,
+            method: context.method,
+            params: text ? JSON.parse(text) : undefined,
+          };
+        }),
+      );
+      const headers = new Headers(calls[0].context.request.headers);
+      headers.set('Content-Type', 'application/json');
+      const response = await fetch(`${this.prefix}/_batch`, {
+        body: JSON.stringify(entries),
+        headers,
+        method: 'POST',
+      });
+
+      if (response.status === 404) {
+        // Batch requests are not enabled on the server
+        this.#batchSupported = false;
+        calls.forEach(sendAlone);
+        return;
+      }
+
+      if (!response.ok) {
+        // The whole batch was rejected, e.g. because of a missing CSRF token
+        calls.forEach(({ resolve }) => resolve(response.clone()));
+        return;
+      }
+
+      const results: unknown = await response.json();
+      if (!Array.isArray(results) || results.length !== calls.length) {
+        throw new Error(`Expected ${calls.length} results in the batch response`);
+      }
+      (results as BatchedCallResult[]).forEach(({ body, status }, index) => {
+        const { resolve } = calls[index];
+        resolve(
+          new Response(body === undefined ? null : JSON.stringify(body), {
+            headers: { 'Content-Type': 'application/json' },
+            status,
+          }),
+        );
+      });
+    } catch (error: unknown) {
+      calls.forEach(({ reject }) => reject(error));
+    }
+  }
 }
@@ -6,6 +6,7 @@ import {
   type ServerCloseMessage,
   type ServerConnectMessage,
   type ServerMessage,
+  type ServerRequestMessage,
 } from './FluxMessages.js';
 import { VAADIN_BROWSER_ENVIRONMENT } from './utils.js';
 
@@ -71,6 +72,13 @@ type EndpointInfo = {
   reconnect?(): ActionOnLostSubscription | void;
 };
 
+/**
+ * The number of items the server can send for a subscription before the client has processed them. More items are
+ * requested once half of them have been processed, so that a client that is busy slows down the server. Only sent for
+ * the subscriptions whose first update tells that the server uses the credits.
+ */
+const CREDIT_WINDOW = 64;
+
 // eslint-disable-next-line @typescript-eslint/no-unnecessary-condition
 const atmospherePromise = VAADIN_BROWSER_ENVIRONMENT ? import('atmosphere.js') : undefined;
 
@@ -87,6 +95,8 @@ export class FluxConnection extends EventTarget {
   readonly #onNextCallbacks = new Map<string, (value: any) => void>();
   readonly #onStateChangeCallbacks = new Map<string, (event: FluxSubscriptionStateChangeEvent) => void>();
   readonly #statusOfSubscriptions = new Map<string, FluxSubscriptionState>();
+  readonly #processedItems = new Map<string, number>();
+  readonly #creditedSubscriptions = new Set<string>();
   #pendingMessages: ServerMessage[] = [];
   #socket?: Atmosphere.Request;
   readonly #ready: Promise<void>;
@@ -103,12 +113,19 @@ export class FluxConnection extends EventTarget {
       this.#endpointInfos.forEach((endpointInfo, id) => {
         if (endpointInfo.reconnect?.() === ActionOnLostSubscription.RESUBSCRIBE) {
           this.#setSubscriptionConnState(id, FluxSubscriptionState.CONNECTING);
+          // The new server subscription starts with a full window of credits
+          this.#processedItems.delete(id);
+          this.#creditedSubscriptions.delete(id);
+          this.#pendingMessages = this.#pendingMessages.filter(
+            (message) => message['@type'] !== 'request' || message.id !== id,
+          );
           this.#send({
             '@type': 'subscribe',
             endpointName: endpointInfo.endpointName,
             id,
             methodName: endpointInfo.methodName,
             params: endpointInfo.params,
+            request: CREDIT_WINDOW,
           });
         } else {
           toBeRemoved.push(id);
@@ -138,7 +155,14 @@ export class FluxConnection extends EventTarget {
     this.#nextId += 1;
     const params = parameters ?? [];
 
-    const msg: ServerConnectMessage = { '@type': 'subscribe', endpointName, id, methodName, params };
+    const msg: ServerConnectMessage = {
+      '@type': 'subscribe',
+      endpointName,
+      id,
+      methodName,
+      params,
+      request: CREDIT_WINDOW,
+    };
     this.#send(msg);
     this.#endpointInfos.set(id, { endpointName, methodName, params });
     this.#setSubscriptionConnState(id, FluxSubscriptionState.CONNECTING);
@@ -285,16 +309,23 @@ export class FluxConnection extends EventTarget {
   }
 
   #handleMessage(message: unknown) {
-    if (isClientMessage(message)) {
+    if (Array.isArray(message)) {
+      // The server sends the messages that are pending at once in one frame
+      message.forEach((item) => this.#handleMessage(item));
+    } else if (isClientMessage(message)) {
       const { id } = message;
       const endpointInfo = this.#endpointInfos.get(id);
 
       if (message['@type'] === 'update') {
+        if (message.credits) {
+          this.#creditedSubscriptions.add(id);
+        }
         const callback = this.#onNextCallbacks.get(id);
         if (callback) {
           callback(message.item);
         }
         this.#setSubscriptionConnState(id, FluxSubscriptionState.CONNECTED);
+        this.#requestMoreItems(id);
       } else if (message['@type'] === 'complete') {
         this.#onCompleteCallbacks.get(id)?.();
         this.#removeSubscription(id);
@@ -317,6 +348,20 @@ export class FluxConnection extends EventTarget {
     }
   }
 
+  #requestMoreItems(id: string) {
+    if (!this.#endpointInfos.has(id) || !this.#creditedSubscriptions.has(id)) {
+      return;
+    }
+    const processedItems = (this.#processedItems.get(id) ?? 0) + 1;
+    if (processedItems < CREDIT_WINDOW / 2) {
+      this.#processedItems.set(id, processedItems);
+      return;
+    }
+    this.#processedItems.delete(id);
+    const requestMessage: ServerRequestMessage = { '@type': 'request', id, n: processedItems };
+    this.#send(requestMessage);
+  }
+
   #removeSubscription(id: string) {
     this.#setSubscriptionConnState(id, FluxSubscriptionState.CLOSED);
     this.#statusOfSubscriptions.delete(id);
@@ -325,6 +370,8 @@ export class FluxConnection extends EventTarget {
     this.#onCompleteCallbacks.delete(id);
     this.#onErrorCallbacks.delete(id);
     this.#endpointInfos.delete(id);
+    this.#processedItems.delete(id);
+    this.#creditedSubscriptions.delete(id);
   }
 
   #send(message: ServerMessage) {
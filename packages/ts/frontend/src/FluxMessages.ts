@@ -13,6 +13,8 @@ export interface ClientCompleteMessage extends AbstractMessage {
 export interface ClientUpdateMessage extends AbstractMessage {
   '@type': 'update';
   item: any;
+  /** Set on the first update of a subscription whose items are limited by the credits the client requests. */
+  credits?: boolean;
 }
 
 export type ClientMessage = ClientCompleteMessage | ClientErrorMessage | ClientUpdateMessage;
@@ -27,10 +29,18 @@ export interface ServerConnectMessage extends AbstractMessage {
   endpointName: string;
   methodName: string;
   params?: any;
+  /** The number of items the server can send before more are requested. */
+  request?: number;
 }
 export interface ServerCloseMessage extends AbstractMessage {
   id: string;
   '@type': 'unsubscribe';
 }
 
-export type ServerMessage = ServerCloseMessage | ServerConnectMessage;
+export interface ServerRequestMessage extends AbstractMessage {
+  id: string;
+  '@type': 'request';
+  n: number;
+}
+
+export type ServerMessage = ServerCloseMessage | ServerConnectMessage | ServerRequestMessage;
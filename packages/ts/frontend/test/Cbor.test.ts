@@ -0,0 +1,88 @@
+import { describe, expect, it } from 'vitest';
+import { decodeCbor, encodeCbor } from '../src/Cbor.js';
+
+describe('@vaadin/hilla-frontend', () => {
+  describe('Cbor', () => {
+    it('should encode values as in RFC 8949 examples', () => {
+      expect(Array.from(encodeCbor(0))).to.deep.equal([0x00]);
+      expect(Array.from(encodeCbor(100))).to.deep.equal([0x18, 0x64]);
+      expect(Array.from(encodeCbor(-1000))).to.deep.equal([0x39, 0x03, 0xe7]);
+      expect(Array.from(encodeCbor('a'))).to.deep.equal([0x61, 0x61]);
+      expect(Array.from(encodeCbor([1, [2, 3]]))).to.deep.equal([0x82, 0x01, 0x82, 0x02, 0x03]);
+      expect(Array.from(encodeCbor({ a: 1 }))).to.deep.equal([0xa1, 0x61, 0x61, 0x01]);
+      expect(Array.from(encodeCbor(undefined))).to.deep.equal([0xf6]);
+    });
+
+    it('should round trip values', () => {
+      const value = {
+        date: '2024-01-01T00:00:00.000Z',
+        float: 1.5,
+        large: 2 ** 40,
+        list: ['foo', true, false],
+        nested: { text: 'äö€𝄞' },
+      };
+
+      expect(decodeCbor(encodeCbor(value))).to.deep.equal(value);
+    });
+
+    it('should decode byte strings as base64 strings, as in JSON', () => {
+      // byte[] { 1, 2, 3 } as written by the server
+      expect(decodeCbor(new Uint8Array([0x43, 0x01, 0x02, 0x03]))).to.equal('AQID');
+      expect(decodeCbor(encodeCbor({ bytes: new Uint8Array([1, 2, 3]) }))).to.deep.equal({ bytes: 'AQID' });
+    });
+
+    it('should decode big integers as numbers, as in JSON', () => {
+      // BigInteger 2^64 and -2^64 - 1 as written by the server
+      const bignum = [0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00];
+
+      expect(decodeCbor(new Uint8Array([0xc2, ...bignum]))).to.equal(18446744073709551616);
+      expect(decodeCbor(new Uint8Array([0xc3, ...bignum]))).to.equal(-18446744073709551617);
+    });
+
+    it('should decode decimal fractions as numbers, as in JSON', () => {
+      // BigDecimal 1.5 as written by the server
+      expect(decodeCbor(new Uint8Array([0xc4, 0x82, 0x20, 0x0f]))).to.equal(1.5);
+      // BigDecimal -0.001 and 12345678901234567890.5, with a bignum mantissa
+      expect(decodeCbor(new Uint8Array([0xc4, 0x82, 0x22, 0x20]))).to.equal(-0.001);
+      expect(
+        decodeCbor(
+          new Uint8Array([0xc4, 0x82, 0x20, 0xc2, 0x49, 0x06, 0xb1, 0x4e, 0x9f, 0x81, 0x2f, 0x36, 0x6c, 0x39]),
+        ),
+      ).to.equal(JSON.parse('12345678901234567890.5'));
+    });
+
+    it('should decode null as undefined', () => {
+      expect(decodeCbor(new Uint8Array([0xf6]))).to.be.undefined;
+      expect(decodeCbor(new Uint8Array([]))).to.be.undefined;
+    });
+
+    it('should decode indefinite lengths and half floats', () => {
+      // {_ "a": [_ 1, 1.5]} with the float as a half float
+      const bytes = new Uint8Array([0xbf, 0x61, 0x61, 0x9f, 0x01, 0xf9, 0x3e, 0x00, 0xff, 0xff]);
+
+      expect(decodeCbor(bytes)).to.deep.equal({ a: [1, 1.5] });
+    });
+
+    it('should decode "__proto__" keys as own properties, as in JSON', () => {
+      // {"__proto__": {"a": 1}}
+      const bytes = new Uint8Array([
+        0xa1, 0x69, 0x5f, 0x5f, 0x70, 0x72, 0x6f, 0x74, 0x6f, 0x5f, 0x5f, 0xa1, 0x61, 0x61, 0x01,
+      ]);
+      const decoded = decodeCbor(bytes) as Record<string, unknown>;
+
+      expect(Object.getPrototypeOf(decoded)).to.equal(Object.prototype);
+      expect(Object.keys(decoded)).to.deep.equal(['__proto__']);
+      expect(decoded).to.deep.equal(JSON.parse('{"__proto__": {"a": 1}}'));
+    });
+
+    it('should encode dates as in JSON', () => {
+      const date = new Date(Date.UTC(2024, 0, 1));
+
+      expect(decodeCbor(encodeCbor({ date }))).to.deep.equal({ date: date.toJSON() });
+    });
+
+    it('should reject truncated data', () => {
+      expect(() => decodeCbor(new Uint8Array([0x62, 0x61]))).to.throw(SyntaxError);
+    });
+  });
+});
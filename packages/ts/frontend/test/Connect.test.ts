@@ -7,6 +7,7 @@ import sinon from 'sinon';
 import sinonChai from 'sinon-chai';
 import type { WritableDeep } from 'type-fest';
 import { expect, chai, describe, it, beforeEach, afterEach, beforeAll, afterAll } from 'vitest';
+import { decodeCbor, encodeCbor } from '../src/Cbor.js';
 import type { MiddlewareContext, MiddlewareNext } from '../src/Connect.js';
 import CookieManager from '../src/CookieManager.js';
 import csrfInfoSource, {
@@ -644,6 +645,364 @@ describe('@vaadin/hilla-frontend', () => {
       });
     });
 
+    describe('batch', () => {
+      let client: ConnectClient;
+
+      beforeEach(() => {
+        client = new ConnectClient({ batch: true });
+      });
+
+      afterEach(() => {
+        fetchMock.removeRoutes().clearHistory();
+      });
+
+      it('should be disabled by default', () => {
+        expect(new ConnectClient().batch).to.be.false;
+        expect(client.batch).to.be.true;
+      });
+
+      it('should merge calls made in the same task into one request', async () => {
+        fetchMock.post(`${base}/connect/_batch`, [
+          { body: { fooData: 'foo' }, status: 200 },
+          { body: 'bar', status: 200 },
+        ]);
+
+        const [foo, bar] = await Promise.all([
+          client.call('FooEndpoint', 'fooMethod', { id: 1 }),
+          client.call('BarEndpoint', 'barMethod'),
+        ]);
+
+        expect(foo).to.deep.equal({ fooData: 'foo' });
+        expect(bar).to.equal('bar');
+        expect(fetchMock.callHistory.calls()).to.have.lengthOf(1);
+        const body = JSON.parse(fetchMock.callHistory.lastCall()?.options.body as string);
+        expect(body).to.deep.equal([
+          { endpoint: 'FooEndpoint', method: 'fooMethod', params: { id: 1 } },
+          { endpoint: 'BarEndpoint', method: 'barMethod' },
+        ]);
+      });
+
+      it('should send a single call alone', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/fooMethod`, { fooData: 'foo' });
+
+        const foo = await client.call('FooEndpoint', 'fooMethod');
+
+        expect(foo).to.deep.equal({ fooData: 'foo' });
+        expect(fetchMock.callHistory.lastCall()?.url).to.equal(`${base}/connect/FooEndpoint/fooMethod`);
+      });
+
+      it('should reject only the failed calls of a batch', async () => {
+        fetchMock.post(`${base}/connect/_batch`, [
+          { body: { fooData: 'foo' }, status: 200 },
+          { body: { message: 'Access denied' }, status: 401 },
+        ]);
+
+        const [foo, bar] = await Promise.allSettled([
+          client.call('FooEndpoint', 'fooMethod'),
+          client.call('BarEndpoint', 'barMethod'),
+        ]);
+
+        expect(foo).to.deep.equal({ status: 'fulfilled', value: { fooData: 'foo' } });
+        expect(bar.status).to.equal('rejected');
+        expect((bar as PromiseRejectedResult).reason).to.be.instanceOf(UnauthorizedResponseError);
+      });
+
+      it('should pass each batched call through the middlewares', async () => {
+        fetchMock.post(`${base}/connect/_batch`, [
+          { body: 1, status: 200 },
+          { body: 2, status: 200 },
+        ]);
+        const statuses: number[] = [];
+        client.middlewares = [
+          async (context, next) => {
+            const response = await next(context);
+            statuses.push(response.status);
+            return response;
+          },
+        ];
+
+        const results = await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]);
+
+        expect(results).to.deep.equal([1, 2]);
+        expect(statuses).to.deep.equal([200, 200]);
+      });
+
+      it('should reject all calls if the batch request fails', async () => {
+        fetchMock.post(`${base}/connect/_batch`, Promise.reject(new TypeError('Network failure')));
+
+        const results = await Promise.allSettled([
+          client.call('FooEndpoint', 'one'),
+          client.call('FooEndpoint', 'two'),
+        ]);
+
+        expect(results.map(({ status }) => status)).to.deep.equal(['rejected', 'rejected']);
+      });
+
+      it('should reject all calls if the batch response has too few results', async () => {
+        fetchMock.post(`${base}/connect/_batch`, [{ body: 1, status: 200 }]);
+
+        const results = await Promise.allSettled([
+          client.call('FooEndpoint', 'one'),
+          client.call('FooEndpoint', 'two'),
+        ]);
+
+        expect(results.map(({ status }) => status)).to.deep.equal(['rejected', 'rejected']);
+      });
+
+      it('should send calls alone if middlewares gave them different headers', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/one`, 1);
+        fetchMock.post(`${base}/connect/FooEndpoint/two`, 2);
+        client.middlewares = [
+          async (context, next) => {
+            const headers = new Headers(context.request.headers);
+            headers.set('X-Call', context.method);
+            return next({ ...context, request: new Request(context.request, { headers }) });
+          },
+        ];
+
+        const results = await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]);
+
+        expect(results).to.deep.equal([1, 2]);
+        expect(fetchMock.callHistory.calls().filter(({ url }) => url.endsWith('/_batch'))).to.have.lengthOf(0);
+      });
+
+      it('should send a call alone if a middleware changed its URL', async () => {
+        fetchMock.post(`${base}/connect/_batch`, [{ body: 2, status: 200 }]);
+        fetchMock.post(`${base}/other/FooEndpoint/one`, 1);
+        fetchMock.post(`${base}/connect/FooEndpoint/two`, 2);
+        client.middlewares = [
+          async (context, next) =>
+            next(
+              context.method === 'one'
+                ? { ...context, request: new Request(`${base}/other/FooEndpoint/one`, context.request) }
+                : context,
+            ),
+        ];
+
+        const results = await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]);
+
+        expect(results).to.deep.equal([1, 2]);
+        expect(fetchMock.callHistory.calls().filter(({ url }) => url.endsWith('/_batch'))).to.have.lengthOf(0);
+      });
+
+      it('should send calls alone if batch requests are not enabled on the server', async () => {
+        fetchMock.post(`${base}/connect/_batch`, 404);
+        fetchMock.post(`${base}/connect/FooEndpoint/one`, 1);
+        fetchMock.post(`${base}/connect/FooEndpoint/two`, 2);
+
+        expect(
+          await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]),
+        ).to.deep.equal([1, 2]);
+        expect(
+          await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]),
+        ).to.deep.equal([1, 2]);
+
+        expect(fetchMock.callHistory.calls().filter(({ url }) => url.endsWith('/_batch'))).to.have.lengthOf(1);
+        expect(fetchMock.callHistory.calls()).to.have.lengthOf(5);
+      });
+    });
+
+    describe('cbor wire format', () => {
+      let client: ConnectClient;
+
+      beforeEach(() => {
+        client = new ConnectClient({ batch: true, wireFormat: 'cbor' });
+      });
+
+      afterEach(() => {
+        fetchMock.removeRoutes().clearHistory();
+      });
+
+      it('should use JSON by default', () => {
+        expect(new ConnectClient().wireFormat).to.equal('json');
+        expect(client.wireFormat).to.equal('cbor');
+      });
+
+      it('should send and receive CBOR bodies', async () => {
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/fooMethod`,
+          new Response(encodeCbor({ fooData: 'foo', missing: null }), {
+            headers: { 'Content-Type': 'application/cbor' },
+          }),
+        );
+
+        const result = await client.call('FooEndpoint', 'fooMethod', { fooParam: 'foo' });
+
+        expect(result).to.deep.equal({ fooData: 'foo', missing: undefined });
+        const request = fetchMock.callHistory.lastCall()?.request;
+        expect(request?.headers.get('content-type')).to.equal('application/cbor');
+        expect(request?.headers.get('accept')).to.equal('application/cbor, application/json');
+        expect(decodeCbor(new Uint8Array(await request!.arrayBuffer()))).to.deep.equal({ fooParam: 'foo' });
+      });
+
+      it('should read JSON error responses', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/fooMethod`, {
+          body: { message: 'Something bad happened', type: 'java.lang.IllegalStateException' },
+          status: 400,
+        });
+
+        await expect(client.call('FooEndpoint', 'fooMethod')).to.be.rejectedWith(EndpointError);
+      });
+
+      it('should not batch calls', async () => {
+        fetchMock.post(
+          `begin:${base}/connect/FooEndpoint/`,
+          () => new Response(encodeCbor(1), { headers: { 'Content-Type': 'application/cbor' } }),
+        );
+
+        await Promise.all([client.call('FooEndpoint', 'one'), client.call('FooEndpoint', 'two')]);
+
+        expect(fetchMock.callHistory.calls()).to.have.lengthOf(2);
+      });
+    });
+
+    describe('downloads', () => {
+      let client: ConnectClient;
+
+      beforeEach(() => {
+        client = new ConnectClient({ batch: true });
+      });
+
+      afterEach(() => {
+        fetchMock.removeRoutes().clearHistory();
+      });
+
+      it('should return a file from call', async () => {
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/export`,
+          new Response('a,b', {
+            headers: {
+              'Content-Disposition': `attachment; filename="report.csv"; filename*=UTF-8''r%C3%A9port.csv`,
+              'Content-Type': 'text/csv',
+            },
+          }),
+        );
+
+        const file: File = await client.call('FooEndpoint', 'export');
+
+        expect(file).to.be.instanceOf(File);
+        expect(file.name).to.equal('réport.csv');
+        expect(file.type).to.equal('text/csv');
+        expect(await file.text()).to.equal('a,b');
+      });
+
+      it('should use an empty file name when none is sent', async () => {
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/export`,
+          new Response('data', { headers: { 'Content-Disposition': 'attachment' } }),
+        );
+
+        const file: File = await client.call('FooEndpoint', 'export');
+
+        expect(file.name).to.equal('');
+        expect(await file.text()).to.equal('data');
+      });
+
+      it('should return a stream from download', async () => {
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/export`,
+          new Response('streamed', { headers: { 'Content-Disposition': 'attachment' } }),
+        );
+
+        const stream = await client.download('FooEndpoint', 'export', { fooParam: 'foo' });
+
+        expect(await new Response(stream).text()).to.equal('streamed');
+        const request = fetchMock.callHistory.lastCall()?.request;
+        expect(request?.url).to.equal(`${base}/connect/FooEndpoint/export`);
+        expect(await request?.json()).to.deep.equal({ fooParam: 'foo' });
+      });
+
+      it('should throw from download when the call fails', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/export`, {
+          body: { message: 'Something bad happened', type: 'java.lang.IllegalStateException' },
+          status: 400,
+        });
+
+        await expect(client.download('FooEndpoint', 'export')).to.be.rejectedWith(EndpointError);
+      });
+    });
+
+    describe('iterate method', () => {
+      let client: ConnectClient;
+
+      beforeEach(() => {
+        client = new ConnectClient({ batch: true });
+      });
+
+      afterEach(() => {
+        fetchMock.removeRoutes().clearHistory();
+      });
+
+      async function collect<T>(iterator: AsyncIterable<T>): Promise<T[]> {
+        const items: T[] = [];
+        for await (const item of iterator) {
+          items.push(item);
+        }
+        return items;
+      }
+
+      it('should yield the lines of a newline-delimited JSON response', async () => {
+        const encoder = new TextEncoder();
+        const body = new ReadableStream<Uint8Array>({
+          start(controller) {
+            // Lines split across chunks
+            controller.enqueue(encoder.encode('{"id":1,"name":null}\n{"id"'));
+            controller.enqueue(encoder.encode(':2}\n'));
+            controller.close();
+          },
+        });
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/list`,
+          new Response(body, { headers: { 'Content-Type': 'application/x-ndjson' } }),
+        );
+
+        const items = await collect(client.iterate('FooEndpoint', 'list', { fooParam: 'foo' }));
+
+        expect(items).to.deep.equal([{ id: 1, name: undefined }, { id: 2 }]);
+        const request = fetchMock.callHistory.lastCall()?.request;
+        expect(request?.headers.get('accept')).to.equal('application/x-ndjson, application/json');
+        expect(await request?.json()).to.deep.equal({ fooParam: 'foo' });
+      });
+
+      it('should yield the items of a JSON array response', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/list`, { body: [1, 2, 3] });
+
+        expect(await collect(client.iterate('FooEndpoint', 'list'))).to.deep.equal([1, 2, 3]);
+      });
+
+      it('should stop reading when the iteration is stopped', async () => {
+        let cancelled = false;
+        const body = new ReadableStream<Uint8Array>({
+          start(controller) {
+            controller.enqueue(new TextEncoder().encode('1\n2\n'));
+          },
+          cancel() {
+            cancelled = true;
+          },
+        });
+        fetchMock.post(
+          `${base}/connect/FooEndpoint/list`,
+          new Response(body, { headers: { 'Content-Type': 'application/x-ndjson' } }),
+        );
+
+        for await (const item of client.iterate('FooEndpoint', 'list')) {
+          expect(item).to.equal(1);
+          break;
+        }
+
+        expect(cancelled).to.be.true;
+      });
+
+      it('should throw when the call fails', async () => {
+        fetchMock.post(`${base}/connect/FooEndpoint/list`, {
+          body: { message: 'Something bad happened', type: 'java.lang.IllegalStateException' },
+          status: 400,
+        });
+
+        await expect(collect(client.iterate('FooEndpoint', 'list'))).to.be.rejectedWith(EndpointError);
+      });
+    });
+
     describe('subscribe method', () => {
       let client: ConnectClient;
 
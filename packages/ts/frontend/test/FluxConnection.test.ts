@@ -73,6 +73,7 @@ describe('@vaadin/hilla-frontend', () => {
           id: '0',
           methodName,
           params: [],
+          request: 64,
         }),
       );
     });
@@ -114,6 +115,80 @@ describe('@vaadin/hilla-frontend', () => {
       expect(receivedValues[0]).to.eql({ foo: 'bar' });
     });
 
+    it('should handle all messages of a batched frame in order', () => {
+      const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
+      const receivedValues: any[] = [];
+      sub.onNext((value: any) => {
+        receivedValues.push(value);
+      });
+      const onComplete = sinon.stub();
+      sub.onComplete(onComplete);
+      const frame: AbstractMessage[] = [
+        { '@type': 'update', id: '0', item: 1 } as ClientUpdateMessage,
+        { '@type': 'update', id: '0', item: 2 } as ClientUpdateMessage,
+        { '@type': 'complete', id: '0' } as ClientCompleteMessage,
+      ];
+      getSubscriptionEventSpies()?.onMessage?.({ responseBody: JSON.stringify(frame) });
+      expect(receivedValues).to.eql([1, 2]);
+      expect(onComplete).to.have.been.calledOnce;
+    });
+
+    it('should request more items when half of the credits are used', () => {
+      const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
+      sub.onNext(sinon.stub());
+      for (let i = 0; i < 31; i++) {
+        emitMessage({ '@type': 'update', id: '0', item: i, credits: i === 0 || undefined } as ClientUpdateMessage);
+      }
+      expect(getEmittedMessagesCount()).to.equal(1);
+
+      emitMessage({ '@type': 'update', id: '0', item: 31 } as ClientUpdateMessage);
+      expect(getEmittedMessagesCount()).to.equal(2);
+      expect(getLastEmittedMessage()).to.eql({ '@type': 'request', id: '0', n: 32 });
+    });
+
+    it('should not request more items when the server does not use the credits', () => {
+      const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
+      sub.onNext(sinon.stub());
+      for (let i = 0; i < 64; i++) {
+        emitMessage({ '@type': 'update', id: '0', item: i } as ClientUpdateMessage);
+      }
+
+      expect(getEmittedMessagesCount()).to.equal(1);
+    });
+
+    it('should keep requesting items when reconnected without resubscribing', () => {
+      const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
+      sub.onNext(sinon.stub());
+      fluxConnection.state = State.INACTIVE;
+      getSubscriptionEventSpies()?.onReconnect?.();
+      for (let i = 0; i < 32; i++) {
+        emitMessage({ '@type': 'update', id: '0', item: i, credits: i === 0 || undefined } as ClientUpdateMessage);
+      }
+
+      getSubscriptionEventSpies()?.onReopen?.();
+      expect(getLastEmittedMessage()).to.eql({ '@type': 'request', id: '0', n: 32 });
+    });
+
+    it('should not send the credits of a lost subscription when resubscribing', () => {
+      const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
+      sub.onNext(sinon.stub());
+      sub.onSubscriptionLost(() => ActionOnLostSubscription.RESUBSCRIBE);
+      getSubscriptionEventSpies()?.onClose?.();
+      for (let i = 0; i < 32; i++) {
+        emitMessage({ '@type': 'update', id: '0', item: i, credits: i === 0 || undefined } as ClientUpdateMessage);
+      }
+
+      getSubscriptionEventSpies()?.onOpen?.();
+      expect(getEmittedMessagesCount()).to.equal(2);
+      expect(getLastEmittedMessage()).to.eql({
+        '@type': 'subscribe',
+        endpointName: 'MyEndpoint',
+        id: '0',
+        methodName: 'myMethod',
+        request: 64,
+      });
+    });
+
     it('should call onComplete when receiving a server message', () => {
       const sub = fluxConnection.subscribe('MyEndpoint', 'myMethod');
       const onComplete = sinon.stub();
@@ -385,6 +460,7 @@ describe('@vaadin/hilla-frontend', () => {
         id: '0',
         methodName: 'myMethod',
         params: [2, 'a'],
+        request: 64,
       });
 
       // onClose => onReconnect => onReopen should resubscribe